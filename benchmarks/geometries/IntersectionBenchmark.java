@@ -0,0 +1,52 @@
+package geometries;
+
+import harness.Microbenchmark;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+/**
+ * Microbenchmarks of the intersection kernels of the basic geometries.
+ * Each geometry is measured with a ray which hits it, a ray which misses it (away from the plane),
+ * and a grazing ray - a ray tangent to the sphere, a ray almost parallel to the plane, and rays through
+ * an edge of the triangle and a vertex of the polygon - where the kernels take their boundary branches.
+ */
+public class IntersectionBenchmark {
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args The options of the harness - see {@link Microbenchmark}.
+     */
+    public static void main(String[] args) {
+        Point origin = new Point(0, 0, 10);
+        Sphere sphere = new Sphere(new Point(0, 0, -10), 5);
+        Plane plane = new Plane(new Point(0, 0, -10), new Vector(0, 0, 1));
+        Triangle triangle = new Triangle(new Point(-5, -5, -10), new Point(5, -5, -10), new Point(0, 5, -10));
+        Polygon polygon = new Polygon(new Point(-5, -5, -10), new Point(5, -5, -10), new Point(5, 5, -10),
+                new Point(-5, 5, -10));
+
+        Ray hit = new Ray(origin, new Vector(0.1, 0.1, -1));
+        Ray miss = new Ray(origin, new Vector(1, 1, -1));
+        Ray away = new Ray(origin, new Vector(0, 0, 1));
+        Ray tangent = new Ray(new Point(5, 0, 10), new Vector(0, 0, -1));
+        Ray nearlyParallel = new Ray(origin, new Vector(1, 0, -1e-3));
+        Ray throughEdge = new Ray(new Point(0, -5, 10), new Vector(0, 0, -1));
+        Ray throughVertex = new Ray(new Point(5, 5, 10), new Vector(0, 0, -1));
+
+        new Microbenchmark("Intersections", args)
+                .add("Sphere.hit", (i, hole) -> hole.consume(sphere.findGeoIntersections(hit)))
+                .add("Sphere.miss", (i, hole) -> hole.consume(sphere.findGeoIntersections(miss)))
+                .add("Sphere.grazing", (i, hole) -> hole.consume(sphere.findGeoIntersections(tangent)))
+                .add("Plane.hit", (i, hole) -> hole.consume(plane.findGeoIntersections(hit)))
+                .add("Plane.miss", (i, hole) -> hole.consume(plane.findGeoIntersections(away)))
+                .add("Plane.grazing", (i, hole) -> hole.consume(plane.findGeoIntersections(nearlyParallel)))
+                .add("Triangle.hit", (i, hole) -> hole.consume(triangle.findGeoIntersections(hit)))
+                .add("Triangle.miss", (i, hole) -> hole.consume(triangle.findGeoIntersections(miss)))
+                .add("Triangle.grazing", (i, hole) -> hole.consume(triangle.findGeoIntersections(throughEdge)))
+                .add("Polygon.hit", (i, hole) -> hole.consume(polygon.findGeoIntersections(hit)))
+                .add("Polygon.miss", (i, hole) -> hole.consume(polygon.findGeoIntersections(miss)))
+                .add("Polygon.grazing", (i, hole) -> hole.consume(polygon.findGeoIntersections(throughVertex)))
+                .run();
+    }
+}
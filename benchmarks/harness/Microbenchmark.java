@@ -0,0 +1,239 @@
+package harness;
+
+import java.lang.management.ManagementFactory;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Locale;
+
+/**
+ * Minimal microbenchmark harness: each benchmark is warmed up, then measured over several timed iterations,
+ * and its average time and allocation per operation are reported.
+ * The time is measured in batches of operations, so the clock is read rarely; the allocation is read from
+ * the allocation counter of the current thread, so the benchmarks run in the calling thread only.
+ * The operations hand their results to a {@link Blackhole}, so the JIT compiler cannot drop them.
+ * <p>
+ * Command line options (of the main method of each suite):
+ * <ul>
+ * <li>{@code -wi <n>} - warmup iterations (default 5)</li>
+ * <li>{@code -i <n>} - measurement iterations (default 5)</li>
+ * <li>{@code -t <ms>} - the time of each iteration in milliseconds (default 200)</li>
+ * <li>any other argument - run only the benchmarks whose name contains it</li>
+ * </ul>
+ */
+public final class Microbenchmark {
+
+    /**
+     * The amount of operations between two readings of the clock
+     */
+    private static final int BATCH = 1024;
+
+    /**
+     * A benchmarked operation.
+     */
+    @FunctionalInterface
+    public interface Operation {
+        /**
+         * Performs the operation once.
+         *
+         * @param index The index of the operation, for picking one of several precomputed inputs.
+         * @param hole  The sink of the result.
+         */
+        void run(int index, Blackhole hole);
+    }
+
+    /**
+     * Sink of the results of the operations, which keeps the JIT compiler from eliminating them.
+     */
+    public static final class Blackhole {
+        /**
+         * The mixed results
+         */
+        private long sink;
+        /**
+         * The last consumed object - storing it makes it escape, so its allocation cannot be eliminated
+         */
+        private Object last;
+
+        /**
+         * Consumes a number.
+         *
+         * @param value The number.
+         */
+        public void consume(double value) {
+            sink += Double.doubleToRawLongBits(value);
+        }
+
+        /**
+         * Consumes a flag.
+         *
+         * @param value The flag.
+         */
+        public void consume(boolean value) {
+            if (value) ++sink;
+        }
+
+        /**
+         * Consumes an object.
+         *
+         * @param value The object, or null.
+         */
+        public void consume(Object value) {
+            last = value;
+        }
+    }
+
+    /**
+     * A registered benchmark.
+     *
+     * @param name      The name.
+     * @param operation The operation.
+     */
+    private record Benchmark(String name, Operation operation) {
+    }
+
+    /**
+     * The result of a benchmark.
+     *
+     * @param name       The name.
+     * @param nanosPerOp The average time of an operation in nanoseconds.
+     * @param errorPerOp The standard deviation of the time over the iterations.
+     * @param bytesPerOp The average allocation of an operation in bytes.
+     */
+    public record Result(String name, double nanosPerOp, double errorPerOp, double bytesPerOp) {
+    }
+
+    /**
+     * The title of the suite
+     */
+    private final String title;
+    /**
+     * The registered benchmarks, in the order of their registration
+     */
+    private final List<Benchmark> benchmarks = new ArrayList<>();
+    /**
+     * The amount of warmup and measurement iterations
+     */
+    private int warmupIterations = 5, iterations = 5;
+    /**
+     * The time of each iteration in nanoseconds
+     */
+    private long iterationNanos = 200_000_000L;
+    /**
+     * The filters of the names of the benchmarks to run, empty for all
+     */
+    private final List<String> filters = new ArrayList<>();
+
+    /**
+     * Constructs a suite of benchmarks.
+     *
+     * @param title The title of the suite.
+     * @param args  The command line options.
+     * @throws IllegalArgumentException if an option is malformed
+     */
+    public Microbenchmark(String title, String... args) {
+        this.title = title;
+        for (int i = 0; i < args.length; ++i) {
+            switch (args[i]) {
+                case "-wi" -> warmupIterations = count(args, ++i, 0);
+                case "-i" -> iterations = count(args, ++i, 1);
+                case "-t" -> iterationNanos = count(args, ++i, 1) * 1_000_000L;
+                default -> filters.add(args[i]);
+            }
+        }
+    }
+
+    /**
+     * Registers a benchmark.
+     *
+     * @param name      The name of the benchmark.
+     * @param operation The operation.
+     * @return This suite for chaining method calls.
+     */
+    public Microbenchmark add(String name, Operation operation) {
+        benchmarks.add(new Benchmark(name, operation));
+        return this;
+    }
+
+    /**
+     * Runs the benchmarks which pass the filters and prints a table of their results.
+     *
+     * @return The results.
+     */
+    public List<Result> run() {
+        com.sun.management.ThreadMXBean threads = (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+        Blackhole hole = new Blackhole();
+        List<Result> results = new ArrayList<>();
+        System.out.println("# " + title);
+        System.out.printf(Locale.ROOT, "%-40s %12s %10s %10s%n", "Benchmark", "ns/op", "error", "B/op");
+        for (Benchmark benchmark : benchmarks) {
+            if (!filters.isEmpty() && filters.stream().noneMatch(benchmark.name()::contains))
+                continue;
+            for (int i = 0; i < warmupIterations; ++i)
+                iteration(benchmark.operation(), hole);
+
+            double[] nanos = new double[iterations];
+            long operations = 0;
+            long bytes = threads.getCurrentThreadAllocatedBytes();
+            for (int i = 0; i < iterations; ++i) {
+                long[] iteration = iteration(benchmark.operation(), hole);
+                nanos[i] = (double) iteration[0] / iteration[1];
+                operations += iteration[1];
+            }
+            // The bookkeeping of the iterations allocates a few bytes - nothing against millions of operations
+            bytes = threads.getCurrentThreadAllocatedBytes() - bytes;
+
+            double mean = 0, variance = 0;
+            for (double value : nanos) mean += value / iterations;
+            for (double value : nanos) variance += (value - mean) * (value - mean) / iterations;
+            Result result = new Result(benchmark.name(), mean, Math.sqrt(variance), (double) bytes / operations);
+            results.add(result);
+            System.out.printf(Locale.ROOT, "%-40s %12.2f %10.2f %10.1f%n",
+                    result.name(), result.nanosPerOp(), result.errorPerOp(), result.bytesPerOp());
+        }
+        // Keep the sink alive past all the benchmarks
+        if (hole.sink == 42 && hole.last == hole) System.out.print("");
+        return results;
+    }
+
+    /**
+     * Runs an operation in batches for the time of an iteration.
+     *
+     * @param operation The operation.
+     * @param hole      The sink of the results.
+     * @return The elapsed time in nanoseconds and the amount of operations.
+     */
+    private long[] iteration(Operation operation, Blackhole hole) {
+        long operations = 0;
+        long start = System.nanoTime(), elapsed;
+        do {
+            for (int i = 0; i < BATCH; ++i)
+                operation.run(i, hole);
+            operations += BATCH;
+            elapsed = System.nanoTime() - start;
+        } while (elapsed < iterationNanos);
+        return new long[]{elapsed, operations};
+    }
+
+    /**
+     * Parses the count of an option.
+     *
+     * @param args  The command line options.
+     * @param index The index of the count.
+     * @param min   The minimal count.
+     * @return The count.
+     * @throws IllegalArgumentException if the count is missing, malformed or too small
+     */
+    private static int count(String[] args, int index, int min) {
+        if (index >= args.length)
+            throw new IllegalArgumentException("Option " + args[index - 1] + " needs a count");
+        int count;
+        try {
+            count = Integer.parseInt(args[index]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Option " + args[index - 1] + " needs a count", e);
+        }
+        if (count < min)
+            throw new IllegalArgumentException("Option " + args[index - 1] + " must be at least " + min);
+        return count;
+    }
+}
@@ -0,0 +1,56 @@
+package primitives;
+
+import harness.Microbenchmark;
+
+import java.util.Random;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * Microbenchmarks of the vector arithmetic and the numeric utilities, which all the intersection and
+ * shading code is made of.
+ * The operands are picked from a table of random vectors, so the results cannot be folded into constants.
+ */
+public class PrimitivesBenchmark {
+
+    /**
+     * The size of the operand tables (a power of 2)
+     */
+    private static final int SIZE = 1024;
+    /**
+     * The mask of an index into the operand tables
+     */
+    private static final int MASK = SIZE - 1;
+
+    /**
+     * Runs the benchmarks.
+     *
+     * @param args The options of the harness - see {@link Microbenchmark}.
+     */
+    public static void main(String[] args) {
+        Random random = new Random(0);
+        Vector[] vectors = new Vector[SIZE];
+        Point[] points = new Point[SIZE];
+        double[] numbers = new double[SIZE];
+        for (int i = 0; i < SIZE; ++i) {
+            vectors[i] = new Vector(random.nextDouble() + 0.1, random.nextDouble() - 0.5, random.nextDouble() - 0.5);
+            points[i] = new Point(random.nextDouble() * 100, random.nextDouble() * 100, random.nextDouble() * 100);
+            // A quarter of the numbers are within the accuracy of zero
+            numbers[i] = i % 4 == 0 ? random.nextDouble() * 1e-13 : random.nextDouble() - 0.5;
+        }
+
+        new Microbenchmark("Primitives", args)
+                .add("Vector.add", (i, hole) -> hole.consume(vectors[i & MASK].add(vectors[(i + 1) & MASK])))
+                .add("Vector.scale", (i, hole) -> hole.consume(vectors[i & MASK].scale(numbers[(i + 1) & MASK] + 1)))
+                .add("Vector.normalize", (i, hole) -> hole.consume(vectors[i & MASK].normalize()))
+                .add("Vector.crossProduct", (i, hole) ->
+                        hole.consume(vectors[i & MASK].crossProduct(vectors[(i + 1) & MASK])))
+                .add("Vector.dotProduct", (i, hole) -> hole.consume(vectors[i & MASK].dotProduct(vectors[(i + 1) & MASK])))
+                .add("Point.subtract", (i, hole) -> hole.consume(points[i & MASK].subtract(points[(i + 1) & MASK])))
+                .add("Point.distance", (i, hole) -> hole.consume(points[i & MASK].distance(points[(i + 1) & MASK])))
+                .add("Util.isZero", (i, hole) -> hole.consume(isZero(numbers[i & MASK])))
+                .add("Util.alignZero", (i, hole) -> hole.consume(alignZero(numbers[i & MASK])))
+                .run();
+    }
+}
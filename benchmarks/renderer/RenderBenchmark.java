@@ -0,0 +1,301 @@
+package renderer;
+
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.lang.management.ManagementFactory;
+import java.lang.management.MemoryPoolMXBean;
+import java.lang.management.MemoryType;
+import java.lang.reflect.Constructor;
+import java.lang.reflect.Field;
+import java.lang.reflect.InvocationTargetException;
+import java.lang.reflect.Method;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+/**
+ * End-to-end render benchmark over the scenes of the rendering tests.
+ * Each test method of the workload classes is a workload: a fresh instance of its class is made for every
+ * run, the camera builders in its fields are given the thread count of the run and the statistics of the
+ * run, and the method is invoked. Every workload is warmed up and then run several times at each thread
+ * count, and the median wall time, the rays per second by kind, the speedup over a single thread and the
+ * peak heap are reported, and written as JSON. The rendering is deterministic (seeded), so all the runs
+ * of a workload cast the same rays.
+ * Given a baseline file written by an earlier run, the results are compared to it and the runner fails
+ * if a workload became slower than the tolerance.
+ * <p>
+ * Command line options:
+ * <ul>
+ * <li>{@code -w <n>} - warmup runs of each workload (default 1)</li>
+ * <li>{@code -r <n>} - measured runs of each workload and thread count (default 3)</li>
+ * <li>{@code -t <n>} - the highest thread count (default the available processors);
+ * the workloads run with 1, 2, 4... threads up to it</li>
+ * <li>{@code -o <file>} - the JSON output (default render-benchmark.json)</li>
+ * <li>{@code -b <file>} - the baseline to compare to</li>
+ * <li>{@code -tolerance <percent>} - the allowed slowdown from the baseline (default 10)</li>
+ * <li>any other argument - run only the workloads whose name contains it</li>
+ * </ul>
+ * The brick wall scenes (finals) are heavy - filter them out for a quick run.
+ */
+public class RenderBenchmark {
+
+    /**
+     * The classes whose test methods are the workloads
+     */
+    private static final String[] WORKLOAD_CLASSES = {
+            "renderer.RenderTests", "renderer.ShadowTests", "renderer.ReflectionRefractionTests",
+            "finals.Minip1Test", "finals.Minip2Test"
+    };
+
+    /**
+     * A workload - a test method of a workload class.
+     *
+     * @param name   The name (class and method).
+     * @param method The test method.
+     */
+    private record Workload(String name, Method method) {
+    }
+
+    /**
+     * The result of a workload at a thread count.
+     *
+     * @param name                   The name of the workload.
+     * @param threads                The thread count.
+     * @param wallMillis             The median wall time in milliseconds.
+     * @param minMillis              The shortest wall time in milliseconds.
+     * @param primaryRaysPerSecond   The primary rays per second of the median run.
+     * @param shadowRaysPerSecond    The shadow rays per second of the median run.
+     * @param secondaryRaysPerSecond The secondary rays per second of the median run.
+     * @param speedup                The speedup of the median run over a single thread.
+     * @param peakHeapBytes          The highest peak of the heap over the runs.
+     */
+    private record Result(String name, int threads, double wallMillis, double minMillis,
+                          double primaryRaysPerSecond, double shadowRaysPerSecond, double secondaryRaysPerSecond,
+                          double speedup, long peakHeapBytes) {
+        /**
+         * Formats the result as a JSON object on a single line.
+         *
+         * @return The JSON object.
+         */
+        String toJson() {
+            return String.format(Locale.ROOT, "{\"name\":\"%s\",\"threads\":%d,\"wallMillis\":%.3f,"
+                            + "\"minMillis\":%.3f,\"primaryRaysPerSecond\":%.1f,\"shadowRaysPerSecond\":%.1f,"
+                            + "\"secondaryRaysPerSecond\":%.1f,\"speedup\":%.3f,\"peakHeapBytes\":%d}",
+                    name, threads, wallMillis, minMillis, primaryRaysPerSecond, shadowRaysPerSecond,
+                    secondaryRaysPerSecond, speedup, peakHeapBytes);
+        }
+    }
+
+    /**
+     * The pattern of the key fields of a result in the JSON output
+     */
+    private static final Pattern RESULT = Pattern.compile(
+            "\"name\":\"([^\"]*)\",\"threads\":(\\d+),\"wallMillis\":([0-9.]+)");
+
+    /**
+     * Runs the benchmark.
+     *
+     * @param args The command line options.
+     * @throws Exception if a workload fails or a file cannot be read or written
+     */
+    public static void main(String[] args) throws Exception {
+        int warmups = 1, runs = 3;
+        int maxThreads = Runtime.getRuntime().availableProcessors();
+        double tolerance = 10;
+        Path output = Path.of("render-benchmark.json"), baseline = null;
+        List<String> filters = new ArrayList<>();
+        for (int i = 0; i < args.length; ++i) {
+            switch (args[i]) {
+                case "-w" -> warmups = Integer.parseInt(value(args, ++i));
+                case "-r" -> runs = Integer.parseInt(value(args, ++i));
+                case "-t" -> maxThreads = Integer.parseInt(value(args, ++i));
+                case "-o" -> output = Path.of(value(args, ++i));
+                case "-b" -> baseline = Path.of(value(args, ++i));
+                case "-tolerance" -> tolerance = Double.parseDouble(value(args, ++i));
+                default -> filters.add(args[i]);
+            }
+        }
+        if (warmups < 0 || runs < 1 || maxThreads < 1)
+            throw new IllegalArgumentException("Bad run or thread count");
+
+        List<Integer> threadCounts = new ArrayList<>();
+        for (int threads = 1; threads < maxThreads; threads *= 2)
+            threadCounts.add(threads);
+        threadCounts.add(maxThreads);
+
+        // The workloads write their images like the tests do
+        Files.createDirectories(Path.of(System.getProperty("user.dir"), "images"));
+        List<Result> results = new ArrayList<>();
+        for (Workload workload : workloads(filters)) {
+            for (int i = 0; i < warmups; ++i)
+                run(workload, maxThreads, new RenderStatistics());
+            double single = 0;
+            for (int threads : threadCounts) {
+                double[] millis = new double[runs];
+                RenderStatistics[] statistics = new RenderStatistics[runs];
+                long peakHeap = 0;
+                for (int i = 0; i < runs; ++i) {
+                    statistics[i] = new RenderStatistics();
+                    System.gc();
+                    resetPeakHeap();
+                    millis[i] = run(workload, threads, statistics[i]);
+                    peakHeap = Math.max(peakHeap, peakHeap());
+                }
+                Integer[] order = new Integer[runs];
+                for (int i = 0; i < runs; ++i) order[i] = i;
+                Arrays.sort(order, (a, b) -> Double.compare(millis[a], millis[b]));
+                int median = order[runs / 2];
+                double seconds = millis[median] / 1000;
+                if (threads == 1) single = millis[median];
+                Result result = new Result(workload.name(), threads, millis[median], millis[order[0]],
+                        statistics[median].getPrimaryRays() / seconds, statistics[median].getShadowRays() / seconds,
+                        statistics[median].getSecondaryRays() / seconds, single / millis[median], peakHeap);
+                results.add(result);
+                System.out.printf(Locale.ROOT,
+                        "%-55s %2d threads %10.1f ms %12.0f primary/s %12.0f shadow/s %12.0f secondary/s x%.2f %6d MB%n",
+                        result.name(), threads, result.wallMillis(), result.primaryRaysPerSecond(),
+                        result.shadowRaysPerSecond(), result.secondaryRaysPerSecond(), result.speedup(),
+                        result.peakHeapBytes() >> 20);
+            }
+        }
+
+        StringBuilder json = new StringBuilder("{\"results\":[\n");
+        for (int i = 0; i < results.size(); ++i)
+            json.append("  ").append(results.get(i).toJson()).append(i + 1 < results.size() ? ",\n" : "\n");
+        json.append("]}\n");
+        Files.writeString(output, json);
+        System.out.println("Results written to " + output.toAbsolutePath());
+
+        if (baseline != null && !compare(results, baseline, tolerance))
+            System.exit(1);
+    }
+
+    /**
+     * Finds the workloads which pass the filters.
+     *
+     * @param filters The filters of the names, empty for all.
+     * @return The workloads.
+     * @throws ClassNotFoundException if a workload class is missing
+     */
+    private static List<Workload> workloads(List<String> filters) throws ClassNotFoundException {
+        List<Workload> workloads = new ArrayList<>();
+        for (String className : WORKLOAD_CLASSES) {
+            Class<?> type = Class.forName(className);
+            for (Method method : type.getDeclaredMethods()) {
+                String name = type.getSimpleName() + "." + method.getName();
+                if (method.isAnnotationPresent(Test.class)
+                        && (filters.isEmpty() || filters.stream().anyMatch(name::contains)))
+                    workloads.add(new Workload(name, method));
+            }
+        }
+        workloads.sort((a, b) -> a.name().compareTo(b.name()));
+        return workloads;
+    }
+
+    /**
+     * Runs a workload once.
+     *
+     * @param workload   The workload.
+     * @param threads    The thread count of the cameras.
+     * @param statistics The statistics of the run.
+     * @return The wall time in milliseconds.
+     * @throws ReflectiveOperationException if the workload cannot be run
+     */
+    private static double run(Workload workload, int threads, RenderStatistics statistics)
+            throws ReflectiveOperationException {
+        Class<?> type = workload.method().getDeclaringClass();
+        Constructor<?> constructor = type.getDeclaredConstructor();
+        constructor.setAccessible(true);
+        Object instance = constructor.newInstance();
+        for (Field field : type.getDeclaredFields())
+            if (field.getType() == Camera.Builder.class) {
+                field.setAccessible(true);
+                ((Camera.Builder) field.get(instance)).setThreadsCount(threads).setStatistics(statistics);
+            }
+
+        Method method = workload.method();
+        method.setAccessible(true);
+        long start = System.nanoTime();
+        try {
+            method.invoke(instance);
+        } catch (InvocationTargetException e) {
+            throw new IllegalStateException("Workload " + workload.name() + " failed", e.getCause());
+        }
+        return (System.nanoTime() - start) / 1e6;
+    }
+
+    /**
+     * Resets the peak usage of the heap memory pools.
+     */
+    private static void resetPeakHeap() {
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP) pool.resetPeakUsage();
+    }
+
+    /**
+     * Returns the peak usage of the heap since the last reset - the sum of the peaks of its pools.
+     *
+     * @return The peak usage in bytes.
+     */
+    private static long peakHeap() {
+        long peak = 0;
+        for (MemoryPoolMXBean pool : ManagementFactory.getMemoryPoolMXBeans())
+            if (pool.getType() == MemoryType.HEAP) peak += pool.getPeakUsage().getUsed();
+        return peak;
+    }
+
+    /**
+     * Compares the results to a baseline and prints the changes of the wall times.
+     *
+     * @param results   The results.
+     * @param baseline  The baseline file, written by an earlier run.
+     * @param tolerance The allowed slowdown in percent.
+     * @return true if no workload is slower than the tolerance.
+     * @throws IOException if the baseline cannot be read
+     */
+    private static boolean compare(List<Result> results, Path baseline, double tolerance) throws IOException {
+        Map<String, Double> base = new HashMap<>();
+        Matcher matcher = RESULT.matcher(Files.readString(baseline));
+        while (matcher.find())
+            base.put(matcher.group(1) + "@" + matcher.group(2), Double.parseDouble(matcher.group(3)));
+
+        boolean passed = true;
+        System.out.println("Compared to " + baseline.toAbsolutePath() + ":");
+        for (Result result : results) {
+            Double before = base.get(result.name() + "@" + result.threads());
+            if (before == null) {
+                System.out.printf(Locale.ROOT, "%-55s %2d threads     (not in the baseline)%n",
+                        result.name(), result.threads());
+                continue;
+            }
+            double change = (result.wallMillis() / before - 1) * 100;
+            boolean regression = change > tolerance;
+            passed &= !regression;
+            System.out.printf(Locale.ROOT, "%-55s %2d threads %+8.1f%%%s%n",
+                    result.name(), result.threads(), change, regression ? "  REGRESSION" : "");
+        }
+        return passed;
+    }
+
+    /**
+     * Returns the value of an option.
+     *
+     * @param args  The command line options.
+     * @param index The index of the value.
+     * @return The value.
+     * @throws IllegalArgumentException if the value is missing
+     */
+    private static String value(String[] args, int index) {
+        if (index >= args.length)
+            throw new IllegalArgumentException("Option " + args[index - 1] + " needs a value");
+        return args[index];
+    }
+}
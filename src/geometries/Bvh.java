@@ -0,0 +1,370 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.Arrays;
+import java.util.function.IntPredicate;
+
+/**
+ * Flat bounding volume hierarchy (BVH) over a set of primitives, where each primitive is known only by
+ * its index and its axis-aligned bounding box.
+ * The tree is kept in parallel arrays (no node objects) in depth-first order: the left child of an inner
+ * node always directly follows it, and the index of the right child is stored in the node itself.
+ */
+final class Bvh {
+
+    /**
+     * Maximum amount of primitives in a leaf node
+     */
+    private static final int LEAF_SIZE = 4;
+
+    /**
+     * Size of the traversal stack - enough for a balanced tree over any array-indexed amount of primitives
+     */
+    private static final int STACK_SIZE = 64;
+
+    /**
+     * Node boxes - 6 numbers per node: minimum x, y, z and then maximum x, y, z
+     */
+    final double[] bounds;
+
+    /**
+     * Node links - 2 numbers per node.
+     * For a leaf: the first position in {@link #order} and the (non-negative) amount of primitives.
+     * For an inner node: the index of the right child and -(split axis + 1).
+     */
+    final int[] nodes;
+
+    /**
+     * Primitive indices ordered so that each leaf refers to a contiguous range
+     */
+    final int[] order;
+
+    /**
+     * A callback for the primitives found in the leaves reached by a ray.
+     */
+    interface Visitor {
+        /**
+         * Visits a primitive whose leaf box is crossed by the ray.
+         *
+         * @param primitive   The index of the primitive.
+         * @param maxDistance The current maximum distance of the traversal.
+         * @return The maximum distance for the rest of the traversal (may be reduced to prune farther nodes,
+         * or negative to stop the traversal).
+         */
+        double visit(int primitive, double maxDistance);
+    }
+
+    /**
+     * Constructs a BVH from its already built arrays.
+     *
+     * @param bounds The node boxes.
+     * @param nodes  The node links.
+     * @param order  The ordered primitive indices.
+     */
+    Bvh(double[] bounds, int[] nodes, int[] order) {
+        this.bounds = bounds;
+        this.nodes = nodes;
+        this.order = order;
+    }
+
+    /**
+     * Builds a BVH over primitives by median splits along the longest axis of their centroids.
+     *
+     * @param boxes The primitive boxes - 6 numbers per primitive, in the same layout as {@link #bounds}.
+     * @param count The amount of primitives.
+     * @return The built BVH.
+     */
+    static Bvh build(double[] boxes, int count) {
+        return build(boxes, count, 0);
+    }
+
+    /**
+     * Builds a BVH over primitives by median splits along the longest axis of their centroids, and records
+     * the build as a flight recorder event.
+     *
+     * @param boxes     The primitive boxes - 6 numbers per primitive, in the same layout as {@link #bounds}.
+     * @param count     The amount of primitives.
+     * @param unbounded The amount of primitives of the owner kept outside the BVH (for the event only).
+     * @return The built BVH.
+     */
+    static Bvh build(double[] boxes, int count, int unbounded) {
+        BvhBuildEvent event = new BvhBuildEvent();
+        event.begin();
+        Builder builder = new Builder(boxes, count);
+        builder.buildNode(0, count);
+        Bvh bvh = new Bvh(
+                Arrays.copyOf(builder.bounds, 6 * builder.size),
+                Arrays.copyOf(builder.nodes, 2 * builder.size),
+                builder.order
+        );
+        event.end();
+        if (event.shouldCommit()) {
+            event.bounded = count;
+            event.unbounded = unbounded;
+            event.nodes = builder.size;
+            event.commit();
+        }
+        return bvh;
+    }
+
+    /**
+     * Returns the box of all the primitives (the root node box).
+     *
+     * @return 6 numbers: minimum x, y, z and then maximum x, y, z.
+     */
+    double[] getRootBounds() {
+        return Arrays.copyOf(bounds, 6);
+    }
+
+    /**
+     * Visits all the primitives in the leaves whose boxes are crossed by a ray within a maximum distance.
+     * The nearer child of each inner node is visited first.
+     *
+     * @param ray         The ray.
+     * @param maxDistance The maximum distance along the ray.
+     * @param visitor     The callback for the primitives.
+     * @return The amount of nodes whose boxes were tested against the ray.
+     */
+    int traverse(Ray ray, double maxDistance, Visitor visitor) {
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double ox = head.getX(), oy = head.getY(), oz = head.getZ();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+        // A zero component is replaced by the smallest normal number, so the slabs never produce 0 * infinity
+        double ix = 1 / (dx == 0 ? Double.MIN_NORMAL : dx);
+        double iy = 1 / (dy == 0 ? Double.MIN_NORMAL : dy);
+        double iz = 1 / (dz == 0 ? Double.MIN_NORMAL : dz);
+
+        int[] stack = new int[STACK_SIZE];
+        int top = 0;
+        int node = 0;
+        int visited = 0;
+        while (true) {
+            ++visited;
+            if (hitsBox(6 * node, ox, oy, oz, ix, iy, iz, maxDistance)) {
+                int link = nodes[2 * node];
+                int count = nodes[2 * node + 1];
+                if (count >= 0) {
+                    for (int i = link; i < link + count; ++i) {
+                        maxDistance = visitor.visit(order[i], maxDistance);
+                        if (maxDistance < 0) return visited;
+                    }
+                } else {
+                    // Visit first the child on the side the ray comes from
+                    int axis = -count - 1;
+                    double d = axis == 0 ? dx : axis == 1 ? dy : dz;
+                    if (d < 0) {
+                        stack[top++] = node + 1;
+                        node = link;
+                    } else {
+                        stack[top++] = link;
+                        node = node + 1;
+                    }
+                    continue;
+                }
+            }
+            if (top == 0) return visited;
+            node = stack[--top];
+        }
+    }
+
+    /**
+     * Finds a primitive whose box contains a point and which is accepted by a predicate.
+     *
+     * @param point     The point.
+     * @param tolerance The distance by which the boxes are extended for the containment check.
+     * @param accept    The predicate deciding whether a candidate primitive really contains the point.
+     * @return The index of the first accepted primitive, or -1 if there is none.
+     */
+    int find(Point point, double tolerance, IntPredicate accept) {
+        double x = point.getX(), y = point.getY(), z = point.getZ();
+        int[] stack = new int[STACK_SIZE];
+        int top = 0;
+        stack[top++] = 0;
+        while (top > 0) {
+            int node = stack[--top];
+            int b = 6 * node;
+            if (x < bounds[b] - tolerance || y < bounds[b + 1] - tolerance || z < bounds[b + 2] - tolerance
+                    || x > bounds[b + 3] + tolerance || y > bounds[b + 4] + tolerance || z > bounds[b + 5] + tolerance)
+                continue;
+            int link = nodes[2 * node];
+            int count = nodes[2 * node + 1];
+            if (count >= 0) {
+                for (int i = link; i < link + count; ++i)
+                    if (accept.test(order[i])) return order[i];
+            } else {
+                stack[top++] = link;
+                stack[top++] = node + 1;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Slab test of a ray against a node box.
+     *
+     * @param b           The offset of the box in {@link #bounds}.
+     * @param ox          The x-coordinate of the ray head.
+     * @param oy          The y-coordinate of the ray head.
+     * @param oz          The z-coordinate of the ray head.
+     * @param ix          The inverse of the x-component of the ray direction.
+     * @param iy          The inverse of the y-component of the ray direction.
+     * @param iz          The inverse of the z-component of the ray direction.
+     * @param maxDistance The maximum distance along the ray.
+     * @return true if the ray crosses the box within the distance, false otherwise.
+     */
+    private boolean hitsBox(int b, double ox, double oy, double oz,
+                            double ix, double iy, double iz, double maxDistance) {
+        double t1 = (bounds[b] - ox) * ix;
+        double t2 = (bounds[b + 3] - ox) * ix;
+        double tNear = Math.min(t1, t2);
+        double tFar = Math.max(t1, t2);
+
+        t1 = (bounds[b + 1] - oy) * iy;
+        t2 = (bounds[b + 4] - oy) * iy;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+
+        t1 = (bounds[b + 2] - oz) * iz;
+        t2 = (bounds[b + 5] - oz) * iz;
+        tNear = Math.max(tNear, Math.min(t1, t2));
+        tFar = Math.min(tFar, Math.max(t1, t2));
+
+        return tNear <= tFar && tFar >= 0 && tNear <= maxDistance;
+    }
+
+    /**
+     * Helper holding the growing arrays while a BVH is built.
+     */
+    private static final class Builder {
+        private final double[] boxes;
+        private final double[] centroids;
+        private final int[] order;
+        private double[] bounds;
+        private int[] nodes;
+        private int size = 0;
+
+        /**
+         * Prepares the build over the given primitive boxes.
+         *
+         * @param boxes The primitive boxes.
+         * @param count The amount of primitives.
+         */
+        Builder(double[] boxes, int count) {
+            this.boxes = boxes;
+            order = new int[count];
+            centroids = new double[3 * count];
+            for (int i = 0; i < count; ++i) {
+                order[i] = i;
+                for (int axis = 0; axis < 3; ++axis)
+                    centroids[3 * i + axis] = (boxes[6 * i + axis] + boxes[6 * i + 3 + axis]) / 2;
+            }
+            int capacity = Math.max(1, 2 * count / LEAF_SIZE);
+            bounds = new double[6 * capacity];
+            nodes = new int[2 * capacity];
+        }
+
+        /**
+         * Recursively builds the node over a range of {@link #order}.
+         *
+         * @param start The first position of the range (included).
+         * @param end   The last position of the range (excluded).
+         * @return The index of the built node.
+         */
+        int buildNode(int start, int end) {
+            int node = size++;
+            if (size * 2 > nodes.length) {
+                nodes = Arrays.copyOf(nodes, nodes.length * 2);
+                bounds = Arrays.copyOf(bounds, bounds.length * 2);
+            }
+
+            if (end - start <= LEAF_SIZE) {
+                // The box of a leaf is the box of its primitives
+                int b = 6 * node;
+                for (int axis = 0; axis < 3; ++axis) {
+                    bounds[b + axis] = Double.POSITIVE_INFINITY;
+                    bounds[b + 3 + axis] = Double.NEGATIVE_INFINITY;
+                }
+                for (int i = start; i < end; ++i) {
+                    int p = 6 * order[i];
+                    for (int axis = 0; axis < 3; ++axis) {
+                        bounds[b + axis] = Math.min(bounds[b + axis], boxes[p + axis]);
+                        bounds[b + 3 + axis] = Math.max(bounds[b + 3 + axis], boxes[p + 3 + axis]);
+                    }
+                }
+                nodes[2 * node] = start;
+                nodes[2 * node + 1] = end - start;
+                return node;
+            }
+
+            // Calculate the box of the primitive centroids
+            double minX = Double.POSITIVE_INFINITY, minY = Double.POSITIVE_INFINITY, minZ = Double.POSITIVE_INFINITY;
+            double maxX = Double.NEGATIVE_INFINITY, maxY = Double.NEGATIVE_INFINITY, maxZ = Double.NEGATIVE_INFINITY;
+            for (int i = start; i < end; ++i) {
+                int c = 3 * order[i];
+                minX = Math.min(minX, centroids[c]);
+                maxX = Math.max(maxX, centroids[c]);
+                minY = Math.min(minY, centroids[c + 1]);
+                maxY = Math.max(maxY, centroids[c + 1]);
+                minZ = Math.min(minZ, centroids[c + 2]);
+                maxZ = Math.max(maxZ, centroids[c + 2]);
+            }
+
+            // Split at the median along the longest axis of the centroids
+            int axis = maxX - minX >= maxY - minY
+                    ? (maxX - minX >= maxZ - minZ ? 0 : 2)
+                    : (maxY - minY >= maxZ - minZ ? 1 : 2);
+            int middle = (start + end) >>> 1;
+            select(start, end, middle, axis);
+
+            buildNode(start, middle);
+            int right = buildNode(middle, end);
+
+            // The box of an inner node is the union of the boxes of its children
+            int b = 6 * node;
+            int l = 6 * (node + 1);
+            int r = 6 * right;
+            for (int a = 0; a < 3; ++a) {
+                bounds[b + a] = Math.min(bounds[l + a], bounds[r + a]);
+                bounds[b + 3 + a] = Math.max(bounds[l + 3 + a], bounds[r + 3 + a]);
+            }
+            nodes[2 * node] = right;
+            nodes[2 * node + 1] = -(axis + 1);
+            return node;
+        }
+
+        /**
+         * Partially orders a range of {@link #order} (quick-select), so that the k-th position holds the
+         * primitive it would hold if the range were sorted by the centroids along the axis.
+         *
+         * @param start The first position of the range (included).
+         * @param end   The last position of the range (excluded).
+         * @param k     The position to be placed.
+         * @param axis  The axis of the centroids to compare.
+         */
+        private void select(int start, int end, int k, int axis) {
+            int low = start;
+            int high = end - 1;
+            while (high > low) {
+                double pivot = centroids[3 * order[(low + high) >>> 1] + axis];
+                int i = low;
+                int j = high;
+                while (i <= j) {
+                    while (centroids[3 * order[i] + axis] < pivot) ++i;
+                    while (centroids[3 * order[j] + axis] > pivot) --j;
+                    if (i <= j) {
+                        int temp = order[i];
+                        order[i++] = order[j];
+                        order[j--] = temp;
+                    }
+                }
+                if (k <= j) high = j;
+                else if (k >= i) low = i;
+                else return;
+            }
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package geometries;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of the build of a {@link Bvh}, over the geometries of a {@link GeometryBvh} or over
+ * the triangles of a {@link TriangleMesh}.
+ */
+@Name("geometries.BvhBuild")
+@Label("Accelerator Build")
+@Category({"Ray Tracer", "Scene"})
+@Description("The build of a BVH over geometries or over the triangles of a mesh")
+final class BvhBuildEvent extends Event {
+    @Label("Primitives")
+    @Description("The geometries or the triangles in the BVH")
+    int bounded;
+
+    @Label("Unbounded Geometries")
+    @Description("The geometries tested outside the BVH (none in a mesh)")
+    int unbounded;
+
+    @Label("Nodes")
+    int nodes;
+}
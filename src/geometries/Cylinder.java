@@ -20,6 +20,15 @@ public class Cylinder extends Tube {
         this.height = height;
     }
 
+    /**
+     * Returns the height of the cylinder.
+     *
+     * @return The height.
+     */
+    public double getHeight() {
+        return height;
+    }
+
     /**
      * Returns the normal vector to the cylinder at a given point.
      *
@@ -47,4 +56,29 @@ public class Cylinder extends Tube {
         // If the point is on the curved surface of the cylinder, use the Tube's normal calculation.
         return super.getNormal(point);
     }
+
+    /**
+     * Calculates the bounding box of the cylinder - the box of its two base discs.
+     * A base disc extends from its center by radius * sqrt(1 - d^2) along each axis, where d is the
+     * component of the (unit) cylinder axis direction along that axis.
+     *
+     * @return The bounding box.
+     */
+    @Override
+    protected double[] calcBoundingBox() {
+        Point bottom = axis.getHead();
+        Point top = axis.getPoint(height);
+        Vector direction = axis.getDirection();
+        double ex = radius * Math.sqrt(Math.max(0, 1 - direction.getX() * direction.getX()));
+        double ey = radius * Math.sqrt(Math.max(0, 1 - direction.getY() * direction.getY()));
+        double ez = radius * Math.sqrt(Math.max(0, 1 - direction.getZ() * direction.getZ()));
+        return new double[]{
+                Math.min(bottom.getX(), top.getX()) - ex,
+                Math.min(bottom.getY(), top.getY()) - ey,
+                Math.min(bottom.getZ(), top.getZ()) - ez,
+                Math.max(bottom.getX(), top.getX()) + ex,
+                Math.max(bottom.getY(), top.getY()) + ey,
+                Math.max(bottom.getZ(), top.getZ()) + ez
+        };
+    }
 }
@@ -3,7 +3,7 @@ package geometries;
 import primitives.Ray;
 
 import java.util.ArrayList;
-import java.util.LinkedList;
+import java.util.Collections;
 import java.util.List;
 
 /**
@@ -13,7 +13,7 @@ import java.util.List;
  */
 public class Geometries extends Intersectable {
 
-    private final List<Intersectable> geometries = new LinkedList<>();
+    private final List<Intersectable> geometries = new ArrayList<>();
 
     /**
      * Default constructor for Geometries.
@@ -39,6 +39,15 @@ public class Geometries extends Intersectable {
         this.geometries.addAll(List.of(geometries));
     }
 
+    /**
+     * Returns the geometries of the composite.
+     *
+     * @return An unmodifiable view of the geometries, in the order of addition.
+     */
+    public List<Intersectable> getGeometries() {
+        return Collections.unmodifiableList(geometries);
+    }
+
     /**
      * Finds geometric intersections of a given ray with the composite geometries.
      *
@@ -1,10 +1,14 @@
 package geometries;
 
+import lighting.LightSource;
 import primitives.Color;
 import primitives.Material;
 import primitives.Point;
 import primitives.Vector;
 
+import java.util.List;
+import java.util.Set;
+
 /**
  * abstract class representing a geometric body in 3D space.
  */
@@ -18,7 +22,39 @@ public abstract class Geometry extends Intersectable {
     /**
      * The material properties of the geometry, initialized to default material
      */
-    private Material material = new Material();
+    private Material material;
+
+    /**
+     * The only lights which illuminate the geometry, or null for all the lights
+     */
+    private Set<LightSource> includedLights = null;
+
+    /**
+     * The lights which do not illuminate the geometry, or null for none
+     */
+    private Set<LightSource> excludedLights = null;
+
+    /**
+     * Whether the geometry casts shadows
+     */
+    private boolean castsShadows = true;
+
+    /**
+     * Constructs a geometry with the default material.
+     */
+    protected Geometry() {
+        this(new Material());
+    }
+
+    /**
+     * Constructs a geometry with a material.
+     *
+     * @param material The material, or null for a view of a part of another geometry which overrides
+     *                 {@link #getMaterial()} with the material of that geometry.
+     */
+    Geometry(Material material) {
+        this.material = material;
+    }
 
     /**
      * Returns the emission color of the geometry.
@@ -67,4 +103,86 @@ public abstract class Geometry extends Intersectable {
         this.material = material;
         return this;
     }
+
+    /**
+     * Links the geometry to the only lights which illuminate it (light linking).
+     * The other lights are skipped when the geometry is shaded, without any shadow test.
+     *
+     * @param lights The lights which illuminate the geometry, or none for all the lights.
+     * @return the current geometry instance.
+     */
+    public Geometry includeLights(LightSource... lights) {
+        includedLights = lights.length == 0 ? null : Set.copyOf(List.of(lights));
+        return this;
+    }
+
+    /**
+     * Unlinks the geometry from lights which do not illuminate it (light linking).
+     * These lights are skipped when the geometry is shaded, without any shadow test.
+     *
+     * @param lights The lights which do not illuminate the geometry.
+     * @return the current geometry instance.
+     */
+    public Geometry excludeLights(LightSource... lights) {
+        excludedLights = lights.length == 0 ? null : Set.copyOf(List.of(lights));
+        return this;
+    }
+
+    /**
+     * Sets whether the geometry casts shadows. A geometry which casts no shadows (such as a large
+     * background) is left out of all the shadow tests.
+     *
+     * @param castsShadows true if the geometry casts shadows (the default), false otherwise.
+     * @return the current geometry instance.
+     */
+    public Geometry setCastsShadows(boolean castsShadows) {
+        this.castsShadows = castsShadows;
+        return this;
+    }
+
+    /**
+     * Returns the only lights which illuminate the geometry.
+     *
+     * @return The lights, or null for all the lights.
+     */
+    public Set<LightSource> getIncludedLights() {
+        return includedLights;
+    }
+
+    /**
+     * Returns the lights which do not illuminate the geometry.
+     *
+     * @return The lights, or null for none.
+     */
+    public Set<LightSource> getExcludedLights() {
+        return excludedLights;
+    }
+
+    /**
+     * Checks whether the geometry casts shadows.
+     *
+     * @return true if the geometry casts shadows, false otherwise.
+     */
+    public boolean castsShadows() {
+        return castsShadows;
+    }
+
+    /**
+     * Checks whether the geometry is linked to specific lights.
+     *
+     * @return true if some lights are included or excluded, false if all the lights illuminate the geometry.
+     */
+    public boolean isLightLinked() {
+        return includedLights != null || excludedLights != null;
+    }
+
+    /**
+     * Returns the geometry which holds the emission, the material and the light links of this one
+     * - itself, unless this geometry is a part of another geometry.
+     *
+     * @return The owning geometry.
+     */
+    public Geometry getOwner() {
+        return this;
+    }
 }
@@ -0,0 +1,260 @@
+package geometries;
+
+import primitives.Point;
+import primitives.Ray;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Immutable acceleration structure over a flat list of geometries.
+ * The bounded geometries are kept in a BVH over their bounding boxes, so a ray is tested only against
+ * the geometries whose boxes it crosses; the unbounded geometries (planes, tubes) are tested one by one.
+ */
+public final class GeometryBvh extends Intersectable {
+
+    /**
+     * The distance by which each bounding box is extended, so that rounding never loses a hit on a box face
+     */
+    private static final double BOX_PADDING = 1e-7;
+
+    /**
+     * The geometries in the BVH, by their primitive index
+     */
+    final Geometry[] bounded;
+
+    /**
+     * The geometries outside the BVH
+     */
+    final Geometry[] unbounded;
+
+    /**
+     * The BVH over the bounded geometries
+     */
+    final Bvh bvh;
+
+    /**
+     * Builds the acceleration structure.
+     *
+     * @param geometries The geometries.
+     */
+    public GeometryBvh(List<Geometry> geometries) {
+        List<Geometry> inBvh = new ArrayList<>();
+        List<Geometry> outOfBvh = new ArrayList<>();
+        List<double[]> boxes = new ArrayList<>();
+        for (Geometry geometry : geometries) {
+            double[] box = geometry.calcBoundingBox();
+            if (box == null) {
+                outOfBvh.add(geometry);
+            } else {
+                inBvh.add(geometry);
+                boxes.add(box);
+            }
+        }
+
+        double[] flat = new double[6 * boxes.size()];
+        for (int i = 0; i < boxes.size(); ++i)
+            for (int k = 0; k < 6; ++k)
+                flat[6 * i + k] = boxes.get(i)[k] + (k < 3 ? -BOX_PADDING : BOX_PADDING);
+
+        bounded = inBvh.toArray(new Geometry[0]);
+        unbounded = outOfBvh.toArray(new Geometry[0]);
+        bvh = Bvh.build(flat, bounded.length, unbounded.length);
+    }
+
+    /**
+     * Constructs an acceleration structure with an already built BVH (no validation is done).
+     *
+     * @param bounded   The geometries in the BVH, by their primitive index.
+     * @param unbounded The geometries outside the BVH.
+     * @param bvh       The BVH over the bounded geometries.
+     */
+    GeometryBvh(Geometry[] bounded, Geometry[] unbounded, Bvh bvh) {
+        this.bounded = bounded;
+        this.unbounded = unbounded;
+        this.bvh = bvh;
+    }
+
+    /**
+     * Checks whether the acceleration structure is over exactly some geometries, in any order.
+     *
+     * @param geometries The geometries.
+     * @return true if the structure holds all the geometries and no other one.
+     */
+    public boolean isOver(List<Geometry> geometries) {
+        if (geometries.size() != size())
+            return false;
+        Set<Geometry> held = Collections.newSetFromMap(new IdentityHashMap<>());
+        held.addAll(Arrays.asList(bounded));
+        held.addAll(Arrays.asList(unbounded));
+        for (Geometry geometry : geometries)
+            if (!held.remove(geometry))
+                return false;
+        return true;
+    }
+
+    /**
+     * Returns the amount of geometries.
+     *
+     * @return The geometry count.
+     */
+    public int size() {
+        return bounded.length + unbounded.length;
+    }
+
+    /**
+     * Returns the bounding box of the bounded geometries.
+     *
+     * @return The box as {minX, minY, minZ, maxX, maxY, maxZ}, or null if all the geometries are unbounded.
+     */
+    public double[] getBounds() {
+        return bounded.length == 0 ? null : bvh.getRootBounds();
+    }
+
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        return findGeoIntersections(ray, maxDistance, null);
+    }
+
+    /**
+     * Finds all the intersections of a ray with the geometries within a distance, and counts the work.
+     *
+     * @param ray         The ray.
+     * @param maxDistance The maximum distance along the ray.
+     * @param counter     The counter of the work, or null.
+     * @return The intersections, or null if there are none.
+     */
+    public List<GeoPoint> findGeoIntersections(Ray ray, double maxDistance, IntersectionCounter counter) {
+        List<GeoPoint> intersections = new ArrayList<>();
+        for (Geometry geometry : unbounded)
+            addAll(intersections, test(geometry, ray, maxDistance, counter));
+        if (bounded.length > 0) {
+            int nodes = bvh.traverse(ray, maxDistance, (primitive, distance) -> {
+                addAll(intersections, test(bounded[primitive], ray, distance, counter));
+                return distance;
+            });
+            if (counter != null) counter.countNodes(nodes);
+        }
+        return intersections.isEmpty() ? null : intersections;
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the geometries.
+     * Unlike {@link #findGeoIntersections(Ray)}, the search distance shrinks to the closest intersection
+     * found so far, so the farther parts of the BVH are skipped.
+     *
+     * @param ray The ray.
+     * @return The closest intersection, or null if there is none.
+     */
+    public GeoPoint findClosestGeoPoint(Ray ray) {
+        return findClosestGeoPoint(ray, null);
+    }
+
+    /**
+     * Finds the closest intersection of a ray with the geometries, and counts the work.
+     *
+     * @param ray     The ray.
+     * @param counter The counter of the work, or null.
+     * @return The closest intersection, or null if there is none.
+     */
+    public GeoPoint findClosestGeoPoint(Ray ray, IntersectionCounter counter) {
+        Point head = ray.getHead();
+        GeoPoint[] closest = {null};
+        double maxDistance = Double.POSITIVE_INFINITY;
+        for (Geometry geometry : unbounded)
+            maxDistance = closer(head, test(geometry, ray, maxDistance, counter), closest, maxDistance);
+        if (bounded.length > 0) {
+            int nodes = bvh.traverse(ray, maxDistance, (primitive, distance) ->
+                    closer(head, test(bounded[primitive], ray, distance, counter), closest, distance));
+            if (counter != null) counter.countNodes(nodes);
+        }
+        return closest[0];
+    }
+
+    /**
+     * Checks whether a ray intersects any of the geometries within a distance.
+     * The search stops at the first intersection found, whichever it is.
+     *
+     * @param ray         The ray.
+     * @param maxDistance The maximum distance along the ray.
+     * @return true if there is an intersection, false otherwise.
+     */
+    public boolean hasIntersection(Ray ray, double maxDistance) {
+        return hasIntersection(ray, maxDistance, null);
+    }
+
+    /**
+     * Checks whether a ray intersects any of the geometries within a distance, and counts the work.
+     *
+     * @param ray         The ray.
+     * @param maxDistance The maximum distance along the ray.
+     * @param counter     The counter of the work, or null.
+     * @return true if there is an intersection, false otherwise.
+     */
+    public boolean hasIntersection(Ray ray, double maxDistance, IntersectionCounter counter) {
+        for (Geometry geometry : unbounded)
+            if (test(geometry, ray, maxDistance, counter) != null) return true;
+        if (bounded.length == 0) return false;
+        boolean[] found = {false};
+        int nodes = bvh.traverse(ray, maxDistance, (primitive, distance) -> {
+            if (test(bounded[primitive], ray, distance, counter) == null) return distance;
+            found[0] = true;
+            return -1;
+        });
+        if (counter != null) counter.countNodes(nodes);
+        return found[0];
+    }
+
+    /**
+     * Intersects a ray with a single geometry, and counts the test.
+     * A mesh counts its own work: a test of each of its tested triangles, and the nodes of its BVH.
+     *
+     * @param geometry    The geometry.
+     * @param ray         The ray.
+     * @param maxDistance The maximum distance along the ray.
+     * @param counter     The counter of the work, or null.
+     * @return The intersections, or null if there are none.
+     */
+    private static List<GeoPoint> test(Geometry geometry, Ray ray, double maxDistance, IntersectionCounter counter) {
+        if (counter != null && geometry instanceof TriangleMesh mesh)
+            return mesh.findGeoIntersections(ray, maxDistance, counter);
+        List<GeoPoint> intersections = geometry.findGeoIntersections(ray, maxDistance);
+        if (counter != null) counter.countTest(geometry, intersections != null);
+        return intersections;
+    }
+
+    /**
+     * Keeps the closest of some intersections if it is closer than the closest one so far.
+     *
+     * @param head          The head of the ray.
+     * @param intersections The intersections, or null.
+     * @param closest       A single-element holder of the closest intersection so far.
+     * @param maxDistance   The distance of the closest intersection so far.
+     * @return The distance of the closest intersection after the update.
+     */
+    private static double closer(Point head, List<GeoPoint> intersections, GeoPoint[] closest, double maxDistance) {
+        if (intersections == null) return maxDistance;
+        for (GeoPoint geoPoint : intersections) {
+            double distance = head.distance(geoPoint.point);
+            if (distance < maxDistance) {
+                maxDistance = distance;
+                closest[0] = geoPoint;
+            }
+        }
+        return maxDistance;
+    }
+
+    /**
+     * Adds intersections to a list.
+     *
+     * @param list          The list.
+     * @param intersections The intersections to add, or null.
+     */
+    private static void addAll(List<GeoPoint> list, List<GeoPoint> intersections) {
+        if (intersections != null) list.addAll(intersections);
+    }
+}
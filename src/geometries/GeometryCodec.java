@@ -0,0 +1,402 @@
+package geometries;
+
+import primitives.*;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.List;
+import java.util.function.ToIntFunction;
+
+/**
+ * Binary encoding of geometries for the scene cache.
+ * Every geometry is written with everything needed to restore it without any validation or
+ * derived calculation - polygons with their plane and meshes with their BVH arrays.
+ * The acceleration structure over the geometries of a scene is written separately, by
+ * {@link #writeAccelerator}, with its geometries referred to by their indices.
+ * Materials are not written here but referred to by their index in a table kept by the caller,
+ * so geometries that shared a material instance keep sharing it after reading.
+ */
+public final class GeometryCodec {
+
+    // Geometry type tags
+    private static final byte GEOMETRIES = 0;
+    private static final byte SPHERE = 1;
+    private static final byte PLANE = 2;
+    private static final byte TRIANGLE = 3;
+    private static final byte POLYGON = 4;
+    private static final byte TUBE = 5;
+    private static final byte CYLINDER = 6;
+    private static final byte MESH = 7;
+
+    /**
+     * Size of the buffer for writing arrays in bulk
+     */
+    private static final int BULK_SIZE = 1 << 16;
+
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private GeometryCodec() {
+    }
+
+    /**
+     * Writes a geometry (recursively for a composite).
+     *
+     * @param out       The output stream.
+     * @param geometry  The geometry.
+     * @param materials The index of a material in the material table.
+     * @throws IOException              if the writing fails
+     * @throws IllegalArgumentException if the geometry type is unknown
+     */
+    public static void write(DataOutputStream out, Intersectable geometry, ToIntFunction<Material> materials)
+            throws IOException {
+        if (geometry instanceof Geometries composite) {
+            out.writeByte(GEOMETRIES);
+            List<Intersectable> children = composite.getGeometries();
+            out.writeInt(children.size());
+            for (Intersectable child : children)
+                write(out, child, materials);
+            return;
+        }
+
+        Geometry shape = (Geometry) geometry;
+        // Cylinder must be checked before Tube and Triangle before Polygon
+        switch (shape) {
+            case Sphere sphere -> {
+                out.writeByte(SPHERE);
+                writePoint(out, sphere.getCenter());
+                out.writeDouble(sphere.getRadius());
+            }
+            case Plane plane -> {
+                out.writeByte(PLANE);
+                writePoint(out, plane.getPoint());
+                writePoint(out, plane.getNormal());
+            }
+            case Triangle triangle -> {
+                out.writeByte(TRIANGLE);
+                writePolygon(out, triangle);
+            }
+            case Polygon polygon -> {
+                out.writeByte(POLYGON);
+                writePolygon(out, polygon);
+            }
+            case Cylinder cylinder -> {
+                out.writeByte(CYLINDER);
+                writeRay(out, cylinder.getAxis());
+                out.writeDouble(cylinder.getRadius());
+                out.writeDouble(cylinder.getHeight());
+            }
+            case Tube tube -> {
+                out.writeByte(TUBE);
+                writeRay(out, tube.getAxis());
+                out.writeDouble(tube.getRadius());
+            }
+            case TriangleMesh mesh -> {
+                out.writeByte(MESH);
+                writeDoubles(out, mesh.vertices);
+                writeInts(out, mesh.indices);
+                out.writeBoolean(mesh.normals != null);
+                if (mesh.normals != null) writeDoubles(out, mesh.normals);
+                writeDoubles(out, mesh.bvh.bounds);
+                writeInts(out, mesh.bvh.nodes);
+                writeInts(out, mesh.bvh.order);
+            }
+            default -> throw new IllegalArgumentException("Unknown geometry type: " + shape.getClass().getName());
+        }
+        writeColor(out, shape.getEmission());
+        out.writeInt(materials.applyAsInt(shape.getMaterial()));
+    }
+
+    /**
+     * Reads a geometry (recursively for a composite).
+     *
+     * @param in        The input buffer, positioned at the geometry.
+     * @param materials The material table.
+     * @return The geometry.
+     * @throws IllegalArgumentException if the data is corrupted
+     */
+    public static Intersectable read(ByteBuffer in, Material[] materials) {
+        byte type = in.get();
+        if (type == GEOMETRIES) {
+            Intersectable[] children = new Intersectable[in.getInt()];
+            for (int i = 0; i < children.length; ++i)
+                children[i] = read(in, materials);
+            return new Geometries(children);
+        }
+
+        Geometry shape = switch (type) {
+            case SPHERE -> new Sphere(readPoint(in), in.getDouble());
+            case PLANE -> new Plane(readPoint(in), readVector(in));
+            case TRIANGLE -> {
+                Plane plane = new Plane(readPoint(in), readVector(in));
+                Point[] vertices = readPoints(in);
+                yield new Triangle(plane, vertices[0], vertices[1], vertices[2]);
+            }
+            case POLYGON -> new Polygon(new Plane(readPoint(in), readVector(in)), readPoints(in));
+            case TUBE -> new Tube(readRay(in), in.getDouble());
+            case CYLINDER -> new Cylinder(readRay(in), in.getDouble(), in.getDouble());
+            case MESH -> {
+                double[] vertices = readDoubles(in);
+                int[] indices = readInts(in);
+                double[] normals = in.get() != 0 ? readDoubles(in) : null;
+                Bvh bvh = new Bvh(readDoubles(in), readInts(in), readInts(in));
+                yield new TriangleMesh(vertices, indices, normals, bvh);
+            }
+            default -> throw new IllegalArgumentException("Corrupted scene cache - unknown geometry type " + type);
+        };
+        shape.setEmission(readColor(in));
+        shape.setMaterial(materials[in.getInt()]);
+        return shape;
+    }
+
+    /**
+     * Writes an acceleration structure over geometries, with the geometries referred to by their indices.
+     *
+     * @param out         The output stream.
+     * @param accelerator The acceleration structure.
+     * @param indices     The index of a geometry.
+     * @throws IOException if the writing fails
+     */
+    public static void writeAccelerator(DataOutputStream out, GeometryBvh accelerator,
+                                        ToIntFunction<Geometry> indices) throws IOException {
+        writeInts(out, indicesOf(accelerator.bounded, indices));
+        writeInts(out, indicesOf(accelerator.unbounded, indices));
+        writeDoubles(out, accelerator.bvh.bounds);
+        writeInts(out, accelerator.bvh.nodes);
+        writeInts(out, accelerator.bvh.order);
+    }
+
+    /**
+     * Reads an acceleration structure written by {@link #writeAccelerator}.
+     *
+     * @param in         The input buffer, positioned at the acceleration structure.
+     * @param geometries The geometries, by their indices.
+     * @return The acceleration structure.
+     * @throws IndexOutOfBoundsException if the data is corrupted
+     */
+    public static GeometryBvh readAccelerator(ByteBuffer in, List<Geometry> geometries) {
+        Geometry[] bounded = geometriesOf(readInts(in), geometries);
+        Geometry[] unbounded = geometriesOf(readInts(in), geometries);
+        return new GeometryBvh(bounded, unbounded, new Bvh(readDoubles(in), readInts(in), readInts(in)));
+    }
+
+    /**
+     * Maps geometries to their indices.
+     *
+     * @param geometries The geometries.
+     * @param indices    The index of a geometry.
+     * @return The indices.
+     */
+    private static int[] indicesOf(Geometry[] geometries, ToIntFunction<Geometry> indices) {
+        int[] result = new int[geometries.length];
+        for (int i = 0; i < result.length; ++i)
+            result[i] = indices.applyAsInt(geometries[i]);
+        return result;
+    }
+
+    /**
+     * Maps indices to their geometries.
+     *
+     * @param indices    The indices.
+     * @param geometries The geometries, by their indices.
+     * @return The geometries.
+     */
+    private static Geometry[] geometriesOf(int[] indices, List<Geometry> geometries) {
+        Geometry[] result = new Geometry[indices.length];
+        for (int i = 0; i < result.length; ++i)
+            result[i] = geometries.get(indices[i]);
+        return result;
+    }
+
+    /**
+     * Writes the plane and the vertices of a polygon.
+     *
+     * @param out     The output stream.
+     * @param polygon The polygon.
+     * @throws IOException if the writing fails
+     */
+    private static void writePolygon(DataOutputStream out, Polygon polygon) throws IOException {
+        writePoint(out, polygon.plane.getPoint());
+        writePoint(out, polygon.plane.getNormal());
+        out.writeInt(polygon.vertices.size());
+        for (Point vertex : polygon.vertices)
+            writePoint(out, vertex);
+    }
+
+    /**
+     * Reads a list of points.
+     *
+     * @param in The input buffer.
+     * @return The points.
+     */
+    private static Point[] readPoints(ByteBuffer in) {
+        Point[] points = new Point[in.getInt()];
+        for (int i = 0; i < points.length; ++i)
+            points[i] = readPoint(in);
+        return points;
+    }
+
+    /**
+     * Writes a ray.
+     *
+     * @param out The output stream.
+     * @param ray The ray.
+     * @throws IOException if the writing fails
+     */
+    private static void writeRay(DataOutputStream out, Ray ray) throws IOException {
+        writePoint(out, ray.getHead());
+        writePoint(out, ray.getDirection());
+    }
+
+    /**
+     * Reads a ray.
+     *
+     * @param in The input buffer.
+     * @return The ray.
+     */
+    private static Ray readRay(ByteBuffer in) {
+        return new Ray(readPoint(in), readVector(in));
+    }
+
+    /**
+     * Writes the coordinates of a point (or a vector).
+     *
+     * @param out   The output stream.
+     * @param point The point.
+     * @throws IOException if the writing fails
+     */
+    public static void writePoint(DataOutputStream out, Point point) throws IOException {
+        out.writeDouble(point.getX());
+        out.writeDouble(point.getY());
+        out.writeDouble(point.getZ());
+    }
+
+    /**
+     * Reads a point.
+     *
+     * @param in The input buffer.
+     * @return The point.
+     */
+    public static Point readPoint(ByteBuffer in) {
+        return new Point(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * Reads a vector.
+     *
+     * @param in The input buffer.
+     * @return The vector.
+     */
+    public static Vector readVector(ByteBuffer in) {
+        return new Vector(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * Writes a triad of numbers.
+     *
+     * @param out   The output stream.
+     * @param triad The triad.
+     * @throws IOException if the writing fails
+     */
+    public static void writeDouble3(DataOutputStream out, Double3 triad) throws IOException {
+        out.writeDouble(triad.getD1());
+        out.writeDouble(triad.getD2());
+        out.writeDouble(triad.getD3());
+    }
+
+    /**
+     * Reads a triad of numbers.
+     *
+     * @param in The input buffer.
+     * @return The triad.
+     */
+    public static Double3 readDouble3(ByteBuffer in) {
+        return new Double3(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * Writes a color.
+     *
+     * @param out   The output stream.
+     * @param color The color.
+     * @throws IOException if the writing fails
+     */
+    public static void writeColor(DataOutputStream out, Color color) throws IOException {
+        writeDouble3(out, color.getRgb());
+    }
+
+    /**
+     * Reads a color.
+     *
+     * @param in The input buffer.
+     * @return The color.
+     */
+    public static Color readColor(ByteBuffer in) {
+        return new Color(in.getDouble(), in.getDouble(), in.getDouble());
+    }
+
+    /**
+     * Writes an array of numbers in bulk, preceded by its length.
+     *
+     * @param out    The output stream.
+     * @param values The array.
+     * @throws IOException if the writing fails
+     */
+    private static void writeDoubles(DataOutputStream out, double[] values) throws IOException {
+        out.writeInt(values.length);
+        ByteBuffer bulk = ByteBuffer.allocate(BULK_SIZE);
+        for (int i = 0; i < values.length; ) {
+            int n = Math.min(values.length - i, BULK_SIZE / Double.BYTES);
+            bulk.clear();
+            bulk.asDoubleBuffer().put(values, i, n);
+            out.write(bulk.array(), 0, n * Double.BYTES);
+            i += n;
+        }
+    }
+
+    /**
+     * Reads an array of numbers in bulk.
+     *
+     * @param in The input buffer.
+     * @return The array.
+     */
+    private static double[] readDoubles(ByteBuffer in) {
+        double[] values = new double[in.getInt()];
+        in.asDoubleBuffer().get(values);
+        in.position(in.position() + values.length * Double.BYTES);
+        return values;
+    }
+
+    /**
+     * Writes an array of integers in bulk, preceded by its length.
+     *
+     * @param out    The output stream.
+     * @param values The array.
+     * @throws IOException if the writing fails
+     */
+    private static void writeInts(DataOutputStream out, int[] values) throws IOException {
+        out.writeInt(values.length);
+        ByteBuffer bulk = ByteBuffer.allocate(BULK_SIZE);
+        for (int i = 0; i < values.length; ) {
+            int n = Math.min(values.length - i, BULK_SIZE / Integer.BYTES);
+            bulk.clear();
+            bulk.asIntBuffer().put(values, i, n);
+            out.write(bulk.array(), 0, n * Integer.BYTES);
+            i += n;
+        }
+    }
+
+    /**
+     * Reads an array of integers in bulk.
+     *
+     * @param in The input buffer.
+     * @return The array.
+     */
+    private static int[] readInts(ByteBuffer in) {
+        int[] values = new int[in.getInt()];
+        in.asIntBuffer().get(values);
+        in.position(in.position() + values.length * Integer.BYTES);
+        return values;
+    }
+}
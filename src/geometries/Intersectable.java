@@ -60,6 +60,17 @@ public abstract class Intersectable {
      */
     protected abstract List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance);
 
+    /**
+     * Calculates the axis-aligned bounding box of the intersectable object.
+     * The default is an unbounded object - bounded geometries override it so that an acceleration
+     * structure can skip them for the rays that miss their box.
+     *
+     * @return 6 numbers: minimum x, y, z and then maximum x, y, z, or null if the object is unbounded.
+     */
+    protected double[] calcBoundingBox() {
+        return null;
+    }
+
     /**
      * A passive data structure (PDS) representing a point of intersection of the ray with the shape
      * and the shape it intersects.
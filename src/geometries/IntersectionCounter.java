@@ -0,0 +1,25 @@
+package geometries;
+
+/**
+ * Receiver of the counts of the work of the intersection searches in a {@link GeometryBvh} and in its
+ * meshes, for render statistics. The searches are given a counter only when the work is counted, so a
+ * search without a counter costs nothing more.
+ */
+public interface IntersectionCounter {
+
+    /**
+     * Counts an intersection test of a ray with a geometry.
+     * A {@link TriangleMesh} is counted once for each of its triangles tested against the ray.
+     *
+     * @param geometry The tested geometry.
+     * @param hit      Whether the ray intersects the geometry.
+     */
+    void countTest(Geometry geometry, boolean hit);
+
+    /**
+     * Counts the nodes of the acceleration structure whose boxes were tested against a ray.
+     *
+     * @param nodes The amount of nodes.
+     */
+    void countNodes(int nodes);
+}
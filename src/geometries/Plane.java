@@ -40,6 +40,15 @@ public class Plane extends Geometry {
         this.normal = normal.normalize();
     }
 
+    /**
+     * Returns the reference point of the plane.
+     *
+     * @return The reference point.
+     */
+    public Point getPoint() {
+        return q;
+    }
+
     /**
      * Returns the normal vector to the plane.
      *
@@ -71,6 +71,18 @@ public class Polygon extends Geometry {
         }
     }
 
+    /**
+     * Polygon constructor from already validated data - no checks are done.
+     *
+     * @param plane    The plane of the polygon.
+     * @param vertices The vertices of the polygon according to their order by edge path.
+     */
+    Polygon(Plane plane, Point... vertices) {
+        this.vertices = List.of(vertices);
+        this.plane = plane;
+        this.size = vertices.length;
+    }
+
     @Override
     public Vector getNormal(Point point) {
         return plane.getNormal();
@@ -122,4 +134,21 @@ public class Polygon extends Geometry {
             return List.of(new GeoPoint(this, intersections.getFirst().point));
         return null;
     }
+
+    @Override
+    protected double[] calcBoundingBox() {
+        double[] box = {
+                Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY, Double.POSITIVE_INFINITY,
+                Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY, Double.NEGATIVE_INFINITY
+        };
+        for (Point vertex : vertices) {
+            box[0] = Math.min(box[0], vertex.getX());
+            box[1] = Math.min(box[1], vertex.getY());
+            box[2] = Math.min(box[2], vertex.getZ());
+            box[3] = Math.max(box[3], vertex.getX());
+            box[4] = Math.max(box[4], vertex.getY());
+            box[5] = Math.max(box[5], vertex.getZ());
+        }
+        return box;
+    }
 }
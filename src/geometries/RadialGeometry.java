@@ -15,4 +15,13 @@ public abstract class RadialGeometry extends Geometry {
     public RadialGeometry(double radius) {
         this.radius = radius;
     }
+
+    /**
+     * Returns the radius of the radial geometry.
+     *
+     * @return The radius.
+     */
+    public double getRadius() {
+        return radius;
+    }
 }
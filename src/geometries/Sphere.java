@@ -26,6 +26,15 @@ public class Sphere extends RadialGeometry {
         this.center = center;
     }
 
+    /**
+     * Returns the center point of the sphere.
+     *
+     * @return The center point.
+     */
+    public Point getCenter() {
+        return center;
+    }
+
     /**
      * Returns the normal vector to the sphere at a given point.
      *
@@ -94,4 +103,12 @@ public class Sphere extends RadialGeometry {
 
         return List.copyOf(intersections);
     }
+
+    @Override
+    protected double[] calcBoundingBox() {
+        return new double[]{
+                center.getX() - radius, center.getY() - radius, center.getZ() - radius,
+                center.getX() + radius, center.getY() + radius, center.getZ() + radius
+        };
+    }
 }
@@ -21,6 +21,18 @@ public class Triangle extends Polygon {
         super(point1, point2, point3);
     }
 
+    /**
+     * Constructor for Triangle class from already validated data - no checks are done.
+     *
+     * @param plane  The plane of the triangle.
+     * @param point1 The first vertex of the triangle.
+     * @param point2 The second vertex of the triangle.
+     * @param point3 The third vertex of the triangle.
+     */
+    Triangle(Plane plane, Point point1, Point point2, Point point3) {
+        super(plane, point1, point2, point3);
+    }
+
     /**
      * Finds intersection points between a ray and the object.
      *
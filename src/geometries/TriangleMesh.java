@@ -0,0 +1,414 @@
+package geometries;
+
+import primitives.*;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static primitives.Util.alignZero;
+import static primitives.Util.isZero;
+
+/**
+ * TriangleMesh class represents a mesh of triangles in 3D Cartesian coordinate system.
+ * Unlike a collection of {@link Triangle} objects, the mesh keeps all its data in flat arrays:
+ * a vertex buffer (3 coordinates per vertex) and an index buffer (3 vertex indices per triangle),
+ * optionally with a normal per vertex for smooth shading.
+ * Intersections are accelerated by an internal bounding volume hierarchy over the triangles.
+ */
+public class TriangleMesh extends Geometry {
+
+    /**
+     * Distance by which the BVH boxes are extended when looking up the triangle containing a point
+     */
+    private static final double POINT_TOLERANCE = 1e-6;
+
+    // Vertex buffer - x, y, z of each vertex
+    final double[] vertices;
+
+    // Index buffer - 3 vertex indices of each triangle
+    final int[] indices;
+
+    // Normal per vertex (3 numbers each, in the layout of the vertex buffer), or null for flat shading
+    final double[] normals;
+
+    // The acceleration structure over the triangles
+    final Bvh bvh;
+
+    /**
+     * Constructs a flat shaded mesh.
+     * The arrays are used directly (not copied) and must not be changed afterward.
+     *
+     * @param vertices The vertex buffer - x, y, z of each vertex.
+     * @param indices  The index buffer - 3 vertex indices of each triangle, counter-clockwise.
+     * @throws IllegalArgumentException if the buffer sizes are not multiples of 3 or an index is out of range
+     */
+    public TriangleMesh(double[] vertices, int[] indices) {
+        this(vertices, indices, null);
+    }
+
+    /**
+     * Constructs a mesh, smooth shaded if the vertex normals are given.
+     * The arrays are used directly (not copied) and must not be changed afterward.
+     *
+     * @param vertices The vertex buffer - x, y, z of each vertex.
+     * @param indices  The index buffer - 3 vertex indices of each triangle, counter-clockwise.
+     * @param normals  The normal of each vertex (in the layout of the vertex buffer), or null for flat shading.
+     * @throws IllegalArgumentException if the buffer sizes are not multiples of 3, an index is out of range,
+     *                                  or the normals do not match the vertices
+     */
+    public TriangleMesh(double[] vertices, int[] indices, double[] normals) {
+        if (vertices.length % 3 != 0)
+            throw new IllegalArgumentException("The vertex buffer must hold 3 coordinates per vertex");
+        if (indices.length % 3 != 0)
+            throw new IllegalArgumentException("The index buffer must hold 3 indices per triangle");
+        if (normals != null && normals.length != vertices.length)
+            throw new IllegalArgumentException("There must be exactly one normal per vertex");
+        int vertexCount = vertices.length / 3;
+        for (int index : indices)
+            if (index < 0 || index >= vertexCount)
+                throw new IllegalArgumentException("Vertex index " + index + " is out of range");
+
+        this.vertices = vertices;
+        this.indices = indices;
+        this.normals = normals;
+        this.bvh = Bvh.build(triangleBoxes(), indices.length / 3);
+    }
+
+    /**
+     * Constructs a mesh with an already built acceleration structure (no validation is done).
+     *
+     * @param vertices The vertex buffer.
+     * @param indices  The index buffer.
+     * @param normals  The vertex normals, or null.
+     * @param bvh      The BVH over the triangles.
+     */
+    TriangleMesh(double[] vertices, int[] indices, double[] normals, Bvh bvh) {
+        this.vertices = vertices;
+        this.indices = indices;
+        this.normals = normals;
+        this.bvh = bvh;
+    }
+
+    /**
+     * Returns the amount of vertices in the mesh.
+     *
+     * @return The vertex count.
+     */
+    public int getVertexCount() {
+        return vertices.length / 3;
+    }
+
+    /**
+     * Returns the amount of triangles in the mesh.
+     *
+     * @return The triangle count.
+     */
+    public int getTriangleCount() {
+        return indices.length / 3;
+    }
+
+    /**
+     * Checks whether the mesh has vertex normals (smooth shading).
+     *
+     * @return true if the mesh is smooth shaded, false otherwise.
+     */
+    public boolean isSmooth() {
+        return normals != null;
+    }
+
+    @Override
+    protected double[] calcBoundingBox() {
+        return bvh.getRootBounds();
+    }
+
+    /**
+     * Returns the normal of the mesh at a point on one of its triangles.
+     * The triangle is looked up by the BVH; if the intersection is known, prefer the normal of the
+     * triangle geometry in the {@link GeoPoint} that is returned from the intersection.
+     *
+     * @param point The point on the mesh.
+     * @return The normal vector at the point.
+     * @throws IllegalArgumentException if the point is not on the mesh
+     */
+    @Override
+    public Vector getNormal(Point point) {
+        int triangle = bvh.find(point, POINT_TOLERANCE, t -> contains(t, point));
+        if (triangle < 0)
+            throw new IllegalArgumentException("The point is not on the mesh");
+        return normal(triangle, point);
+    }
+
+    /**
+     * Finds geometric intersections of a given ray with the triangles of the mesh.
+     *
+     * @param ray         The ray to intersect with the mesh.
+     * @param maxDistance The maximum distance to consider for intersections.
+     * @return A list of GeoPoint objects (one per crossed point of the surface), or null if there are no
+     * intersections. A ray through an edge or a vertex shared by several triangles crosses the surface once,
+     * so it gets a single intersection there.
+     */
+    @Override
+    protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+        return findGeoIntersections(ray, maxDistance, null);
+    }
+
+    /**
+     * Finds geometric intersections of a given ray with the triangles of the mesh, and counts the work:
+     * each tested triangle is counted as a test of the mesh, and the nodes of the BVH of the mesh are counted.
+     *
+     * @param ray         The ray to intersect with the mesh.
+     * @param maxDistance The maximum distance to consider for intersections.
+     * @param counter     The counter of the work, or null.
+     * @return A list of GeoPoint objects (one per crossed point of the surface), or null if there are no
+     * intersections.
+     */
+    public List<GeoPoint> findGeoIntersections(Ray ray, double maxDistance, IntersectionCounter counter) {
+        List<GeoPoint> intersections = new ArrayList<>(2);
+        int nodes = bvh.traverse(ray, maxDistance, (triangle, distance) -> {
+            double t = intersect(triangle, ray, maxDistance);
+            if (counter != null) counter.countTest(this, !Double.isNaN(t));
+            if (!Double.isNaN(t)) {
+                Point point = ray.getPoint(t);
+                if (!isCrossed(intersections, point))
+                    intersections.add(new GeoPoint(new Face(triangle), point));
+            }
+            return distance;
+        });
+        if (counter != null) counter.countNodes(nodes);
+        return intersections.isEmpty() ? null : intersections;
+    }
+
+    /**
+     * Checks whether a point of the surface was already crossed by a ray through another triangle.
+     *
+     * @param intersections The intersections found so far.
+     * @param point         The point.
+     * @return true if one of the intersections is at the point.
+     */
+    private static boolean isCrossed(List<GeoPoint> intersections, Point point) {
+        for (GeoPoint intersection : intersections)
+            if (intersection.point.distanceSquared(point) < POINT_TOLERANCE * POINT_TOLERANCE)
+                return true;
+        return false;
+    }
+
+    /**
+     * Calculates the boxes of all the triangles for building the BVH.
+     *
+     * @return 6 numbers per triangle: minimum x, y, z and then maximum x, y, z.
+     */
+    private double[] triangleBoxes() {
+        int count = indices.length / 3;
+        double[] boxes = new double[6 * count];
+        for (int t = 0; t < count; ++t) {
+            for (int axis = 0; axis < 3; ++axis) {
+                double a = vertices[3 * indices[3 * t] + axis];
+                double b = vertices[3 * indices[3 * t + 1] + axis];
+                double c = vertices[3 * indices[3 * t + 2] + axis];
+                boxes[6 * t + axis] = Math.min(a, Math.min(b, c));
+                boxes[6 * t + 3 + axis] = Math.max(a, Math.max(b, c));
+            }
+        }
+        return boxes;
+    }
+
+    /**
+     * Intersects a ray with one triangle of the mesh (Moller-Trumbore).
+     * The edges of the triangle are included, so that there are no gaps between neighbouring triangles;
+     * the second hit of a ray through a shared edge is merged by {@link #findGeoIntersectionsHelper}.
+     * An intersection at exactly the maximum distance is kept, as by the other geometries.
+     *
+     * @param triangle    The index of the triangle.
+     * @param ray         The ray.
+     * @param maxDistance The maximum distance to consider.
+     * @return The distance along the ray to the intersection, or NaN if there is none.
+     */
+    private double intersect(int triangle, Ray ray, double maxDistance) {
+        int i0 = 3 * indices[3 * triangle];
+        int i1 = 3 * indices[3 * triangle + 1];
+        int i2 = 3 * indices[3 * triangle + 2];
+        Point head = ray.getHead();
+        Vector direction = ray.getDirection();
+        double dx = direction.getX(), dy = direction.getY(), dz = direction.getZ();
+
+        // Edges from the first vertex
+        double e1x = vertices[i1] - vertices[i0], e1y = vertices[i1 + 1] - vertices[i0 + 1], e1z = vertices[i1 + 2] - vertices[i0 + 2];
+        double e2x = vertices[i2] - vertices[i0], e2y = vertices[i2 + 1] - vertices[i0 + 1], e2z = vertices[i2 + 2] - vertices[i0 + 2];
+
+        // p = direction x e2
+        double px = dy * e2z - dz * e2y, py = dz * e2x - dx * e2z, pz = dx * e2y - dy * e2x;
+        double det = e1x * px + e1y * py + e1z * pz;
+        // The ray is parallel to the triangle plane (or the triangle is degenerate)
+        if (isZero(det)) return Double.NaN;
+        double inverse = 1 / det;
+
+        double sx = head.getX() - vertices[i0], sy = head.getY() - vertices[i0 + 1], sz = head.getZ() - vertices[i0 + 2];
+        double u = (sx * px + sy * py + sz * pz) * inverse;
+        if (u < 0 || u > 1) return Double.NaN;
+
+        // q = s x e1
+        double qx = sy * e1z - sz * e1y, qy = sz * e1x - sx * e1z, qz = sx * e1y - sy * e1x;
+        double v = (dx * qx + dy * qy + dz * qz) * inverse;
+        if (v < 0 || u + v > 1) return Double.NaN;
+
+        double t = (e2x * qx + e2y * qy + e2z * qz) * inverse;
+        if (alignZero(t) <= 0 || alignZero(t - maxDistance) > 0) return Double.NaN;
+        return t;
+    }
+
+    /**
+     * Calculates the barycentric coordinates of a point with respect to a triangle.
+     *
+     * @param triangle The index of the triangle.
+     * @param point    The point (assumed to be in the plane of the triangle).
+     * @return The weights of the three vertices, or null if the triangle is degenerate.
+     */
+    private double[] barycentric(int triangle, Point point) {
+        int i0 = 3 * indices[3 * triangle];
+        int i1 = 3 * indices[3 * triangle + 1];
+        int i2 = 3 * indices[3 * triangle + 2];
+        double e1x = vertices[i1] - vertices[i0], e1y = vertices[i1 + 1] - vertices[i0 + 1], e1z = vertices[i1 + 2] - vertices[i0 + 2];
+        double e2x = vertices[i2] - vertices[i0], e2y = vertices[i2 + 1] - vertices[i0 + 1], e2z = vertices[i2 + 2] - vertices[i0 + 2];
+        double px = point.getX() - vertices[i0], py = point.getY() - vertices[i0 + 1], pz = point.getZ() - vertices[i0 + 2];
+
+        double d11 = e1x * e1x + e1y * e1y + e1z * e1z;
+        double d12 = e1x * e2x + e1y * e2y + e1z * e2z;
+        double d22 = e2x * e2x + e2y * e2y + e2z * e2z;
+        double dp1 = px * e1x + py * e1y + pz * e1z;
+        double dp2 = px * e2x + py * e2y + pz * e2z;
+        double denominator = d11 * d22 - d12 * d12;
+        if (isZero(denominator)) return null;
+
+        double w1 = (d22 * dp1 - d12 * dp2) / denominator;
+        double w2 = (d11 * dp2 - d12 * dp1) / denominator;
+        return new double[]{1 - w1 - w2, w1, w2};
+    }
+
+    /**
+     * Checks whether a point lies on a triangle.
+     *
+     * @param triangle The index of the triangle.
+     * @param point    The point.
+     * @return true if the point is on the triangle, false otherwise.
+     */
+    private boolean contains(int triangle, Point point) {
+        double[] w = barycentric(triangle, point);
+        if (w == null || w[0] < -POINT_TOLERANCE || w[1] < -POINT_TOLERANCE || w[2] < -POINT_TOLERANCE)
+            return false;
+        // The point must also be in the plane of the triangle
+        int i0 = 3 * indices[3 * triangle];
+        Vector n = faceNormal(triangle);
+        double distance = n.getX() * (point.getX() - vertices[i0])
+                + n.getY() * (point.getY() - vertices[i0 + 1])
+                + n.getZ() * (point.getZ() - vertices[i0 + 2]);
+        return Math.abs(distance) <= POINT_TOLERANCE;
+    }
+
+    /**
+     * Calculates the geometric (flat) normal of a triangle according to its vertex order.
+     *
+     * @param triangle The index of the triangle.
+     * @return The normalized normal vector.
+     */
+    private Vector faceNormal(int triangle) {
+        int i0 = 3 * indices[3 * triangle];
+        int i1 = 3 * indices[3 * triangle + 1];
+        int i2 = 3 * indices[3 * triangle + 2];
+        Vector edge1 = new Vector(vertices[i1] - vertices[i0], vertices[i1 + 1] - vertices[i0 + 1], vertices[i1 + 2] - vertices[i0 + 2]);
+        Vector edge2 = new Vector(vertices[i2] - vertices[i0], vertices[i2 + 1] - vertices[i0 + 1], vertices[i2 + 2] - vertices[i0 + 2]);
+        return edge1.crossProduct(edge2).normalize();
+    }
+
+    /**
+     * Calculates the shading normal at a point of a triangle - the vertex normals interpolated
+     * by the barycentric coordinates for a smooth mesh, or the flat normal otherwise.
+     *
+     * @param triangle The index of the triangle.
+     * @param point    The point on the triangle.
+     * @return The normalized normal vector.
+     */
+    private Vector normal(int triangle, Point point) {
+        if (normals == null)
+            return faceNormal(triangle);
+        double[] w = barycentric(triangle, point);
+        if (w == null)
+            return faceNormal(triangle);
+        double x = 0, y = 0, z = 0;
+        for (int k = 0; k < 3; ++k) {
+            int i = 3 * indices[3 * triangle + k];
+            x += w[k] * normals[i];
+            y += w[k] * normals[i + 1];
+            z += w[k] * normals[i + 2];
+        }
+        return new Vector(x, y, z).normalize();
+    }
+
+    /**
+     * A single triangle of the mesh, as seen by the ray tracer in an intersection {@link GeoPoint}.
+     * It is a lightweight view created per intersection; the emission and the material are those of the mesh,
+     * so a face allocates no material of its own.
+     */
+    private final class Face extends Geometry {
+
+        // The index of the triangle in the mesh
+        private final int triangle;
+
+        /**
+         * Constructs a view of a triangle of the mesh.
+         *
+         * @param triangle The index of the triangle.
+         */
+        Face(int triangle) {
+            super(null);
+            this.triangle = triangle;
+        }
+
+        @Override
+        public Vector getNormal(Point point) {
+            return normal(triangle, point);
+        }
+
+        @Override
+        public Color getEmission() {
+            return TriangleMesh.this.getEmission();
+        }
+
+        @Override
+        public Material getMaterial() {
+            return TriangleMesh.this.getMaterial();
+        }
+
+        @Override
+        public Geometry getOwner() {
+            return TriangleMesh.this;
+        }
+
+        @Override
+        protected List<GeoPoint> findGeoIntersectionsHelper(Ray ray, double maxDistance) {
+            double t = intersect(triangle, ray, maxDistance);
+            return Double.isNaN(t) ? null : List.of(new GeoPoint(this, ray.getPoint(t)));
+        }
+
+        @Override
+        public boolean equals(Object obj) {
+            if (this == obj) return true;
+            return (obj instanceof Face other)
+                    && this.triangle == other.triangle
+                    && this.mesh() == other.mesh();
+        }
+
+        @Override
+        public int hashCode() {
+            return 31 * System.identityHashCode(mesh()) + triangle;
+        }
+
+        /**
+         * Returns the mesh of the triangle.
+         *
+         * @return The enclosing mesh.
+         */
+        private TriangleMesh mesh() {
+            return TriangleMesh.this;
+        }
+    }
+}
@@ -21,6 +21,15 @@ public class Tube extends RadialGeometry {
         this.axis = axis;
     }
 
+    /**
+     * Returns the central axis ray of the tube.
+     *
+     * @return The axis ray.
+     */
+    public Ray getAxis() {
+        return axis;
+    }
+
     /**
      * Returns the normal vector to the tube at a given point.
      *
@@ -15,7 +15,7 @@ public class AmbientLight extends Light {
     /**
      * Constant for no ambient light with black color and zero attenuation
      */
-    public static AmbientLight NONE = new AmbientLight(Color.BLACK, Double3.ZERO);
+    public static final AmbientLight NONE = new AmbientLight(Color.BLACK, Double3.ZERO);
 
     /**
      * Constructor to initialize the ambient light with a color and an attenuation factor.
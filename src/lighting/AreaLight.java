@@ -0,0 +1,139 @@
+package lighting;
+
+import primitives.Color;
+import primitives.Point;
+import primitives.Vector;
+
+/**
+ * Abstract class representing a light source with an area, which casts soft shadows.
+ * An area light is lit and attenuated like a point light at its center, but its shadows are found by
+ * casting shadow rays to sample points spread over its area.
+ * A few probe points (the center and points on the boundary) are cast first, and the full sample count
+ * is cast only when the probes disagree - in the penumbra.
+ */
+public abstract class AreaLight extends PointLight {
+
+    /**
+     * The default amount of shadow rays cast in the penumbra
+     */
+    public static final int DEFAULT_SAMPLES = 36;
+
+    /**
+     * The amount of shadow rays cast in the penumbra
+     */
+    private int samples = DEFAULT_SAMPLES;
+
+    /**
+     * The probe points, computed when first needed
+     */
+    private volatile Point[] probePoints;
+    /**
+     * The sample points, computed when first needed
+     */
+    private volatile Point[] samplePoints;
+
+    /**
+     * Constructs an area light with given intensity and center.
+     *
+     * @param intensity The intensity and color of the light.
+     * @param center    The center of the light.
+     */
+    protected AreaLight(Color intensity, Point center) {
+        super(intensity, center);
+    }
+
+    /**
+     * Sets the amount of shadow rays cast in the penumbra.
+     *
+     * @param samples The amount of shadow rays.
+     * @return This AreaLight object for chaining method calls.
+     * @throws IllegalArgumentException if the amount is not positive
+     */
+    public AreaLight setSamples(int samples) {
+        if (samples < 1)
+            throw new IllegalArgumentException("The amount of shadow rays must be positive");
+        this.samples = samples;
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Returns the amount of shadow rays cast in the penumbra.
+     *
+     * @return The amount of shadow rays.
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    @Override
+    public AreaLight setPosition(Point position) {
+        super.setPosition(position);
+        invalidate();
+        return this;
+    }
+
+    /**
+     * Returns the points to which shadow rays are cast first - the center and points on the boundary.
+     *
+     * @return The probe points. The array must not be changed.
+     */
+    public Point[] getProbePoints() {
+        Point[] points = probePoints;
+        if (points == null)
+            probePoints = points = calcProbePoints();
+        return points;
+    }
+
+    /**
+     * Returns the points to which shadow rays are cast in the penumbra, spread evenly over the area.
+     *
+     * @return The sample points. The array must not be changed.
+     */
+    public Point[] getSamplePoints() {
+        Point[] points = samplePoints;
+        if (points == null)
+            samplePoints = points = calcSamplePoints(samples);
+        return points;
+    }
+
+    /**
+     * Discards the computed points after a change of the light.
+     */
+    protected void invalidate() {
+        probePoints = null;
+        samplePoints = null;
+    }
+
+    /**
+     * Computes the probe points.
+     *
+     * @return The probe points.
+     */
+    protected abstract Point[] calcProbePoints();
+
+    /**
+     * Computes the sample points.
+     *
+     * @param count The requested amount of points.
+     * @return The sample points.
+     */
+    protected abstract Point[] calcSamplePoints(int count);
+
+    /**
+     * Moves the center by a combination of two vectors.
+     * Unlike {@link Point#add(Vector)} with scaled vectors, a zero coefficient is allowed.
+     *
+     * @param u The first vector.
+     * @param a The coefficient of the first vector.
+     * @param v The second vector.
+     * @param b The coefficient of the second vector.
+     * @return The moved point.
+     */
+    protected Point offset(Vector u, double a, Vector v, double b) {
+        return new Point(
+                position.getX() + u.getX() * a + v.getX() * b,
+                position.getY() + u.getY() * a + v.getY() * b,
+                position.getZ() + u.getZ() * a + v.getZ() * b);
+    }
+}
@@ -6,13 +6,23 @@ import primitives.*;
  * Class representing a directional light source, which emits light in a specific direction
  * and does not have an attenuation factor over distance.
  */
-public class DirectionalLight extends Light implements LightSource {
+public class DirectionalLight extends Light implements ShadowMapLight {
 
     /**
      * The direction of the light.
      */
     private Vector direction;
 
+    /**
+     * The resolution of the shadow map, or 0 for shadow rays.
+     */
+    private int shadowMapResolution = 0;
+
+    /**
+     * The depth bias of the shadow map, as a multiple of the offset of the shadow rays.
+     */
+    private double shadowMapBias = 1;
+
     /**
      * Constructs a new DirectionalLight with the given intensity and direction.
      *
@@ -24,6 +34,66 @@ public class DirectionalLight extends Light implements LightSource {
         this.direction = direction.normalize();
     }
 
+    /**
+     * Returns the direction of the light.
+     *
+     * @return The direction vector.
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
+    /**
+     * Sets the intensity of the light source.
+     *
+     * @param intensity The new intensity of the light.
+     * @return This DirectionalLight object for chaining method calls.
+     */
+    public DirectionalLight setIntensity(Color intensity) {
+        this.intensity = intensity;
+        return this;
+    }
+
+    /**
+     * Turns the shadow map of the light on or off.
+     *
+     * @param resolution The width and height of the shadow map in texels, or 0 to cast shadow rays.
+     * @return This DirectionalLight object for chaining method calls.
+     * @throws IllegalArgumentException if the resolution is negative
+     */
+    public DirectionalLight setShadowMap(int resolution) {
+        if (resolution < 0)
+            throw new IllegalArgumentException("The shadow map resolution must not be negative");
+        this.shadowMapResolution = resolution;
+        return this;
+    }
+
+    /**
+     * Sets the depth bias of the shadow map, which keeps surfaces from shadowing themselves.
+     * The bias is a multiple of the offset of the shadow rays (1 by default); the ray tracer adds to it
+     * the depth error of a texel on a surface sloped to the light.
+     *
+     * @param bias The depth bias.
+     * @return This DirectionalLight object for chaining method calls.
+     * @throws IllegalArgumentException if the bias is negative
+     */
+    public DirectionalLight setShadowMapBias(double bias) {
+        if (bias < 0)
+            throw new IllegalArgumentException("The shadow map bias must not be negative");
+        this.shadowMapBias = bias;
+        return this;
+    }
+
+    @Override
+    public int getShadowMapResolution() {
+        return shadowMapResolution;
+    }
+
+    @Override
+    public double getShadowMapBias() {
+        return shadowMapBias;
+    }
+
     @Override
     public Color getIntensity(Point point) {
         return intensity;
@@ -0,0 +1,123 @@
+package lighting;
+
+import primitives.Color;
+import primitives.Point;
+import primitives.Vector;
+
+/**
+ * Represents a disk-shaped area light, given by its center, normal and radius.
+ * The shadow rays in the penumbra are cast to points of a golden-angle spiral, which covers the disk evenly
+ * for any amount of points.
+ */
+public class DiskLight extends AreaLight {
+
+    /**
+     * The angle between successive points of the spiral
+     */
+    private static final double GOLDEN_ANGLE = Math.PI * (3 - Math.sqrt(5));
+
+    /**
+     * The normal of the disk
+     */
+    private final Vector normal;
+    /**
+     * The radius of the disk
+     */
+    private final double radius;
+    /**
+     * Orthonormal axes in the plane of the disk
+     */
+    private final Vector axis1, axis2;
+
+    /**
+     * Constructs a disk light with given intensity, center, normal and radius.
+     *
+     * @param intensity The intensity and color of the light.
+     * @param center    The center of the disk.
+     * @param normal    The normal of the disk.
+     * @param radius    The radius of the disk.
+     * @throws IllegalArgumentException if the radius is not positive
+     */
+    public DiskLight(Color intensity, Point center, Vector normal, double radius) {
+        super(intensity, center);
+        if (radius <= 0)
+            throw new IllegalArgumentException("The radius must be positive");
+        this.normal = normal.normalize();
+        this.radius = radius;
+        axis1 = this.normal.crossProduct(Math.abs(this.normal.getX()) > 0.9
+                ? new Vector(0, 1, 0) : new Vector(1, 0, 0)).normalize();
+        axis2 = this.normal.crossProduct(axis1);
+    }
+
+    /**
+     * Returns the normal of the disk.
+     *
+     * @return The normal.
+     */
+    public Vector getNormal() {
+        return normal;
+    }
+
+    /**
+     * Returns the radius of the disk.
+     *
+     * @return The radius.
+     */
+    public double getRadius() {
+        return radius;
+    }
+
+    @Override
+    public DiskLight setSamples(int samples) {
+        return (DiskLight) super.setSamples(samples);
+    }
+
+    @Override
+    public DiskLight setPosition(Point position) {
+        return (DiskLight) super.setPosition(position);
+    }
+
+    @Override
+    public DiskLight setIntensity(Color intensity) {
+        return (DiskLight) super.setIntensity(intensity);
+    }
+
+    @Override
+    public DiskLight setKC(double kC) {
+        return (DiskLight) super.setKC(kC);
+    }
+
+    @Override
+    public DiskLight setKL(double kL) {
+        return (DiskLight) super.setKL(kL);
+    }
+
+    @Override
+    public DiskLight setKQ(double kQ) {
+        return (DiskLight) super.setKQ(kQ);
+    }
+
+    /**
+     * The center and four points on the rim.
+     */
+    @Override
+    protected Point[] calcProbePoints() {
+        return new Point[]{
+                position,
+                offset(axis1, radius, axis2, 0),
+                offset(axis1, 0, axis2, radius),
+                offset(axis1, -radius, axis2, 0),
+                offset(axis1, 0, axis2, -radius)};
+    }
+
+    @Override
+    protected Point[] calcSamplePoints(int count) {
+        Point[] points = new Point[count];
+        for (int i = 0; i < count; ++i) {
+            double r = radius * Math.sqrt((i + 0.5) / count);
+            double angle = i * GOLDEN_ANGLE;
+            points[i] = offset(axis1, r * Math.cos(angle), axis2, r * Math.sin(angle));
+        }
+        return points;
+    }
+}
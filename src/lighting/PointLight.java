@@ -44,6 +44,17 @@ public class PointLight extends Light implements LightSource {
         return this;
     }
 
+    /**
+     * Sets the intensity of the light source.
+     *
+     * @param intensity The new intensity of the light.
+     * @return This PointLight object for chaining method calls.
+     */
+    public PointLight setIntensity(Color intensity) {
+        this.intensity = intensity;
+        return this;
+    }
+
     /**
      * Sets the constant attenuation coefficient of the light source.
      *
@@ -77,6 +88,41 @@ public class PointLight extends Light implements LightSource {
         return this;
     }
 
+    /**
+     * Returns the position of the point light source.
+     *
+     * @return The position of the light source.
+     */
+    public Point getPosition() {
+        return position;
+    }
+
+    /**
+     * Returns the constant attenuation coefficient of the light source.
+     *
+     * @return The constant attenuation coefficient.
+     */
+    public double getKC() {
+        return kC;
+    }
+
+    /**
+     * Returns the linear attenuation coefficient of the light source.
+     *
+     * @return The linear attenuation coefficient.
+     */
+    public double getKL() {
+        return kL;
+    }
+
+    /**
+     * Returns the quadratic attenuation coefficient of the light source.
+     *
+     * @return The quadratic attenuation coefficient.
+     */
+    public double getKQ() {
+        return kQ;
+    }
 
     @Override
     public Color getIntensity(Point point) {
@@ -0,0 +1,113 @@
+package lighting;
+
+import primitives.Color;
+import primitives.Point;
+import primitives.Vector;
+
+/**
+ * Represents a rectangular area light, given by its center and two edge vectors.
+ * The shadow rays in the penumbra are cast to the centers of a square grid of cells over the rectangle.
+ */
+public class RectangleLight extends AreaLight {
+
+    /**
+     * The first edge of the rectangle
+     */
+    private final Vector edge1;
+    /**
+     * The second edge of the rectangle
+     */
+    private final Vector edge2;
+
+    /**
+     * Constructs a rectangular light with given intensity, center and edges.
+     * The edges are full side vectors of the rectangle (a parallelogram, if they are not orthogonal).
+     *
+     * @param intensity The intensity and color of the light.
+     * @param center    The center of the rectangle.
+     * @param edge1     The first edge of the rectangle.
+     * @param edge2     The second edge of the rectangle.
+     * @throws IllegalArgumentException if the edges are parallel
+     */
+    public RectangleLight(Color intensity, Point center, Vector edge1, Vector edge2) {
+        super(intensity, center);
+        // throws if the edges are parallel
+        edge1.crossProduct(edge2);
+        this.edge1 = edge1;
+        this.edge2 = edge2;
+    }
+
+    /**
+     * Returns the first edge of the rectangle.
+     *
+     * @return The first edge.
+     */
+    public Vector getEdge1() {
+        return edge1;
+    }
+
+    /**
+     * Returns the second edge of the rectangle.
+     *
+     * @return The second edge.
+     */
+    public Vector getEdge2() {
+        return edge2;
+    }
+
+    @Override
+    public RectangleLight setSamples(int samples) {
+        return (RectangleLight) super.setSamples(samples);
+    }
+
+    @Override
+    public RectangleLight setPosition(Point position) {
+        return (RectangleLight) super.setPosition(position);
+    }
+
+    @Override
+    public RectangleLight setIntensity(Color intensity) {
+        return (RectangleLight) super.setIntensity(intensity);
+    }
+
+    @Override
+    public RectangleLight setKC(double kC) {
+        return (RectangleLight) super.setKC(kC);
+    }
+
+    @Override
+    public RectangleLight setKL(double kL) {
+        return (RectangleLight) super.setKL(kL);
+    }
+
+    @Override
+    public RectangleLight setKQ(double kQ) {
+        return (RectangleLight) super.setKQ(kQ);
+    }
+
+    /**
+     * The center and the four corners.
+     */
+    @Override
+    protected Point[] calcProbePoints() {
+        return new Point[]{
+                position,
+                offset(edge1, -0.5, edge2, -0.5),
+                offset(edge1, 0.5, edge2, -0.5),
+                offset(edge1, 0.5, edge2, 0.5),
+                offset(edge1, -0.5, edge2, 0.5)};
+    }
+
+    /**
+     * The cell centers of a square grid - the amount is rounded up to a square number.
+     */
+    @Override
+    protected Point[] calcSamplePoints(int count) {
+        int side = (int) Math.ceil(Math.sqrt(count));
+        Point[] points = new Point[side * side];
+        for (int i = 0; i < side; ++i)
+            for (int j = 0; j < side; ++j)
+                points[i * side + j] = offset(edge1, (i + 0.5) / side - 0.5, edge2, (j + 0.5) / side - 0.5);
+        return points;
+    }
+}
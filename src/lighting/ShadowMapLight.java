@@ -0,0 +1,23 @@
+package lighting;
+
+/**
+ * Interface of a light source whose shadows may be found by a shadow map - a depth buffer rendered from
+ * the light once per frame - instead of casting a shadow ray for every shaded point.
+ * Shadow maps suit mostly opaque scenes; where the map does not apply the shadow rays are cast as usual.
+ */
+public interface ShadowMapLight extends LightSource {
+
+    /**
+     * Returns the resolution of the shadow map.
+     *
+     * @return The width and height of the shadow map in texels, or 0 if the light has no shadow map.
+     */
+    int getShadowMapResolution();
+
+    /**
+     * Returns the depth bias of the shadow map, as a multiple of the offset of the shadow rays.
+     *
+     * @return The depth bias.
+     */
+    double getShadowMapBias();
+}
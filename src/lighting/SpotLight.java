@@ -6,13 +6,28 @@ import primitives.*;
  * Represents a spotlight in a scene, which is a point light with a specific direction.
  * Extends the PointLight class and adds a direction property.
  */
-public class SpotLight extends PointLight {
+public class SpotLight extends PointLight implements ShadowMapLight {
 
     /**
      * The direction of the spotlight.
      */
     private Vector direction;
 
+    /**
+     * The resolution of the shadow map, or 0 for shadow rays.
+     */
+    private int shadowMapResolution = 0;
+
+    /**
+     * The depth bias of the shadow map, as a multiple of the offset of the shadow rays.
+     */
+    private double shadowMapBias = 1;
+
+    /**
+     * Half the angle of view of the shadow map, in degrees.
+     */
+    private double shadowMapAngle = 60;
+
     /**
      * Constructs a SpotLight with given intensity, position, and direction.
      *
@@ -25,11 +40,89 @@ public class SpotLight extends PointLight {
         this.direction = direction.normalize();
     }
 
+    /**
+     * Returns the direction of the spotlight.
+     *
+     * @return The direction vector.
+     */
+    public Vector getDirection() {
+        return direction;
+    }
+
+    /**
+     * Turns the shadow map of the light on or off.
+     *
+     * @param resolution The width and height of the shadow map in texels, or 0 to cast shadow rays.
+     * @return This SpotLight object for chaining method calls.
+     * @throws IllegalArgumentException if the resolution is negative
+     */
+    public SpotLight setShadowMap(int resolution) {
+        if (resolution < 0)
+            throw new IllegalArgumentException("The shadow map resolution must not be negative");
+        this.shadowMapResolution = resolution;
+        return this;
+    }
+
+    /**
+     * Sets the depth bias of the shadow map, which keeps surfaces from shadowing themselves.
+     * The bias is a multiple of the offset of the shadow rays (1 by default); the ray tracer adds to it
+     * the depth error of a texel on a surface sloped to the light.
+     *
+     * @param bias The depth bias.
+     * @return This SpotLight object for chaining method calls.
+     * @throws IllegalArgumentException if the bias is negative
+     */
+    public SpotLight setShadowMapBias(double bias) {
+        if (bias < 0)
+            throw new IllegalArgumentException("The shadow map bias must not be negative");
+        this.shadowMapBias = bias;
+        return this;
+    }
+
+    @Override
+    public int getShadowMapResolution() {
+        return shadowMapResolution;
+    }
+
+    @Override
+    public double getShadowMapBias() {
+        return shadowMapBias;
+    }
+
+    /**
+     * Sets half the angle of view of the shadow map around the direction of the spotlight.
+     * Points outside the view of the map are shadowed by shadow rays.
+     *
+     * @param angle Half the angle of view in degrees (60 by default).
+     * @return This SpotLight object for chaining method calls.
+     * @throws IllegalArgumentException if the angle is not between 0 and 90 degrees (exclusive)
+     */
+    public SpotLight setShadowMapAngle(double angle) {
+        if (angle <= 0 || angle >= 90)
+            throw new IllegalArgumentException("The shadow map angle must be between 0 and 90 degrees");
+        this.shadowMapAngle = angle;
+        return this;
+    }
+
+    /**
+     * Returns half the angle of view of the shadow map.
+     *
+     * @return Half the angle of view in degrees.
+     */
+    public double getShadowMapAngle() {
+        return shadowMapAngle;
+    }
+
     @Override
     public SpotLight setPosition(Point position) {
         return (SpotLight) super.setPosition(position);
     }
 
+    @Override
+    public SpotLight setIntensity(Color intensity) {
+        return (SpotLight) super.setIntensity(intensity);
+    }
+
     @Override
     public SpotLight setKC(double kC) {
         return (SpotLight) super.setKC(kC);
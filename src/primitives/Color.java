@@ -75,6 +75,15 @@ public class Color {
         return new java.awt.Color(ir > 255 ? 255 : ir, ig > 255 ? 255 : ig, ib > 255 ? 255 : ib);
     }
 
+    /**
+     * Color getter - returns the RGB components without any limit
+     *
+     * @return triad of Red/Green/Blue components
+     */
+    public Double3 getRgb() {
+        return rgb;
+    }
+
     /**
      * Operation of adding this and one or more other colors (by component)
      *
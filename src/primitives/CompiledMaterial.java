@@ -0,0 +1,109 @@
+package primitives;
+
+/**
+ * Immutable snapshot of a material for the hot path of the ray tracer.
+ * Besides the coefficients, it holds the classification of the material, so the tracer can decide once
+ * per hit which effects to calculate - for example, no refracted ray is built for an opaque material and
+ * no light is sampled for a material with neither a diffuse nor a specular coefficient.
+ */
+public final class CompiledMaterial {
+
+    /**
+     * Diffuse coefficient
+     */
+    public final Double3 kD;
+    /**
+     * Specular coefficient
+     */
+    public final Double3 kS;
+    /**
+     * Transparency coefficient
+     */
+    public final Double3 kT;
+    /**
+     * Reflection coefficient
+     */
+    public final Double3 kR;
+    /**
+     * Shininess factor
+     */
+    public final int nShininess;
+
+    // The classification flags
+    private final boolean opaque;
+    private final boolean reflective;
+    private final boolean diffuse;
+    private final boolean specular;
+
+    /**
+     * Compiles a material - later changes of the material do not affect the compiled one.
+     *
+     * @param material The material.
+     */
+    public CompiledMaterial(Material material) {
+        kD = material.kD;
+        kS = material.kS;
+        kT = material.kT;
+        kR = material.kR;
+        nShininess = material.nShininess;
+        opaque = kT.equals(Double3.ZERO);
+        reflective = !kR.equals(Double3.ZERO);
+        diffuse = !kD.equals(Double3.ZERO);
+        specular = !kS.equals(Double3.ZERO);
+    }
+
+    /**
+     * Checks whether the material lets no light through (zero transparency coefficient).
+     *
+     * @return true if the material is opaque, false otherwise.
+     */
+    public boolean isOpaque() {
+        return opaque;
+    }
+
+    /**
+     * Checks whether the material reflects like a mirror (non-zero reflection coefficient).
+     *
+     * @return true if the material is reflective, false otherwise.
+     */
+    public boolean isReflective() {
+        return reflective;
+    }
+
+    /**
+     * Checks whether the material has a diffuse effect (non-zero diffuse coefficient).
+     *
+     * @return true if the material is diffuse, false otherwise.
+     */
+    public boolean hasDiffuse() {
+        return diffuse;
+    }
+
+    /**
+     * Checks whether the material has a specular effect (non-zero specular coefficient).
+     *
+     * @return true if the material has a specular effect, false otherwise.
+     */
+    public boolean hasSpecular() {
+        return specular;
+    }
+
+    /**
+     * Checks whether the material is lit by the light sources (has a diffuse or a specular effect).
+     *
+     * @return true if the light sources affect the material, false otherwise.
+     */
+    public boolean isLit() {
+        return diffuse || specular;
+    }
+
+    /**
+     * Checks whether a geometry of the material shows only its emission color:
+     * it is opaque, does not reflect and is not lit.
+     *
+     * @return true if the material is emissive only, false otherwise.
+     */
+    public boolean isEmissiveOnly() {
+        return opaque && !reflective && !diffuse && !specular;
+    }
+}
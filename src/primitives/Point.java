@@ -28,6 +28,33 @@ public class Point {
         this.xyz = xyz;
     }
 
+    /**
+     * Returns the x-coordinate of the Point.
+     *
+     * @return The x-coordinate.
+     */
+    public double getX() {
+        return xyz.d1;
+    }
+
+    /**
+     * Returns the y-coordinate of the Point.
+     *
+     * @return The y-coordinate.
+     */
+    public double getY() {
+        return xyz.d2;
+    }
+
+    /**
+     * Returns the z-coordinate of the Point.
+     *
+     * @return The z-coordinate.
+     */
+    public double getZ() {
+        return xyz.d3;
+    }
+
     /**
      * Subtracts another Point from this Point, returning the resulting Vector.
      *
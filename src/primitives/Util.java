@@ -1,5 +1,7 @@
 package primitives;
 
+import java.util.SplittableRandom;
+
 /**
  * Util class is used for some internal utilities, e.g. controlling accuracy
  *
@@ -68,14 +70,16 @@ public final class Util {
     }
 
     /**
-     * Provide a real random number in range between min and max
+     * Provide a real random number in range between min and max, drawn from a given generator -
+     * the generator of the pixel being traced, so a seeded rendering is reproduced exactly
      *
-     * @param min value (included)
-     * @param max value (excluded)
+     * @param random the generator
+     * @param min    value (included)
+     * @param max    value (excluded)
      * @return the random value
      */
-    public static double random(double min, double max) {
-        return Math.random() * (max - min) + min;
+    public static double random(SplittableRandom random, double min, double max) {
+        return random.nextDouble() * (max - min) + min;
     }
 
 }
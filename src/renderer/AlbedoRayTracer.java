@@ -0,0 +1,52 @@
+package renderer;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Color;
+import primitives.Ray;
+import primitives.Vector;
+import scene.CompiledScene;
+import scene.Scene;
+
+/**
+ * Preview ray tracer which shows the flat albedo at the primary hit: the emission of the geometry plus
+ * white scaled by the diffuse coefficient of its material, with no lights, shadows or secondary rays.
+ */
+public class AlbedoRayTracer extends RayTracerBase {
+
+    /**
+     * The color scaled by the diffuse coefficient
+     */
+    private static final Color WHITE = new Color(255, 255, 255);
+
+    /**
+     * Constructs a new AlbedoRayTracer with the given scene.
+     *
+     * @param scene The scene to be traced.
+     */
+    public AlbedoRayTracer(Scene scene) {
+        super(scene);
+    }
+
+    /**
+     * Constructs a new AlbedoRayTracer with an already compiled scene.
+     *
+     * @param compiledScene The compiled scene to be traced.
+     */
+    public AlbedoRayTracer(CompiledScene compiledScene) {
+        super(compiledScene);
+    }
+
+    @Override
+    public Color traceRay(Ray ray) {
+        // Tracing a single ray outside a camera rendering
+        if (compiledScene == null) compile();
+
+        GeoPoint closestPoint = findClosestIntersection(ray);
+        return closestPoint == null ? compiledScene.background : traceHit(closestPoint, null, ray);
+    }
+
+    @Override
+    public Color traceHit(GeoPoint hit, Vector n, Ray ray) {
+        return compiledScene.getEmission(hit.geometry).add(WHITE.scale(compiledScene.getMaterial(hit.geometry).kD));
+    }
+}
@@ -0,0 +1,132 @@
+package renderer;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Color;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import scene.CompiledScene;
+import scene.Scene;
+
+import java.util.SplittableRandom;
+
+/**
+ * Preview ray tracer which shows the ambient occlusion at the primary hit: white scaled by the fraction of
+ * sample rays, cosine-distributed over the hemisphere around the normal, that escape without hitting
+ * any geometry within a given distance.
+ */
+public class AmbientOcclusionRayTracer extends RayTracerBase {
+
+    /**
+     * The color scaled by the unoccluded fraction
+     */
+    private static final Color WHITE = new Color(255, 255, 255);
+
+    /**
+     * The amount of sample rays per hit
+     */
+    private final int samples;
+
+    /**
+     * The distance within which a geometry occludes a sample ray
+     */
+    private final double distance;
+
+    /**
+     * Constructs a new AmbientOcclusionRayTracer with the given scene.
+     *
+     * @param scene    The scene to be traced.
+     * @param samples  The amount of sample rays per hit.
+     * @param distance The distance within which a geometry occludes a sample ray.
+     * @throws IllegalArgumentException if the amount of samples or the distance is not positive
+     */
+    public AmbientOcclusionRayTracer(Scene scene, int samples, double distance) {
+        super(scene);
+        this.samples = checkSamples(samples);
+        this.distance = checkDistance(distance);
+    }
+
+    /**
+     * Constructs a new AmbientOcclusionRayTracer with an already compiled scene.
+     *
+     * @param compiledScene The compiled scene to be traced.
+     * @param samples       The amount of sample rays per hit.
+     * @param distance      The distance within which a geometry occludes a sample ray.
+     * @throws IllegalArgumentException if the amount of samples or the distance is not positive
+     */
+    public AmbientOcclusionRayTracer(CompiledScene compiledScene, int samples, double distance) {
+        super(compiledScene);
+        this.samples = checkSamples(samples);
+        this.distance = checkDistance(distance);
+    }
+
+    /**
+     * Checks the amount of samples.
+     *
+     * @param samples The amount of samples.
+     * @return The amount of samples.
+     * @throws IllegalArgumentException if the amount is not positive
+     */
+    private static int checkSamples(int samples) {
+        if (samples < 1)
+            throw new IllegalArgumentException("Number of samples must be greater than 0");
+        return samples;
+    }
+
+    /**
+     * Checks the occlusion distance.
+     *
+     * @param distance The distance.
+     * @return The distance.
+     * @throws IllegalArgumentException if the distance is not positive
+     */
+    private static double checkDistance(double distance) {
+        if (!(distance > 0))
+            throw new IllegalArgumentException("Occlusion distance must be greater than 0");
+        return distance;
+    }
+
+    @Override
+    double[] getQualitySettings() {
+        return new double[]{samples, distance};
+    }
+
+    @Override
+    public Color traceRay(Ray ray) {
+        // Tracing a single ray outside a camera rendering
+        if (compiledScene == null) compile();
+
+        GeoPoint closestPoint = findClosestIntersection(ray);
+        return closestPoint == null ? compiledScene.background
+                : traceHit(closestPoint, closestPoint.geometry.getNormal(closestPoint.point), ray);
+    }
+
+    @Override
+    public Color traceHit(GeoPoint hit, Vector n, Ray ray) {
+        // The hemisphere is around the normal on the side the ray comes from
+        Point point = hit.point;
+        if (n.dotProduct(ray.getDirection()) > 0)
+            n = n.scale(-1);
+        Vector t = n.crossProduct(Math.abs(n.getX()) > 0.9 ? new Vector(0, 1, 0) : new Vector(1, 0, 0)).normalize();
+        Vector b = n.crossProduct(t);
+
+        SplittableRandom random = random();
+        int unoccluded = 0;
+        for (int i = 0; i < samples; ++i) {
+            // Cosine-weighted direction: uniform on the unit disc, projected up to the hemisphere
+            // (composed by components, since a scaled vector may be zero)
+            double phi = 2 * Math.PI * random.nextDouble();
+            double r2 = random.nextDouble();
+            double u = Math.cos(phi) * Math.sqrt(r2);
+            double v = Math.sin(phi) * Math.sqrt(r2);
+            double w = Math.sqrt(1 - r2);
+            Vector direction = new Vector(
+                    u * t.getX() + v * b.getX() + w * n.getX(),
+                    u * t.getY() + v * b.getY() + w * n.getY(),
+                    u * t.getZ() + v * b.getZ() + w * n.getZ());
+            if (!compiledScene.geometries.hasIntersection(new Ray(point, n, direction), distance, statistics))
+                ++unoccluded;
+        }
+        return WHITE.scale((double) unoccluded / samples);
+    }
+}
@@ -1,7 +1,10 @@
 package renderer;
 
+import geometries.Intersectable.GeoPoint;
 import primitives.*;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.List;
 import java.util.LinkedList;
 import java.util.MissingResourceException;
@@ -21,12 +24,22 @@ public class Camera implements Cloneable {
     private RayTracerBase rayTracer; // Ray tracer for the scene
     private int numberOfRays = 1; // Default value for no anti-aliasing
     private int threadsCount = 0;
+    private long seed = 0; // Seed of the random numbers of the rendering
+    private RenderStatistics statistics; // Counters of the renderings, or null
+    private Heatmap.Measure heatmapMeasure; // Cost recorded for each pixel, or null
+    private Heatmap heatmap; // Cost of each pixel of the last rendering, or null
+    private ProgressListener progressListener; // Receiver of the progress of the renderings, or null
+    private double progressInterval = 1; // Minimal time between progress reports, in seconds
+    private Path checkpointFile; // File of the checkpoints of the renderings, or null
+    private double checkpointInterval = 60; // Minimal time between checkpoints, in seconds
+    private boolean resume = false; // Whether a rendering resumes from its checkpoint file
+    private Checkpoint checkpoint; // Checkpoint of the current rendering, or null
 
     /**
      * Pixel manager for supporting:
      * <ul>
      * <li>multi-threading</li>
-     * <li>debug print of progress percentage in Console window/tab</li>
+     * <li>progress reports to the progress listener</li>
      * <ul>
      */
     private PixelManager pixelManager;
@@ -129,7 +142,11 @@ public class Camera implements Cloneable {
                 double offsetX = (subX - (numberOfRays - 1) / 2.0) * subPixelWidth;
                 double offsetY = (subY - (numberOfRays - 1) / 2.0) * subPixelHeight;
                 // Calculate the center point of the sub-pixel
-                Point subPixelCenter = pIJ.add(vRight.scale(offsetX)).add(vUp.scale(offsetY));
+                Point subPixelCenter = pIJ;
+                if (!isZero(offsetX))
+                    subPixelCenter = subPixelCenter.add(vRight.scale(offsetX));
+                if (!isZero(offsetY))
+                    subPixelCenter = subPixelCenter.add(vUp.scale(offsetY));
                 // Create a new ray from the camera to the sub-pixel center
                 rays.add(new Ray(p0, subPixelCenter.subtract(p0)));
             }
@@ -143,73 +160,306 @@ public class Camera implements Cloneable {
      * This method supports both single-threaded and multi-threaded rendering.
      * If threadsCount is greater than 0, multiple threads are created to process pixels in parallel,
      * improving performance by utilizing CPU resources more efficiently.
-     * The PixelManager ensures each thread processes unique pixels.
+     * The PixelManager ensures each thread processes unique tiles of pixels.
+     * The random numbers of each pixel are derived from the seed of the camera, so the image is the same
+     * whatever the amount of threads.
      *
      * @return the camera object for method chaining
      */
     public Camera renderImage() {
+        return renderImage(rayTracer);
+    }
+
+    /**
+     * Renders the image with another ray tracer instead of the camera's one - for example, a cheap preview
+     * tracer sharing the compiled scene of the camera's tracer.
+     *
+     * @param rayTracer the ray tracer for this rendering
+     * @return the camera object for method chaining
+     * @throws IllegalArgumentException if the checkpoint file to resume is of another rendering
+     * @throws IllegalStateException    if the checkpoint file cannot be opened
+     */
+    public Camera renderImage(RayTracerBase rayTracer) {
         int nX = imageWriter.getNx();
         int nY = imageWriter.getNy();
 
-        pixelManager = new PixelManager(nY, nX, 100l);
-        if (this.threadsCount == 0) {
-            for (int i = 0; i < this.imageWriter.getNy(); i++) {
-                for (int j = 0; j < this.imageWriter.getNx(); j++) {
-                    this.castRay(this.imageWriter.getNx(), this.imageWriter.getNy(), j, i);
-                }
+        rayTracer.compile();
+        try (Checkpoint opened = openCheckpoint(rayTracer, nX, nY)) {
+            checkpoint = opened;
+            if (opened != null)
+                opened.restore(imageWriter);
+            if (heatmapMeasure == null) {
+                heatmap = null;
+                rayTracer.setStatistics(statistics);
+                forEachPixel(nX, nY, rayTracer,
+                        (j, i) -> imageWriter.writePixel(j, i, castRays(rayTracer, nX, nY, j, i)));
+            } else
+                renderHeatmap(rayTracer, nX, nY);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error on the checkpoint file " + checkpointFile, e);
+        } finally {
+            checkpoint = null;
+        }
+        if (statistics != null)
+            System.out.print(statistics.summary());
+        return this;
+    }
+
+    /**
+     * Opens the checkpoint of a rendering, if the camera keeps checkpoints.
+     * The checkpoint is of the rendering settings of the camera and of the ray tracer of the rendering (its
+     * class and its quality settings) - not of the scene, which must not be changed between a rendering and
+     * its resumption.
+     *
+     * @param rayTracer the ray tracer of the rendering
+     * @param nX        the number of columns
+     * @param nY        the number of rows
+     * @return the checkpoint, or null if the camera keeps no checkpoints
+     * @throws IOException if the checkpoint file cannot be opened
+     */
+    private Checkpoint openCheckpoint(RayTracerBase rayTracer, int nX, int nY) throws IOException {
+        if (checkpointFile == null) return null;
+        long fingerprint = Checkpoint.fingerprint(rayTracer.getClass().getName(), rayTracer.getQualitySettings(),
+                p0.getX(), p0.getY(), p0.getZ(), vTo.getX(), vTo.getY(), vTo.getZ(),
+                vUp.getX(), vUp.getY(), vUp.getZ(), width, height, distance, numberOfRays, seed);
+        return new Checkpoint(checkpointFile, nX, nY, fingerprint, resume, checkpointInterval);
+    }
+
+    /**
+     * Renders the image and records the cost of each pixel into a new heatmap.
+     * The work is counted by the statistics of the camera, or by private statistics if the camera has none.
+     *
+     * @param rayTracer the ray tracer for this rendering
+     * @param nX        the number of columns
+     * @param nY        the number of rows
+     */
+    private void renderHeatmap(RayTracerBase rayTracer, int nX, int nY) {
+        Heatmap costs = new Heatmap(heatmapMeasure, nX, nY);
+        if (heatmapMeasure == Heatmap.Measure.TIME) {
+            rayTracer.setStatistics(statistics);
+            forEachPixel(nX, nY, rayTracer, (j, i) -> {
+                long start = System.nanoTime();
+                Color color = castRays(rayTracer, nX, nY, j, i);
+                costs.set(j, i, System.nanoTime() - start);
+                imageWriter.writePixel(j, i, color);
+            });
+        } else {
+            RenderStatistics counter = statistics == null ? new RenderStatistics() : statistics;
+            rayTracer.setStatistics(counter);
+            counter.keepPixelWork(true);
+            try {
+                forEachPixel(nX, nY, rayTracer, (j, i) -> {
+                    counter.takePixelWork();
+                    imageWriter.writePixel(j, i, castRays(rayTracer, nX, nY, j, i));
+                    costs.set(j, i, counter.takePixelWork());
+                });
+            } finally {
+                counter.keepPixelWork(false);
             }
         }
-        else { // see further... option 2
-            var threads = new LinkedList<Thread>(); // list of threads
-            while (this.threadsCount-- > 0) // add appropriate number of threads
-                threads.add(new Thread(() -> { // add a thread with its code
-                    PixelManager.Pixel pixel; // current pixel(row,col)
-                    // allocate pixel(row,col) in loop until there are no more pixels
-                    while ((pixel = pixelManager.nextPixel()) != null)
-                        // cast ray through pixel (and color it – inside castRay)
-                        castRays(nX, nY, pixel.col(), pixel.row());
-                }));
-            // start all the threads
-            for (var thread : threads) thread.start();
-            // wait until all the threads have finished
-            try { for (var thread : threads) thread.join(); }
-            catch (InterruptedException ignore) {}
+        heatmap = costs;
+    }
+
+    /**
+     * Renders a rectangle of an image alone, in the calling thread - for a worker of a distributed rendering.
+     * The image writer of the camera holds the rectangle only, instead of the whole image: the pixels are
+     * written into its top-left corner, so a worker needs no framebuffer of the whole image.
+     * The pixels are exactly those of a rendering of the whole image with the same seed.
+     * The scene is compiled only by the first call, so the scene must not be changed between the calls.
+     *
+     * @param nX     the width of the whole image
+     * @param nY     the height of the whole image
+     * @param x      the first column of the rectangle
+     * @param y      the first row of the rectangle
+     * @param width  the width of the rectangle
+     * @param height the height of the rectangle
+     * @return the camera object for method chaining
+     * @throws IllegalArgumentException if the rectangle is empty, exceeds the image or does not fit in the
+     *                                  image writer
+     */
+    public Camera renderTile(int nX, int nY, int x, int y, int width, int height) {
+        if (x < 0 || y < 0 || width <= 0 || height <= 0 || x + width > nX || y + height > nY)
+            throw new IllegalArgumentException("The tile is outside the image");
+        if (width > imageWriter.getNx() || height > imageWriter.getNy())
+            throw new IllegalArgumentException("The tile does not fit in the image writer");
+
+        if (rayTracer.compiledScene == null)
+            rayTracer.compile();
+        rayTracer.setStatistics(statistics);
+        try {
+            forEachPixel(new PixelManager.Tile(x, y, width, height), nX, rayTracer,
+                    (j, i) -> imageWriter.writePixel(j - x, i - y, castRays(rayTracer, nX, nY, j, i)));
+        } finally {
+            rayTracer.endThread();
         }
         return this;
     }
 
     /**
-     * Casts a single ray through a specific pixel to compute the color.
+     * Captures the primary hits of every pixel into a G-buffer, without shading them.
+     * All the primary rays of each pixel are cast (the sub-pixel rays too, if anti-aliasing is enabled).
      *
-     * @param nX The number of pixels in the x-axis of the view plane grid.
-     * @param nY The number of pixels in the y-axis of the view plane grid.
-     * @param j  The index of the pixel in the x-axis of the grid.
-     * @param i  The index of the pixel in the y-axis of the grid.
+     * @return the G-buffer of the image
+     */
+    public GBuffer captureGBuffer() {
+        int nX = imageWriter.getNx();
+        int nY = imageWriter.getNy();
+
+        rayTracer.compile();
+        GBuffer gBuffer = new GBuffer(nX, nY, constructRays(nX, nY, 0, 0).size(), rayTracer.compiledScene);
+        forEachPixel(nX, nY, rayTracer, (j, i) -> {
+            int sample = 0;
+            for (Ray ray : constructRays(nX, nY, j, i))
+                gBuffer.set(j, i, sample++, ray, rayTracer.findClosestIntersection(ray));
+        });
+        return gBuffer;
+    }
+
+    /**
+     * Renders the image again from the primary hits in a G-buffer, without casting any primary ray:
+     * only the shading at the hits is calculated (with its shadow rays and secondary rays).
+     * The lights may be changed freely between the capture and the relighting; the geometries and the
+     * camera must not be changed.
+     *
+     * @param gBuffer the G-buffer captured by this camera
+     * @return the camera object for method chaining
+     * @throws IllegalArgumentException if the G-buffer does not match the size of the image
+     */
+    public Camera relight(GBuffer gBuffer) {
+        int nX = imageWriter.getNx();
+        int nY = imageWriter.getNy();
+        if (gBuffer.getNx() != nX || gBuffer.getNy() != nY)
+            throw new IllegalArgumentException("The G-buffer does not match the size of the image");
+
+        // Compiling again picks up any change of the lights, such as an added light or a moved shadow map
+        rayTracer.compile();
+        rayTracer.setStatistics(statistics);
+        int samples = gBuffer.getSamples();
+        forEachPixel(nX, nY, rayTracer, (j, i) -> {
+            Color color = Color.BLACK;
+            for (int sample = 0; sample < samples; ++sample) {
+                GeoPoint hit = gBuffer.getHit(j, i, sample);
+                color = color.add(hit == null ? rayTracer.compiledScene.background
+                        : rayTracer.traceHit(hit, gBuffer.getNormal(j, i, sample), gBuffer.getRay(j, i, sample)));
+            }
+            imageWriter.writePixel(j, i, samples == 1 ? color : color.reduce(samples));
+        });
+        return this;
+    }
+
+    /**
+     * Action on a single pixel of the image.
+     */
+    @FunctionalInterface
+    private interface PixelAction {
+        /**
+         * Performs the action on a pixel.
+         *
+         * @param j the column of the pixel
+         * @param i the row of the pixel
+         */
+        void apply(int j, int i);
+    }
+
+    /**
+     * Performs an action on every pixel of the image, tile by tile, in the threads of the camera if it has
+     * any, and follows the progress with a new pixel manager.
+     * During a rendering with a checkpoint, the tiles completed earlier are skipped and the rendered tiles
+     * are saved.
+     * The random numbers of the ray tracer are started for each pixel before its action.
+     *
+     * @param nX        the number of columns
+     * @param nY        the number of rows
+     * @param rayTracer the ray tracer of the action
+     * @param action    the action
+     */
+    private void forEachPixel(int nX, int nY, RayTracerBase rayTracer, PixelAction action) {
+        pixelManager = new PixelManager(nY, nX, raysPerPixel(), progressListener, progressInterval);
+        Checkpoint saved = checkpoint;
+        Runnable worker = () -> {
+            try {
+                PixelManager.Tile tile; // current tile
+                // allocate tiles in loop until there are no more tiles
+                while ((tile = pixelManager.nextTile()) != null) {
+                    // the tiles completed by an earlier rendering are restored from the checkpoint
+                    if (saved == null || !saved.isDone(tile)) {
+                        forEachPixel(tile, nX, rayTracer, action);
+                        if (saved != null) saved.tileDone(tile, imageWriter);
+                    }
+                    pixelManager.tileDone(tile);
+                }
+            } finally {
+                rayTracer.endThread();
+            }
+        };
+        if (threadsCount == 0) {
+            worker.run();
+            return;
+        }
+        var threads = new LinkedList<Thread>(); // list of threads
+        for (int t = threadsCount; t > 0; --t) // add appropriate number of threads
+            threads.add(new Thread(worker));
+        for (var thread : threads) thread.start();
+        try { for (var thread : threads) thread.join(); }
+        catch (InterruptedException ignore) {}
+    }
+
+    /**
+     * Performs an action on every pixel of a tile, and records the tile as a flight recorder event.
+     *
+     * @param tile      the tile
+     * @param nX        the number of columns of the image
+     * @param rayTracer the ray tracer of the action
+     * @param action    the action
+     */
+    private void forEachPixel(PixelManager.Tile tile, int nX, RayTracerBase rayTracer, PixelAction action) {
+        TileEvent event = new TileEvent();
+        event.begin();
+        for (int i = tile.y(); i < tile.y() + tile.height(); i++)
+            for (int j = tile.x(); j < tile.x() + tile.width(); j++) {
+                rayTracer.startPixel(seed, (long) i * nX + j);
+                action.apply(j, i);
+            }
+        event.end();
+        if (event.shouldCommit()) {
+            event.x = tile.x();
+            event.y = tile.y();
+            event.width = tile.width();
+            event.height = tile.height();
+            event.primaryRays = (long) tile.width() * tile.height() * raysPerPixel();
+            event.commit();
+        }
+    }
+
+    /**
+     * Returns the amount of primary rays of each pixel.
+     *
+     * @return the amount of rays constructed by {@link #constructRays(int, int, int, int)}
      */
-    private void castRay(int nX, int nY, int j, int i) {
-        Ray ray = constructRay(nX, nY, j, i);
-        Color color = rayTracer.traceRay(ray);
-        imageWriter.writePixel(j, i, color);
-        pixelManager.pixelDone();
+    private int raysPerPixel() {
+        return numberOfRays <= 1 ? 1 : numberOfRays * numberOfRays;
     }
 
     /**
-     * Casts multiple rays through a specific pixel to compute the color by tracing each
-     * ray and performing anti-aliasing.
+     * Casts the rays through a specific pixel to compute the color by tracing each
+     * ray and performing anti-aliasing (a single central ray if anti-aliasing is disabled).
      *
+     * @param rayTracer The ray tracer.
      * @param nX The number of pixels in the x-axis of the view plane grid.
      * @param nY The number of pixels in the y-axis of the view plane grid.
      * @param j  The index of the pixel in the x-axis of the grid.
      * @param i  The index of the pixel in the y-axis of the grid.
+     * @return The color of the pixel.
      */
-    private Color castRays(int nX, int nY, int j, int i) {
+    private Color castRays(RayTracerBase rayTracer, int nX, int nY, int j, int i) {
         List<Ray> rays = constructRays(nX, nY, j, i);
+        if (rayTracer.statistics != null)
+            rayTracer.statistics.countPixel(rays.size());
         Color color = Color.BLACK;
         for (Ray ray : rays) {
             color = color.add(rayTracer.traceRay(ray));
         }
-        color = color.reduce(rays.size());
-        return color;
+        return rays.size() == 1 ? color : color.reduce(rays.size());
     }
 
     /**
@@ -239,10 +489,21 @@ public class Camera implements Cloneable {
     }
 
     /**
-     * Writes the rendered image to a file.
+     * Writes the rendered image to a file, and its heatmap (if the camera records one) to a file
+     * with the "_heatmap" suffix.
      */
     public void writeToImage() {
+        WriteImageEvent event = new WriteImageEvent();
+        event.begin();
         imageWriter.writeToImage();
+        if (heatmap != null)
+            heatmap.write(imageWriter.getImageName() + "_heatmap");
+        event.end();
+        if (event.shouldCommit()) {
+            event.imageName = imageWriter.getImageName();
+            event.heatmap = heatmap != null;
+            event.commit();
+        }
     }
 
     /**
@@ -351,12 +612,107 @@ public class Camera implements Cloneable {
         }
 
         public Builder setThreadsCount(int threadsCount) {
-            if (threadsCount > 4 || threadsCount < 0)
-                throw new IllegalArgumentException("The number of threads must be between 1 and 4");
+            if (threadsCount < 0)
+                throw new IllegalArgumentException("The number of threads must not be negative");
             camera.threadsCount = threadsCount;
             return this;
         }
 
+        /**
+         * Sets the seed of the random numbers of the rendering.
+         * A rendering with the same seed gives exactly the same image, whatever the number of threads.
+         *
+         * @param seed the seed
+         * @return the Builder instance for chaining
+         */
+        public Builder setSeed(long seed) {
+            camera.seed = seed;
+            return this;
+        }
+
+        /**
+         * Sets the counters of the renderings of the camera (none by default).
+         * A summary of the counters is printed after each rendering.
+         *
+         * @param statistics the counters, or null to count nothing
+         * @return the Builder instance for chaining
+         */
+        public Builder setStatistics(RenderStatistics statistics) {
+            camera.statistics = statistics;
+            return this;
+        }
+
+        /**
+         * Sets the cost recorded for each pixel of the renderings into a heatmap (none by default), for
+         * finding the expensive parts of a scene. The heatmap is written next to the image.
+         *
+         * @param measure the recorded cost, or null to record nothing
+         * @return the Builder instance for chaining
+         */
+        public Builder setHeatmap(Heatmap.Measure measure) {
+            camera.heatmapMeasure = measure;
+            return this;
+        }
+
+        /**
+         * Sets the receiver of the progress of the renderings (none by default - nothing is reported).
+         * {@link ProgressListener#console()} prints the progress on the console.
+         *
+         * @param listener the receiver of the progress, or null to report nothing
+         * @return the Builder instance for chaining
+         */
+        public Builder setProgressListener(ProgressListener listener) {
+            camera.progressListener = listener;
+            return this;
+        }
+
+        /**
+         * Sets the minimal time between the progress reports of a rendering (1 second by default).
+         * The end of a rendering is always reported.
+         *
+         * @param seconds the time in seconds, 0 to report every completed tile
+         * @return the Builder instance for chaining
+         * @throws IllegalArgumentException if the time is negative
+         */
+        public Builder setProgressInterval(double seconds) {
+            if (seconds < 0)
+                throw new IllegalArgumentException("The progress interval must not be negative");
+            camera.progressInterval = seconds;
+            return this;
+        }
+
+        /**
+         * Sets the file of the checkpoints of the renderings (none by default): the completed tiles of a
+         * rendering are saved to the file periodically, for resuming a rendering which dies.
+         * The file is kept after the rendering.
+         *
+         * @param file    the checkpoint file, or null to keep no checkpoints
+         * @param seconds the minimal time between checkpoints in seconds, 0 to save every completed tile
+         * @return the Builder instance for chaining
+         * @throws IllegalArgumentException if the time is negative
+         */
+        public Builder setCheckpoint(Path file, double seconds) {
+            if (seconds < 0)
+                throw new IllegalArgumentException("The checkpoint interval must not be negative");
+            camera.checkpointFile = file;
+            camera.checkpointInterval = seconds;
+            return this;
+        }
+
+        /**
+         * Sets whether the renderings resume from their checkpoint file (false by default - the file is
+         * started anew). A resumed rendering restores the tiles completed in the file and renders only the
+         * others; without a file, it starts anew. The file must be of the same image and camera settings,
+         * and the scene must not have changed.
+         *
+         * @param resume whether to resume from the checkpoint file
+         * @return the Builder instance for chaining
+         */
+        public Builder setResume(boolean resume) {
+            camera.resume = resume;
+            return this;
+        }
+
         /**
          * Builds the Camera object.
          *
@@ -455,4 +811,37 @@ public class Camera implements Cloneable {
     public double getDistance() {
         return distance;
     }
+
+    public int getNumberOfRays() {
+        return numberOfRays;
+    }
+
+    public int getThreadsCount() {
+        return threadsCount;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    public RenderStatistics getStatistics() {
+        return statistics;
+    }
+
+    public ProgressListener getProgressListener() {
+        return progressListener;
+    }
+
+    public double getProgressInterval() {
+        return progressInterval;
+    }
+
+    /**
+     * Returns the heatmap of the last rendering.
+     *
+     * @return the heatmap, or null if the camera records no heatmap or has not rendered yet
+     */
+    public Heatmap getHeatmap() {
+        return heatmap;
+    }
 }
\ No newline at end of file
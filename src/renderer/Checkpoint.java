@@ -0,0 +1,294 @@
+package renderer;
+
+import primitives.Color;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Checkpoint of a rendering in a memory-mapped file: the framebuffer and a bitmap of the completed tiles,
+ * so a rendering which dies (a crash, a pre-emption) resumes from its completed tiles.
+ * The pixels of each completed tile are copied into the file at once; the tiles are marked as complete
+ * only by the periodic saves, after their pixels are forced to the storage, so the file never claims a tile
+ * whose pixels are lost.
+ * <p>
+ * The file layout: the signature, the format version, the width and the height of the image, the size of
+ * the tiles and the fingerprint of the rendering settings (a file of other settings is never resumed), one
+ * byte per tile (1 if complete), and the sRGB ints of the pixels, row by row.
+ * The pixels are mapped in bands of rows of up to 1GB each, as in {@link MappedFramebuffer} (a single mapping
+ * is limited to 2GB), so a checkpoint is limited by the disk alone.
+ */
+final class Checkpoint implements Closeable {
+
+    /**
+     * The file signature
+     */
+    private static final int MAGIC = 0x5254434B; // "RTCK"
+
+    /**
+     * The format version - a checkpoint of another version is rejected
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * The length of the header: magic, version, nX, nY, tile size, fingerprint
+     */
+    private static final int HEADER = 4 * 5 + 8;
+
+    /**
+     * The maximal size of a band of pixels, in bytes
+     */
+    private static final int BAND_SIZE = 1 << 30;
+
+    private final int nX, nY, columns, tiles;
+    private final FileChannel channel;
+    /**
+     * The mapped header and bitmap of the tiles
+     */
+    private final MappedByteBuffer buffer;
+    /**
+     * The offset of the pixels in the file
+     */
+    private final int pixels;
+    /**
+     * The amount of rows in each band
+     */
+    private final int bandRows;
+    /**
+     * The mapped bands of rows of the pixels, from the top
+     */
+    private final MappedByteBuffer[] bands;
+    /**
+     * The tiles whose pixels are copied but which are not marked as complete yet
+     */
+    private final ConcurrentLinkedQueue<Integer> unsaved = new ConcurrentLinkedQueue<>();
+    /**
+     * Time of the next save, in nanoseconds of {@link System#nanoTime()}
+     */
+    private final AtomicLong nextSave;
+    /**
+     * Saving interval in nanoseconds
+     */
+    private final long saveInterval;
+
+    /**
+     * Opens a checkpoint file.
+     *
+     * @param file        the file
+     * @param nX          the width of the image
+     * @param nY          the height of the image
+     * @param fingerprint the fingerprint of the rendering settings
+     * @param resume      whether to resume the completed tiles of an existing file (or else start anew)
+     * @param interval    the minimal time between the saves in seconds, 0 to save every tile
+     * @throws IOException              if the file cannot be opened or mapped
+     * @throws IllegalArgumentException if the file to resume is not a checkpoint of the same rendering, or the
+     *                                  image is too large for a checkpoint
+     */
+    Checkpoint(Path file, int nX, int nY, long fingerprint, boolean resume, double interval) throws IOException {
+        this(file, nX, nY, fingerprint, resume, interval, BAND_SIZE);
+    }
+
+    /**
+     * Opens a checkpoint file, mapping its pixels in bands of a given size.
+     *
+     * @param file        the file
+     * @param nX          the width of the image
+     * @param nY          the height of the image
+     * @param fingerprint the fingerprint of the rendering settings
+     * @param resume      whether to resume the completed tiles of an existing file (or else start anew)
+     * @param interval    the minimal time between the saves in seconds, 0 to save every tile
+     * @param bandSize    the maximal size of a band of pixels in bytes (a band holds a row at least)
+     * @throws IOException              if the file cannot be opened or mapped
+     * @throws IllegalArgumentException if the file to resume is not a checkpoint of the same rendering, or the
+     *                                  image is too large for a checkpoint
+     */
+    Checkpoint(Path file, int nX, int nY, long fingerprint, boolean resume, double interval, int bandSize)
+            throws IOException {
+        this.nX = nX;
+        this.nY = nY;
+        int size = PixelManager.TILE_SIZE;
+        columns = (nX + size - 1) / size;
+        long tileCount = (long) columns * ((nY + size - 1) / size);
+        if (HEADER + tileCount > Integer.MAX_VALUE || 4L * nX > Integer.MAX_VALUE)
+            throw new IllegalArgumentException("The image is too large for a checkpoint");
+        tiles = (int) tileCount;
+        pixels = HEADER + tiles;
+        long length = pixels + 4L * nX * nY;
+        bandRows = (int) Math.max(1, bandSize / (4L * nX));
+        bands = new MappedByteBuffer[(nY + bandRows - 1) / bandRows];
+
+        boolean resumed = resume && Files.exists(file);
+        channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE);
+        try {
+            if (resumed && channel.size() != length)
+                throw new IllegalArgumentException("The checkpoint belongs to another rendering: " + file);
+            if (!resumed)
+                channel.truncate(0);
+            buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, pixels);
+            for (int band = 0; band < bands.length; ++band) {
+                long first = (long) band * bandRows;
+                int rows = (int) Math.min(bandRows, nY - first);
+                bands[band] = channel.map(FileChannel.MapMode.READ_WRITE, pixels + 4 * first * nX, 4L * rows * nX);
+            }
+            if (resumed) {
+                if (buffer.getInt(0) != MAGIC || buffer.getInt(4) != VERSION || buffer.getInt(8) != nX
+                        || buffer.getInt(12) != nY || buffer.getInt(16) != size || buffer.getLong(20) != fingerprint)
+                    throw new IllegalArgumentException("The checkpoint belongs to another rendering: " + file);
+            } else {
+                buffer.putInt(0, MAGIC).putInt(4, VERSION).putInt(8, nX).putInt(12, nY).putInt(16, size)
+                        .putLong(20, fingerprint);
+                buffer.force();
+            }
+        } catch (IOException | RuntimeException e) {
+            channel.close();
+            throw e;
+        }
+        saveInterval = (long) (interval * 1e9);
+        nextSave = new AtomicLong(System.nanoTime() + saveInterval);
+    }
+
+    /**
+     * Computes the fingerprint of rendering settings.
+     *
+     * @param tracer         the name of the class of the ray tracer
+     * @param tracerSettings the settings of the ray tracer
+     * @param settings       the settings of the camera
+     * @return the fingerprint
+     */
+    static long fingerprint(String tracer, double[] tracerSettings, double... settings) {
+        long fingerprint = 17 + tracer.hashCode();
+        for (double setting : tracerSettings)
+            fingerprint = fingerprint * 0x9E3779B97F4A7C15L + Double.doubleToLongBits(setting);
+        // the amount of tracer settings separates them from the camera settings
+        fingerprint = fingerprint * 0x9E3779B97F4A7C15L + tracerSettings.length;
+        for (double setting : settings)
+            fingerprint = fingerprint * 0x9E3779B97F4A7C15L + Double.doubleToLongBits(setting);
+        return fingerprint;
+    }
+
+    /**
+     * Returns the index of a tile in the bitmap.
+     *
+     * @param tile the tile
+     * @return the index
+     */
+    private int index(PixelManager.Tile tile) {
+        return tile.y() / PixelManager.TILE_SIZE * columns + tile.x() / PixelManager.TILE_SIZE;
+    }
+
+    /**
+     * Returns whether a tile was completed (and saved) by an earlier rendering.
+     *
+     * @param tile the tile
+     * @return true if the tile is complete
+     */
+    boolean isDone(PixelManager.Tile tile) {
+        return buffer.get(HEADER + index(tile)) != 0;
+    }
+
+    /**
+     * Returns the amount of complete tiles in the file.
+     *
+     * @return the amount of tiles
+     */
+    int getSavedTiles() {
+        int saved = 0;
+        for (int tile = 0; tile < tiles; ++tile)
+            if (buffer.get(HEADER + tile) != 0) ++saved;
+        return saved;
+    }
+
+    /**
+     * Writes the pixels of the complete tiles into an image writer.
+     *
+     * @param imageWriter the image writer
+     */
+    void restore(ImageWriter imageWriter) {
+        int size = PixelManager.TILE_SIZE;
+        for (int y = 0; y < nY; y += size)
+            for (int x = 0; x < nX; x += size) {
+                PixelManager.Tile tile = new PixelManager.Tile(x, y, Math.min(size, nX - x), Math.min(size, nY - y));
+                if (!isDone(tile)) continue;
+                for (int i = y; i < y + tile.height(); ++i)
+                    for (int j = x; j < x + tile.width(); ++j)
+                        imageWriter.writePixel(j, i, new Color(new java.awt.Color(band(i).getInt(offset(j, i)))));
+            }
+    }
+
+    /**
+     * Returns the band of a row of pixels.
+     *
+     * @param i the row
+     * @return the band
+     */
+    private MappedByteBuffer band(int i) {
+        return bands[i / bandRows];
+    }
+
+    /**
+     * Returns the offset of a pixel in its band.
+     *
+     * @param j the column of the pixel
+     * @param i the row of the pixel
+     * @return the offset
+     */
+    private int offset(int j, int i) {
+        return 4 * ((i % bandRows) * nX + j);
+    }
+
+    /**
+     * Copies the pixels of a rendered tile from an image writer into the file, and saves the checkpoint if
+     * the interval has passed since the last save. Called by the rendering threads.
+     *
+     * @param tile        the tile
+     * @param imageWriter the image writer of the rendering
+     */
+    void tileDone(PixelManager.Tile tile, ImageWriter imageWriter) {
+        for (int i = tile.y(); i < tile.y() + tile.height(); ++i)
+            for (int j = tile.x(); j < tile.x() + tile.width(); ++j)
+                band(i).putInt(offset(j, i), imageWriter.getRgb(j, i));
+        unsaved.add(index(tile));
+        long now = System.nanoTime();
+        long due = nextSave.get();
+        // only the thread which moves the time of the next save saves
+        if (now - due >= 0 && nextSave.compareAndSet(due, now + saveInterval))
+            save();
+    }
+
+    /**
+     * Saves the checkpoint: forces the copied pixels to the storage, and then marks their tiles as complete.
+     */
+    synchronized void save() {
+        List<Integer> saved = new ArrayList<>();
+        Integer tile;
+        while ((tile = unsaved.poll()) != null)
+            saved.add(tile);
+        if (saved.isEmpty()) return;
+        for (MappedByteBuffer band : bands)
+            band.force();
+        for (int index : saved)
+            buffer.put(HEADER + index, (byte) 1);
+        buffer.force(HEADER, tiles);
+    }
+
+    /**
+     * Saves the last tiles and closes the file.
+     *
+     * @throws IOException if the file cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        save();
+        channel.close();
+    }
+}
@@ -0,0 +1,32 @@
+package renderer;
+
+import scene.CompiledScene;
+import scene.Scene;
+
+/**
+ * Preview ray tracer with direct lighting only: the emission, the ambient light and the diffuse and
+ * specular effects of the light sources (with shadows) at the primary hit, without reflected or
+ * refracted rays.
+ */
+public class DirectLightingRayTracer extends SimpleRayTracer {
+
+    /**
+     * Constructs a new DirectLightingRayTracer with the given scene.
+     *
+     * @param scene The scene to be traced.
+     */
+    public DirectLightingRayTracer(Scene scene) {
+        super(scene);
+        maxLevel = 1;
+    }
+
+    /**
+     * Constructs a new DirectLightingRayTracer with an already compiled scene.
+     *
+     * @param compiledScene The compiled scene to be traced.
+     */
+    public DirectLightingRayTracer(CompiledScene compiledScene) {
+        super(compiledScene);
+        maxLevel = 1;
+    }
+}
@@ -0,0 +1,37 @@
+package renderer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Storage of the pixels of an {@link ImageWriter}, as sRGB ints.
+ * The pixels of distinct tiles may be written concurrently by the rendering threads.
+ */
+interface Framebuffer {
+
+    /**
+     * Reads a pixel.
+     *
+     * @param x the column of the pixel
+     * @param y the row of the pixel
+     * @return the color of the pixel, packed as {@link java.awt.Color#getRGB()}
+     */
+    int getRgb(int x, int y);
+
+    /**
+     * Writes a pixel.
+     *
+     * @param x   the column of the pixel
+     * @param y   the row of the pixel
+     * @param rgb the color of the pixel, packed as {@link java.awt.Color#getRGB()}
+     */
+    void setRgb(int x, int y, int rgb);
+
+    /**
+     * Encodes the pixels as a png image.
+     *
+     * @param out the stream of the image (not closed)
+     * @throws IOException if the stream cannot be written
+     */
+    void encode(OutputStream out) throws IOException;
+}
@@ -0,0 +1,173 @@
+package renderer;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.CompiledMaterial;
+import primitives.Ray;
+import primitives.Vector;
+import scene.CompiledScene;
+
+/**
+ * The primary hits of every pixel of an image, captured by {@link Camera#captureGBuffer()}.
+ * For each primary ray of a pixel it keeps the ray (the view direction), the closest intersection (the
+ * geometry and the point) and the normal there, so the image can be shaded again by
+ * {@link Camera#relight(GBuffer)} without casting any primary ray - for example after a change of the
+ * intensity or the attenuation of the lights.
+ * The hits remain valid only as long as the geometries and the camera are not changed.
+ */
+public final class GBuffer {
+
+    /**
+     * The width and height of the image in pixels
+     */
+    private final int nX, nY;
+    /**
+     * The amount of primary rays of each pixel
+     */
+    private final int samples;
+    /**
+     * The compiled scene of the hits
+     */
+    private final CompiledScene scene;
+    /**
+     * The primary rays, pixel by pixel and row by row
+     */
+    private final Ray[] rays;
+    /**
+     * The closest intersections of the primary rays, null where a ray misses all the geometries
+     */
+    private final GeoPoint[] hits;
+    /**
+     * The normals at the closest intersections, null where a ray misses all the geometries
+     */
+    private final Vector[] normals;
+
+    /**
+     * Constructs an empty G-buffer.
+     *
+     * @param nX      The width of the image in pixels.
+     * @param nY      The height of the image in pixels.
+     * @param samples The amount of primary rays of each pixel.
+     * @param scene   The compiled scene of the hits.
+     * @throws IllegalArgumentException if a dimension or the amount of rays is not positive
+     * @throws ArithmeticException      if the amount of all the rays overflows an int
+     */
+    GBuffer(int nX, int nY, int samples, CompiledScene scene) {
+        if (nX < 1 || nY < 1 || samples < 1)
+            throw new IllegalArgumentException("The dimensions and the amount of rays must be positive");
+        this.nX = nX;
+        this.nY = nY;
+        this.samples = samples;
+        this.scene = scene;
+        rays = new Ray[Math.multiplyExact(Math.multiplyExact(nX, nY), samples)];
+        hits = new GeoPoint[rays.length];
+        normals = new Vector[rays.length];
+    }
+
+    /**
+     * Stores a primary ray and its closest intersection.
+     *
+     * @param j      The column of the pixel.
+     * @param i      The row of the pixel.
+     * @param sample The index of the ray in the pixel.
+     * @param ray    The ray.
+     * @param hit    The closest intersection, or null if the ray misses all the geometries.
+     */
+    void set(int j, int i, int sample, Ray ray, GeoPoint hit) {
+        int index = index(j, i, sample);
+        rays[index] = ray;
+        hits[index] = hit;
+        normals[index] = hit == null ? null : hit.geometry.getNormal(hit.point);
+    }
+
+    /**
+     * Returns the width of the image.
+     *
+     * @return The width in pixels.
+     */
+    public int getNx() {
+        return nX;
+    }
+
+    /**
+     * Returns the height of the image.
+     *
+     * @return The height in pixels.
+     */
+    public int getNy() {
+        return nY;
+    }
+
+    /**
+     * Returns the amount of primary rays of each pixel.
+     *
+     * @return The amount of rays.
+     */
+    public int getSamples() {
+        return samples;
+    }
+
+    /**
+     * Returns a primary ray - its direction is the view direction at the hit.
+     *
+     * @param j      The column of the pixel.
+     * @param i      The row of the pixel.
+     * @param sample The index of the ray in the pixel.
+     * @return The ray.
+     */
+    public Ray getRay(int j, int i, int sample) {
+        return rays[index(j, i, sample)];
+    }
+
+    /**
+     * Returns the closest intersection of a primary ray.
+     *
+     * @param j      The column of the pixel.
+     * @param i      The row of the pixel.
+     * @param sample The index of the ray in the pixel.
+     * @return The intersection, or null if the ray misses all the geometries.
+     */
+    public GeoPoint getHit(int j, int i, int sample) {
+        return hits[index(j, i, sample)];
+    }
+
+    /**
+     * Returns the normal at the closest intersection of a primary ray.
+     *
+     * @param j      The column of the pixel.
+     * @param i      The row of the pixel.
+     * @param sample The index of the ray in the pixel.
+     * @return The normal, or null if the ray misses all the geometries.
+     */
+    public Vector getNormal(int j, int i, int sample) {
+        return normals[index(j, i, sample)];
+    }
+
+    /**
+     * Returns the material at the closest intersection of a primary ray.
+     *
+     * @param j      The column of the pixel.
+     * @param i      The row of the pixel.
+     * @param sample The index of the ray in the pixel.
+     * @return The compiled material, as it was when the G-buffer was captured, or null if the ray misses all
+     * the geometries.
+     */
+    public CompiledMaterial getMaterial(int j, int i, int sample) {
+        GeoPoint hit = hits[index(j, i, sample)];
+        return hit == null ? null : scene.getMaterial(hit.geometry);
+    }
+
+    /**
+     * Calculates the index of a primary ray in the arrays.
+     *
+     * @param j      The column of the pixel.
+     * @param i      The row of the pixel.
+     * @param sample The index of the ray in the pixel.
+     * @return The index.
+     * @throws IndexOutOfBoundsException if the pixel or the ray is out of the buffer
+     */
+    private int index(int j, int i, int sample) {
+        if (j < 0 || j >= nX || i < 0 || i >= nY || sample < 0 || sample >= samples)
+            throw new IndexOutOfBoundsException("Pixel (" + j + ", " + i + ") ray " + sample + " is out of the buffer");
+        return (i * nX + j) * samples + sample;
+    }
+}
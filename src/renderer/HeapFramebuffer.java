@@ -0,0 +1,42 @@
+package renderer;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.IOException;
+import java.io.OutputStream;
+
+/**
+ * Framebuffer in a {@link BufferedImage} on the heap - the default storage of an image writer.
+ */
+final class HeapFramebuffer implements Framebuffer {
+
+    /**
+     * The matrix of the pixels
+     */
+    private final BufferedImage image;
+
+    /**
+     * Allocates a black framebuffer.
+     *
+     * @param nX the width of the image
+     * @param nY the height of the image
+     */
+    HeapFramebuffer(int nX, int nY) {
+        image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+    }
+
+    @Override
+    public int getRgb(int x, int y) {
+        return image.getRGB(x, y);
+    }
+
+    @Override
+    public void setRgb(int x, int y, int rgb) {
+        image.setRGB(x, y, rgb);
+    }
+
+    @Override
+    public void encode(OutputStream out) throws IOException {
+        ImageIO.write(image, "png", out);
+    }
+}
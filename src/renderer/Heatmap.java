@@ -0,0 +1,158 @@
+package renderer;
+
+import primitives.Color;
+
+import java.util.Arrays;
+
+/**
+ * The cost of rendering each pixel of an image, recorded by a camera which is given a measure by
+ * {@link Camera.Builder#setHeatmap(Heatmap.Measure)}, and written as a false-colour image next to the
+ * rendered one: cheap pixels are blue, then cyan, green and yellow, and the most expensive pixels are red.
+ * The colours are scaled to the 99th percentile of the costs, so a few outliers do not flatten the rest of
+ * the map.
+ */
+public final class Heatmap {
+
+    /**
+     * The cost recorded for each pixel.
+     */
+    public enum Measure {
+        /**
+         * The nanoseconds spent on the pixel - includes the noise of the machine (other threads, collections)
+         */
+        TIME,
+        /**
+         * The intersection tests (of each triangle of a mesh) and the rays (primary, shadow and secondary) of
+         * the pixel - exact and reproducible
+         */
+        WORK
+    }
+
+    /**
+     * The percentile of the costs which gets the hottest colour
+     */
+    private static final double SCALE_PERCENTILE = 0.99;
+
+    /**
+     * The colours of the map, from the cheapest to the most expensive pixels
+     */
+    private static final Color[] PALETTE = {
+            new Color(0, 0, 255), new Color(0, 255, 255), new Color(0, 255, 0),
+            new Color(255, 255, 0), new Color(255, 0, 0)
+    };
+
+    private final Measure measure;
+    private final int nX, nY;
+    /**
+     * The costs of the pixels, row by row
+     */
+    private final long[] costs;
+
+    /**
+     * Constructs a heatmap of zero costs.
+     *
+     * @param measure the recorded cost
+     * @param nX      the number of columns
+     * @param nY      the number of rows
+     * @throws ArithmeticException if the amount of pixels overflows an int
+     */
+    Heatmap(Measure measure, int nX, int nY) {
+        this.measure = measure;
+        this.nX = nX;
+        this.nY = nY;
+        this.costs = new long[Math.multiplyExact(nX, nY)];
+    }
+
+    /**
+     * Records the cost of a pixel.
+     *
+     * @param j    the column of the pixel
+     * @param i    the row of the pixel
+     * @param cost the cost
+     */
+    void set(int j, int i, long cost) {
+        costs[index(j, i)] = cost;
+    }
+
+    /**
+     * Returns the index of a pixel in the costs.
+     *
+     * @param j the column of the pixel
+     * @param i the row of the pixel
+     * @return the index
+     * @throws IndexOutOfBoundsException if the pixel is outside the map
+     */
+    private int index(int j, int i) {
+        if (j < 0 || j >= nX || i < 0 || i >= nY)
+            throw new IndexOutOfBoundsException("Pixel (" + j + ", " + i + ") is outside the heatmap");
+        return i * nX + j;
+    }
+
+    /**
+     * Returns the recorded cost of a pixel.
+     *
+     * @param j the column of the pixel
+     * @param i the row of the pixel
+     * @return the cost, in nanoseconds or in units of work according to the measure
+     */
+    public long getCost(int j, int i) {
+        return costs[index(j, i)];
+    }
+
+    /**
+     * Returns the recorded cost.
+     *
+     * @return the measure
+     */
+    public Measure getMeasure() {
+        return measure;
+    }
+
+    /**
+     * Returns the number of columns.
+     *
+     * @return the number of columns
+     */
+    public int getNx() {
+        return nX;
+    }
+
+    /**
+     * Returns the number of rows.
+     *
+     * @return the number of rows
+     */
+    public int getNy() {
+        return nY;
+    }
+
+    /**
+     * Writes the map as a false-colour png image.
+     *
+     * @param imageName the name of the image file, not including the file extension
+     */
+    public void write(String imageName) {
+        long[] sorted = costs.clone();
+        Arrays.sort(sorted);
+        long scale = Math.max(1, sorted[(int) ((sorted.length - 1) * SCALE_PERCENTILE)]);
+
+        ImageWriter imageWriter = new ImageWriter(imageName, nX, nY);
+        for (int i = 0; i < nY; ++i)
+            for (int j = 0; j < nX; ++j)
+                imageWriter.writePixel(j, i, falseColor((double) costs[i * nX + j] / scale));
+        imageWriter.writeToImage();
+    }
+
+    /**
+     * Returns the false colour of a relative cost: blue for 0, through cyan, green and yellow, to red for 1.
+     *
+     * @param cost the cost relative to the hottest cost - clamped to [0, 1]
+     * @return the colour
+     */
+    static Color falseColor(double cost) {
+        double position = Math.min(Math.max(cost, 0), 1) * (PALETTE.length - 1);
+        int low = Math.min((int) position, PALETTE.length - 2);
+        double fraction = position - low;
+        return PALETTE[low].scale(1 - fraction).add(PALETTE[low + 1].scale(fraction));
+    }
+}
@@ -0,0 +1,25 @@
+package renderer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of the encoding of an image into its png file by an image writer.
+ */
+@Name("renderer.ImageEncode")
+@Label("Image Encode")
+@Category({"Ray Tracer", "Output"})
+@Description("The encoding of an image into its png file")
+final class ImageEncodeEvent extends Event {
+    @Label("Image Name")
+    String imageName;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+}
@@ -2,10 +2,11 @@ package renderer;
 
 import primitives.Color;
 
-import javax.imageio.ImageIO;
-import java.awt.image.BufferedImage;
-import java.io.File;
+import java.io.BufferedOutputStream;
+import java.io.FileOutputStream;
 import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.file.Path;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
@@ -34,7 +35,7 @@ public class ImageWriter {
     /**
      * Image generation buffer (the matrix of the pixels)
      */
-    private BufferedImage image;
+    private Framebuffer image;
     /**
      * image file name, not including the file extension '.png'
      */
@@ -58,7 +59,32 @@ public class ImageWriter {
         this.nX = nX;
         this.nY = nY;
 
-        image = new BufferedImage(nX, nY, BufferedImage.TYPE_INT_RGB);
+        image = new HeapFramebuffer(nX, nY);
+    }
+
+    /**
+     * Image Writer constructor of an out-of-core image: the pixel matrix is
+     * kept in a memory-mapped file instead of the heap, and the png file is
+     * encoded by streaming bands of rows from it, so the heap does not limit
+     * the resolution (gigapixel renderings)
+     *
+     * @param imageName       the name of png file
+     * @param nX              amount of pixels by Width
+     * @param nY              amount of pixels by height
+     * @param framebufferFile the file of the pixel matrix (4 bytes per pixel),
+     *                        overwritten if it exists and kept afterwards
+     */
+    public ImageWriter(String imageName, int nX, int nY, Path framebufferFile) {
+        this.imageName = imageName;
+        this.nX = nX;
+        this.nY = nY;
+
+        try {
+            image = new MappedFramebuffer(framebufferFile, nX, nY);
+        } catch (IOException e) {
+            logger.log(Level.SEVERE, "I/O error", e);
+            throw new IllegalStateException("I/O error - cannot map the framebuffer " + framebufferFile, e);
+        }
     }
 
     // ***************** Getters/Setters ********************** //
@@ -81,6 +107,15 @@ public class ImageWriter {
         return nX;
     }
 
+    /**
+     * Image file name
+     *
+     * @return the name of the png file, not including the file extension
+     */
+    public String getImageName() {
+        return imageName;
+    }
+
     // ***************** Operations ******************** //
 
     /**
@@ -89,13 +124,45 @@ public class ImageWriter {
      * pixel color matrix in the directory of the project
      */
     public void writeToImage() {
-        try {
-            File file = new File(FOLDER_PATH + '/' + imageName + ".png");
-            ImageIO.write(image, "png", file);
+        ImageEncodeEvent event = new ImageEncodeEvent();
+        event.begin();
+        try (OutputStream out = new BufferedOutputStream(
+                new FileOutputStream(FOLDER_PATH + '/' + imageName + ".png"))) {
+            image.encode(out);
         } catch (IOException e) {
             logger.log(Level.SEVERE, "I/O error", e);
             throw new IllegalStateException("I/O error - may be missing directory " + FOLDER_PATH, e);
         }
+        commit(event);
+    }
+
+    /**
+     * Function writeTo encodes the image as png into a stream instead of a file,
+     * for sending the image without touching the disk
+     *
+     * @param out the stream (not closed)
+     * @throws IOException if the stream cannot be written
+     */
+    public void writeTo(OutputStream out) throws IOException {
+        ImageEncodeEvent event = new ImageEncodeEvent();
+        event.begin();
+        image.encode(out);
+        commit(event);
+    }
+
+    /**
+     * Commits the flight recorder event of an encoding of the image
+     *
+     * @param event the event, begun before the encoding
+     */
+    private void commit(ImageEncodeEvent event) {
+        event.end();
+        if (event.shouldCommit()) {
+            event.imageName = imageName;
+            event.width = nX;
+            event.height = nY;
+            event.commit();
+        }
     }
 
     /**
@@ -107,7 +174,19 @@ public class ImageWriter {
      * @param color  final color of the pixel
      */
     public void writePixel(int xIndex, int yIndex, Color color) {
-        image.setRGB(xIndex, yIndex, color.getColor().getRGB());
+        image.setRgb(xIndex, yIndex, color.getColor().getRGB());
+    }
+
+    /**
+     * The function getRgb reads the color of a specific pixel from the pixel color
+     * matrix
+     *
+     * @param xIndex X axis index of the pixel
+     * @param yIndex Y axis index of the pixel
+     * @return the color of the pixel, packed as an sRGB int (as {@link java.awt.Color#getRGB()})
+     */
+    public int getRgb(int xIndex, int yIndex) {
+        return image.getRgb(xIndex, yIndex);
     }
 
 }
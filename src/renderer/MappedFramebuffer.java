@@ -0,0 +1,73 @@
+package renderer;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Framebuffer in a memory-mapped file, out of the heap: the resolution is limited by the disk, not by the
+ * heap, and the operating system pages the pixels in and out as the tiles are rendered.
+ * The file is mapped in bands of rows of up to 1GB each (a single mapping is limited to 2GB).
+ * The image is encoded by streaming bands of rows into a {@link PngEncoder}, so encoding needs a single row
+ * on the heap.
+ */
+final class MappedFramebuffer implements Framebuffer {
+
+    /**
+     * The maximal size of a band, in bytes
+     */
+    private static final int BAND_SIZE = 1 << 30;
+
+    private final int nX, nY;
+    /**
+     * The amount of rows in each band
+     */
+    private final int bandRows;
+    /**
+     * The mapped bands of rows, from the top
+     */
+    private final MappedByteBuffer[] bands;
+
+    /**
+     * Maps a new black framebuffer onto a file - an existing file is overwritten.
+     * The file is kept after the framebuffer is dropped.
+     *
+     * @param file the file
+     * @param nX   the width of the image
+     * @param nY   the height of the image
+     * @throws IOException if the file cannot be created or mapped
+     */
+    MappedFramebuffer(Path file, int nX, int nY) throws IOException {
+        this.nX = nX;
+        this.nY = nY;
+        bandRows = Math.max(1, BAND_SIZE / (4 * nX));
+        bands = new MappedByteBuffer[(nY + bandRows - 1) / bandRows];
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.CREATE, StandardOpenOption.READ,
+                StandardOpenOption.WRITE, StandardOpenOption.TRUNCATE_EXISTING)) {
+            // a mapping stays valid after its channel is closed
+            for (int band = 0; band < bands.length; ++band) {
+                long first = (long) band * bandRows;
+                int rows = (int) Math.min(bandRows, nY - first);
+                bands[band] = channel.map(FileChannel.MapMode.READ_WRITE, 4 * first * nX, 4L * rows * nX);
+            }
+        }
+    }
+
+    @Override
+    public int getRgb(int x, int y) {
+        return bands[y / bandRows].getInt(4 * ((y % bandRows) * nX + x)) | 0xFF000000;
+    }
+
+    @Override
+    public void setRgb(int x, int y, int rgb) {
+        bands[y / bandRows].putInt(4 * ((y % bandRows) * nX + x), rgb);
+    }
+
+    @Override
+    public void encode(OutputStream out) throws IOException {
+        new PngEncoder(nX, nY, out).writeRows(this, 0, nY).finish();
+    }
+}
@@ -0,0 +1,48 @@
+package renderer;
+
+import geometries.Intersectable.GeoPoint;
+import primitives.Color;
+import primitives.Ray;
+import primitives.Vector;
+import scene.CompiledScene;
+import scene.Scene;
+
+/**
+ * Preview ray tracer which shows the normal at the primary hit: each component of the unit normal
+ * is mapped from [-1, 1] to a color channel in [0, 255] (x to red, y to green and z to blue).
+ */
+public class NormalsRayTracer extends RayTracerBase {
+
+    /**
+     * Constructs a new NormalsRayTracer with the given scene.
+     *
+     * @param scene The scene to be traced.
+     */
+    public NormalsRayTracer(Scene scene) {
+        super(scene);
+    }
+
+    /**
+     * Constructs a new NormalsRayTracer with an already compiled scene.
+     *
+     * @param compiledScene The compiled scene to be traced.
+     */
+    public NormalsRayTracer(CompiledScene compiledScene) {
+        super(compiledScene);
+    }
+
+    @Override
+    public Color traceRay(Ray ray) {
+        // Tracing a single ray outside a camera rendering
+        if (compiledScene == null) compile();
+
+        GeoPoint closestPoint = findClosestIntersection(ray);
+        return closestPoint == null ? compiledScene.background
+                : traceHit(closestPoint, closestPoint.geometry.getNormal(closestPoint.point), ray);
+    }
+
+    @Override
+    public Color traceHit(GeoPoint hit, Vector n, Ray ray) {
+        return new Color((n.getX() + 1) * 127.5, (n.getY() + 1) * 127.5, (n.getZ() + 1) * 127.5);
+    }
+}
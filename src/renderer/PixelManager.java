@@ -1,81 +1,109 @@
 package renderer;
+
+import java.time.Duration;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
 /** PixelManager is a helper class. It is used for multi-threading in the renderer and
  * for follow up its progress.<br/>
- * A Camera uses one pixel manager object and several Pixel objects - one in each thread.
+ * The image is divided into square tiles, which are allocated to the threads one by one.
+ * A Camera uses one pixel manager object and several Tile objects - one in each thread.<br/>
+ * The tiles are allocated and counted with atomic counters alone, so the threads never wait for each
+ * other; the progress is reported to a listener in batches of tiles, by the thread which completes a batch.
+ * The reports are serialized, and a report behind the last one sent is dropped, so the listener never sees
+ * the progress go backwards.
  * @author Dan Zilberstein
  */
 class PixelManager {
-    /** Immutable class for object containing allocated pixel (with its row and column numbers) */
-    record Pixel(int col, int row) {}
+    /** Immutable class for object containing allocated tile (with its first column and row, and its size) */
+    record Tile(int x, int y, int width, int height) {}
+    /** Size of the side of a tile, in pixels (the tiles at the right and bottom edges may be smaller) */
+    static final int TILE_SIZE = 16;
     /** Maximum rows of pixels */
-    private int maxRows = 0;
+    private final int maxRows;
     /** Maximum columns of pixels */
-    private int maxCols = 0;
+    private final int maxCols;
+    /** Amount of columns of tiles */
+    private final int tileCols;
+    /** Amount of tiles in the generated image */
+    private final int totalTiles;
     /** Total amount of pixels in the generated image */
-    private long totalPixels = 0l;
-    /** Currently processed row of pixels */
-    private volatile int cRow = 0;
-    /** Currently processed column of pixels */
-    private volatile int cCol = -1;
+    private final long totalPixels;
+    /** Amount of primary rays of each pixel */
+    private final int raysPerPixel;
+    /** Index of the next tile to allocate */
+    private final AtomicInteger nextTile = new AtomicInteger();
     /** Amount of pixels that have been processed */
-    private volatile long pixels = 0l;
-    /** Last printed progress update percentage */
-    private volatile int lastPrinted = 0;
-    /** Flag of debug printing of progress percentage */
-    private boolean print = false;
-    /** Progress percentage printing interval */
-    private long printInterval = 100l;
-    /** Printing format */
-    private static final String PRINT_FORMAT = "%5.1f%%\r";
-    /** Mutual exclusion object for synchronizing next pixel allocation between threads */
-    private Object mutexNext = new Object();
-    /** Mutual exclusion object for printing progress percentage in console window by different threads */
-    private Object mutexPixels = new Object();
+    private final AtomicLong pixels = new AtomicLong();
+    /** Time of the next progress report, in nanoseconds of {@link System#nanoTime()} */
+    private final AtomicLong nextReport;
+    /** Time of the start of the rendering, in nanoseconds of {@link System#nanoTime()} */
+    private final long start;
+    /** Progress reporting interval in nanoseconds */
+    private final long reportInterval;
+    /** Receiver of the progress, or null if the progress is not reported */
+    private final ProgressListener listener;
+    /** The processed pixels of the last report sent to the listener */
+    private long lastReported = -1;
+
     /** Initialize pixel manager data for multi-threading
-     * @param maxRows the amount of pixel rows
-     * @param maxCols the amount of pixel columns
-     * @param interval print time interval in seconds, 0 if printing is not required
+     * @param maxRows      the amount of pixel rows
+     * @param maxCols      the amount of pixel columns
+     * @param raysPerPixel the amount of primary rays of each pixel
+     * @param listener     the receiver of the progress, null if reporting is not required
+     * @param interval     the minimal time between progress reports in seconds, 0 to report every tile
      */
-    PixelManager(int maxRows, int maxCols, double interval) {
+    PixelManager(int maxRows, int maxCols, int raysPerPixel, ProgressListener listener, double interval) {
         this.maxRows = maxRows;
         this.maxCols = maxCols;
+        this.raysPerPixel = raysPerPixel;
+        this.listener = listener;
+        tileCols = (maxCols + TILE_SIZE - 1) / TILE_SIZE;
+        totalTiles = tileCols * ((maxRows + TILE_SIZE - 1) / TILE_SIZE);
         totalPixels = (long) maxRows * maxCols;
-        printInterval = (int) (interval * 10);
-        if (print = printInterval != 0) System.out.printf(PRINT_FORMAT, 0d);
+        reportInterval = (long) (interval * 1e9);
+        start = System.nanoTime();
+        nextReport = new AtomicLong(start + reportInterval);
     }
-    /** Function for thread-safe manipulating of main follow up Pixel object - this
-     * function is critical section for all the threads, and the pixel manager data
-     * is the shared data of this critical section.<br/>
-     * The function provides next available pixel number each call.
-     * @return true if next pixel is allocated, false if there are no more pixels
+
+    /** Function for thread-safe allocation of the tiles to the threads - each call provides the next
+     * available tile, row of tiles by row of tiles.
+     * @return the next tile, or null if there are no more tiles
      */
-    Pixel nextPixel() {
-        synchronized (mutexNext) {
-            if (cRow == maxRows) return null;
-            ++cCol;
-            if (cCol < maxCols)
-                return new Pixel(cRow, cCol);
-            cCol = 0;
-            ++cRow;
-            if (cRow < maxRows)
-                return new Pixel(cRow, cCol);
-        }
-        return null;
+    Tile nextTile() {
+        int index = nextTile.getAndIncrement();
+        if (index >= totalTiles) return null;
+        int x = index % tileCols * TILE_SIZE;
+        int y = index / tileCols * TILE_SIZE;
+        return new Tile(x, y, Math.min(TILE_SIZE, maxCols - x), Math.min(TILE_SIZE, maxRows - y));
     }
-    /** Finish pixel processing by updating and printing of progress percentage */
-    void pixelDone() {
-        boolean flag = false;
-        int percentage = 0;
-        synchronized (mutexPixels) {
-            ++pixels;
-            if (print) {
-                percentage = (int) (1000l * pixels / totalPixels);
-                if (percentage - lastPrinted >= printInterval) {
-                    lastPrinted = percentage;
-                    flag = true;
-                }
-            }
-            if (flag) System.out.printf(PRINT_FORMAT, percentage / 10d);
+
+    /** Finish tile processing by counting its pixels, and report the progress if a batch is complete
+     * (the interval has passed since the last report) or the image is complete
+     * @param tile the processed tile
+     */
+    void tileDone(Tile tile) {
+        long done = pixels.addAndGet((long) tile.width() * tile.height());
+        if (listener == null) return;
+        long now = System.nanoTime();
+        if (done == totalPixels) {
+            report(done, now);
+            return;
         }
+        long due = nextReport.get();
+        // only the thread which moves the time of the next report reports this batch
+        if (now - due >= 0 && nextReport.compareAndSet(due, now + reportInterval))
+            report(done, now);
+    }
+
+    /** Report the progress to the listener, unless a later progress has already been reported
+     * @param done the processed pixels
+     * @param now  the current time in nanoseconds
+     */
+    private synchronized void report(long done, long now) {
+        if (done < lastReported) return;
+        lastReported = done;
+        listener.onProgress(new ProgressListener.Progress(done, totalPixels, done * raysPerPixel,
+                Duration.ofNanos(now - start)));
     }
-}
\ No newline at end of file
+}
@@ -0,0 +1,172 @@
+package renderer;
+
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.zip.CRC32;
+import java.util.zip.Deflater;
+import java.util.zip.DeflaterOutputStream;
+
+/**
+ * Streaming png encoder: the rows are written from the top, in bands, and compressed as they come, so
+ * encoding an image of any size holds a single row on the heap (where {@link javax.imageio.ImageIO} needs
+ * the whole image as a {@link java.awt.image.BufferedImage}).
+ * The image is encoded as 8 bit RGB, with the Sub filter on every row.
+ */
+final class PngEncoder {
+
+    /**
+     * The png file signature
+     */
+    private static final byte[] SIGNATURE = {(byte) 0x89, 'P', 'N', 'G', '\r', '\n', 0x1A, '\n'};
+
+    /**
+     * The size of the compressed data in each IDAT chunk
+     */
+    private static final int CHUNK_SIZE = 1 << 16;
+
+    private final int nX, nY;
+    private final DataOutputStream out;
+    /**
+     * The compressor of the rows into IDAT chunks
+     */
+    private final DeflaterOutputStream deflater;
+    private final Deflater compressor = new Deflater(Deflater.DEFAULT_COMPRESSION);
+    /**
+     * The filtered row: the filter type, then 3 bytes per pixel
+     */
+    private final byte[] row;
+    /**
+     * The next row to write
+     */
+    private int nextRow = 0;
+
+    /**
+     * Starts an image: writes the signature and the header.
+     *
+     * @param nX  the width of the image
+     * @param nY  the height of the image
+     * @param out the stream of the image (not closed)
+     * @throws IOException if the stream cannot be written
+     */
+    PngEncoder(int nX, int nY, OutputStream out) throws IOException {
+        this.nX = nX;
+        this.nY = nY;
+        this.out = new DataOutputStream(out);
+        row = new byte[1 + 3 * nX];
+        row[0] = 1; // Sub
+        this.out.write(SIGNATURE);
+        byte[] header = new byte[13];
+        putInt(header, 0, nX);
+        putInt(header, 4, nY);
+        header[8] = 8; // bit depth
+        header[9] = 2; // RGB
+        writeChunk("IHDR", header, header.length);
+        deflater = new DeflaterOutputStream(new OutputStream() {
+            private final byte[] chunk = new byte[CHUNK_SIZE];
+            private int length = 0;
+
+            @Override
+            public void write(int b) throws IOException {
+                write(new byte[]{(byte) b}, 0, 1);
+            }
+
+            @Override
+            public void write(byte[] b, int off, int len) throws IOException {
+                while (len > 0) {
+                    int n = Math.min(len, chunk.length - length);
+                    System.arraycopy(b, off, chunk, length, n);
+                    length += n;
+                    off += n;
+                    len -= n;
+                    if (length == chunk.length) flush();
+                }
+            }
+
+            @Override
+            public void flush() throws IOException {
+                if (length == 0) return;
+                writeChunk("IDAT", chunk, length);
+                length = 0;
+            }
+        }, compressor, CHUNK_SIZE);
+    }
+
+    /**
+     * Writes a band of rows from a framebuffer. The bands must come in order, from the top.
+     *
+     * @param framebuffer the framebuffer
+     * @param from        the first row of the band
+     * @param to          the row after the band
+     * @return the encoder itself
+     * @throws IOException              if the stream cannot be written
+     * @throws IllegalArgumentException if the band does not follow the previous one
+     */
+    PngEncoder writeRows(Framebuffer framebuffer, int from, int to) throws IOException {
+        if (from != nextRow || to < from || to > nY)
+            throw new IllegalArgumentException("The rows must be written in order, from the top");
+        for (int y = from; y < to; ++y) {
+            int previous = 0;
+            for (int x = 0, i = 1; x < nX; ++x, i += 3) {
+                int rgb = framebuffer.getRgb(x, y);
+                row[i] = (byte) ((rgb >> 16) - (previous >> 16));
+                row[i + 1] = (byte) ((rgb >> 8) - (previous >> 8));
+                row[i + 2] = (byte) (rgb - previous);
+                previous = rgb;
+            }
+            deflater.write(row);
+        }
+        nextRow = to;
+        return this;
+    }
+
+    /**
+     * Ends the image: flushes the compressed rows and writes the end chunk.
+     *
+     * @throws IOException           if the stream cannot be written
+     * @throws IllegalStateException if some rows were not written
+     */
+    void finish() throws IOException {
+        if (nextRow != nY)
+            throw new IllegalStateException("Only " + nextRow + " of " + nY + " rows were written");
+        deflater.finish();
+        deflater.flush();
+        compressor.end();
+        writeChunk("IEND", new byte[0], 0);
+        out.flush();
+    }
+
+    /**
+     * Writes a chunk: its length, type, data and CRC.
+     *
+     * @param type   the type of the chunk
+     * @param data   the data of the chunk
+     * @param length the length of the data
+     * @throws IOException if the stream cannot be written
+     */
+    private void writeChunk(String type, byte[] data, int length) throws IOException {
+        byte[] name = type.getBytes(StandardCharsets.US_ASCII);
+        CRC32 crc = new CRC32();
+        crc.update(name);
+        crc.update(data, 0, length);
+        out.writeInt(length);
+        out.write(name);
+        out.write(data, 0, length);
+        out.writeInt((int) crc.getValue());
+    }
+
+    /**
+     * Stores a big-endian int in a byte array.
+     *
+     * @param bytes  the array
+     * @param offset the offset of the int
+     * @param value  the int
+     */
+    private static void putInt(byte[] bytes, int offset, int value) {
+        bytes[offset] = (byte) (value >> 24);
+        bytes[offset + 1] = (byte) (value >> 16);
+        bytes[offset + 2] = (byte) (value >> 8);
+        bytes[offset + 3] = (byte) value;
+    }
+}
@@ -0,0 +1,87 @@
+package renderer;
+
+import java.time.Duration;
+import java.util.Locale;
+
+/**
+ * Receiver of the progress of the renderings of a camera, set by
+ * {@link Camera.Builder#setProgressListener(ProgressListener)}.
+ * The progress is reported in batches of completed tiles - at most once per interval of the camera, and
+ * always once when the rendering is over - from the rendering thread which completed the last tile of the
+ * batch. The listener must therefore be thread-safe and quick; the rendering threads are never synchronized
+ * for it.
+ */
+@FunctionalInterface
+public interface ProgressListener {
+
+    /**
+     * Receives the progress of a rendering.
+     *
+     * @param progress the progress so far
+     */
+    void onProgress(Progress progress);
+
+    /**
+     * Snapshot of the progress of a rendering.
+     *
+     * @param pixels      the rendered pixels
+     * @param totalPixels the pixels of the image
+     * @param rays        the primary rays cast through the rendered pixels
+     * @param elapsed     the time since the rendering started
+     */
+    record Progress(long pixels, long totalPixels, long rays, Duration elapsed) {
+
+        /**
+         * Returns the rendered part of the image.
+         *
+         * @return the percentage of rendered pixels, from 0 to 100
+         */
+        public double percent() {
+            return totalPixels == 0 ? 100 : 100.0 * pixels / totalPixels;
+        }
+
+        /**
+         * Returns whether the rendering is over.
+         *
+         * @return true if all the pixels are rendered
+         */
+        public boolean isDone() {
+            return pixels == totalPixels;
+        }
+
+        /**
+         * Returns the rate of the primary rays so far.
+         *
+         * @return the rays per second, or 0 if no time has elapsed
+         */
+        public double raysPerSecond() {
+            long nanos = elapsed.toNanos();
+            return nanos == 0 ? 0 : rays * 1e9 / nanos;
+        }
+
+        /**
+         * Estimates the remaining time of the rendering by the rate of the pixels so far.
+         *
+         * @return the estimated remaining time, or null if no pixel was rendered yet
+         */
+        public Duration eta() {
+            return pixels == 0 ? null
+                    : Duration.ofNanos((long) ((double) elapsed.toNanos() * (totalPixels - pixels) / pixels));
+        }
+    }
+
+    /**
+     * Returns a listener printing the progress on the console, on a single line which is rewritten
+     * each time (as the camera used to print it).
+     *
+     * @return the listener
+     */
+    static ProgressListener console() {
+        return progress -> {
+            Duration eta = progress.eta();
+            System.out.printf(Locale.ROOT, "%5.1f%% %,.0f rays/s ETA %s%s", progress.percent(),
+                    progress.raysPerSecond(), eta == null ? "-" : eta.toSeconds() + "s",
+                    progress.isDone() ? "\n" : "\r");
+        };
+    }
+}
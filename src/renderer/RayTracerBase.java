@@ -1,20 +1,41 @@
 package renderer;
 
+import geometries.Intersectable.GeoPoint;
 import primitives.*;
 import primitives.Ray;
+import scene.CompiledScene;
 import scene.Scene;
 
-import java.util.List;
+import java.util.SplittableRandom;
 
 /**
  * Abstract base class for ray tracing algorithms.
  */
 public abstract class RayTracerBase {
 
+    /**
+     * The scene to be traced, or null if the tracer was constructed with an already compiled scene
+     */
     protected Scene scene;
 
+    /**
+     * The compiled snapshot of the scene which is actually traced
+     */
+    protected CompiledScene compiledScene;
+
+    /**
+     * The counters of the rendering, or null if the rendering is not counted
+     */
+    protected RenderStatistics statistics;
+
+    /**
+     * The random number generator of the pixel which each thread is tracing
+     */
+    private final ThreadLocal<SplittableRandom> random = ThreadLocal.withInitial(SplittableRandom::new);
+
     /**
      * Constructs a new RayTracerBase with the given scene.
+     * The scene is compiled before each rendering, so it may be changed until then.
      *
      * @param scene The scene to be traced.
      */
@@ -22,6 +43,89 @@ public abstract class RayTracerBase {
         this.scene = scene;
     }
 
+    /**
+     * Constructs a new RayTracerBase with an already compiled scene, which may be shared with other tracers.
+     *
+     * @param compiledScene The compiled scene to be traced.
+     */
+    public RayTracerBase(CompiledScene compiledScene) {
+        this.compiledScene = compiledScene;
+    }
+
+    /**
+     * Compiles the scene for tracing (nothing to do if the tracer was constructed with a compiled scene).
+     * Called by the camera before the rendering threads start.
+     */
+    public void compile() {
+        if (scene != null)
+            compiledScene = scene.compile();
+    }
+
+    /**
+     * Sets the counters of the renderings with this tracer.
+     * Called by the camera before each rendering.
+     *
+     * @param statistics The counters, or null to count nothing.
+     */
+    public void setStatistics(RenderStatistics statistics) {
+        this.statistics = statistics;
+    }
+
+    /**
+     * Starts the random numbers of a pixel in the current thread.
+     * Each pixel has its own stream of random numbers, derived from the seed of the rendering and the
+     * index of the pixel alone, so a rendering with a given seed is reproduced exactly whatever the amount
+     * of threads and the order of the pixels, and the threads never contend on a shared generator.
+     * Outside a rendering, each thread has an unseeded generator of its own.
+     *
+     * @param seed  The seed of the rendering.
+     * @param pixel The index of the pixel in the image.
+     */
+    public void startPixel(long seed, long pixel) {
+        // SplitMix64 finalizer, so that neighbouring pixels get unrelated streams
+        long z = seed + (pixel + 1) * 0x9E3779B97F4A7C15L;
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        random.set(new SplittableRandom(z ^ (z >>> 31)));
+    }
+
+    /**
+     * Releases the state which the tracer keeps for the current thread during a rendering.
+     * Called by the camera in each rendering thread when its part of the rendering ends.
+     */
+    public void endThread() {
+    }
+
+    /**
+     * Returns the settings of the tracer which change the image, for the fingerprint of a checkpoint.
+     * Settings which never change the image, such as caches, are left out.
+     *
+     * @return The settings - none by default.
+     */
+    double[] getQualitySettings() {
+        return new double[0];
+    }
+
+    /**
+     * Returns the random number generator of the pixel which the current thread is tracing.
+     * Sampling code must draw all its random numbers from it.
+     *
+     * @return The random number generator.
+     */
+    protected SplittableRandom random() {
+        return random.get();
+    }
+
+    /**
+     * Finds the closest intersection point between the given ray and the geometries in the scene.
+     *
+     * @param ray The ray for which to find the closest intersection.
+     * @return The closest intersection point, or null if no intersection is found.
+     */
+    protected GeoPoint findClosestIntersection(Ray ray) {
+        return compiledScene.geometries.findClosestGeoPoint(ray, statistics);
+    }
+
     /**
      * Traces the given ray through the scene and returns the color of the intersection point.
      *
@@ -29,4 +133,15 @@ public abstract class RayTracerBase {
      * @return The color of the intersection point.
      */
     public abstract Color traceRay(Ray ray);
+
+    /**
+     * Returns the color of an already found closest intersection of a ray, without searching for it again -
+     * used to shade the primary hits captured in a {@link GBuffer}.
+     *
+     * @param hit The closest intersection of the ray.
+     * @param n   The normal at the intersection point.
+     * @param ray The ray.
+     * @return The color of the intersection point.
+     */
+    public abstract Color traceHit(GeoPoint hit, Vector n, Ray ray);
 }
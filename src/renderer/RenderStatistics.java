@@ -0,0 +1,302 @@
+package renderer;
+
+import geometries.Geometry;
+import geometries.IntersectionCounter;
+
+import java.util.Comparator;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Counters of the work of renderings, collected when a camera is given an instance by
+ * {@link Camera.Builder#setStatistics(RenderStatistics)}: the rays by kind, the intersection tests and hits
+ * by the class of the geometry, the visited nodes of the acceleration structures and the primary rays of
+ * each pixel. The camera prints a summary after each rendering.
+ * The counters are striped ({@link LongAdder}), so the rendering threads do not contend on them; they are
+ * exact once the renderings are over, and they add up over renderings until they are reset.
+ * Without statistics, a rendering does not count anything.
+ */
+public final class RenderStatistics implements IntersectionCounter {
+
+    /**
+     * The pixels rendered
+     */
+    private final LongAdder pixels = new LongAdder();
+    /**
+     * The rays cast from the camera
+     */
+    private final LongAdder primaryRays = new LongAdder();
+    /**
+     * The rays cast towards the lights
+     */
+    private final LongAdder shadowRays = new LongAdder();
+    /**
+     * The reflected rays
+     */
+    private final LongAdder reflectionRays = new LongAdder();
+    /**
+     * The refracted rays
+     */
+    private final LongAdder refractionRays = new LongAdder();
+    /**
+     * The visited nodes of the acceleration structures
+     */
+    private final LongAdder nodeVisits = new LongAdder();
+    /**
+     * The intersection tests and hits by the class of the geometry
+     */
+    private final Map<Class<?>, TestCounters> tests = new ConcurrentHashMap<>();
+    /**
+     * The intersection tests and rays of the pixel which each thread is rendering,
+     * or null if the work of the pixels is not kept (for a heatmap of the work)
+     */
+    private volatile ThreadLocal<long[]> pixelWork;
+
+    /**
+     * The intersection tests and hits of a class of geometries.
+     *
+     * @param tests The intersection tests.
+     * @param hits  The tests which found an intersection.
+     */
+    private record TestCounters(LongAdder tests, LongAdder hits) {
+        /**
+         * Constructs zero counters.
+         */
+        TestCounters() {
+            this(new LongAdder(), new LongAdder());
+        }
+    }
+
+    @Override
+    public void countTest(Geometry geometry, boolean hit) {
+        TestCounters counters = tests.get(geometry.getClass());
+        if (counters == null)
+            counters = tests.computeIfAbsent(geometry.getClass(), type -> new TestCounters());
+        counters.tests.increment();
+        if (hit) counters.hits.increment();
+        addPixelWork(1);
+    }
+
+    /**
+     * Counts a rendered pixel and the rays cast through it.
+     *
+     * @param rays The amount of primary rays of the pixel.
+     */
+    void countPixel(int rays) {
+        pixels.increment();
+        primaryRays.add(rays);
+        addPixelWork(rays);
+    }
+
+    /**
+     * Counts a ray cast towards a light.
+     */
+    void countShadowRay() {
+        shadowRays.increment();
+        addPixelWork(1);
+    }
+
+    /**
+     * Counts a reflected or a refracted ray.
+     *
+     * @param reflection Whether the ray is reflected (or refracted).
+     */
+    void countSecondaryRay(boolean reflection) {
+        (reflection ? reflectionRays : refractionRays).increment();
+        addPixelWork(1);
+    }
+
+    /**
+     * Starts or stops keeping the work of each pixel, for {@link #takePixelWork()}.
+     *
+     * @param keep Whether to keep the work of each pixel.
+     */
+    void keepPixelWork(boolean keep) {
+        if (keep != (pixelWork != null))
+            pixelWork = keep ? ThreadLocal.withInitial(() -> new long[1]) : null;
+    }
+
+    /**
+     * Returns the work (intersection tests and rays) counted in the current thread since the last call,
+     * and starts counting the work again - called once per pixel.
+     *
+     * @return The work, or 0 if the work of the pixels is not kept.
+     */
+    long takePixelWork() {
+        ThreadLocal<long[]> work = pixelWork;
+        if (work == null) return 0;
+        long[] tally = work.get();
+        long taken = tally[0];
+        tally[0] = 0;
+        return taken;
+    }
+
+    /**
+     * Adds to the work of the pixel which the current thread is rendering, if the work is kept.
+     *
+     * @param amount The added work.
+     */
+    private void addPixelWork(long amount) {
+        ThreadLocal<long[]> work = pixelWork;
+        if (work != null) work.get()[0] += amount;
+    }
+
+    @Override
+    public void countNodes(int nodes) {
+        nodeVisits.add(nodes);
+    }
+
+    /**
+     * Returns the amount of rendered pixels.
+     *
+     * @return The amount of pixels.
+     */
+    public long getPixels() {
+        return pixels.sum();
+    }
+
+    /**
+     * Returns the amount of rays cast from the camera.
+     *
+     * @return The amount of primary rays.
+     */
+    public long getPrimaryRays() {
+        return primaryRays.sum();
+    }
+
+    /**
+     * Returns the average amount of rays cast from the camera through a pixel.
+     *
+     * @return The samples per pixel, or 0 if no pixel was rendered.
+     */
+    public double getSamplesPerPixel() {
+        long count = getPixels();
+        return count == 0 ? 0 : (double) getPrimaryRays() / count;
+    }
+
+    /**
+     * Returns the amount of rays cast towards the lights (the shadow map lookups are not rays).
+     *
+     * @return The amount of shadow rays.
+     */
+    public long getShadowRays() {
+        return shadowRays.sum();
+    }
+
+    /**
+     * Returns the amount of reflected rays.
+     *
+     * @return The amount of reflection rays.
+     */
+    public long getReflectionRays() {
+        return reflectionRays.sum();
+    }
+
+    /**
+     * Returns the amount of refracted rays.
+     *
+     * @return The amount of refraction rays.
+     */
+    public long getRefractionRays() {
+        return refractionRays.sum();
+    }
+
+    /**
+     * Returns the amount of reflected and refracted rays.
+     *
+     * @return The amount of secondary rays.
+     */
+    public long getSecondaryRays() {
+        return getReflectionRays() + getRefractionRays();
+    }
+
+    /**
+     * Returns the amount of visited nodes of the acceleration structures of the scene.
+     *
+     * @return The amount of node visits.
+     */
+    public long getNodeVisits() {
+        return nodeVisits.sum();
+    }
+
+    /**
+     * Returns the classes of the geometries which were tested for intersections.
+     *
+     * @return The classes, by name.
+     */
+    public List<Class<?>> getGeometryClasses() {
+        return tests.keySet().stream().sorted(Comparator.comparing(Class::getName)).toList();
+    }
+
+    /**
+     * Returns the amount of intersection tests of a class of geometries.
+     *
+     * @param type The class of the geometries.
+     * @return The amount of tests.
+     */
+    public long getIntersectionTests(Class<?> type) {
+        TestCounters counters = tests.get(type);
+        return counters == null ? 0 : counters.tests.sum();
+    }
+
+    /**
+     * Returns the amount of intersection tests of a class of geometries which found an intersection.
+     *
+     * @param type The class of the geometries.
+     * @return The amount of hits.
+     */
+    public long getIntersectionHits(Class<?> type) {
+        TestCounters counters = tests.get(type);
+        return counters == null ? 0 : counters.hits.sum();
+    }
+
+    /**
+     * Returns the amount of intersection tests of all the geometries.
+     *
+     * @return The amount of tests.
+     */
+    public long getIntersectionTests() {
+        return tests.values().stream().mapToLong(counters -> counters.tests.sum()).sum();
+    }
+
+    /**
+     * Resets all the counters to zero.
+     */
+    public void reset() {
+        pixels.reset();
+        primaryRays.reset();
+        shadowRays.reset();
+        reflectionRays.reset();
+        refractionRays.reset();
+        nodeVisits.reset();
+        tests.clear();
+    }
+
+    /**
+     * Formats all the counters as a multi-line summary.
+     *
+     * @return The summary.
+     */
+    public String summary() {
+        StringBuilder summary = new StringBuilder(String.format(Locale.ROOT,
+                "Render statistics: %d pixels, %.2f samples per pixel%n"
+                        + "  rays: %d primary, %d shadow, %d reflection, %d refraction%n"
+                        + "  acceleration structure: %d node visits%n",
+                getPixels(), getSamplesPerPixel(), getPrimaryRays(), getShadowRays(), getReflectionRays(),
+                getRefractionRays(), getNodeVisits()));
+        for (Class<?> type : getGeometryClasses()) {
+            long count = getIntersectionTests(type), hits = getIntersectionHits(type);
+            summary.append(String.format(Locale.ROOT, "  %s: %d tests, %d hits (%.1f%%)%n",
+                    type.getSimpleName(), count, hits, count == 0 ? 0 : 100.0 * hits / count));
+        }
+        return summary.toString();
+    }
+
+    @Override
+    public String toString() {
+        return summary();
+    }
+}
@@ -0,0 +1,291 @@
+package renderer;
+
+import geometries.Intersectable.GeoPoint;
+import lighting.DirectionalLight;
+import lighting.LightSource;
+import lighting.ShadowMapLight;
+import lighting.SpotLight;
+import primitives.Double3;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+import scene.CompiledScene;
+
+import java.util.stream.IntStream;
+
+/**
+ * Depth buffer rendered from a light source, which answers the visibility of the light from a point by
+ * looking up the texels around the point instead of casting a shadow ray.
+ * A spotlight has a perspective map around its direction; a directional light has an orthographic map
+ * covering the bounded geometries of the scene. Each texel holds the distance from the light to the nearest
+ * geometry along the ray of the texel. The lookup is filtered over the neighbouring texels
+ * (percentage-closer filtering), which softens the stair steps of the texels.
+ * Where a texel sees a geometry which is not opaque, or a point is outside the map, there is no answer and
+ * the shadow ray has to be cast.
+ */
+final class ShadowMap {
+
+    /**
+     * The radius of the texel neighbourhood of a lookup - 1 for 3x3 texels
+     */
+    private static final int PCF_RADIUS = 1;
+    /**
+     * The slope above which the depth error of a texel is not increased any more (about 84 degrees)
+     */
+    private static final double MAX_SLOPE = 10;
+    /**
+     * The depth of a texel which sees a geometry that is not opaque - no answer from the map
+     */
+    private static final double TRANSLUCENT = Double.NaN;
+
+    /**
+     * The width and height of the map in texels
+     */
+    private final int resolution;
+    /**
+     * The depths of the texels, row by row
+     */
+    private final double[] depths;
+    /**
+     * The constant depth bias
+     */
+    private final double bias;
+    /**
+     * Whether the map is a perspective (spotlight) map or an orthographic (directional light) map
+     */
+    private final boolean perspective;
+    /**
+     * The axes of the map - the direction of the light and two orthonormal axes across it
+     */
+    private final Vector forward, right, up;
+    /**
+     * Perspective map: the position of the light
+     */
+    private final Point position;
+    /**
+     * Perspective map: the tangent of half the angle of view
+     */
+    private final double tanHalfAngle;
+    /**
+     * Orthographic map: the lowest coordinates of the window along the axes across the light
+     */
+    private final double minRight, minUp;
+    /**
+     * Orthographic map: the width and height of the window, a margin of the ray offset included
+     */
+    private final double size;
+    /**
+     * Orthographic map: the coordinate along the light of the plane from which the depths are measured
+     */
+    private final double start;
+
+    /**
+     * Builds the shadow map of a light, if it has one.
+     *
+     * @param scene The compiled scene - its shadow casters are rendered into the map.
+     * @param light The light source.
+     * @param delta The offset of the shadow rays, the unit of the depth bias.
+     * @return The shadow map, or null if the light has none.
+     */
+    static ShadowMap build(CompiledScene scene, LightSource light, double delta) {
+        if (!(light instanceof ShadowMapLight mapped) || mapped.getShadowMapResolution() == 0)
+            return null;
+        return switch (light) {
+            case SpotLight spot -> new ShadowMap(scene, spot, delta);
+            case DirectionalLight directional -> {
+                double[] bounds = scene.shadowCasters.getBounds();
+                yield bounds == null ? null : new ShadowMap(scene, directional, bounds, delta);
+            }
+            default -> null;
+        };
+    }
+
+    /**
+     * Builds the perspective shadow map of a spotlight.
+     *
+     * @param scene The compiled scene.
+     * @param light The spotlight.
+     * @param delta The offset of the shadow rays.
+     */
+    private ShadowMap(CompiledScene scene, SpotLight light, double delta) {
+        resolution = light.getShadowMapResolution();
+        bias = light.getShadowMapBias() * delta;
+        perspective = true;
+        forward = light.getDirection();
+        right = perpendicular(forward);
+        up = forward.crossProduct(right);
+        position = light.getPosition();
+        tanHalfAngle = Math.tan(Math.toRadians(light.getShadowMapAngle()));
+        minRight = minUp = size = start = 0;
+
+        depths = new double[resolution * resolution];
+        IntStream.range(0, resolution).parallel().forEach(row -> {
+            for (int col = 0; col < resolution; ++col) {
+                double x = ((col + 0.5) / resolution * 2 - 1) * tanHalfAngle;
+                double y = ((row + 0.5) / resolution * 2 - 1) * tanHalfAngle;
+                Vector direction = new Vector(combine(forward, 1, right, x, up, y));
+                depths[row * resolution + col] = depth(scene, new Ray(position, direction), position);
+            }
+        });
+    }
+
+    /**
+     * Builds the orthographic shadow map of a directional light.
+     *
+     * @param scene  The compiled scene.
+     * @param light  The directional light.
+     * @param bounds The bounding box of the bounded shadow casters.
+     * @param delta  The offset of the shadow rays.
+     */
+    private ShadowMap(CompiledScene scene, DirectionalLight light, double[] bounds, double delta) {
+        resolution = light.getShadowMapResolution();
+        bias = light.getShadowMapBias() * delta;
+        perspective = false;
+        forward = light.getDirection();
+        right = perpendicular(forward);
+        up = forward.crossProduct(right);
+        position = null;
+        tanHalfAngle = 0;
+
+        // The window of the map is the projection of the bounding box across the light
+        double lowRight = Double.POSITIVE_INFINITY, highRight = Double.NEGATIVE_INFINITY;
+        double lowUp = Double.POSITIVE_INFINITY, highUp = Double.NEGATIVE_INFINITY;
+        double lowForward = Double.POSITIVE_INFINITY;
+        for (int corner = 0; corner < 8; ++corner) {
+            Point p = new Point(bounds[(corner & 1) == 0 ? 0 : 3], bounds[(corner & 2) == 0 ? 1 : 4],
+                    bounds[(corner & 4) == 0 ? 2 : 5]);
+            lowRight = Math.min(lowRight, dot(p, right));
+            highRight = Math.max(highRight, dot(p, right));
+            lowUp = Math.min(lowUp, dot(p, up));
+            highUp = Math.max(highUp, dot(p, up));
+            lowForward = Math.min(lowForward, dot(p, forward));
+        }
+        size = Math.max(highRight - lowRight, highUp - lowUp) + 2 * delta;
+        minRight = lowRight - delta;
+        minUp = lowUp - delta;
+        start = lowForward - 1;
+
+        depths = new double[resolution * resolution];
+        Vector backward = forward.scale(-1);
+        IntStream.range(0, resolution).parallel().forEach(row -> {
+            for (int col = 0; col < resolution; ++col) {
+                Point origin = new Point(combine(forward, start,
+                        right, minRight + (col + 0.5) / resolution * size,
+                        up, minUp + (row + 0.5) / resolution * size));
+                // A geometry nearer to the light than the window blocks the whole texel
+                GeoPoint behind = scene.shadowCasters.findClosestGeoPoint(new Ray(origin, backward));
+                depths[row * resolution + col] = behind == null
+                        ? depth(scene, new Ray(origin, forward), origin)
+                        : scene.getMaterial(behind.geometry).isOpaque() ? Double.NEGATIVE_INFINITY : TRANSLUCENT;
+            }
+        });
+    }
+
+    /**
+     * Returns the visibility of the light from a point, filtered over the texels around it.
+     *
+     * @param point The point.
+     * @param n     The normal at the point.
+     * @param l     The direction from the light to the point.
+     * @return The fraction of the light which reaches the point (all channels equal),
+     * or null if the map does not apply and a shadow ray has to be cast.
+     */
+    Double3 visibility(Point point, Vector n, Vector l) {
+        double u, v, depth, texelSize;
+        if (perspective) {
+            double px = point.getX() - position.getX();
+            double py = point.getY() - position.getY();
+            double pz = point.getZ() - position.getZ();
+            double z = px * forward.getX() + py * forward.getY() + pz * forward.getZ();
+            if (z <= 0)
+                return null;
+            double scale = z * tanHalfAngle;
+            u = (px * right.getX() + py * right.getY() + pz * right.getZ()) / scale;
+            v = (px * up.getX() + py * up.getY() + pz * up.getZ()) / scale;
+            if (Math.abs(u) >= 1 || Math.abs(v) >= 1)
+                return null;
+            u = (u + 1) / 2 * resolution;
+            v = (v + 1) / 2 * resolution;
+            depth = Math.sqrt(px * px + py * py + pz * pz);
+            texelSize = 2 * scale / resolution;
+        } else {
+            texelSize = size / resolution;
+            u = (dot(point, right) - minRight) / texelSize;
+            v = (dot(point, up) - minUp) / texelSize;
+            if (u < 0 || v < 0 || u >= resolution || v >= resolution)
+                return null;
+            depth = dot(point, forward) - start;
+        }
+
+        // The depth error of a texel grows with the slope of the surface to the light
+        double cos = Math.abs(n.dotProduct(l));
+        double slope = Math.min(Math.sqrt(Math.max(0, 1 - cos * cos)) / cos, MAX_SLOPE);
+        double limit = depth - bias - (PCF_RADIUS + 1) * texelSize * slope;
+
+        int col = (int) u, row = (int) v, lit = 0, count = 0;
+        for (int r = Math.max(0, row - PCF_RADIUS); r <= Math.min(resolution - 1, row + PCF_RADIUS); ++r)
+            for (int c = Math.max(0, col - PCF_RADIUS); c <= Math.min(resolution - 1, col + PCF_RADIUS); ++c) {
+                double texel = depths[r * resolution + c];
+                if (Double.isNaN(texel))
+                    return null;
+                ++count;
+                if (limit <= texel) ++lit;
+            }
+        return lit == count ? Double3.ONE : lit == 0 ? Double3.ZERO : new Double3((double) lit / count);
+    }
+
+    /**
+     * Finds the depth of a texel - the distance to the nearest geometry along its ray.
+     *
+     * @param scene  The compiled scene.
+     * @param ray    The ray of the texel.
+     * @param origin The point from which the depth is measured.
+     * @return The depth, infinity if the ray hits nothing, or NaN if the nearest geometry is not opaque.
+     */
+    private static double depth(CompiledScene scene, Ray ray, Point origin) {
+        GeoPoint closest = scene.shadowCasters.findClosestGeoPoint(ray);
+        if (closest == null)
+            return Double.POSITIVE_INFINITY;
+        return scene.getMaterial(closest.geometry).isOpaque() ? origin.distance(closest.point) : TRANSLUCENT;
+    }
+
+    /**
+     * Returns a unit vector perpendicular to a unit vector.
+     *
+     * @param vector The vector.
+     * @return The perpendicular vector.
+     */
+    private static Vector perpendicular(Vector vector) {
+        return vector.crossProduct(Math.abs(vector.getX()) > 0.9 ? new Vector(0, 1, 0) : new Vector(1, 0, 0))
+                .normalize();
+    }
+
+    /**
+     * Combines three vectors, allowing zero coefficients.
+     *
+     * @param a  The first vector.
+     * @param ka The coefficient of the first vector.
+     * @param b  The second vector.
+     * @param kb The coefficient of the second vector.
+     * @param c  The third vector.
+     * @param kc The coefficient of the third vector.
+     * @return The coordinates of the combination.
+     */
+    private static Double3 combine(Vector a, double ka, Vector b, double kb, Vector c, double kc) {
+        return new Double3(
+                a.getX() * ka + b.getX() * kb + c.getX() * kc,
+                a.getY() * ka + b.getY() * kb + c.getY() * kc,
+                a.getZ() * ka + b.getZ() * kb + c.getZ() * kc);
+    }
+
+    /**
+     * Calculates the dot product of the coordinates of a point with a vector.
+     *
+     * @param point  The point.
+     * @param vector The vector.
+     * @return The dot product.
+     */
+    private static double dot(Point point, Vector vector) {
+        return point.getX() * vector.getX() + point.getY() * vector.getY() + point.getZ() * vector.getZ();
+    }
+}
@@ -1,12 +1,17 @@
 package renderer;
 
-import geometries.Intersectable;
+import geometries.Geometry;
 import geometries.Intersectable.GeoPoint;
+import lighting.AreaLight;
 import lighting.LightSource;
 import primitives.*;
+import scene.CompiledScene;
 import scene.Scene;
 
+import java.util.Arrays;
 import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.atomic.LongAdder;
 
 import static primitives.Util.alignZero;
 import static primitives.Util.isZero;
@@ -21,7 +26,70 @@ public class SimpleRayTracer extends RayTracerBase {
     private static final Double3 INITIAL_K = Double3.ONE;
     private static final int MAX_CALC_COLOR_LEVEL = 10;
     private static final double MIN_CALC_COLOR_K = 0.001;
+    /**
+     * Attenuation below which secondary rays are subject to Russian roulette
+     */
+    private static final double RUSSIAN_ROULETTE_K = 0.1;
+    /**
+     * Default contribution below which a light is skipped - 0, the culling is off unless a scene opts in
+     */
+    public static final double DEFAULT_LIGHT_CULLING = 0;
+
+    /**
+     * The work stacks of the rendering threads
+     */
+    private final ThreadLocal<WorkStack> workStack = ThreadLocal.withInitial(WorkStack::new);
+
+    /**
+     * The maximum level of the rays - 1 for the primary rays only
+     */
+    protected int maxLevel = MAX_CALC_COLOR_LEVEL;
+
+    /**
+     * Whether weak secondary rays are terminated by Russian roulette
+     */
+    private boolean russianRoulette = false;
+
+    /**
+     * Whether the shadows of area lights are sampled fully only in the penumbra
+     */
+    private boolean adaptiveShadows = true;
+
+    /**
+     * Whether the last opaque occluder of each light is tested first by the shadow rays
+     */
+    private boolean shadowCache = true;
+
+    /**
+     * The shadow maps of the lights of the compiled scene, by the index of the light,
+     * or null if no light has a shadow map
+     */
+    private ShadowMap[] shadowMaps = null;
+
+    /**
+     * The unshadowed contribution below which a light is skipped without casting shadow rays
+     */
+    private double lightCulling = DEFAULT_LIGHT_CULLING;
+
+    /**
+     * The amount of lights picked at each point, or 0 for all the lights
+     */
+    private int lightSamples = 0;
+
+    /**
+     * The shadow caches of the rendering threads, released at the end of each rendering
+     */
+    private final ThreadLocal<ShadowCache> shadowCaches = ThreadLocal.withInitial(ShadowCache::new);
 
+    /**
+     * The amount of shadow rays tested against a cached occluder, in all the threads
+     */
+    private final LongAdder shadowCacheLookups = new LongAdder();
+
+    /**
+     * The amount of shadow rays blocked by a cached occluder, in all the threads
+     */
+    private final LongAdder shadowCacheHits = new LongAdder();
 
     /**
      * Constructs a new SimpleRayTracer with the given scene.
@@ -32,6 +100,15 @@ public class SimpleRayTracer extends RayTracerBase {
         super(scene);
     }
 
+    /**
+     * Constructs a new SimpleRayTracer with an already compiled scene.
+     *
+     * @param compiledScene The compiled scene to be traced.
+     */
+    public SimpleRayTracer(CompiledScene compiledScene) {
+        super(compiledScene);
+    }
+
     /**
      * Traces the given ray through the scene and returns the color of the intersection point.
      *
@@ -40,74 +117,302 @@ public class SimpleRayTracer extends RayTracerBase {
      */
     @Override
     public Color traceRay(Ray ray) {
+        // Tracing a single ray outside a camera rendering
+        if (compiledScene == null) compile();
 
         GeoPoint closestPoint = findClosestIntersection(ray);
-        return closestPoint == null ? scene.background : calcColor(closestPoint, ray);
+        return closestPoint == null ? compiledScene.background : calcColor(closestPoint, null, ray);
+    }
+
+    @Override
+    public Color traceHit(GeoPoint hit, Vector n, Ray ray) {
+        return calcColor(hit, n, ray);
     }
 
     /**
-     * Calculates the color at the given intersection point.
+     * Calculates the color at the given intersection point, including the ambient light.
+     * The reflected and refracted rays are not traced recursively: every pending secondary ray is kept on
+     * the work stack of the thread with its level and its accumulated attenuation, and its contribution is
+     * the color found at its end scaled by that attenuation.
      *
      * @param geoPoint The intersection point.
+     * @param n        The normal at the intersection point, or null to calculate it.
      * @param ray      The ray that intersected the point.
      * @return The color at the intersection point.
      */
-    private Color calcColor(Intersectable.GeoPoint geoPoint, Ray ray) {
-        return calcColor(geoPoint, ray, MAX_CALC_COLOR_LEVEL, INITIAL_K)
-                .add(scene.ambientLight.getIntensity());
+    private Color calcColor(GeoPoint geoPoint, Vector n, Ray ray) {
+        WorkStack stack = workStack.get();
+        Color color = compiledScene.ambientLight.getIntensity();
+        int level = maxLevel;
+        Double3 k = INITIAL_K;
+        while (true) {
+            if (geoPoint == null) {
+                color = color.add(compiledScene.background.scale(k));
+            } else {
+                // Branch once per hit on the classification of the material
+                CompiledMaterial material = compiledScene.getMaterial(geoPoint.geometry);
+                if (material.isEmissiveOnly()) {
+                    color = color.add(compiledScene.getEmission(geoPoint.geometry).scale(k));
+                } else {
+                    if (n == null)
+                        n = geoPoint.geometry.getNormal(geoPoint.point);
+                    color = color.add(calcLocalEffects(geoPoint, material, n, ray, k).scale(k));
+                    if (level > 1)
+                        pushGlobalEffects(stack, geoPoint, material, n, ray, level, k);
+                }
+            }
+            if (stack.size == 0)
+                return color;
+            // Continue with the last pending secondary ray
+            --stack.size;
+            ray = stack.rays[stack.size];
+            level = stack.levels[stack.size];
+            k = stack.ks[stack.size];
+            stack.rays[stack.size] = null;
+            geoPoint = findClosestIntersection(ray);
+            n = null;
+        }
     }
 
     /**
-     * Recursively calculates the color at the given intersection point.
+     * Pushes the refracted and the reflected rays of an intersection point to the work stack.
+     * A ray is not even built if the material is opaque (for the refracted ray) or not reflective
+     * (for the reflected ray), or if its accumulated attenuation is negligible.
      *
+     * @param stack    The work stack.
      * @param geoPoint The intersection point.
+     * @param material The compiled material at the intersection point.
+     * @param n        The normal at the intersection point.
      * @param ray      The ray that intersected the point.
-     * @param level    The current recursion level.
-     * @param k        The current attenuation factor.
-     * @return The color at the intersection point after considering local and global effects.
+     * @param level    The level of the intersection point.
+     * @param k        The accumulated attenuation at the intersection point.
      */
-    private Color calcColor(GeoPoint geoPoint, Ray ray, int level, Double3 k) {
-        Color color = calcLocalEffects(geoPoint, ray, k);
-        return 1 == level ? color
-                : color.add(calcGlobalEffects(geoPoint, ray, level, k));
+    private void pushGlobalEffects(WorkStack stack, GeoPoint geoPoint, CompiledMaterial material, Vector n,
+                                   Ray ray, int level, Double3 k) {
+        Double3 kkt = material.isOpaque() ? null : material.kT.product(k);
+        Double3 kkr = material.isReflective() ? material.kR.product(k) : null;
+        boolean refracted = kkt != null && !kkt.lowerThan(MIN_CALC_COLOR_K);
+        boolean reflected = kkr != null && !kkr.lowerThan(MIN_CALC_COLOR_K);
+        if (!refracted && !reflected) return;
+
+        // Get the direction of the incident ray
+        Vector v = ray.getDirection();
+        if (refracted)
+            pushGlobalEffect(stack, constructRefractedRay(geoPoint.point, v, n), level - 1, kkt, false);
+        if (reflected)
+            pushGlobalEffect(stack, constructReflectedRay(geoPoint.point, v, n), level - 1, kkr, true);
     }
 
     /**
-     * Calculates the global effects (reflections and refractions) at the intersection point.
+     * Pushes a secondary ray to the work stack.
+     * With Russian roulette, a ray whose attenuation is below {@link #RUSSIAN_ROULETTE_K} survives only
+     * with the probability of its attenuation relative to that threshold, and a surviving ray is weighted up
+     * by the inverse of the probability, so that the expected color stays the same.
      *
-     * @param geoPoint The intersection point.
-     * @param ray      The ray that intersected the point.
-     * @param level    The current recursion level.
-     * @param k        The current attenuation factor.
-     * @return The color contribution from global effects.
+     * @param stack      The work stack.
+     * @param ray        The secondary ray (null if there is none).
+     * @param level      The level of the secondary ray.
+     * @param k          The accumulated attenuation of the secondary ray.
+     * @param reflection Whether the ray is reflected (or refracted).
      */
-    private Color calcGlobalEffects(GeoPoint geoPoint, Ray ray, int level, Double3 k) {
-        // Get the direction of the incident ray
-        Vector v = ray.getDirection();
-        // Get the normal vector at the intersection point
-        Vector n = geoPoint.geometry.getNormal(geoPoint.point);
+    private void pushGlobalEffect(WorkStack stack, Ray ray, int level, Double3 k, boolean reflection) {
+        if (ray == null) return;
+        if (russianRoulette) {
+            double maxK = Math.max(k.getD1(), Math.max(k.getD2(), k.getD3()));
+            if (maxK < RUSSIAN_ROULETTE_K) {
+                double survival = maxK / RUSSIAN_ROULETTE_K;
+                if (random().nextDouble() >= survival) return;
+                k = k.scale(1 / survival);
+            }
+        }
+        if (statistics != null) statistics.countSecondaryRay(reflection);
+        stack.push(ray, level, k);
+    }
 
-        Material material = geoPoint.geometry.getMaterial();
-        return calcGlobalEffect(constructRefractedRay(geoPoint.point, v, n), material.kT, level, k)
-                .add(calcGlobalEffect(constructReflectedRay(geoPoint.point, v, n), material.kR, level, k));
+    /**
+     * Turns the Russian roulette termination of secondary rays on or off (off by default).
+     * Russian roulette randomly terminates weak secondary rays without biasing the average color,
+     * which caps the cost of deep inter-reflections at the price of some noise.
+     *
+     * @param russianRoulette true to turn on Russian roulette, false to turn it off.
+     * @return The current ray tracer.
+     */
+    public SimpleRayTracer setRussianRoulette(boolean russianRoulette) {
+        this.russianRoulette = russianRoulette;
+        return this;
     }
 
     /**
-     * Calculates the global effect of reflection or refraction for a given ray.
+     * Turns the adaptive sampling of area light shadows on or off (on by default).
+     * With adaptive sampling, shadow rays are cast to the probe points of an area light first, and the full
+     * sample count is cast only when they disagree. A shadow smaller than the gaps between the probe points
+     * may then be missed; with adaptive sampling off, the full sample count is always cast.
      *
-     * @param ray   The ray for which to calculate the global effect.
-     * @param level The current recursion level.
-     * @param k     The coefficient of the global effect.
-     * @param kx    The coefficient of the global effect multiplied by the material's
-     *              reflection or refraction coefficient.
-     * @return The color representing the global effect.
+     * @param adaptiveShadows true to turn on adaptive sampling, false to turn it off.
+     * @return The current ray tracer.
      */
-    private Color calcGlobalEffect(Ray ray, Double3 kx, int level, Double3 k) {
-        Double3 kkx = kx.product(k);
-        if (kkx.lowerThan(MIN_CALC_COLOR_K)) return Color.BLACK;
-        GeoPoint gp = findClosestIntersection(ray);
-        return (gp == null ? scene.background : calcColor(gp, ray, level - 1, kkx))
-                .scale(kx);
+    public SimpleRayTracer setAdaptiveShadows(boolean adaptiveShadows) {
+        this.adaptiveShadows = adaptiveShadows;
+        return this;
+    }
+
+    /**
+     * Compiles the scene and renders the shadow maps of the lights which have them
+     * (see {@link lighting.ShadowMapLight}), once per frame.
+     */
+    @Override
+    public void compile() {
+        super.compile();
+        shadowMaps = null;
+        if (compiledScene == null)
+            return;
+        ShadowMap[] maps = new ShadowMap[compiledScene.lights.size()];
+        boolean any = false;
+        for (int i = 0; i < maps.length; ++i) {
+            maps[i] = ShadowMap.build(compiledScene, compiledScene.lights.get(i), DELTA);
+            any |= maps[i] != null;
+        }
+        if (any)
+            shadowMaps = maps;
+    }
+
+    /**
+     * Sets the contribution below which a light is skipped without casting shadow rays toward it.
+     * The contribution is estimated without shadows, in the units of the color channels (255 for white),
+     * and attenuated by the accumulated attenuation of the ray. 0 turns the culling off (the default).
+     * Culling may change the image where many weak lights add up to a visible contribution; half a step of
+     * an 8-bit color channel (0.5) is a typical threshold.
+     *
+     * @param lightCulling The contribution threshold - 0 (off) by default.
+     * @return The current ray tracer.
+     * @throws IllegalArgumentException if the threshold is negative
+     */
+    public SimpleRayTracer setLightCulling(double lightCulling) {
+        if (lightCulling < 0)
+            throw new IllegalArgumentException("The light culling threshold must not be negative");
+        this.lightCulling = lightCulling;
+        return this;
+    }
+
+    /**
+     * Sets the amount of lights sampled at each point, for scenes with many lights.
+     * When the scene has more lights than that, this amount of lights is picked at random at each point, in
+     * proportion to their estimated contributions, and only they cast shadow rays. The average color is
+     * unchanged, at the price of some noise. 0 (the default) always uses all the lights.
+     *
+     * @param lightSamples The amount of lights sampled at each point, or 0 for all the lights.
+     * @return The current ray tracer.
+     * @throws IllegalArgumentException if the amount is negative
+     */
+    public SimpleRayTracer setLightSamples(int lightSamples) {
+        if (lightSamples < 0)
+            throw new IllegalArgumentException("The amount of light samples must not be negative");
+        this.lightSamples = lightSamples;
+        return this;
+    }
+
+    @Override
+    double[] getQualitySettings() {
+        return new double[]{russianRoulette ? 1 : 0, adaptiveShadows ? 1 : 0, lightCulling, lightSamples};
+    }
+
+    /**
+     * Turns the shadow occluder cache on or off (on by default).
+     * Neighbouring points usually share the occluder between them and a light, so each thread remembers
+     * the last opaque occluder found for each light and tests it first, before searching the whole scene.
+     * The cache does not change the image.
+     *
+     * @param shadowCache true to turn on the cache, false to turn it off.
+     * @return The current ray tracer.
+     */
+    public SimpleRayTracer setShadowCache(boolean shadowCache) {
+        this.shadowCache = shadowCache;
+        return this;
+    }
+
+    /**
+     * Returns the amount of shadow rays which were tested against a cached occluder, in all the threads.
+     *
+     * @return The amount of shadow cache lookups.
+     */
+    public long getShadowCacheLookups() {
+        return shadowCacheLookups.sum();
+    }
+
+    /**
+     * Returns the amount of shadow rays which were blocked by a cached occluder, in all the threads.
+     * Each of them saved a search of the whole scene.
+     *
+     * @return The amount of shadow cache hits.
+     */
+    public long getShadowCacheHits() {
+        return shadowCacheHits.sum();
+    }
+
+    /**
+     * Resets the shadow cache counters of all the threads.
+     */
+    public void resetShadowCacheCounters() {
+        shadowCacheLookups.reset();
+        shadowCacheHits.reset();
+    }
+
+    @Override
+    public void endThread() {
+        // The cache holds geometries of the compiled scene, which must not outlive the rendering
+        shadowCaches.remove();
+        workStack.remove();
+    }
+
+    /**
+     * The last opaque occluder of each light in one thread.
+     */
+    private static final class ShadowCache {
+        private CompiledScene scene;
+        private Geometry[] occluders = new Geometry[0];
+
+        /**
+         * Returns the occluders of the lights of a compiled scene, discarding those of another scene.
+         *
+         * @param compiledScene The compiled scene being traced.
+         * @return The occluders, indexed by the light.
+         */
+        Geometry[] occluders(CompiledScene compiledScene) {
+            if (scene != compiledScene) {
+                scene = compiledScene;
+                occluders = new Geometry[compiledScene.lights.size()];
+            }
+            return occluders;
+        }
+    }
+
+    /**
+     * Reusable stack of the pending secondary rays of one thread, with their levels and accumulated attenuations.
+     */
+    private static final class WorkStack {
+        private Ray[] rays = new Ray[2 * MAX_CALC_COLOR_LEVEL];
+        private int[] levels = new int[2 * MAX_CALC_COLOR_LEVEL];
+        private Double3[] ks = new Double3[2 * MAX_CALC_COLOR_LEVEL];
+        private int size = 0;
+
+        /**
+         * Pushes a pending secondary ray.
+         *
+         * @param ray   The ray.
+         * @param level The level of the ray.
+         * @param k     The accumulated attenuation of the ray.
+         */
+        void push(Ray ray, int level, Double3 k) {
+            if (size == rays.length) {
+                rays = Arrays.copyOf(rays, 2 * size);
+                levels = Arrays.copyOf(levels, 2 * size);
+                ks = Arrays.copyOf(ks, 2 * size);
+            }
+            rays[size] = ray;
+            levels[size] = level;
+            ks[size] = k;
+            ++size;
+        }
     }
 
     /**
@@ -147,35 +452,24 @@ public class SimpleRayTracer extends RayTracerBase {
         return new Ray(point, n, r);
     }
 
-    /**
-     * Finds the closest intersection point between the given ray and the geometries in the scene.
-     *
-     * @param ray The ray for which to find the closest intersection.
-     * @return The closest intersection point, or null if no intersection is found.
-     */
-    private GeoPoint findClosestIntersection(Ray ray) {
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(ray);
-        if (intersections == null) {
-            return null;
-        }
-        return ray.findClosestGeoPoint(intersections);
-    }
-
-
     /**
      * Calculates the local lighting effects at the given intersection point.
+     * The light sources are not sampled at all (no shadow rays) for a material which is not lit.
      *
      * @param geoPoint The intersection point.
+     * @param material The compiled material at the intersection point.
+     * @param n        The normal at the intersection point.
      * @param ray      The ray that intersected the point.
+     * @param k        The accumulated attenuation at the intersection point.
      * @return The color resulting from the local lighting effects.
      */
-    private Color calcLocalEffects(Intersectable.GeoPoint geoPoint, Ray ray, Double3 k) {
+    private Color calcLocalEffects(GeoPoint geoPoint, CompiledMaterial material, Vector n, Ray ray, Double3 k) {
 
         // Start with the emission color of the geometry
-        Color color = geoPoint.geometry.getEmission();
+        Color color = compiledScene.getEmission(geoPoint.geometry);
+        if (!material.isLit())
+            return color;
 
-        // Get the normal vector at the intersection point
-        Vector n = geoPoint.geometry.getNormal(geoPoint.point);
         // Get the direction of the incoming ray
         Vector v = ray.getDirection();
 
@@ -184,32 +478,168 @@ public class SimpleRayTracer extends RayTracerBase {
         if (isZero(nv))
             return color;
 
-        // Get the material properties of the geometry at the intersection point
-        Material material = geoPoint.geometry.getMaterial();
-
+        Geometry[] occluders = shadowCache ? shadowCaches.get().occluders(compiledScene) : null;
+        long[] mask = compiledScene.getLightMask(geoPoint.geometry);
+        if (lightSamples > 0 && compiledScene.lights.size() > lightSamples)
+            return color.add(sampleLights(geoPoint, material, n, v, nv, k, occluders, mask));
 
         // Iterate over each light source in the scene
-        for (LightSource lightSource : scene.lights) {
+        for (int i = 0; i < compiledScene.lights.size(); ++i) {
+            // Skip a light which is not linked to the geometry before any other work
+            if (!CompiledScene.includes(mask, i))
+                continue;
+            LightSource lightSource = compiledScene.lights.get(i);
             // Get the direction vector from the light source to the intersection point
             Vector l = lightSource.getL(geoPoint.point);
             double nl = alignZero(n.dotProduct(l));
             // Check if the light source contributes to the local effects
             if (nl * nv > 0) {
-                Double3 ktr = transparency(geoPoint, lightSource, l, n);
-                if (!ktr.product(INITIAL_K).lowerThan(MIN_CALC_COLOR_K)) {
-                    // Get the intensity of the light source at the intersection point
-                    Color iL = lightSource.getIntensity(geoPoint.point).scale(ktr);
-                    // Add the diffusive and specular effects to the color
-                    color = color.add(
-                            iL.scale(calcDiffusive(material, nl)
-                                    .add(calcSpecular(material, n, l, nl, v))
-                            ));
+                // Skip a negligible light before casting any shadow ray toward it
+                Color contribution = calcContribution(lightSource, geoPoint.point, material, n, l, nl, v);
+                if (isNegligible(contribution, k))
+                    continue;
+                Double3 ktr = transparency(geoPoint, lightSource, l, n, nl, occluders, i);
+                if (!ktr.product(INITIAL_K).lowerThan(MIN_CALC_COLOR_K))
+                    color = color.add(contribution.scale(ktr));
+            }
+        }
+        return color;
+    }
+
+    /**
+     * Calculates the local lighting effects of a few lights, picked at random in proportion to their
+     * estimated (unshadowed) contributions, instead of all the lights of the scene.
+     * Each picked contribution is divided by the probability of picking it, so the average color is the same
+     * as with all the lights, while only the picked lights cast shadow rays.
+     *
+     * @param geoPoint  The intersection point.
+     * @param material  The compiled material at the intersection point.
+     * @param n         The normal at the intersection point.
+     * @param v         The direction of the ray that intersected the point.
+     * @param nv        The dot product of the normal and the ray direction.
+     * @param k         The accumulated attenuation at the intersection point.
+     * @param occluders The cached last opaque occluders of the lights, or null if the cache is off.
+     * @param mask      The lights which illuminate the geometry, or null for all the lights.
+     * @return The color of the picked lights.
+     */
+    private Color sampleLights(GeoPoint geoPoint, CompiledMaterial material, Vector n, Vector v, double nv,
+                               Double3 k, Geometry[] occluders, long[] mask) {
+        List<LightSource> lights = compiledScene.lights;
+        Color[] contributions = new Color[lights.size()];
+        double[] cdf = new double[lights.size()];
+        double total = 0;
+        for (int i = 0; i < lights.size(); ++i) {
+            if (!CompiledScene.includes(mask, i)) {
+                cdf[i] = total;
+                continue;
+            }
+            LightSource lightSource = lights.get(i);
+            Vector l = lightSource.getL(geoPoint.point);
+            double nl = alignZero(n.dotProduct(l));
+            if (nl * nv > 0) {
+                Color contribution = calcContribution(lightSource, geoPoint.point, material, n, l, nl, v);
+                if (!isNegligible(contribution, k)) {
+                    contributions[i] = contribution;
+                    Double3 rgb = contribution.getRgb();
+                    total += rgb.getD1() + rgb.getD2() + rgb.getD3();
                 }
             }
+            cdf[i] = total;
+        }
+        if (total == 0)
+            return Color.BLACK;
+
+        Color color = Color.BLACK;
+        SplittableRandom random = random();
+        for (int s = 0; s < lightSamples; ++s) {
+            int i = pick(cdf, random.nextDouble() * total);
+            LightSource lightSource = lights.get(i);
+            Vector l = lightSource.getL(geoPoint.point);
+            Double3 ktr = transparency(geoPoint, lightSource, l, n, alignZero(n.dotProduct(l)), occluders, i);
+            if (!ktr.product(INITIAL_K).lowerThan(MIN_CALC_COLOR_K)) {
+                double weight = cdf[i] - (i == 0 ? 0 : cdf[i - 1]);
+                color = color.add(contributions[i].scale(ktr).scale(total / (weight * lightSamples)));
+            }
         }
         return color;
     }
 
+    /**
+     * Finds the first index whose cumulative weight exceeds a number, by binary search.
+     * A zero-weight index is never found, since its cumulative weight equals that of the previous index.
+     *
+     * @param cdf The cumulative weights.
+     * @param u   The number, at least 0 and below the total weight.
+     * @return The found index.
+     */
+    private static int pick(double[] cdf, double u) {
+        int low = 0, high = cdf.length - 1;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (cdf[middle] > u) high = middle;
+            else low = middle + 1;
+        }
+        return low;
+    }
+
+    /**
+     * Calculates the unshadowed contribution of a light source - its intensity at the point, scaled by
+     * the diffusive and specular effects.
+     *
+     * @param lightSource The light source.
+     * @param point       The intersection point.
+     * @param material    The compiled material at the intersection point.
+     * @param n           The normal at the intersection point.
+     * @param l           The direction vector from the light source to the intersection point.
+     * @param nl          The dot product of the normal and the light direction vectors.
+     * @param v           The direction of the ray that intersected the point.
+     * @return The contribution of the light source without shadows.
+     */
+    private Color calcContribution(LightSource lightSource, Point point, CompiledMaterial material,
+                                   Vector n, Vector l, double nl, Vector v) {
+        // Add the diffusive and specular effects
+        Double3 effects = material.hasDiffuse() ? calcDiffusive(material, nl) : Double3.ZERO;
+        if (material.hasSpecular())
+            effects = effects.add(calcSpecular(material, n, l, nl, v));
+        return lightSource.getIntensity(point).scale(effects);
+    }
+
+    /**
+     * Checks whether the contribution of a light source is too weak to change the image.
+     *
+     * @param contribution The unshadowed contribution of the light source.
+     * @param k            The accumulated attenuation at the intersection point.
+     * @return true if the light source may be skipped.
+     */
+    private boolean isNegligible(Color contribution, Double3 k) {
+        return contribution.getRgb().product(k).lowerThan(lightCulling);
+    }
+
+    /**
+     * Calculates the transparency between a point and a light source, by the kind of the light source.
+     * The shadow map of the light answers first, if the light has one which covers the point.
+     *
+     * @param geoPoint    The intersection point.
+     * @param lightSource The light source.
+     * @param l           The direction vector from the light source to the intersection point.
+     * @param n           The normal vector at the intersection point.
+     * @param nl          The dot product of the normal and the light direction vectors.
+     * @param occluders   The cached last opaque occluders of the lights, or null if the cache is off.
+     * @param light       The index of the light source.
+     * @return The transparency coefficient - zero if the light is blocked.
+     */
+    private Double3 transparency(GeoPoint geoPoint, LightSource lightSource, Vector l, Vector n, double nl,
+                                 Geometry[] occluders, int light) {
+        if (shadowMaps != null && shadowMaps[light] != null) {
+            Double3 visibility = shadowMaps[light].visibility(geoPoint.point, n, l);
+            if (visibility != null)
+                return visibility;
+        }
+        return lightSource instanceof AreaLight area
+                ? transparency(geoPoint, area, n, nl, occluders, light)
+                : transparency(geoPoint, l, n, lightSource.getDistance(geoPoint.point), occluders, light);
+    }
+
     /**
      * Calculates the diffusive component of the lighting.
      *
@@ -217,7 +647,7 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param nl       The dot product of the normal and the light direction vectors.
      * @return The diffusive component of the lighting.
      */
-    private Double3 calcDiffusive(Material material, double nl) {
+    private Double3 calcDiffusive(CompiledMaterial material, double nl) {
         Double3 kD = material.kD;
         return kD.scale(Math.abs(nl));
     }
@@ -232,7 +662,7 @@ public class SimpleRayTracer extends RayTracerBase {
      * @param v        The direction vector of the ray.
      * @return The specular component of the lighting.
      */
-    private Double3 calcSpecular(Material material, Vector n, Vector l, double nl, Vector v) {
+    private Double3 calcSpecular(CompiledMaterial material, Vector n, Vector l, double nl, Vector v) {
         // Calculate the reflection direction vector
         Vector r = l.subtract(n.scale(2 * nl)).normalize();
         // Calculate the dot product of the view direction and the reflection direction vectors
@@ -245,7 +675,19 @@ public class SimpleRayTracer extends RayTracerBase {
         return (kS.scale(specularFactor));
     }
 
-    private Double3 transparency(GeoPoint geoPoint, LightSource light, Vector l, Vector n) {
+    /**
+     * Calculates the transparency between a point and a light source position, along the shadow ray.
+     *
+     * @param geoPoint    The intersection point.
+     * @param l           The direction vector from the light source to the intersection point.
+     * @param n           The normal vector at the intersection point.
+     * @param maxDistance The distance from the light source position to the intersection point.
+     * @param occluders   The cached last opaque occluders of the lights, or null if the cache is off.
+     * @param light       The index of the light source.
+     * @return The transparency coefficient - zero if the light is blocked.
+     */
+    private Double3 transparency(GeoPoint geoPoint, Vector l, Vector n, double maxDistance,
+                                 Geometry[] occluders, int light) {
         //הופכים את כיוון הוקטור
         Vector lightDirection = l.scale(-1).normalize();
         //מזיזים אפסילון בכיוון הנורמל
@@ -253,13 +695,24 @@ public class SimpleRayTracer extends RayTracerBase {
         Point point = geoPoint.point.add(epsVector);
 
         Ray ray = new Ray(point, n, lightDirection);
-
-        //get the distance
-        double maxDistance = light.getDistance(geoPoint.point);
+        if (statistics != null) statistics.countShadowRay();
+
+        // The cached occluder is opaque, so if it blocks the ray the whole scene need not be searched
+        if (occluders != null && occluders[light] != null) {
+            shadowCacheLookups.increment();
+            List<GeoPoint> blocks = occluders[light].findGeoIntersections(ray, maxDistance);
+            if (statistics != null) statistics.countTest(occluders[light], blocks != null);
+            if (blocks != null)
+                for (GeoPoint block : blocks)
+                    if (point.distance(block.point) <= maxDistance) {
+                        shadowCacheHits.increment();
+                        return Double3.ZERO;
+                    }
+        }
 
         Double3 ktr = Double3.ONE;
 
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(ray, maxDistance);
+        List<GeoPoint> intersections = compiledScene.shadowCasters.findGeoIntersections(ray, maxDistance, statistics);
         if (intersections == null)
             return ktr;
 
@@ -267,9 +720,15 @@ public class SimpleRayTracer extends RayTracerBase {
             // Check if the distance between the intersection point and the geometry is within the maximum distance
             // to the light source
             if (point.distance(item.point) <= maxDistance) {
+                // An opaque occluder blocks the light without any accumulation
+                CompiledMaterial material = compiledScene.getMaterial(item.geometry);
+                if (material.isOpaque()) {
+                    if (occluders != null) occluders[light] = item.geometry;
+                    return Double3.ZERO;
+                }
                 // Multiply the transparency coefficient by the transparency factor of the
                 // intersected geometry's material
-                ktr = ktr.product(item.geometry.getMaterial().kT);
+                ktr = ktr.product(material.kT);
 
                 // If the transparency coefficient falls below the minimum calculation threshold,
                 // return a fully opaque value (0 transparency)
@@ -282,6 +741,63 @@ public class SimpleRayTracer extends RayTracerBase {
         return ktr;
     }
 
+    /**
+     * Calculates the average transparency between a point and an area light.
+     * The probe points of the light are sampled first; if they all give the same transparency the point is
+     * fully lit or fully shadowed, and that transparency is returned. Otherwise, the point is in the
+     * penumbra, and the transparency is averaged over all the sample points of the light.
+     *
+     * @param geoPoint  The intersection point.
+     * @param light     The area light.
+     * @param n         The normal vector at the intersection point.
+     * @param nl        The dot product of the normal and the direction from the center of the light.
+     * @param occluders The cached last opaque occluders of the lights, or null if the cache is off.
+     * @param index     The index of the light source.
+     * @return The average transparency coefficient.
+     */
+    private Double3 transparency(GeoPoint geoPoint, AreaLight light, Vector n, double nl,
+                                 Geometry[] occluders, int index) {
+        if (adaptiveShadows) {
+            Point[] probes = light.getProbePoints();
+            Double3 first = transparency(geoPoint, probes[0], n, nl, occluders, index);
+            boolean agree = true;
+            for (int i = 1; agree && i < probes.length; ++i)
+                agree = transparency(geoPoint, probes[i], n, nl, occluders, index).equals(first);
+            if (agree)
+                return first;
+        }
+
+        Point[] samples = light.getSamplePoints();
+        Double3 sum = Double3.ZERO;
+        for (Point sample : samples)
+            sum = sum.add(transparency(geoPoint, sample, n, nl, occluders, index));
+        return sum.reduce(samples.length);
+    }
+
+    /**
+     * Calculates the transparency between a point and a single point of an area light.
+     * A light point on the other side of the surface than the center of the light is blocked by the surface.
+     *
+     * @param geoPoint   The intersection point.
+     * @param lightPoint The point of the light.
+     * @param n          The normal vector at the intersection point.
+     * @param nl         The dot product of the normal and the direction from the center of the light.
+     * @param occluders  The cached last opaque occluders of the lights, or null if the cache is off.
+     * @param light      The index of the light source.
+     * @return The transparency coefficient - zero if the light is blocked.
+     */
+    private Double3 transparency(GeoPoint geoPoint, Point lightPoint, Vector n, double nl,
+                                 Geometry[] occluders, int light) {
+        if (lightPoint.equals(geoPoint.point))
+            return Double3.ONE;
+        Vector l = geoPoint.point.subtract(lightPoint);
+        double maxDistance = l.length();
+        l = l.normalize();
+        if (alignZero(n.dotProduct(l)) * nl <= 0)
+            return Double3.ZERO;
+        return transparency(geoPoint, l, n, maxDistance, occluders, light);
+    }
+
     /**
      * Checks if the point is unshaded by any other geometry.
      *
@@ -304,12 +820,12 @@ public class SimpleRayTracer extends RayTracerBase {
         //get the distance
         double maxDistance = light.getDistance(geoPoint.point);
 
-        List<GeoPoint> intersections = scene.geometries.findGeoIntersections(ray, maxDistance);
+        List<GeoPoint> intersections = compiledScene.shadowCasters.findGeoIntersections(ray, maxDistance);
         if (intersections == null)
             return true;
 
         for (var item : intersections) {
-            if (item.geometry.getMaterial().kT.lowerThan(MIN_CALC_COLOR_K)) {
+            if (compiledScene.getMaterial(item.geometry).kT.lowerThan(MIN_CALC_COLOR_K)) {
                 return false;
             }
         }
@@ -0,0 +1,35 @@
+package renderer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of a tile of an image rendered by a thread of a camera.
+ * The events of a rendering show its tail and the balance of the work between the threads.
+ */
+@Name("renderer.Tile")
+@Label("Tile")
+@Category({"Ray Tracer", "Rendering"})
+@Description("A tile of an image rendered by a thread")
+final class TileEvent extends Event {
+    @Label("Column")
+    @Description("The first column of the tile")
+    int x;
+
+    @Label("Row")
+    @Description("The first row of the tile")
+    int y;
+
+    @Label("Width")
+    int width;
+
+    @Label("Height")
+    int height;
+
+    @Label("Primary Rays")
+    @Description("The rays cast from the camera through the pixels of the tile - secondary rays are not counted")
+    long primaryRays;
+}
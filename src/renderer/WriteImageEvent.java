@@ -0,0 +1,23 @@
+package renderer;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of {@link Camera#writeToImage()} - the image and its heatmap, if any.
+ */
+@Name("renderer.WriteImage")
+@Label("Write Image")
+@Category({"Ray Tracer", "Output"})
+@Description("The writing of the rendered image of a camera")
+final class WriteImageEvent extends Event {
+    @Label("Image Name")
+    String imageName;
+
+    @Label("Heatmap")
+    @Description("Whether the heatmap of the image was written too")
+    boolean heatmap;
+}
@@ -0,0 +1,31 @@
+package scene;
+
+import jdk.jfr.Category;
+import jdk.jfr.Description;
+import jdk.jfr.Event;
+import jdk.jfr.Label;
+import jdk.jfr.Name;
+
+/**
+ * Flight recorder event of the compilation of a scene for rendering, including the build of its
+ * acceleration structures.
+ */
+@Name("scene.Compile")
+@Label("Scene Compile")
+@Category({"Ray Tracer", "Scene"})
+@Description("The compilation of a scene for rendering")
+final class CompileEvent extends Event {
+    @Label("Scene Name")
+    String sceneName;
+
+    @Label("Geometries")
+    @Description("The geometries of the flattened scene")
+    int geometries;
+
+    @Label("Lights")
+    int lights;
+
+    @Label("Materials")
+    @Description("The distinct materials after interning")
+    int materials;
+}
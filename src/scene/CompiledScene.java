@@ -0,0 +1,237 @@
+package scene;
+
+import geometries.Geometries;
+import geometries.Geometry;
+import geometries.GeometryBvh;
+import geometries.Intersectable;
+import lighting.AmbientLight;
+import lighting.LightSource;
+import primitives.Color;
+import primitives.CompiledMaterial;
+import primitives.Double3;
+import primitives.Material;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable render-optimised snapshot of a scene, made by {@link Scene#compile()}.
+ * The nested geometries are flattened into an acceleration structure, the lights are copied into an
+ * immutable list, and the emission and the material of each geometry are copied into the snapshot, with
+ * the materials of equal coefficients interned into a single compiled material.
+ * The light links of the geometries are compiled into bitsets of the lights, and the geometries which cast
+ * shadows get their own acceleration structure for the shadow tests.
+ * The scene and its geometries are never changed by the compilation and may still be changed afterwards -
+ * the changes take effect in the next compilation, so a compiled scene may be shared by any amount of
+ * threads and cameras.
+ */
+public final class CompiledScene {
+
+    /**
+     * Name of the scene
+     */
+    public final String name;
+    /**
+     * Background color of the scene
+     */
+    public final Color background;
+    /**
+     * Ambient light of the scene
+     */
+    public final AmbientLight ambientLight;
+    /**
+     * All the geometries of the scene, in an acceleration structure
+     */
+    public final GeometryBvh geometries;
+    /**
+     * The geometries which cast shadows, in an acceleration structure
+     * (the same one as all the geometries if all of them cast shadows)
+     */
+    public final GeometryBvh shadowCasters;
+    /**
+     * The light sources of the scene (immutable)
+     */
+    public final List<LightSource> lights;
+    /**
+     * The distinct materials of the geometries (immutable)
+     */
+    public final List<Material> materials;
+
+    /**
+     * The compiled emission and material of each geometry
+     */
+    private final Map<Geometry, Surface> surfaces = new IdentityHashMap<>();
+
+    /**
+     * The lights which illuminate each light-linked geometry, as a bitset by the index of the light
+     */
+    private final Map<Geometry, long[]> lightMasks = new IdentityHashMap<>();
+
+    /**
+     * Material coefficients - the interning key of a material.
+     *
+     * @param kD         Diffuse coefficient.
+     * @param kS         Specular coefficient.
+     * @param kT         Transparency coefficient.
+     * @param kR         Reflection coefficient.
+     * @param nShininess Shininess.
+     */
+    private record MaterialKey(Double3 kD, Double3 kS, Double3 kT, Double3 kR, int nShininess) {
+        /**
+         * Constructs the key of a material.
+         *
+         * @param material The material.
+         */
+        MaterialKey(Material material) {
+            this(material.kD, material.kS, material.kT, material.kR, material.nShininess);
+        }
+    }
+
+    /**
+     * The emission and the material of a geometry, as they were when the scene was compiled.
+     *
+     * @param emission The emission color.
+     * @param material The interned compiled material.
+     */
+    private record Surface(Color emission, CompiledMaterial material) {
+    }
+
+    /**
+     * Compiles a scene.
+     *
+     * @param scene The scene.
+     * @throws IllegalArgumentException if the scene holds an intersectable which is neither a geometry nor
+     *                                  a composite of geometries
+     */
+    CompiledScene(Scene scene) {
+        name = scene.name;
+        background = scene.background;
+        ambientLight = scene.ambientLight;
+        lights = List.copyOf(scene.lights);
+
+        List<Geometry> flat = new ArrayList<>();
+        flatten(scene.geometries, flat);
+
+        Map<MaterialKey, CompiledMaterial> interned = new HashMap<>();
+        List<Material> distinct = new ArrayList<>();
+        for (Geometry geometry : flat) {
+            Material material = geometry.getMaterial();
+            CompiledMaterial compiled = interned.get(new MaterialKey(material));
+            if (compiled == null) {
+                compiled = new CompiledMaterial(material);
+                interned.put(new MaterialKey(material), compiled);
+                distinct.add(material);
+            }
+            surfaces.put(geometry, new Surface(geometry.getEmission(), compiled));
+        }
+        materials = List.copyOf(distinct);
+        geometries = accelerator(scene, flat);
+
+        List<Geometry> casters = new ArrayList<>();
+        for (Geometry geometry : flat) {
+            if (geometry.castsShadows())
+                casters.add(geometry);
+            if (geometry.isLightLinked())
+                lightMasks.put(geometry, lightMask(geometry));
+        }
+        shadowCasters = casters.size() == flat.size() ? geometries : accelerator(scene, casters);
+    }
+
+    /**
+     * Returns the compiled material of a geometry.
+     *
+     * @param geometry The geometry (or a part of it, such as a face of a mesh).
+     * @return The material of the geometry when the scene was compiled (compiled on each call for a
+     * geometry which is not in the scene).
+     */
+    public CompiledMaterial getMaterial(Geometry geometry) {
+        Surface surface = surfaces.get(geometry.getOwner());
+        return surface != null ? surface.material() : new CompiledMaterial(geometry.getMaterial());
+    }
+
+    /**
+     * Returns the emission color of a geometry.
+     *
+     * @param geometry The geometry (or a part of it, such as a face of a mesh).
+     * @return The emission of the geometry when the scene was compiled (its current emission for a geometry
+     * which is not in the scene).
+     */
+    public Color getEmission(Geometry geometry) {
+        Surface surface = surfaces.get(geometry.getOwner());
+        return surface != null ? surface.emission() : geometry.getEmission();
+    }
+
+    /**
+     * Returns the lights which illuminate a geometry.
+     *
+     * @param geometry The geometry (or a part of it, such as a face of a mesh).
+     * @return A bitset of the lights by their indices in {@link #lights}, or null if all the lights
+     * illuminate the geometry.
+     */
+    public long[] getLightMask(Geometry geometry) {
+        return lightMasks.isEmpty() ? null : lightMasks.get(geometry.getOwner());
+    }
+
+    /**
+     * Checks whether a light is in a bitset of lights.
+     *
+     * @param mask  The bitset of lights, or null for all the lights.
+     * @param light The index of the light.
+     * @return true if the light is in the bitset.
+     */
+    public static boolean includes(long[] mask, int light) {
+        return mask == null || (mask[light >>> 6] & (1L << light)) != 0;
+    }
+
+    /**
+     * Compiles the light links of a geometry into a bitset of the lights which illuminate it.
+     *
+     * @param geometry The light-linked geometry.
+     * @return The bitset by the index of the light.
+     */
+    private long[] lightMask(Geometry geometry) {
+        long[] mask = new long[(lights.size() + 63) >>> 6];
+        for (int i = 0; i < lights.size(); ++i) {
+            LightSource light = lights.get(i);
+            if ((geometry.getIncludedLights() == null || geometry.getIncludedLights().contains(light))
+                    && (geometry.getExcludedLights() == null || !geometry.getExcludedLights().contains(light)))
+                mask[i >>> 6] |= 1L << i;
+        }
+        return mask;
+    }
+
+    /**
+     * Returns an acceleration structure over some geometries: one restored with the scene if it is over
+     * exactly these geometries, or else a newly built one.
+     *
+     * @param scene      The scene.
+     * @param geometries The geometries.
+     * @return The acceleration structure.
+     */
+    private static GeometryBvh accelerator(Scene scene, List<Geometry> geometries) {
+        for (GeometryBvh accelerator : scene.accelerators)
+            if (accelerator.isOver(geometries))
+                return accelerator;
+        return new GeometryBvh(geometries);
+    }
+
+    /**
+     * Collects the geometries of a composite, recursively.
+     *
+     * @param composite The composite.
+     * @param flat      The collected geometries.
+     */
+    private static void flatten(Geometries composite, List<Geometry> flat) {
+        for (Intersectable intersectable : composite.getGeometries()) {
+            switch (intersectable) {
+                case Geometries nested -> flatten(nested, flat);
+                case Geometry geometry -> flat.add(geometry);
+                default -> throw new IllegalArgumentException(
+                        "Cannot compile " + intersectable.getClass().getName() + " - not a geometry");
+            }
+        }
+    }
+}
@@ -0,0 +1,885 @@
+package scene;
+
+import geometries.TriangleMesh;
+
+import java.io.EOFException;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.stream.IntStream;
+
+/**
+ * Loader of triangle meshes from Wavefront OBJ files and binary PLY files.
+ * The files are memory-mapped and parsed in parallel chunks directly into the flat buffers of a
+ * {@link TriangleMesh} - no objects are created per vertex or per face.
+ * Polygonal faces are triangulated as fans around their first vertex.
+ */
+public final class MeshLoader {
+
+    /**
+     * Default size in bytes of a chunk parsed by one task
+     */
+    private static final int CHUNK_SIZE = 16 << 20;
+
+    /**
+     * The longest allowed line of an OBJ file - the amount of bytes mapped after a chunk end
+     */
+    private static final int MAX_LINE = 1 << 20;
+
+    /**
+     * Size of the buffer used for sequential reading of a PLY file
+     */
+    private static final int READ_BUFFER_SIZE = 1 << 20;
+
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private MeshLoader() {
+    }
+
+    /**
+     * Loads a mesh from a file, by its extension (.obj or .ply).
+     *
+     * @param path The path of the file.
+     * @return The loaded mesh.
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file format is unknown or the file is malformed
+     */
+    public static TriangleMesh load(Path path) throws IOException {
+        String name = path.getFileName().toString().toLowerCase();
+        if (name.endsWith(".obj")) return loadObj(path);
+        if (name.endsWith(".ply")) return loadPly(path);
+        throw new IllegalArgumentException("Unknown mesh file format: " + name);
+    }
+
+    /**
+     * Loads a mesh from a Wavefront OBJ file.
+     * Only vertex positions ("v") and faces ("f") are used; all other statements are skipped.
+     *
+     * @param path The path of the file.
+     * @return The loaded mesh.
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is malformed
+     */
+    public static TriangleMesh loadObj(Path path) throws IOException {
+        return loadObj(path, CHUNK_SIZE);
+    }
+
+    /**
+     * Loads a mesh from a Wavefront OBJ file with a given chunk size.
+     *
+     * @param path      The path of the file.
+     * @param chunkSize The size in bytes of the chunk parsed by one task.
+     * @return The loaded mesh.
+     * @throws IOException if the file cannot be read
+     */
+    static TriangleMesh loadObj(Path path, int chunkSize) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            long size = channel.size();
+            int chunkCount = (int) Math.max(1, (size + chunkSize - 1) / chunkSize);
+            ObjChunk[] chunks = new ObjChunk[chunkCount];
+            for (int i = 0; i < chunkCount; ++i)
+                chunks[i] = new ObjChunk(channel, size, (long) i * chunkSize, Math.min(size, (long) (i + 1) * chunkSize));
+
+            // 1st pass - count the vertices and the triangles of each chunk
+            parallel(chunkCount, i -> chunks[i].parse(null, null, 0, 0));
+
+            // Place the chunks one after the other in the buffers
+            int vertexCount = 0;
+            int triangleCount = 0;
+            for (ObjChunk chunk : chunks) {
+                chunk.firstVertex = vertexCount;
+                chunk.firstTriangle = triangleCount;
+                vertexCount = Math.addExact(vertexCount, chunk.vertices);
+                triangleCount = Math.addExact(triangleCount, chunk.triangles);
+            }
+
+            // 2nd pass - parse directly into the buffers
+            double[] vertices = new double[Math.multiplyExact(3, vertexCount)];
+            int[] indices = new int[Math.multiplyExact(3, triangleCount)];
+            parallel(chunkCount, i -> chunks[i].parse(vertices, indices, chunks[i].firstVertex, chunks[i].firstTriangle));
+
+            return new TriangleMesh(vertices, indices);
+        }
+    }
+
+    /**
+     * Loads a mesh from a binary (little or big endian) PLY file.
+     * The "vertex" element must have x, y, z properties and may have nx, ny, nz normals;
+     * the "face" element must have a vertex index list property.
+     *
+     * @param path The path of the file.
+     * @return The loaded mesh.
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is malformed or is not a binary PLY file
+     */
+    public static TriangleMesh loadPly(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            PlyHeader header = PlyHeader.read(channel);
+
+            // Locate the vertex and face elements - all the elements before them must have a fixed size
+            long position = header.dataStart;
+            long vertexStart = -1;
+            long faceStart = -1;
+            PlyElement vertex = null;
+            PlyElement face = null;
+            for (PlyElement element : header.elements) {
+                if (element.name.equals("vertex")) {
+                    vertex = element;
+                    vertexStart = position;
+                } else if (element.name.equals("face")) {
+                    face = element;
+                    faceStart = position;
+                    break;
+                }
+                if (element.stride < 0)
+                    throw new IllegalArgumentException("PLY element '" + element.name + "' before the faces has lists");
+                position += (long) element.stride * element.count;
+            }
+            if (vertex == null || face == null || vertexStart > faceStart)
+                throw new IllegalArgumentException("PLY file must have a vertex element followed by a face element");
+
+            double[][] buffers = readVertices(channel, header.order, vertex, vertexStart);
+            int[] indices = readFaces(channel, header.order, face, faceStart);
+            return new TriangleMesh(buffers[0], indices, buffers[1]);
+        }
+    }
+
+    /**
+     * Reads the vertex element of a PLY file in parallel chunks.
+     *
+     * @param channel The file channel.
+     * @param order   The byte order of the file.
+     * @param element The vertex element.
+     * @param start   The position of the element in the file.
+     * @return The vertex buffer and the normal buffer (null if the vertices have no normals).
+     * @throws IOException if the file cannot be read
+     */
+    private static double[][] readVertices(FileChannel channel, ByteOrder order, PlyElement element, long start)
+            throws IOException {
+        int[] positions = {element.offsetOf("x"), element.offsetOf("y"), element.offsetOf("z")};
+        int[] normals = {element.offsetOf("nx"), element.offsetOf("ny"), element.offsetOf("nz")};
+        for (int p : positions)
+            if (p < 0) throw new IllegalArgumentException("PLY vertex must have x, y and z properties");
+        boolean hasNormals = normals[0] >= 0 && normals[1] >= 0 && normals[2] >= 0;
+
+        int count = element.count;
+        int stride = element.stride;
+        double[] vertices = new double[Math.multiplyExact(3, count)];
+        double[] normalBuffer = hasNormals ? new double[vertices.length] : null;
+
+        int perChunk = Math.max(1, CHUNK_SIZE / stride);
+        int chunkCount = (count + perChunk - 1) / perChunk;
+        parallel(chunkCount, c -> {
+            int first = c * perChunk;
+            int last = Math.min(count, first + perChunk);
+            ByteBuffer buffer = map(channel, start + (long) first * stride, (long) (last - first) * stride).order(order);
+            for (int v = first; v < last; ++v) {
+                int base = (v - first) * stride;
+                for (int axis = 0; axis < 3; ++axis) {
+                    vertices[3 * v + axis] = element.readNumber(buffer, base, positions[axis]);
+                    if (hasNormals)
+                        normalBuffer[3 * v + axis] = element.readNumber(buffer, base, normals[axis]);
+                }
+            }
+        });
+        return new double[][]{vertices, normalBuffer};
+    }
+
+    /**
+     * Reads the face element of a PLY file.
+     * If all the faces are triangles the records have a fixed size and are read in parallel chunks,
+     * otherwise the element is read sequentially and the polygons are triangulated.
+     *
+     * @param channel The file channel.
+     * @param order   The byte order of the file.
+     * @param element The face element.
+     * @param start   The position of the element in the file.
+     * @return The index buffer.
+     * @throws IOException if the file cannot be read
+     */
+    private static int[] readFaces(FileChannel channel, ByteOrder order, PlyElement element, long start)
+            throws IOException {
+        int list = element.listIndex();
+        if (list < 0)
+            throw new IllegalArgumentException("PLY face must have a vertex index list property");
+        PlyProperty indexList = element.properties.get(list);
+
+        // Try the common case - triangles only, i.e. records of a fixed size
+        int stride = element.triangleStride();
+        int listOffset = element.triangleOffsetOf(list);
+        long end = start + (long) stride * element.count;
+        if (end <= channel.size()) {
+            int count = element.count;
+            int[] indices = new int[Math.multiplyExact(3, count)];
+            int perChunk = Math.max(1, CHUNK_SIZE / stride);
+            int chunkCount = (count + perChunk - 1) / perChunk;
+            boolean[] triangles = {true};
+            parallel(chunkCount, c -> {
+                int first = c * perChunk;
+                int last = Math.min(count, first + perChunk);
+                ByteBuffer buffer = map(channel, start + (long) first * stride, (long) (last - first) * stride).order(order);
+                for (int f = first; f < last && triangles[0]; ++f) {
+                    int base = (f - first) * stride + listOffset;
+                    if (readInteger(buffer, base, indexList.countType) != 3) {
+                        triangles[0] = false;
+                        return;
+                    }
+                    for (int k = 0; k < 3; ++k)
+                        indices[3 * f + k] = (int) readInteger(buffer,
+                                base + indexList.countType.size + k * indexList.type.size, indexList.type);
+                }
+            });
+            if (triangles[0])
+                return indices;
+        }
+
+        // General case - read the faces one by one
+        SequentialReader reader = new SequentialReader(channel, start, order);
+        int[] indices = new int[Math.multiplyExact(3, element.count)];
+        int size = 0;
+        int[] polygon = new int[16];
+        for (int f = 0; f < element.count; ++f) {
+            for (int p = 0; p < element.properties.size(); ++p) {
+                PlyProperty property = element.properties.get(p);
+                if (property.countType == null) {
+                    reader.skip(property.type.size);
+                    continue;
+                }
+                int n = (int) reader.readInteger(property.countType);
+                if (p != list) {
+                    reader.skip((long) n * property.type.size);
+                    continue;
+                }
+                if (n > polygon.length) polygon = new int[n];
+                for (int k = 0; k < n; ++k)
+                    polygon[k] = (int) reader.readInteger(property.type);
+                // Triangulate the polygon as a fan
+                for (int k = 1; k + 1 < n; ++k) {
+                    if (size + 3 > indices.length)
+                        indices = Arrays.copyOf(indices, Math.max(size + 3, indices.length * 2));
+                    indices[size++] = polygon[0];
+                    indices[size++] = polygon[k];
+                    indices[size++] = polygon[k + 1];
+                }
+            }
+        }
+        return Arrays.copyOf(indices, size);
+    }
+
+    /**
+     * Maps a read-only region of a file.
+     *
+     * @param channel  The file channel.
+     * @param position The start of the region.
+     * @param size     The size of the region (up to 2GB).
+     * @return The mapped buffer.
+     */
+    private static MappedByteBuffer map(FileChannel channel, long position, long size) {
+        try {
+            return channel.map(FileChannel.MapMode.READ_ONLY, position, size);
+        } catch (IOException e) {
+            throw new IllegalStateException("I/O error - mapping the mesh file failed", e);
+        }
+    }
+
+    /**
+     * Runs tasks in parallel and waits for all of them.
+     *
+     * @param count The amount of tasks.
+     * @param task  The task, by its number.
+     * @throws IOException if a task failed on I/O
+     */
+    private static void parallel(int count, java.util.function.IntConsumer task) throws IOException {
+        try {
+            IntStream.range(0, count).parallel().forEach(task);
+        } catch (IllegalStateException e) {
+            if (e.getCause() instanceof IOException io) throw io;
+            throw e;
+        }
+    }
+
+    /**
+     * Reads an integer number from an absolute position of a buffer.
+     *
+     * @param buffer   The buffer.
+     * @param position The position.
+     * @param type     The stored type of the number.
+     * @return The number.
+     */
+    private static long readInteger(ByteBuffer buffer, int position, PlyType type) {
+        return switch (type) {
+            case INT8 -> buffer.get(position);
+            case UINT8 -> buffer.get(position) & 0xFF;
+            case INT16 -> buffer.getShort(position);
+            case UINT16 -> buffer.getShort(position) & 0xFFFF;
+            case INT32 -> buffer.getInt(position);
+            case UINT32 -> buffer.getInt(position) & 0xFFFFFFFFL;
+            case FLOAT32 -> (long) buffer.getFloat(position);
+            case FLOAT64 -> (long) buffer.getDouble(position);
+        };
+    }
+
+    /**
+     * A chunk of an OBJ file - the lines that start inside a byte range.
+     */
+    private static final class ObjChunk {
+        private final FileChannel channel;
+        private final long fileSize;
+        private final long start;
+        private final long end;
+        /** Amount of vertices in the chunk (after the 1st pass) */
+        int vertices;
+        /** Amount of triangles in the chunk (after the 1st pass) */
+        int triangles;
+        /** Index of the first vertex of the chunk in the whole file */
+        int firstVertex;
+        /** Index of the first triangle of the chunk in the whole file */
+        int firstTriangle;
+
+        /**
+         * Constructs a chunk of a file.
+         *
+         * @param channel  The file channel.
+         * @param fileSize The size of the file.
+         * @param start    The start of the chunk (included).
+         * @param end      The end of the chunk (excluded).
+         */
+        ObjChunk(FileChannel channel, long fileSize, long start, long end) {
+            this.channel = channel;
+            this.fileSize = fileSize;
+            this.start = start;
+            this.end = end;
+        }
+
+        /**
+         * Parses the lines of the chunk. Without buffers it only counts the vertices and the triangles.
+         *
+         * @param vertexBuffer  The vertex buffer to fill, or null for counting.
+         * @param indexBuffer   The index buffer to fill, or null for counting.
+         * @param firstVertex   The index of the first vertex of the chunk.
+         * @param firstTriangle The index of the first triangle of the chunk.
+         */
+        void parse(double[] vertexBuffer, int[] indexBuffer, int firstVertex, int firstTriangle) {
+            // Map one byte before the chunk (to know whether it starts a line) and enough bytes after it
+            long mapStart = Math.max(0, start - 1);
+            long mapEnd = Math.min(fileSize, end + MAX_LINE);
+            ByteBuffer buffer = map(channel, mapStart, mapEnd - mapStart);
+            int limit = (int) (end - mapStart);
+            int length = (int) (mapEnd - mapStart);
+
+            int p = (int) (start - mapStart);
+            // Skip the tail of a line that started in the previous chunk
+            if (start > 0)
+                while (p < limit && buffer.get(p - 1) != '\n') ++p;
+
+            int vertexCount = 0;
+            int triangleCount = 0;
+            int[] face = new int[16];
+            while (p < limit) {
+                int lineEnd = p;
+                while (lineEnd < length && buffer.get(lineEnd) != '\n') ++lineEnd;
+                if (lineEnd == length && mapEnd < fileSize)
+                    throw new IllegalArgumentException("OBJ line is too long at byte " + (mapStart + p));
+
+                byte first = buffer.get(p);
+                byte second = p + 1 < lineEnd ? buffer.get(p + 1) : (byte) '\n';
+                if (first == 'v' && (second == ' ' || second == '\t')) {
+                    if (vertexBuffer != null) {
+                        Cursor cursor = new Cursor(buffer, p + 1, lineEnd);
+                        int v = 3 * (firstVertex + vertexCount);
+                        vertexBuffer[v] = cursor.nextDouble();
+                        vertexBuffer[v + 1] = cursor.nextDouble();
+                        vertexBuffer[v + 2] = cursor.nextDouble();
+                    }
+                    ++vertexCount;
+                } else if (first == 'f' && (second == ' ' || second == '\t')) {
+                    Cursor cursor = new Cursor(buffer, p + 1, lineEnd);
+                    int n = 0;
+                    while (cursor.hasNext()) {
+                        if (n == face.length) face = Arrays.copyOf(face, n * 2);
+                        face[n++] = cursor.nextIndex();
+                    }
+                    if (n < 3)
+                        throw new IllegalArgumentException("OBJ face with less than 3 vertices at byte " + (mapStart + p));
+                    if (indexBuffer != null) {
+                        // Negative indices are relative to the vertices defined so far
+                        int defined = firstVertex + vertexCount;
+                        for (int k = 0; k < n; ++k)
+                            face[k] = face[k] < 0 ? defined + face[k] : face[k] - 1;
+                        for (int k = 1; k + 1 < n; ++k) {
+                            int t = 3 * (firstTriangle + triangleCount + k - 1);
+                            indexBuffer[t] = face[0];
+                            indexBuffer[t + 1] = face[k];
+                            indexBuffer[t + 2] = face[k + 1];
+                        }
+                    }
+                    triangleCount += n - 2;
+                }
+                p = lineEnd + 1;
+            }
+            vertices = vertexCount;
+            triangles = triangleCount;
+        }
+    }
+
+    /**
+     * Reader of white-space separated numbers in a line of a mapped buffer, without creating strings.
+     */
+    private static final class Cursor {
+        private final ByteBuffer buffer;
+        private final int end;
+        private int position;
+
+        /**
+         * Constructs a cursor over a range of a buffer.
+         *
+         * @param buffer The buffer.
+         * @param start  The start of the range.
+         * @param end    The end of the range (excluded).
+         */
+        Cursor(ByteBuffer buffer, int start, int end) {
+            this.buffer = buffer;
+            this.position = start;
+            this.end = end;
+        }
+
+        /**
+         * Skips white space and checks whether there is another token in the line.
+         *
+         * @return true if there is another token, false otherwise.
+         */
+        boolean hasNext() {
+            while (position < end) {
+                byte b = buffer.get(position);
+                if (b != ' ' && b != '\t' && b != '\r') return b != '#';
+                ++position;
+            }
+            return false;
+        }
+
+        /**
+         * Parses the vertex index of the next face token ("v", "v/vt", "v//vn" or "v/vt/vn").
+         *
+         * @return The index as written (1-based, or negative for relative).
+         */
+        int nextIndex() {
+            hasNext();
+            boolean negative = position < end && buffer.get(position) == '-';
+            if (negative) ++position;
+            int value = 0;
+            int digits = 0;
+            byte b;
+            while (position < end && (b = buffer.get(position)) >= '0' && b <= '9') {
+                value = value * 10 + (b - '0');
+                ++position;
+                ++digits;
+            }
+            if (digits == 0 || value == 0)
+                throw new IllegalArgumentException("Malformed OBJ face index");
+            // Skip the texture and normal indices
+            while (position < end && (b = buffer.get(position)) != ' ' && b != '\t' && b != '\r') ++position;
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses the next number.
+         *
+         * @return The number.
+         */
+        double nextDouble() {
+            if (!hasNext())
+                throw new IllegalArgumentException("Missing OBJ vertex coordinate");
+            int tokenStart = position;
+            boolean negative = false;
+            byte b = buffer.get(position);
+            if (b == '-' || b == '+') {
+                negative = b == '-';
+                ++position;
+            }
+            long mantissa = 0;
+            int digits = 0;
+            int exponent = 0;
+            boolean point = false;
+            while (position < end) {
+                b = buffer.get(position);
+                if (b >= '0' && b <= '9') {
+                    if (digits < 18) {
+                        mantissa = mantissa * 10 + (b - '0');
+                        if (mantissa != 0) ++digits;
+                        if (point) --exponent;
+                    } else if (!point) ++exponent;
+                } else if (b == '.' && !point) point = true;
+                else break;
+                ++position;
+            }
+            if (position < end && (b == 'e' || b == 'E')) {
+                ++position;
+                boolean negativeExponent = false;
+                if (position < end && ((b = buffer.get(position)) == '-' || b == '+')) {
+                    negativeExponent = b == '-';
+                    ++position;
+                }
+                int value = 0;
+                while (position < end && (b = buffer.get(position)) >= '0' && b <= '9') {
+                    value = Math.min(100000, value * 10 + (b - '0'));
+                    ++position;
+                }
+                exponent += negativeExponent ? -value : value;
+            }
+            if (position < end && (b = buffer.get(position)) != ' ' && b != '\t' && b != '\r')
+                return fallback(tokenStart);
+
+            // Exact for small powers of 10, the general parser is used for the rest
+            if (exponent < -22 || exponent > 22) return fallback(tokenStart);
+            double value = exponent < 0 ? mantissa / POWERS_OF_10[-exponent] : mantissa * POWERS_OF_10[exponent];
+            return negative ? -value : value;
+        }
+
+        /**
+         * Parses a token that the fast path does not handle by the standard parser.
+         *
+         * @param tokenStart The start of the token.
+         * @return The number.
+         */
+        private double fallback(int tokenStart) {
+            position = tokenStart;
+            byte b;
+            while (position < end && (b = buffer.get(position)) != ' ' && b != '\t' && b != '\r') ++position;
+            byte[] bytes = new byte[position - tokenStart];
+            buffer.get(tokenStart, bytes);
+            try {
+                return Double.parseDouble(new String(bytes, StandardCharsets.US_ASCII));
+            } catch (NumberFormatException e) {
+                throw new IllegalArgumentException("Malformed OBJ number: " + new String(bytes, StandardCharsets.US_ASCII), e);
+            }
+        }
+
+        /**
+         * Powers of 10 that are exactly representable as double
+         */
+        private static final double[] POWERS_OF_10 = {
+                1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22
+        };
+    }
+
+    /**
+     * PLY property (scalar or list) types.
+     */
+    private enum PlyType {
+        INT8(1), UINT8(1), INT16(2), UINT16(2), INT32(4), UINT32(4), FLOAT32(4), FLOAT64(8);
+
+        /** The size of the type in bytes */
+        final int size;
+
+        PlyType(int size) {
+            this.size = size;
+        }
+
+        /**
+         * Finds a type by its name in a PLY header.
+         *
+         * @param name The name of the type.
+         * @return The type.
+         */
+        static PlyType of(String name) {
+            return switch (name) {
+                case "char", "int8" -> INT8;
+                case "uchar", "uint8" -> UINT8;
+                case "short", "int16" -> INT16;
+                case "ushort", "uint16" -> UINT16;
+                case "int", "int32" -> INT32;
+                case "uint", "uint32" -> UINT32;
+                case "float", "float32" -> FLOAT32;
+                case "double", "float64" -> FLOAT64;
+                default -> throw new IllegalArgumentException("Unknown PLY type: " + name);
+            };
+        }
+    }
+
+    /**
+     * PLY property - a scalar of a type, or a list with a count type and an item type.
+     *
+     * @param name      The name of the property.
+     * @param type      The type of the scalar or of the list items.
+     * @param countType The type of the list count, or null for a scalar.
+     */
+    private record PlyProperty(String name, PlyType type, PlyType countType) {
+    }
+
+    /**
+     * PLY element - a named record of properties repeated count times.
+     */
+    private static final class PlyElement {
+        final String name;
+        final int count;
+        final List<PlyProperty> properties = new ArrayList<>();
+        /** The size of a record in bytes, or -1 if it has lists */
+        int stride = 0;
+
+        /**
+         * Constructs an element (its properties are added later).
+         *
+         * @param name  The element name.
+         * @param count The amount of records.
+         */
+        PlyElement(String name, int count) {
+            this.name = name;
+            this.count = count;
+        }
+
+        /**
+         * Adds a property to the element.
+         *
+         * @param property The property.
+         */
+        void add(PlyProperty property) {
+            properties.add(property);
+            if (property.countType != null) stride = -1;
+            else if (stride >= 0) stride += property.type.size;
+        }
+
+        /**
+         * Finds the offset of a scalar property in a fixed size record.
+         *
+         * @param property The name of the property.
+         * @return The offset in bytes, or -1 if there is no such property.
+         */
+        int offsetOf(String property) {
+            int offset = 0;
+            for (PlyProperty p : properties) {
+                if (p.name.equals(property)) return offset;
+                offset += p.type.size;
+            }
+            return -1;
+        }
+
+        /**
+         * Reads a scalar property as a number.
+         *
+         * @param buffer The buffer of the records.
+         * @param base   The position of the record in the buffer.
+         * @param offset The offset of the property in the record.
+         * @return The value.
+         */
+        double readNumber(ByteBuffer buffer, int base, int offset) {
+            int position = base + offset;
+            PlyType type = typeAt(offset);
+            return switch (type) {
+                case FLOAT32 -> buffer.getFloat(position);
+                case FLOAT64 -> buffer.getDouble(position);
+                default -> readInteger(buffer, position, type);
+            };
+        }
+
+        /**
+         * Finds the type of the scalar property at an offset of a fixed size record.
+         *
+         * @param offset The offset.
+         * @return The type.
+         */
+        private PlyType typeAt(int offset) {
+            int o = 0;
+            for (PlyProperty p : properties) {
+                if (o == offset) return p.type;
+                o += p.type.size;
+            }
+            throw new IllegalStateException("No PLY property at offset " + offset);
+        }
+
+        /**
+         * Finds the vertex index list property of a face element.
+         *
+         * @return The position of the property, or -1 if there is none.
+         */
+        int listIndex() {
+            for (int i = 0; i < properties.size(); ++i) {
+                PlyProperty p = properties.get(i);
+                if (p.countType != null && (p.name.equals("vertex_indices") || p.name.equals("vertex_index")))
+                    return i;
+            }
+            return -1;
+        }
+
+        /**
+         * Calculates the size of a record assuming all its lists have 3 items.
+         *
+         * @return The size in bytes.
+         */
+        int triangleStride() {
+            return triangleOffsetOf(properties.size());
+        }
+
+        /**
+         * Calculates the offset of a property assuming all the lists before it have 3 items.
+         *
+         * @param index The position of the property.
+         * @return The offset in bytes.
+         */
+        int triangleOffsetOf(int index) {
+            int offset = 0;
+            for (int i = 0; i < index; ++i) {
+                PlyProperty p = properties.get(i);
+                offset += p.countType == null ? p.type.size : p.countType.size + 3 * p.type.size;
+            }
+            return offset;
+        }
+    }
+
+    /**
+     * The header of a PLY file.
+     */
+    private static final class PlyHeader {
+        ByteOrder order;
+        long dataStart;
+        final List<PlyElement> elements = new ArrayList<>();
+
+        /**
+         * Reads the header from the start of a file.
+         *
+         * @param channel The file channel.
+         * @return The header.
+         * @throws IOException if the file cannot be read
+         */
+        static PlyHeader read(FileChannel channel) throws IOException {
+            PlyHeader header = new PlyHeader();
+            SequentialReader reader = new SequentialReader(channel, 0, ByteOrder.BIG_ENDIAN);
+            if (!reader.readLine().equals("ply"))
+                throw new IllegalArgumentException("Not a PLY file");
+            PlyElement element = null;
+            while (true) {
+                String[] tokens = reader.readLine().trim().split("\\s+");
+                switch (tokens[0]) {
+                    case "format" -> header.order = switch (tokens[1]) {
+                        case "binary_little_endian" -> ByteOrder.LITTLE_ENDIAN;
+                        case "binary_big_endian" -> ByteOrder.BIG_ENDIAN;
+                        default -> throw new IllegalArgumentException("Only binary PLY files are supported");
+                    };
+                    case "element" -> {
+                        element = new PlyElement(tokens[1], Integer.parseInt(tokens[2]));
+                        header.elements.add(element);
+                    }
+                    case "property" -> {
+                        if (element == null)
+                            throw new IllegalArgumentException("PLY property out of an element");
+                        element.add(tokens[1].equals("list")
+                                ? new PlyProperty(tokens[4], PlyType.of(tokens[3]), PlyType.of(tokens[2]))
+                                : new PlyProperty(tokens[2], PlyType.of(tokens[1]), null));
+                    }
+                    case "end_header" -> {
+                        if (header.order == null)
+                            throw new IllegalArgumentException("PLY format is missing");
+                        header.dataStart = reader.position();
+                        return header;
+                    }
+                    default -> {
+                        // comment, obj_info and empty lines
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Sequential reader of a file through a small buffer, for the parts that cannot be read in parallel.
+     */
+    private static final class SequentialReader {
+        private final FileChannel channel;
+        private final ByteBuffer buffer;
+        private long filePosition;
+
+        /**
+         * Constructs a reader from a position of a file.
+         *
+         * @param channel  The file channel.
+         * @param position The start position.
+         * @param order    The byte order of the numbers.
+         */
+        SequentialReader(FileChannel channel, long position, ByteOrder order) {
+            this.channel = channel;
+            this.filePosition = position;
+            this.buffer = ByteBuffer.allocateDirect(READ_BUFFER_SIZE).order(order);
+            buffer.flip();
+        }
+
+        /**
+         * Returns the file position of the next byte.
+         *
+         * @return The position.
+         */
+        long position() {
+            return filePosition - buffer.remaining();
+        }
+
+        /**
+         * Makes sure that enough bytes are available in the buffer.
+         *
+         * @param n The amount of bytes.
+         * @throws IOException if the file ends before
+         */
+        private void ensure(int n) throws IOException {
+            if (buffer.remaining() >= n) return;
+            buffer.compact();
+            while (buffer.position() < n) {
+                int read = channel.read(buffer, filePosition);
+                if (read < 0) throw new EOFException("Unexpected end of the PLY file");
+                filePosition += read;
+            }
+            buffer.flip();
+        }
+
+        /**
+         * Reads a header line.
+         *
+         * @return The line without the line break.
+         * @throws IOException if the file cannot be read
+         */
+        String readLine() throws IOException {
+            StringBuilder line = new StringBuilder();
+            while (true) {
+                ensure(1);
+                byte b = buffer.get();
+                if (b == '\n') return line.toString().strip();
+                line.append((char) b);
+            }
+        }
+
+        /**
+         * Skips bytes.
+         *
+         * @param n The amount of bytes.
+         * @throws IOException if the file cannot be read
+         */
+        void skip(long n) throws IOException {
+            while (n > 0) {
+                int step = (int) Math.min(n, READ_BUFFER_SIZE);
+                ensure(step);
+                buffer.position(buffer.position() + step);
+                n -= step;
+            }
+        }
+
+        /**
+         * Reads an integer number.
+         *
+         * @param type The stored type.
+         * @return The number.
+         * @throws IOException if the file cannot be read
+         */
+        long readInteger(PlyType type) throws IOException {
+            ensure(type.size);
+            long value = MeshLoader.readInteger(buffer, buffer.position(), type);
+            buffer.position(buffer.position() + type.size);
+            return value;
+        }
+    }
+}
@@ -1,6 +1,7 @@
 package scene;
 
 import geometries.Geometries;
+import geometries.GeometryBvh;
 import lighting.AmbientLight;
 import lighting.LightSource;
 import primitives.Color;
@@ -36,6 +37,12 @@ public class Scene {
      */
     public List<LightSource> lights = new LinkedList<>();
 
+    /**
+     * Acceleration structures restored from a scene cache, reused by {@link #compile()} as long as they are
+     * over the geometries (and the shadow casters) of the scene
+     */
+    List<GeometryBvh> accelerators = List.of();
+
     /**
      * Constructor to initialize the scene with a name.
      *
@@ -88,4 +95,28 @@ public class Scene {
         this.lights = lights;
         return this;
     }
+
+    /**
+     * Compiles the scene into an immutable render-optimised snapshot.
+     * The scene is not changed by the compilation and may still be changed afterwards - new elements and
+     * changed materials or emissions take effect in the next compilation.
+     *
+     * @return The compiled scene.
+     * @throws IllegalArgumentException if the scene holds an intersectable which is neither a geometry nor
+     *                                  a composite of geometries
+     */
+    public CompiledScene compile() {
+        CompileEvent event = new CompileEvent();
+        event.begin();
+        CompiledScene compiled = new CompiledScene(this);
+        event.end();
+        if (event.shouldCommit()) {
+            event.sceneName = name;
+            event.geometries = compiled.geometries.size();
+            event.lights = compiled.lights.size();
+            event.materials = compiled.materials.size();
+            event.commit();
+        }
+        return compiled;
+    }
 }
@@ -0,0 +1,493 @@
+package scene;
+
+import geometries.Geometries;
+import geometries.Geometry;
+import geometries.GeometryBvh;
+import geometries.GeometryCodec;
+import lighting.*;
+import primitives.Material;
+import renderer.Camera;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+
+import static geometries.GeometryCodec.*;
+
+/**
+ * Compact binary cache of a fully built scene (geometries, materials, lights and optionally the camera).
+ * Reading the cache memory-maps the file and restores all the objects directly from their stored state:
+ * no polygon validation is repeated and no acceleration structure is rebuilt - neither the BVHs of the
+ * meshes nor the BVHs over the geometries of the scene, which {@link Scene#compile()} reuses as long as the
+ * geometries are not changed.
+ * A cache file is limited to 2GB.
+ */
+public final class SceneCache {
+
+    /**
+     * The file signature
+     */
+    private static final int MAGIC = 0x52545343; // "RTSC"
+
+    /**
+     * The format version - a cache of another version is rejected
+     */
+    private static final int VERSION = 6;
+
+    // Light type tags
+    private static final byte DIRECTIONAL_LIGHT = 0;
+    private static final byte POINT_LIGHT = 1;
+    private static final byte SPOT_LIGHT = 2;
+    private static final byte RECTANGLE_LIGHT = 3;
+    private static final byte DISK_LIGHT = 4;
+
+    /**
+     * Don't let anyone instantiate this class.
+     */
+    private SceneCache() {
+    }
+
+    /**
+     * Writes a scene to a cache file.
+     *
+     * @param path  The path of the cache file.
+     * @param scene The scene.
+     * @throws IOException if the file cannot be written
+     */
+    public static void write(Path path, Scene scene) throws IOException {
+        write(path, scene, null);
+    }
+
+    /**
+     * Writes a scene with its camera settings to a cache file.
+     *
+     * @param path   The path of the cache file.
+     * @param scene  The scene.
+     * @param camera The camera whose settings are cached, or null.
+     * @throws IOException              if the file cannot be written
+     * @throws IllegalArgumentException if the scene holds a geometry or a light of an unknown type
+     */
+    public static void write(Path path, Scene scene, Camera camera) throws IOException {
+        // Collect the distinct material instances into a table
+        Map<Material, Integer> materials = new IdentityHashMap<>();
+        List<Material> table = new ArrayList<>();
+        collectMaterials(scene.geometries, materials, table);
+
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(path), 1 << 16))) {
+            out.writeInt(MAGIC);
+            out.writeInt(VERSION);
+            writeString(out, scene.name);
+            writeColor(out, scene.background);
+            writeColor(out, scene.ambientLight.getIntensity());
+
+            out.writeInt(table.size());
+            for (Material material : table) {
+                writeDouble3(out, material.kD);
+                writeDouble3(out, material.kS);
+                writeDouble3(out, material.kT);
+                writeDouble3(out, material.kR);
+                out.writeInt(material.nShininess);
+            }
+
+            GeometryCodec.write(out, scene.geometries, materials::get);
+
+            out.writeInt(scene.lights.size());
+            for (LightSource light : scene.lights)
+                writeLight(out, light);
+            writeLinks(out, scene);
+            writeAccelerators(out, scene);
+
+            out.writeBoolean(camera != null);
+            if (camera != null) {
+                writePoint(out, camera.getP0());
+                writePoint(out, camera.getvTo());
+                writePoint(out, camera.getvUp());
+                out.writeDouble(camera.getWidth());
+                out.writeDouble(camera.getHeight());
+                out.writeDouble(camera.getDistance());
+                out.writeInt(camera.getNumberOfRays());
+                out.writeInt(camera.getThreadsCount());
+                out.writeLong(camera.getSeed());
+            }
+        }
+    }
+
+    /**
+     * Reads a scene from a cache file.
+     *
+     * @param path The path of the cache file.
+     * @return The scene and its camera settings.
+     * @throws IOException              if the file cannot be read
+     * @throws IllegalArgumentException if the file is not a scene cache of the current version
+     */
+    public static SceneSetup read(Path path) throws IOException {
+        ByteBuffer in;
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            in = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+        }
+        return read(in, path.toString());
+    }
+
+    /**
+     * Reads a scene from the content of a cache file.
+     *
+     * @param content The content of the cache file.
+     * @return The scene and its camera settings.
+     * @throws IllegalArgumentException if the content is not a scene cache of the current version
+     */
+    public static SceneSetup read(byte[] content) {
+        return read(ByteBuffer.wrap(content), "scene cache content");
+    }
+
+    /**
+     * Reads a scene from a buffer of the content of a cache file.
+     *
+     * @param in     The buffer of the content.
+     * @param source The name of the content in the error messages.
+     * @return The scene and its camera settings.
+     * @throws IllegalArgumentException if the content is not a scene cache of the current version
+     */
+    private static SceneSetup read(ByteBuffer in, String source) {
+        if (in.remaining() < 8 || in.getInt() != MAGIC)
+            throw new IllegalArgumentException("Not a scene cache file: " + source);
+        if (in.getInt() != VERSION)
+            throw new IllegalArgumentException("Scene cache of another version: " + source);
+
+        Scene scene = new Scene(readString(in))
+                .setBackground(readColor(in))
+                .setAmbientLight(new AmbientLight(readColor(in), 1));
+
+        Material[] materials = new Material[in.getInt()];
+        for (int i = 0; i < materials.length; ++i)
+            materials[i] = new Material()
+                    .setKD(readDouble3(in))
+                    .setKS(readDouble3(in))
+                    .setKT(readDouble3(in))
+                    .setKR(readDouble3(in))
+                    .setShininess(in.getInt());
+
+        scene.setGeometries((Geometries) GeometryCodec.read(in, materials));
+
+        int lightCount = in.getInt();
+        List<LightSource> lights = new LinkedList<>();
+        for (int i = 0; i < lightCount; ++i)
+            lights.add(readLight(in));
+        scene.setLights(lights);
+        readLinks(in, scene);
+        readAccelerators(in, scene);
+
+        Camera.Builder camera = null;
+        if (in.get() != 0)
+            camera = Camera.getBuilder()
+                    .setLocation(readPoint(in))
+                    .setDirection(readVector(in), readVector(in))
+                    .setVpSize(in.getDouble(), in.getDouble())
+                    .setVpDistance(in.getDouble())
+                    .setNumberOfRays(in.getInt())
+                    .setThreadsCount(in.getInt())
+                    .setSeed(in.getLong());
+        return new SceneSetup(scene, camera);
+    }
+
+    /**
+     * Collects the distinct material instances of the geometries, in the order of their first use.
+     *
+     * @param geometries The composite of the geometries.
+     * @param materials  The index of each collected material.
+     * @param table      The collected materials.
+     */
+    private static void collectMaterials(Geometries geometries, Map<Material, Integer> materials, List<Material> table) {
+        for (var geometry : geometries.getGeometries()) {
+            if (geometry instanceof Geometries composite)
+                collectMaterials(composite, materials, table);
+            else if (geometry instanceof geometries.Geometry shape && !materials.containsKey(shape.getMaterial())) {
+                materials.put(shape.getMaterial(), table.size());
+                table.add(shape.getMaterial());
+            }
+        }
+    }
+
+    /**
+     * Writes the light links and the shadow-caster flags of the geometries which have them.
+     * A geometry is referred to by its index in the depth-first order of the geometries, and a light by
+     * its index in the lights of the scene.
+     *
+     * @param out   The output stream.
+     * @param scene The scene.
+     * @throws IOException if the writing fails
+     */
+    private static void writeLinks(DataOutputStream out, Scene scene) throws IOException {
+        Map<LightSource, Integer> lightIndices = new IdentityHashMap<>();
+        for (LightSource light : scene.lights)
+            lightIndices.put(light, lightIndices.size());
+        List<Geometry> flat = new ArrayList<>();
+        collectGeometries(scene.geometries, flat);
+
+        List<Integer> linked = new ArrayList<>();
+        for (int i = 0; i < flat.size(); ++i)
+            if (flat.get(i).isLightLinked() || !flat.get(i).castsShadows())
+                linked.add(i);
+        out.writeInt(linked.size());
+        for (int i : linked) {
+            Geometry geometry = flat.get(i);
+            out.writeInt(i);
+            out.writeBoolean(geometry.castsShadows());
+            writeLightSet(out, geometry.getIncludedLights(), lightIndices);
+            writeLightSet(out, geometry.getExcludedLights(), lightIndices);
+        }
+    }
+
+    /**
+     * Reads the light links and the shadow-caster flags of the geometries.
+     *
+     * @param in    The input buffer.
+     * @param scene The scene, with its geometries and lights already read.
+     */
+    private static void readLinks(ByteBuffer in, Scene scene) {
+        List<Geometry> flat = new ArrayList<>();
+        collectGeometries(scene.geometries, flat);
+        int count = in.getInt();
+        for (int k = 0; k < count; ++k) {
+            Geometry geometry = flat.get(in.getInt());
+            geometry.setCastsShadows(in.get() != 0);
+            LightSource[] included = readLightSet(in, scene.lights);
+            if (included != null) geometry.includeLights(included);
+            LightSource[] excluded = readLightSet(in, scene.lights);
+            if (excluded != null) geometry.excludeLights(excluded);
+        }
+    }
+
+    /**
+     * Builds and writes the acceleration structures of the compiled scene: over all the geometries, and
+     * over the shadow casters if some geometries cast no shadows.
+     * A geometry is referred to by its index in the depth-first order of the geometries.
+     *
+     * @param out   The output stream.
+     * @param scene The scene.
+     * @throws IOException if the writing fails
+     */
+    private static void writeAccelerators(DataOutputStream out, Scene scene) throws IOException {
+        List<Geometry> flat = new ArrayList<>();
+        collectGeometries(scene.geometries, flat);
+        Map<Geometry, Integer> indices = new IdentityHashMap<>();
+        for (Geometry geometry : flat)
+            indices.put(geometry, indices.size());
+        List<Geometry> casters = new ArrayList<>();
+        for (Geometry geometry : flat)
+            if (geometry.castsShadows())
+                casters.add(geometry);
+
+        out.writeInt(casters.size() == flat.size() ? 1 : 2);
+        GeometryCodec.writeAccelerator(out, new GeometryBvh(flat), indices::get);
+        if (casters.size() != flat.size())
+            GeometryCodec.writeAccelerator(out, new GeometryBvh(casters), indices::get);
+    }
+
+    /**
+     * Reads the acceleration structures of the compiled scene, for {@link Scene#compile()}.
+     *
+     * @param in    The input buffer.
+     * @param scene The scene, with its geometries already read.
+     */
+    private static void readAccelerators(ByteBuffer in, Scene scene) {
+        List<Geometry> flat = new ArrayList<>();
+        collectGeometries(scene.geometries, flat);
+        GeometryBvh[] accelerators = new GeometryBvh[in.getInt()];
+        for (int i = 0; i < accelerators.length; ++i)
+            accelerators[i] = GeometryCodec.readAccelerator(in, flat);
+        scene.accelerators = List.of(accelerators);
+    }
+
+    /**
+     * Writes a set of lights as their indices (-1 for null).
+     *
+     * @param out          The output stream.
+     * @param lights       The lights, or null.
+     * @param lightIndices The indices of the lights of the scene.
+     * @throws IOException if the writing fails
+     */
+    private static void writeLightSet(DataOutputStream out, Set<LightSource> lights,
+                                      Map<LightSource, Integer> lightIndices) throws IOException {
+        if (lights == null) {
+            out.writeInt(-1);
+            return;
+        }
+        // Lights which are not in the scene illuminate nothing anyway
+        List<Integer> indices = new ArrayList<>();
+        for (LightSource light : lights)
+            if (lightIndices.containsKey(light))
+                indices.add(lightIndices.get(light));
+        out.writeInt(indices.size());
+        for (int index : indices)
+            out.writeInt(index);
+    }
+
+    /**
+     * Reads a set of lights written by {@link #writeLightSet}.
+     *
+     * @param in     The input buffer.
+     * @param lights The lights of the scene.
+     * @return The lights, or null.
+     */
+    private static LightSource[] readLightSet(ByteBuffer in, List<LightSource> lights) {
+        int count = in.getInt();
+        if (count < 0)
+            return null;
+        LightSource[] result = new LightSource[count];
+        for (int i = 0; i < count; ++i)
+            result[i] = lights.get(in.getInt());
+        return result;
+    }
+
+    /**
+     * Collects the geometries of a composite in depth-first order.
+     *
+     * @param geometries The composite of the geometries.
+     * @param flat       The collected geometries.
+     */
+    private static void collectGeometries(Geometries geometries, List<Geometry> flat) {
+        for (var geometry : geometries.getGeometries()) {
+            if (geometry instanceof Geometries composite)
+                collectGeometries(composite, flat);
+            else if (geometry instanceof Geometry shape)
+                flat.add(shape);
+        }
+    }
+
+    /**
+     * Writes a light source.
+     *
+     * @param out   The output stream.
+     * @param light The light source.
+     * @throws IOException              if the writing fails
+     * @throws IllegalArgumentException if the light type is unknown
+     */
+    private static void writeLight(DataOutputStream out, LightSource light) throws IOException {
+        switch (light) {
+            case DirectionalLight directional -> {
+                out.writeByte(DIRECTIONAL_LIGHT);
+                writeColor(out, directional.getIntensity());
+                writePoint(out, directional.getDirection());
+                out.writeInt(directional.getShadowMapResolution());
+                out.writeDouble(directional.getShadowMapBias());
+            }
+            case SpotLight spot -> {
+                out.writeByte(SPOT_LIGHT);
+                writePointLight(out, spot);
+                writePoint(out, spot.getDirection());
+                out.writeInt(spot.getShadowMapResolution());
+                out.writeDouble(spot.getShadowMapBias());
+                out.writeDouble(spot.getShadowMapAngle());
+            }
+            case RectangleLight rectangle -> {
+                out.writeByte(RECTANGLE_LIGHT);
+                writePointLight(out, rectangle);
+                writePoint(out, rectangle.getEdge1());
+                writePoint(out, rectangle.getEdge2());
+                out.writeInt(rectangle.getSamples());
+            }
+            case DiskLight disk -> {
+                out.writeByte(DISK_LIGHT);
+                writePointLight(out, disk);
+                writePoint(out, disk.getNormal());
+                out.writeDouble(disk.getRadius());
+                out.writeInt(disk.getSamples());
+            }
+            case PointLight point -> {
+                out.writeByte(POINT_LIGHT);
+                writePointLight(out, point);
+            }
+            default -> throw new IllegalArgumentException("Unknown light type: " + light.getClass().getName());
+        }
+    }
+
+    /**
+     * Writes the data common to point lights, spotlights and area lights.
+     *
+     * @param out   The output stream.
+     * @param light The light.
+     * @throws IOException if the writing fails
+     */
+    private static void writePointLight(DataOutputStream out, PointLight light) throws IOException {
+        writeColor(out, light.getIntensity());
+        writePoint(out, light.getPosition());
+        out.writeDouble(light.getKC());
+        out.writeDouble(light.getKL());
+        out.writeDouble(light.getKQ());
+    }
+
+    /**
+     * Reads a light source.
+     *
+     * @param in The input buffer.
+     * @return The light source.
+     */
+    private static LightSource readLight(ByteBuffer in) {
+        byte type = in.get();
+        return switch (type) {
+            case DIRECTIONAL_LIGHT -> new DirectionalLight(readColor(in), readVector(in))
+                    .setShadowMap(in.getInt()).setShadowMapBias(in.getDouble());
+            case POINT_LIGHT -> new PointLight(readColor(in), readPoint(in))
+                    .setKC(in.getDouble()).setKL(in.getDouble()).setKQ(in.getDouble());
+            case SPOT_LIGHT -> {
+                var color = readColor(in);
+                var position = readPoint(in);
+                double kC = in.getDouble(), kL = in.getDouble(), kQ = in.getDouble();
+                yield new SpotLight(color, position, readVector(in)).setKC(kC).setKL(kL).setKQ(kQ)
+                        .setShadowMap(in.getInt()).setShadowMapBias(in.getDouble()).setShadowMapAngle(in.getDouble());
+            }
+            case RECTANGLE_LIGHT -> {
+                var color = readColor(in);
+                var position = readPoint(in);
+                double kC = in.getDouble(), kL = in.getDouble(), kQ = in.getDouble();
+                yield new RectangleLight(color, position, readVector(in), readVector(in))
+                        .setSamples(in.getInt()).setKC(kC).setKL(kL).setKQ(kQ);
+            }
+            case DISK_LIGHT -> {
+                var color = readColor(in);
+                var position = readPoint(in);
+                double kC = in.getDouble(), kL = in.getDouble(), kQ = in.getDouble();
+                yield new DiskLight(color, position, readVector(in), in.getDouble())
+                        .setSamples(in.getInt()).setKC(kC).setKL(kL).setKQ(kQ);
+            }
+            default -> throw new IllegalArgumentException("Corrupted scene cache - unknown light type " + type);
+        };
+    }
+
+    /**
+     * Writes a string (null is written as an empty string).
+     *
+     * @param out    The output stream.
+     * @param string The string.
+     * @throws IOException if the writing fails
+     */
+    private static void writeString(DataOutputStream out, String string) throws IOException {
+        byte[] bytes = (string == null ? "" : string).getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    /**
+     * Reads a string.
+     *
+     * @param in The input buffer.
+     * @return The string.
+     */
+    private static String readString(ByteBuffer in) {
+        byte[] bytes = new byte[in.getInt()];
+        in.get(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+}
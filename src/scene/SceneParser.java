@@ -0,0 +1,532 @@
+package scene;
+
+import geometries.*;
+import lighting.*;
+import primitives.*;
+import renderer.Camera;
+
+import javax.xml.stream.XMLInputFactory;
+import javax.xml.stream.XMLStreamConstants;
+import javax.xml.stream.XMLStreamException;
+import javax.xml.stream.XMLStreamReader;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Streaming parser of XML scene descriptions.
+ * The description is read element by element (StAX) and never held as a document tree: every geometry,
+ * material and light is built from the attributes of its element and handed to the scene immediately,
+ * so the parser itself needs constant memory however long the description is.
+ * <p>
+ * The format - every element is optional, triads are written as 3 numbers separated by spaces or commas:
+ * <pre>{@code
+ * <scene name="demo" background="0 0 0">
+ *   <ambient color="255 255 255" ka="0.1"/>
+ *   <material id="glass" kD="0.2" kS="0.5" kT="0.6" kR="0" shininess="100"/>
+ *   <lights>
+ *     <directional intensity="100 100 100" direction="1 -1 -1"/>
+ *     <point intensity="500 300 0" position="10 10 10" kC="1" kL="0.001" kQ="0.0001"/>
+ *     <spot id="key" intensity="500 300 0" position="10 10 10" direction="-1 -1 -1" kL="0.001"
+ *           shadowMap="1024" shadowMapBias="1" shadowMapAngle="60"/>
+ *     <rectangle intensity="500 500 500" position="0 50 0" edge1="10 0 0" edge2="0 0 10" samples="64"/>
+ *     <disk intensity="500 500 500" position="0 50 0" normal="0 -1 0" radius="5" samples="64"/>
+ *   </lights>
+ *   <geometries>
+ *     <sphere center="0 0 -50" radius="20" emission="0 0 100" material="glass" lights="key"/>
+ *     <plane point="0 0 -100" normal="0 0 1" castsShadows="false" excludeLights="key"/>
+ *     <triangle vertices="-10 0 0, 10 0 0, 0 10 0"/>
+ *     <polygon vertices="0 0 0, 1 0 0, 1 1 0, 0 1 0"/>
+ *     <tube head="0 0 0" direction="0 1 0" radius="1"/>
+ *     <cylinder head="0 0 0" direction="0 1 0" radius="1" height="5"/>
+ *     <mesh file="bunny.obj"/>
+ *     <geometries> ... nested composite ... </geometries>
+ *   </geometries>
+ *   <camera location="0 0 1000" to="0 0 -1" up="0 1 0" width="200" height="200" distance="1000"
+ *           rays="1" threads="0" seed="0"/>
+ * </scene>
+ * }</pre>
+ * Materials (and the attributes kD, kS, kT and kR, which may be a single number or a triad) must be
+ * defined before they are referred to, and geometries sharing a material id share the material instance.
+ * Likewise, lights must be defined with an id before geometries refer to them in their light links
+ * (the lights attribute - the only lights which illuminate the geometry, and excludeLights).
+ * Mesh files are resolved relative to the directory of the scene description.
+ */
+public final class SceneParser {
+
+    /**
+     * The factory of the streaming readers - DTDs and external entities are not supported
+     */
+    private static final XMLInputFactory FACTORY = XMLInputFactory.newFactory();
+
+    static {
+        FACTORY.setProperty(XMLInputFactory.SUPPORT_DTD, false);
+        FACTORY.setProperty(XMLInputFactory.IS_SUPPORTING_EXTERNAL_ENTITIES, false);
+    }
+
+    /**
+     * The streaming reader of the description
+     */
+    private final XMLStreamReader reader;
+
+    /**
+     * The directory against which mesh files are resolved
+     */
+    private final Path directory;
+
+    /**
+     * The materials defined so far, by their ids
+     */
+    private final Map<String, Material> materials = new HashMap<>();
+
+    /**
+     * The lights defined so far with ids, by their ids
+     */
+    private final Map<String, LightSource> lights = new HashMap<>();
+
+    /**
+     * The composites of the currently open geometries elements (innermost first)
+     */
+    private final Deque<Geometries> composites = new ArrayDeque<>();
+
+    /**
+     * The scene being built
+     */
+    private Scene scene = new Scene(null);
+
+    /**
+     * The camera settings, or null if no camera was described
+     */
+    private Camera.Builder camera = null;
+
+    /**
+     * Constructs a parser over a streaming reader.
+     *
+     * @param reader    The reader.
+     * @param directory The directory against which mesh files are resolved.
+     */
+    private SceneParser(XMLStreamReader reader, Path directory) {
+        this.reader = reader;
+        this.directory = directory;
+    }
+
+    /**
+     * Parses a scene description file.
+     *
+     * @param path The path of the description.
+     * @return The scene and its camera settings.
+     * @throws IOException              if the description or a mesh file it refers to cannot be read
+     * @throws IllegalArgumentException if the description is malformed
+     */
+    public static SceneSetup parse(Path path) throws IOException {
+        Path directory = path.toAbsolutePath().getParent();
+        try (InputStream in = Files.newInputStream(path)) {
+            return parse(in, directory);
+        }
+    }
+
+    /**
+     * Parses a scene description from a stream.
+     *
+     * @param in        The stream of the description (not closed by the parser).
+     * @param directory The directory against which mesh files are resolved.
+     * @return The scene and its camera settings.
+     * @throws IOException              if a mesh file the description refers to cannot be read
+     * @throws IllegalArgumentException if the description is malformed
+     */
+    public static SceneSetup parse(InputStream in, Path directory) throws IOException {
+        XMLStreamReader reader;
+        try {
+            reader = FACTORY.createXMLStreamReader(in);
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Malformed scene description: " + e.getMessage(), e);
+        }
+        SceneParser parser = new SceneParser(reader, directory);
+        try {
+            parser.parse();
+        } catch (XMLStreamException e) {
+            throw new IllegalArgumentException("Malformed scene description: " + e.getMessage(), e);
+        } catch (IllegalArgumentException e) {
+            throw new IllegalArgumentException(
+                    "Scene description line " + reader.getLocation().getLineNumber() + ": " + e.getMessage(), e);
+        } finally {
+            try {
+                reader.close();
+            } catch (XMLStreamException ignored) {
+                // nothing is left to release
+            }
+        }
+        return new SceneSetup(parser.scene, parser.camera);
+    }
+
+    /**
+     * Reads the whole description, handling each element as it starts.
+     *
+     * @throws IOException        if a mesh file cannot be read
+     * @throws XMLStreamException if the XML is malformed
+     */
+    private void parse() throws IOException, XMLStreamException {
+        while (reader.hasNext()) {
+            int event = reader.next();
+            if (event == XMLStreamConstants.START_ELEMENT)
+                startElement(reader.getLocalName());
+            else if (event == XMLStreamConstants.END_ELEMENT && reader.getLocalName().equals("geometries"))
+                composites.pop();
+        }
+    }
+
+    /**
+     * Handles the start of an element.
+     *
+     * @param element The name of the element.
+     * @throws IOException if a mesh file cannot be read
+     */
+    private void startElement(String element) throws IOException {
+        switch (element) {
+            case "scene" -> {
+                scene.name = optional("name");
+                if (optional("background") != null)
+                    scene.setBackground(color("background"));
+            }
+            case "ambient" -> {
+                Double3 ka = optional("ka") == null ? Double3.ONE : coefficient("ka");
+                scene.setAmbientLight(new AmbientLight(color("color"), ka));
+            }
+            case "material" -> materials.put(required("id"), material());
+            case "geometries" -> {
+                // The outermost composite is the one of the scene
+                Geometries composite = composites.isEmpty() ? scene.geometries : new Geometries();
+                if (!composites.isEmpty())
+                    composites.peek().add(composite);
+                composites.push(composite);
+            }
+            case "lights" -> {
+                // a plain container
+            }
+            case "directional" ->
+                    addLight(shadowMap(new DirectionalLight(color("intensity"), vector("direction"))));
+            case "point" -> addLight(attenuation(new PointLight(color("intensity"), point("position"))));
+            case "spot" -> addLight(shadowMap((SpotLight)
+                    attenuation(new SpotLight(color("intensity"), point("position"), vector("direction")))));
+            case "rectangle" -> addLight(samples(attenuation(
+                    new RectangleLight(color("intensity"), point("position"), vector("edge1"), vector("edge2")))));
+            case "disk" -> addLight(samples(attenuation(
+                    new DiskLight(color("intensity"), point("position"), vector("normal"), number("radius")))));
+            case "camera" -> camera = camera();
+            default -> addGeometry(geometry(element));
+        }
+    }
+
+    /**
+     * Builds a geometry from the attributes of its element.
+     *
+     * @param element The name of the element.
+     * @return The geometry with its emission and material.
+     * @throws IOException if a mesh file cannot be read
+     */
+    private Geometry geometry(String element) throws IOException {
+        Geometry geometry = switch (element) {
+            case "sphere" -> new Sphere(point("center"), number("radius"));
+            case "plane" -> new Plane(point("point"), vector("normal"));
+            case "triangle" -> {
+                Point[] vertices = points("vertices");
+                if (vertices.length != 3)
+                    throw new IllegalArgumentException("A triangle must have 3 vertices");
+                yield new Triangle(vertices[0], vertices[1], vertices[2]);
+            }
+            case "polygon" -> new Polygon(points("vertices"));
+            case "tube" -> new Tube(new Ray(point("head"), vector("direction")), number("radius"));
+            case "cylinder" ->
+                    new Cylinder(new Ray(point("head"), vector("direction")), number("radius"), number("height"));
+            case "mesh" -> MeshLoader.load(directory.resolve(required("file")));
+            default -> throw new IllegalArgumentException("Unknown element <" + element + ">");
+        };
+        if (optional("emission") != null)
+            geometry.setEmission(color("emission"));
+        String id = optional("material");
+        if (id != null) {
+            Material material = materials.get(id);
+            if (material == null)
+                throw new IllegalArgumentException("Undefined material '" + id + "'");
+            geometry.setMaterial(material);
+        }
+        if (optional("castsShadows") != null)
+            geometry.setCastsShadows(flag("castsShadows"));
+        if (optional("lights") != null)
+            geometry.includeLights(lightReferences("lights"));
+        if (optional("excludeLights") != null)
+            geometry.excludeLights(lightReferences("excludeLights"));
+        return geometry;
+    }
+
+    /**
+     * Adds a light to the scene, and keeps it by its id if it has one.
+     *
+     * @param light The light.
+     */
+    private void addLight(LightSource light) {
+        String id = optional("id");
+        if (id != null)
+            lights.put(id, light);
+        scene.lights.add(light);
+    }
+
+    /**
+     * Parses an attribute holding the ids of lights defined earlier.
+     *
+     * @param name The name of the attribute.
+     * @return The lights.
+     */
+    private LightSource[] lightReferences(String name) {
+        String[] ids = required(name).trim().split("[\\s,]+");
+        LightSource[] result = new LightSource[ids.length];
+        for (int i = 0; i < ids.length; ++i) {
+            result[i] = lights.get(ids[i]);
+            if (result[i] == null)
+                throw new IllegalArgumentException("Undefined light '" + ids[i] + "'");
+        }
+        return result;
+    }
+
+    /**
+     * Parses an attribute holding true or false.
+     *
+     * @param name The name of the attribute.
+     * @return The flag.
+     */
+    private boolean flag(String name) {
+        return switch (required(name).trim()) {
+            case "true" -> true;
+            case "false" -> false;
+            default -> throw new IllegalArgumentException("Attribute '" + name + "' must be true or false");
+        };
+    }
+
+    /**
+     * Adds a geometry to the innermost open composite (or directly to the scene).
+     *
+     * @param geometry The geometry.
+     */
+    private void addGeometry(Geometry geometry) {
+        (composites.isEmpty() ? scene.geometries : composites.peek()).add(geometry);
+    }
+
+    /**
+     * Builds a material from the attributes of its element.
+     *
+     * @return The material.
+     */
+    private Material material() {
+        Material material = new Material();
+        if (optional("kD") != null) material.setKD(coefficient("kD"));
+        if (optional("kS") != null) material.setKS(coefficient("kS"));
+        if (optional("kT") != null) material.setKT(coefficient("kT"));
+        if (optional("kR") != null) material.setKR(coefficient("kR"));
+        if (optional("shininess") != null) material.setShininess((int) number("shininess"));
+        return material;
+    }
+
+    /**
+     * Sets the attenuation factors of a point light (or a spotlight) from the attributes of its element.
+     *
+     * @param light The light.
+     * @return The light.
+     */
+    private PointLight attenuation(PointLight light) {
+        if (optional("kC") != null) light.setKC(number("kC"));
+        if (optional("kL") != null) light.setKL(number("kL"));
+        if (optional("kQ") != null) light.setKQ(number("kQ"));
+        return light;
+    }
+
+    /**
+     * Sets the shadow map of a directional light from the attributes of its element.
+     *
+     * @param light The light.
+     * @return The light.
+     */
+    private DirectionalLight shadowMap(DirectionalLight light) {
+        if (optional("shadowMap") != null) light.setShadowMap((int) number("shadowMap"));
+        if (optional("shadowMapBias") != null) light.setShadowMapBias(number("shadowMapBias"));
+        return light;
+    }
+
+    /**
+     * Sets the shadow map of a spotlight from the attributes of its element.
+     *
+     * @param light The light.
+     * @return The light.
+     */
+    private SpotLight shadowMap(SpotLight light) {
+        if (optional("shadowMap") != null) light.setShadowMap((int) number("shadowMap"));
+        if (optional("shadowMapBias") != null) light.setShadowMapBias(number("shadowMapBias"));
+        if (optional("shadowMapAngle") != null) light.setShadowMapAngle(number("shadowMapAngle"));
+        return light;
+    }
+
+    /**
+     * Sets the amount of shadow rays of an area light from the attributes of its element.
+     *
+     * @param light The light.
+     * @return The light.
+     */
+    private PointLight samples(PointLight light) {
+        if (optional("samples") != null) ((AreaLight) light).setSamples((int) number("samples"));
+        return light;
+    }
+
+    /**
+     * Builds the camera settings from the attributes of the camera element.
+     *
+     * @return The camera builder.
+     */
+    private Camera.Builder camera() {
+        Camera.Builder builder = Camera.getBuilder()
+                .setLocation(point("location"))
+                .setDirection(vector("to"), vector("up"))
+                .setVpSize(number("width"), number("height"))
+                .setVpDistance(number("distance"));
+        if (optional("rays") != null) builder.setNumberOfRays((int) number("rays"));
+        if (optional("threads") != null) builder.setThreadsCount((int) number("threads"));
+        if (optional("seed") != null) builder.setSeed((long) number("seed"));
+        return builder;
+    }
+
+    /**
+     * Returns an optional attribute of the current element.
+     *
+     * @param name The name of the attribute.
+     * @return The attribute value, or null if it is missing.
+     */
+    private String optional(String name) {
+        return reader.getAttributeValue(null, name);
+    }
+
+    /**
+     * Returns a required attribute of the current element.
+     *
+     * @param name The name of the attribute.
+     * @return The attribute value.
+     * @throws IllegalArgumentException if the attribute is missing
+     */
+    private String required(String name) {
+        String value = optional(name);
+        if (value == null)
+            throw new IllegalArgumentException("Missing attribute '" + name + "' in <" + reader.getLocalName() + ">");
+        return value;
+    }
+
+    /**
+     * Parses an attribute holding a list of numbers separated by spaces or commas.
+     *
+     * @param name The name of the attribute.
+     * @return The numbers.
+     * @throws IllegalArgumentException if the attribute is missing or holds something other than numbers
+     */
+    private double[] numbers(String name) {
+        String[] tokens = required(name).trim().split("[\\s,]+");
+        double[] values = new double[tokens.length];
+        try {
+            for (int i = 0; i < tokens.length; ++i)
+                values[i] = Double.parseDouble(tokens[i]);
+        } catch (NumberFormatException e) {
+            throw new IllegalArgumentException("Attribute '" + name + "' must hold numbers", e);
+        }
+        return values;
+    }
+
+    /**
+     * Parses an attribute holding a single number.
+     *
+     * @param name The name of the attribute.
+     * @return The number.
+     */
+    private double number(String name) {
+        double[] values = numbers(name);
+        if (values.length != 1)
+            throw new IllegalArgumentException("Attribute '" + name + "' must hold a single number");
+        return values[0];
+    }
+
+    /**
+     * Parses an attribute holding a triad of numbers.
+     *
+     * @param name The name of the attribute.
+     * @return The triad.
+     */
+    private Double3 triad(String name) {
+        double[] values = numbers(name);
+        if (values.length != 3)
+            throw new IllegalArgumentException("Attribute '" + name + "' must hold 3 numbers");
+        return new Double3(values[0], values[1], values[2]);
+    }
+
+    /**
+     * Parses an attribute holding a coefficient - either a single number or a triad.
+     *
+     * @param name The name of the attribute.
+     * @return The coefficient triad.
+     */
+    private Double3 coefficient(String name) {
+        double[] values = numbers(name);
+        return switch (values.length) {
+            case 1 -> new Double3(values[0]);
+            case 3 -> new Double3(values[0], values[1], values[2]);
+            default -> throw new IllegalArgumentException("Attribute '" + name + "' must hold 1 or 3 numbers");
+        };
+    }
+
+    /**
+     * Parses an attribute holding a color.
+     *
+     * @param name The name of the attribute.
+     * @return The color.
+     */
+    private Color color(String name) {
+        Double3 rgb = triad(name);
+        return new Color(rgb.getD1(), rgb.getD2(), rgb.getD3());
+    }
+
+    /**
+     * Parses an attribute holding a point.
+     *
+     * @param name The name of the attribute.
+     * @return The point.
+     */
+    private Point point(String name) {
+        Double3 xyz = triad(name);
+        return new Point(xyz.getD1(), xyz.getD2(), xyz.getD3());
+    }
+
+    /**
+     * Parses an attribute holding a vector.
+     *
+     * @param name The name of the attribute.
+     * @return The vector.
+     */
+    private Vector vector(String name) {
+        Double3 xyz = triad(name);
+        return new Vector(xyz.getD1(), xyz.getD2(), xyz.getD3());
+    }
+
+    /**
+     * Parses an attribute holding a list of points.
+     *
+     * @param name The name of the attribute.
+     * @return The points.
+     */
+    private Point[] points(String name) {
+        double[] values = numbers(name);
+        if (values.length % 3 != 0)
+            throw new IllegalArgumentException("Attribute '" + name + "' must hold triads of numbers");
+        Point[] points = new Point[values.length / 3];
+        for (int i = 0; i < points.length; ++i)
+            points[i] = new Point(values[3 * i], values[3 * i + 1], values[3 * i + 2]);
+        return points;
+    }
+}
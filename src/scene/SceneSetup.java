@@ -0,0 +1,13 @@
+package scene;
+
+import renderer.Camera;
+
+/**
+ * A scene restored from an external description together with the camera settings described with it.
+ *
+ * @param scene  The scene.
+ * @param camera A camera builder with the described settings (to be completed with an image writer and a
+ *               ray tracer), or null if no camera was described.
+ */
+public record SceneSetup(Scene scene, Camera.Builder camera) {
+}
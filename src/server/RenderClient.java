@@ -0,0 +1,62 @@
+package server;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.Socket;
+
+/**
+ * Connection to a local {@link RenderServer}, sending it jobs one after the other.
+ * A client is not thread-safe - each thread needs its own connection.
+ */
+public final class RenderClient implements Closeable {
+
+    private final Socket socket;
+    private final DataInputStream in;
+    private final DataOutputStream out;
+
+    /**
+     * Connects to a server on the loopback address.
+     *
+     * @param port The port of the server.
+     * @throws IOException if the server cannot be reached
+     */
+    public RenderClient(int port) throws IOException {
+        socket = new Socket(InetAddress.getLoopbackAddress(), port);
+        in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+        out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+        out.writeInt(RenderServer.MAGIC);
+    }
+
+    /**
+     * Renders a job on the server.
+     *
+     * @param job The job.
+     * @return The png encoded image.
+     * @throws IOException if the connection fails, or the server fails to render the job - the connection
+     *                     remains usable after a failed job
+     */
+    public byte[] render(RenderJob job) throws IOException {
+        job.write(out);
+        out.flush();
+        if (in.readByte() != RenderServer.OK)
+            throw new IOException("The server failed to render the job: " + in.readUTF());
+        byte[] png = new byte[in.readInt()];
+        in.readFully(png);
+        return png;
+    }
+
+    /**
+     * Closes the connection.
+     *
+     * @throws IOException if the connection cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        socket.close();
+    }
+}
@@ -0,0 +1,83 @@
+package server;
+
+import primitives.Point;
+import primitives.Vector;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+
+import static geometries.GeometryCodec.writePoint;
+
+/**
+ * A rendering job for a {@link RenderServer}: a scene file on the machine of the server, a viewpoint and the
+ * quality settings of the camera.
+ *
+ * @param sceneFile    The path of the scene - a description (.xml) for {@link scene.SceneParser} or a
+ *                     {@link scene.SceneCache} file - on the machine of the server.
+ * @param location     The location of the camera.
+ * @param to           The "forward" direction of the camera.
+ * @param up           The "up" direction of the camera (orthogonal to the forward direction).
+ * @param width        The width of the view plane.
+ * @param height       The height of the view plane.
+ * @param distance     The distance from the camera to the view plane.
+ * @param nX           The width of the image in pixels.
+ * @param nY           The height of the image in pixels.
+ * @param numberOfRays The number of rays of each side of a pixel for anti-aliasing (1 for none).
+ * @param threads      The number of rendering threads (0 renders in the thread of the job).
+ * @param seed         The seed of the random numbers of the rendering.
+ */
+public record RenderJob(String sceneFile, Point location, Vector to, Vector up,
+                        double width, double height, double distance,
+                        int nX, int nY, int numberOfRays, int threads, long seed) {
+
+    /**
+     * Validates the job.
+     *
+     * @throws IllegalArgumentException if the scene file or the viewpoint is missing, or the image is empty
+     */
+    public RenderJob {
+        if (sceneFile == null || location == null || to == null || up == null)
+            throw new IllegalArgumentException("A job needs a scene file and a viewpoint");
+        if (nX <= 0 || nY <= 0)
+            throw new IllegalArgumentException("The image must have pixels");
+    }
+
+    /**
+     * Writes the job to a stream.
+     *
+     * @param out The stream.
+     * @throws IOException if the stream cannot be written
+     */
+    void write(DataOutputStream out) throws IOException {
+        out.writeUTF(sceneFile);
+        writePoint(out, location);
+        writePoint(out, to);
+        writePoint(out, up);
+        out.writeDouble(width);
+        out.writeDouble(height);
+        out.writeDouble(distance);
+        out.writeInt(nX);
+        out.writeInt(nY);
+        out.writeInt(numberOfRays);
+        out.writeInt(threads);
+        out.writeLong(seed);
+    }
+
+    /**
+     * Reads a job from a stream.
+     *
+     * @param in The stream.
+     * @return The job.
+     * @throws IOException              if the stream cannot be read
+     * @throws IllegalArgumentException if the job is invalid
+     */
+    static RenderJob read(DataInputStream in) throws IOException {
+        return new RenderJob(in.readUTF(),
+                new Point(in.readDouble(), in.readDouble(), in.readDouble()),
+                new Vector(in.readDouble(), in.readDouble(), in.readDouble()),
+                new Vector(in.readDouble(), in.readDouble(), in.readDouble()),
+                in.readDouble(), in.readDouble(), in.readDouble(),
+                in.readInt(), in.readInt(), in.readInt(), in.readInt(), in.readLong());
+    }
+}
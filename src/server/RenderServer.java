@@ -0,0 +1,265 @@
+package server;
+
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.SimpleRayTracer;
+import scene.CompiledScene;
+import scene.SceneCache;
+import scene.SceneParser;
+import scene.SceneSetup;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Long-running rendering service on a local socket: it renders {@link RenderJob}s sent by
+ * {@link RenderClient}s and sends back the png encoded images.
+ * The compiled scenes are kept in an LRU cache keyed by the SHA-256 hash of the content of the scene file,
+ * so further jobs on the same scene - from other viewpoints, or with other quality settings - skip the
+ * parsing, the compilation and the acceleration structures, and run on a warm JVM.
+ * A changed scene file gets another hash and is compiled again (the mesh files referred to by a scene
+ * description are not hashed - a changed mesh needs a changed description or a new server).
+ * <p>
+ * The protocol over a connection: the client sends {@link #MAGIC} once, and then any number of jobs; the
+ * server answers each job in order by {@link #OK} followed by the length and the bytes of the image, or by
+ * {@link #FAILED} followed by the reason. The connections are served concurrently.
+ */
+public final class RenderServer implements Closeable {
+
+    /**
+     * The signature which starts each connection
+     */
+    static final int MAGIC = 0x5254524A; // "RTRJ"
+
+    /**
+     * The answer to a rendered job
+     */
+    static final byte OK = 0;
+
+    /**
+     * The answer to a failed job
+     */
+    static final byte FAILED = 1;
+
+    private final ServerSocket serverSocket;
+    private final SceneLruCache cache;
+    /**
+     * The threads of the connections
+     */
+    private final ExecutorService connections = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "render-connection");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * logger for reporting failed jobs and connections
+     */
+    private final Logger logger = Logger.getLogger("RenderServer");
+
+    /**
+     * Constructs a server listening on the loopback address - only local clients can connect.
+     * The server accepts connections only once it is started.
+     *
+     * @param port      The port, or 0 for any free port.
+     * @param cacheSize The maximal amount of compiled scenes kept in the cache.
+     * @throws IOException              if the port cannot be bound
+     * @throws IllegalArgumentException if the cache size is not positive
+     */
+    public RenderServer(int port, int cacheSize) throws IOException {
+        cache = new SceneLruCache(cacheSize);
+        serverSocket = new ServerSocket(port, 50, InetAddress.getLoopbackAddress());
+    }
+
+    /**
+     * Starts accepting connections, in a new thread.
+     *
+     * @return The server itself.
+     */
+    public RenderServer start() {
+        new Thread(this::accept, "render-server").start();
+        return this;
+    }
+
+    /**
+     * Returns the port of the server.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the amount of jobs whose scene was found in the cache.
+     *
+     * @return The cache hits.
+     */
+    public long getCacheHits() {
+        return cache.getHits();
+    }
+
+    /**
+     * Returns the amount of jobs whose scene was compiled.
+     *
+     * @return The cache misses.
+     */
+    public long getCacheMisses() {
+        return cache.getMisses();
+    }
+
+    /**
+     * Returns the amount of compiled scenes in the cache.
+     *
+     * @return The amount of scenes.
+     */
+    public int getCachedScenes() {
+        return cache.size();
+    }
+
+    /**
+     * Renders a job in the calling thread, through the cache of the server.
+     *
+     * @param job The job.
+     * @return The png encoded image.
+     * @throws IOException              if the scene file cannot be read
+     * @throws IllegalArgumentException if the scene file or the camera settings are invalid
+     */
+    public byte[] render(RenderJob job) throws IOException {
+        CompiledScene scene = compiledScene(Path.of(job.sceneFile()));
+        ImageWriter imageWriter = new ImageWriter(scene.name, job.nX(), job.nY());
+        Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setImageWriter(imageWriter)
+                .setLocation(job.location())
+                .setDirection(job.to(), job.up())
+                .setVpSize(job.width(), job.height())
+                .setVpDistance(job.distance())
+                .setNumberOfRays(job.numberOfRays())
+                .setThreadsCount(job.threads())
+                .setSeed(job.seed())
+                .build()
+                .renderImage();
+        ByteArrayOutputStream png = new ByteArrayOutputStream();
+        imageWriter.writeTo(png);
+        return png.toByteArray();
+    }
+
+    /**
+     * Returns the compiled scene of a scene file, from the cache or compiled (and cached).
+     * The file is read once: the scene is built from the same content as its hash, even if the file is
+     * changed meanwhile. Two jobs missing the same scene at once both compile it.
+     *
+     * @param path The scene file.
+     * @return The compiled scene.
+     * @throws IOException              if the scene file cannot be read
+     * @throws IllegalArgumentException if the scene file is invalid
+     */
+    private CompiledScene compiledScene(Path path) throws IOException {
+        byte[] content = Files.readAllBytes(path);
+        String key = SceneLruCache.key(content);
+        CompiledScene scene = cache.get(key);
+        if (scene == null) {
+            SceneSetup setup = path.toString().endsWith(".xml")
+                    ? SceneParser.parse(new ByteArrayInputStream(content), path.toAbsolutePath().getParent())
+                    : SceneCache.read(content);
+            scene = setup.scene().compile();
+            cache.put(key, scene);
+        }
+        return scene;
+    }
+
+    /**
+     * Accepts connections until the server is closed.
+     */
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed())
+                    logger.log(Level.WARNING, "Failed to accept a connection", e);
+            }
+        }
+    }
+
+    /**
+     * Serves the jobs of a connection until the client closes it.
+     *
+     * @param socket The socket of the connection.
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            if (in.readInt() != MAGIC) {
+                logger.warning("Rejected a connection of another protocol");
+                return;
+            }
+            while (true) {
+                RenderJob job;
+                try {
+                    job = RenderJob.read(in);
+                } catch (EOFException e) {
+                    return; // the client closed the connection
+                }
+                byte[] png;
+                try {
+                    png = render(job);
+                } catch (IOException | RuntimeException e) {
+                    logger.log(Level.WARNING, "Failed job on " + job.sceneFile(), e);
+                    out.writeByte(FAILED);
+                    out.writeUTF(String.valueOf(e.getMessage()));
+                    out.flush();
+                    continue;
+                }
+                out.writeByte(OK);
+                out.writeInt(png.length);
+                out.write(png);
+                out.flush();
+            }
+        } catch (IOException e) {
+            logger.log(Level.WARNING, "Connection failed", e);
+        }
+    }
+
+    /**
+     * Stops accepting connections. The open connections are served until their clients close them.
+     *
+     * @throws IOException if the server socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdown();
+    }
+
+    /**
+     * Runs a server until the process is stopped.
+     *
+     * @param args The port (5784 by default) and the cache size (8 scenes by default).
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 5784;
+        int cacheSize = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        RenderServer server = new RenderServer(port, cacheSize).start();
+        System.out.println("Render server listening on port " + server.getPort());
+    }
+}
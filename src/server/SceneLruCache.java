@@ -0,0 +1,103 @@
+package server;
+
+import scene.CompiledScene;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.HexFormat;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * Bounded cache of compiled scenes keyed by the hash of the content of their files, evicting the least
+ * recently used scene when full. Thread-safe.
+ */
+final class SceneLruCache {
+
+    /**
+     * The scenes, from the least to the most recently used
+     */
+    private final LinkedHashMap<String, CompiledScene> scenes;
+    private long hits, misses;
+
+    /**
+     * Constructs an empty cache.
+     *
+     * @param capacity The maximal amount of scenes.
+     * @throws IllegalArgumentException if the capacity is not positive
+     */
+    SceneLruCache(int capacity) {
+        if (capacity < 1)
+            throw new IllegalArgumentException("The cache must hold at least one scene");
+        scenes = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<String, CompiledScene> eldest) {
+                return size() > capacity;
+            }
+        };
+    }
+
+    /**
+     * Returns the key of the content of a scene file.
+     *
+     * @param content The content.
+     * @return The SHA-256 hash, in hexadecimal.
+     */
+    static String key(byte[] content) {
+        try {
+            return HexFormat.of().formatHex(MessageDigest.getInstance("SHA-256").digest(content));
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-256 is not available", e); // every JVM has SHA-256
+        }
+    }
+
+    /**
+     * Returns a cached scene, and makes it the most recently used.
+     *
+     * @param key The hash of the content of the scene file.
+     * @return The compiled scene, or null if it is not cached.
+     */
+    synchronized CompiledScene get(String key) {
+        CompiledScene scene = scenes.get(key);
+        if (scene == null) ++misses;
+        else ++hits;
+        return scene;
+    }
+
+    /**
+     * Caches a scene, evicting the least recently used scene if the cache is full.
+     *
+     * @param key   The hash of the content of the scene file.
+     * @param scene The compiled scene.
+     */
+    synchronized void put(String key, CompiledScene scene) {
+        scenes.put(key, scene);
+    }
+
+    /**
+     * Returns the amount of cached scenes.
+     *
+     * @return The size of the cache.
+     */
+    synchronized int size() {
+        return scenes.size();
+    }
+
+    /**
+     * Returns the amount of lookups which found their scene.
+     *
+     * @return The hits.
+     */
+    synchronized long getHits() {
+        return hits;
+    }
+
+    /**
+     * Returns the amount of lookups which did not find their scene.
+     *
+     * @return The misses.
+     */
+    synchronized long getMisses() {
+        return misses;
+    }
+}
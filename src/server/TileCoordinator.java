@@ -0,0 +1,448 @@
+package server;
+
+import primitives.Color;
+import renderer.ImageWriter;
+import scene.SceneCache;
+import scene.SceneParser;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.LinkedList;
+import java.util.List;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Coordinator of a distributed rendering: it splits the image into tiles, hands them out to
+ * {@link TileWorker}s over TCP and assembles their pixels into an image writer.
+ * <p>
+ * Each connection to a worker renders one tile at a time and asks for the next one when it is done, so the
+ * faster workers render more tiles. Once no tile is left to hand out, an idle connection re-issues a tile
+ * which is still running elsewhere (speculative re-issue), so a straggling or hung worker does not hold the
+ * image back: the first copy of a tile to complete is kept and the others are ignored. Only a tile which has
+ * run {@link #STRAGGLER_FACTOR} times longer than the median tile (and at least {@link #MIN_STRAGGLER_TIME})
+ * is re-issued, so the tail of a rendering is not rendered twice, and a tile runs in at most
+ * {@link #MAX_COPIES} connections at once.
+ * A failed connection - or one which does not answer within the read timeout - returns its tile to the
+ * others.
+ * The pixels are exactly those of a local rendering with the same seed.
+ */
+public final class TileCoordinator {
+
+    /**
+     * The maximal amount of connections which run the same tile at once
+     */
+    private static final int MAX_COPIES = 2;
+
+    /**
+     * The multiple of the median tile time after which a running tile is re-issued
+     */
+    private static final int STRAGGLER_FACTOR = 3;
+
+    /**
+     * The minimal time after which a running tile is re-issued, in nanoseconds - below it the tile times
+     * are dominated by noise
+     */
+    private static final long MIN_STRAGGLER_TIME = 250_000_000;
+
+    /**
+     * The time for connecting to a worker, in milliseconds
+     */
+    private static final int CONNECT_TIMEOUT = 5000;
+
+    private final List<InetSocketAddress> workers;
+    private final int connectionsPerWorker;
+    private int tileSize = 32;
+    /**
+     * The time for an answer of a worker, in milliseconds (0 for no limit)
+     */
+    private int readTimeout = 300_000;
+    private int reissuedTiles = 0;
+    /**
+     * logger for reporting failed workers
+     */
+    private final Logger logger = Logger.getLogger("TileCoordinator");
+
+    /**
+     * Constructs a coordinator over workers.
+     *
+     * @param workers              The addresses of the workers.
+     * @param connectionsPerWorker The amount of connections to each worker - the amount of tiles which a
+     *                             worker renders at once (typically its amount of cores).
+     * @throws IllegalArgumentException if there is no worker, or no connection per worker
+     */
+    public TileCoordinator(List<InetSocketAddress> workers, int connectionsPerWorker) {
+        if (workers.isEmpty() || connectionsPerWorker < 1)
+            throw new IllegalArgumentException("A distributed rendering needs at least one worker connection");
+        this.workers = List.copyOf(workers);
+        this.connectionsPerWorker = connectionsPerWorker;
+    }
+
+    /**
+     * Sets the size of the side of the tiles (32 pixels by default).
+     *
+     * @param tileSize The size in pixels.
+     * @return The coordinator itself.
+     * @throws IllegalArgumentException if the size is not positive
+     */
+    public TileCoordinator setTileSize(int tileSize) {
+        if (tileSize < 1)
+            throw new IllegalArgumentException("The tile size must be positive");
+        this.tileSize = tileSize;
+        return this;
+    }
+
+    /**
+     * Sets the time for an answer of a worker - the loading of the scene or the pixels of a tile (5 minutes
+     * by default). A worker which does not answer in time is dropped, and its tile returns to the others.
+     *
+     * @param readTimeout The time in milliseconds, or 0 for no limit.
+     * @return The coordinator itself.
+     * @throws IllegalArgumentException if the time is negative
+     */
+    public TileCoordinator setReadTimeout(int readTimeout) {
+        if (readTimeout < 0)
+            throw new IllegalArgumentException("The read timeout must not be negative");
+        this.readTimeout = readTimeout;
+        return this;
+    }
+
+    /**
+     * Returns the amount of tiles re-issued to another connection while they were running, over all the
+     * renderings of the coordinator.
+     *
+     * @return The amount of speculative re-issues.
+     */
+    public synchronized int getReissuedTiles() {
+        return reissuedTiles;
+    }
+
+    /**
+     * Renders a job on the workers into an image writer.
+     * The scene file of the job is read by the coordinator and sent to the workers, so the workers need no
+     * access to it: a scene description (.xml) is serialized first, a {@link SceneCache} file is sent as is.
+     *
+     * @param job         The job - its threads are ignored.
+     * @param imageWriter The image writer receiving the pixels, of the size of the image of the job.
+     * @throws IOException              if the scene file cannot be read, or all the workers failed before
+     *                                  the image was complete
+     * @throws IllegalArgumentException if the image writer does not match the job
+     */
+    public void render(RenderJob job, ImageWriter imageWriter) throws IOException {
+        if (imageWriter.getNx() != job.nX() || imageWriter.getNy() != job.nY())
+            throw new IllegalArgumentException("The image writer does not match the size of the image");
+        byte[] scene = serializedScene(Path.of(job.sceneFile()));
+
+        Schedule schedule = new Schedule(job.nX(), job.nY(), workers.size() * connectionsPerWorker);
+        List<Socket> sockets = Collections.synchronizedList(new ArrayList<>());
+        var threads = new LinkedList<Thread>();
+        for (InetSocketAddress worker : workers)
+            for (int c = 0; c < connectionsPerWorker; ++c) {
+                Socket socket = new Socket();
+                sockets.add(socket);
+                threads.add(new Thread(() -> serve(worker, socket, scene, job, schedule, imageWriter)));
+            }
+        for (var thread : threads) thread.start();
+
+        boolean complete = schedule.awaitEnd();
+        // closing the sockets releases the connections still waiting for a straggling copy of a tile
+        synchronized (sockets) {
+            for (Socket socket : sockets) {
+                try {
+                    socket.close();
+                } catch (IOException ignore) {
+                }
+            }
+        }
+        try {
+            for (var thread : threads)
+                thread.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (this) {
+            reissuedTiles += schedule.reissued;
+        }
+        if (!complete)
+            throw new IOException("All the workers failed before the image was complete");
+    }
+
+    /**
+     * Reads a scene file as a serialized scene.
+     *
+     * @param path The scene file - a scene description or a scene cache.
+     * @return The serialized scene, in the scene cache format.
+     * @throws IOException if the file cannot be read
+     */
+    private static byte[] serializedScene(Path path) throws IOException {
+        if (!path.toString().endsWith(".xml"))
+            return Files.readAllBytes(path);
+        Path file = Files.createTempFile("scene", ".rtsc");
+        try {
+            SceneCache.write(file, SceneParser.parse(path).scene());
+            return Files.readAllBytes(file);
+        } finally {
+            Files.deleteIfExists(file);
+        }
+    }
+
+    /**
+     * Renders tiles on a connection to a worker until the image is complete or the connection fails.
+     *
+     * @param worker      The address of the worker.
+     * @param socket      The unconnected socket of the connection.
+     * @param scene       The serialized scene.
+     * @param job         The job.
+     * @param schedule    The schedule of the tiles.
+     * @param imageWriter The image writer receiving the pixels.
+     */
+    private void serve(InetSocketAddress worker, Socket socket, byte[] scene, RenderJob job, Schedule schedule,
+                       ImageWriter imageWriter) {
+        try (socket) {
+            socket.connect(worker, CONNECT_TIMEOUT);
+            socket.setSoTimeout(readTimeout);
+            DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+            DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()));
+            out.writeInt(TileWorker.MAGIC);
+            out.writeInt(scene.length);
+            out.write(scene);
+            job.write(out);
+            out.flush();
+            if (in.readByte() != RenderServer.OK)
+                throw new IOException("The worker failed to load the scene: " + in.readUTF());
+
+            int tile;
+            while ((tile = schedule.next()) >= 0) {
+                int x = schedule.x(tile), y = schedule.y(tile);
+                int width = schedule.width(tile), height = schedule.height(tile);
+                int[] pixels = new int[width * height];
+                try {
+                    out.writeInt(x);
+                    out.writeInt(y);
+                    out.writeInt(width);
+                    out.writeInt(height);
+                    out.flush();
+                    for (int p = 0; p < pixels.length; ++p)
+                        pixels[p] = in.readInt();
+                } catch (IOException e) {
+                    schedule.fail(tile);
+                    throw e;
+                }
+                if (schedule.complete(tile))
+                    for (int i = 0; i < height; ++i)
+                        for (int j = 0; j < width; ++j)
+                            imageWriter.writePixel(x + j, y + i, new Color(new java.awt.Color(pixels[i * width + j])));
+            }
+        } catch (IOException e) {
+            if (!schedule.isComplete())
+                logger.log(Level.WARNING, "Worker " + worker + " failed", e);
+        } finally {
+            schedule.leave();
+        }
+    }
+
+    /**
+     * The tiles of a rendering and their state, shared by the connections.
+     */
+    private final class Schedule {
+        private final int nX, nY, columns, count;
+        /**
+         * The tiles not handed out yet (or returned by failed connections)
+         */
+        private final Deque<Integer> pending = new ArrayDeque<>();
+        /**
+         * The amount of connections running each tile
+         */
+        private final int[] running;
+        /**
+         * The time each tile was last handed out, in nanoseconds of {@link System#nanoTime()}
+         */
+        private final long[] started;
+        /**
+         * The time each tile was handed out while no connection was running it, in nanoseconds of
+         * {@link System#nanoTime()} - the start of its timing, kept when a copy of it is re-issued
+         */
+        private final long[] firstStarted;
+        private final boolean[] done;
+        /**
+         * The times of the completed tiles, in nanoseconds, in the order of completion
+         */
+        private final long[] times;
+        private int completed = 0;
+        /**
+         * The connections which have not ended yet
+         */
+        private int live;
+        private int reissued = 0;
+
+        /**
+         * Constructs the schedule of an image.
+         *
+         * @param nX          The width of the image.
+         * @param nY          The height of the image.
+         * @param connections The amount of connections.
+         */
+        Schedule(int nX, int nY, int connections) {
+            this.nX = nX;
+            this.nY = nY;
+            columns = (nX + tileSize - 1) / tileSize;
+            count = columns * ((nY + tileSize - 1) / tileSize);
+            running = new int[count];
+            started = new long[count];
+            firstStarted = new long[count];
+            done = new boolean[count];
+            times = new long[count];
+            live = connections;
+            for (int tile = 0; tile < count; ++tile)
+                pending.add(tile);
+        }
+
+        int x(int tile) {
+            return tile % columns * tileSize;
+        }
+
+        int y(int tile) {
+            return tile / columns * tileSize;
+        }
+
+        int width(int tile) {
+            return Math.min(tileSize, nX - x(tile));
+        }
+
+        int height(int tile) {
+            return Math.min(tileSize, nY - y(tile));
+        }
+
+        /**
+         * Hands out a tile: a pending tile, or else a copy of the running tile which was handed out first,
+         * once it has run {@link #STRAGGLER_FACTOR} times longer than the median tile (and at least
+         * {@link #MIN_STRAGGLER_TIME}).
+         * Waits while no tile is pending and no running tile is a straggler.
+         *
+         * @return The tile, or -1 if the image is complete.
+         */
+        synchronized int next() {
+            while (completed < count) {
+                Integer tile;
+                while ((tile = pending.poll()) != null)
+                    if (!done[tile]) return start(tile);
+                int straggler = -1;
+                for (int t = 0; t < count; ++t)
+                    if (!done[t] && running[t] < MAX_COPIES && (straggler < 0 || started[t] < started[straggler]))
+                        straggler = t;
+                long wait = 0; // until the oldest tile becomes a straggler, 0 for a change of the schedule
+                if (straggler >= 0 && completed > 0) {
+                    long threshold = Math.max(MIN_STRAGGLER_TIME, STRAGGLER_FACTOR * medianTime());
+                    long due = started[straggler] + threshold - System.nanoTime();
+                    if (due <= 0) {
+                        ++reissued;
+                        return start(straggler);
+                    }
+                    wait = Math.max(1, due / 1_000_000);
+                }
+                try {
+                    wait(wait);
+                } catch (InterruptedException e) {
+                    return -1;
+                }
+            }
+            return -1;
+        }
+
+        /**
+         * Returns the median time of the completed tiles.
+         *
+         * @return The time in nanoseconds.
+         */
+        private long medianTime() {
+            long[] sorted = Arrays.copyOf(times, completed);
+            Arrays.sort(sorted);
+            return sorted[completed / 2];
+        }
+
+        /**
+         * Marks a tile as running in one more connection.
+         *
+         * @param tile The tile.
+         * @return The tile.
+         */
+        private int start(int tile) {
+            started[tile] = System.nanoTime();
+            if (running[tile]++ == 0)
+                firstStarted[tile] = started[tile];
+            return tile;
+        }
+
+        /**
+         * Completes a copy of a tile.
+         *
+         * @param tile The tile.
+         * @return true if this is the first copy to complete - the one whose pixels are kept.
+         */
+        synchronized boolean complete(int tile) {
+            --running[tile];
+            if (done[tile]) return false;
+            done[tile] = true;
+            times[completed++] = System.nanoTime() - firstStarted[tile];
+            notifyAll();
+            return true;
+        }
+
+        /**
+         * Gives up a copy of a tile whose connection failed, returning the tile to the pending tiles if
+         * it runs nowhere else.
+         *
+         * @param tile The tile.
+         */
+        synchronized void fail(int tile) {
+            if (--running[tile] == 0 && !done[tile])
+                pending.addFirst(tile);
+            notifyAll();
+        }
+
+        /**
+         * Ends a connection.
+         */
+        synchronized void leave() {
+            --live;
+            notifyAll();
+        }
+
+        /**
+         * Returns whether all the tiles are complete.
+         *
+         * @return true if the image is complete
+         */
+        synchronized boolean isComplete() {
+            return completed == count;
+        }
+
+        /**
+         * Waits until the image is complete or all the connections have ended.
+         *
+         * @return true if the image is complete
+         */
+        synchronized boolean awaitEnd() {
+            while (completed < count && live > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            return completed == count;
+        }
+    }
+}
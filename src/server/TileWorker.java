@@ -0,0 +1,239 @@
+package server;
+
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.SimpleRayTracer;
+import scene.CompiledScene;
+import scene.SceneCache;
+
+import java.io.BufferedInputStream;
+import java.io.BufferedOutputStream;
+import java.io.Closeable;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.EOFException;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.logging.Level;
+import java.util.logging.Logger;
+
+/**
+ * Worker process of a distributed rendering: it renders the tiles handed out by a {@link TileCoordinator}
+ * and sends back their raw pixels.
+ * Each connection of a coordinator sends a serialized scene ({@link SceneCache} format) and the camera
+ * settings once, and then the tiles one after the other; a connection renders its tiles in its own thread,
+ * so a coordinator opens a connection per core of the worker, into a buffer of a single tile (never a
+ * framebuffer of the whole image). The compiled scenes are kept in an LRU cache
+ * keyed by the hash of their serialized content, so the connections of a rendering - and later renderings
+ * of the same scene - load the scene once.
+ * <p>
+ * The protocol over a connection: the coordinator sends {@link #MAGIC}, the length and the bytes of the
+ * scene (up to {@link #MAX_SCENE_SIZE}), and the {@link RenderJob} (whose scene file is ignored); the worker
+ * answers {@link RenderServer#OK}, or {@link RenderServer#FAILED} followed by the reason. Then for each tile
+ * the coordinator sends its first column, first row, width and height, and the worker answers the sRGB ints
+ * of its pixels, row by row.
+ */
+public final class TileWorker implements Closeable {
+
+    /**
+     * The signature which starts each connection
+     */
+    static final int MAGIC = 0x52545457; // "RTTW"
+
+    /**
+     * The maximal size of a scene received from a coordinator, in bytes - a bound for the length read from
+     * the network before the scene is allocated
+     */
+    static final int MAX_SCENE_SIZE = 1 << 30;
+
+    private final ServerSocket serverSocket;
+    private final SceneLruCache cache;
+    /**
+     * The threads of the connections
+     */
+    private final ExecutorService connections = Executors.newCachedThreadPool(task -> {
+        Thread thread = new Thread(task, "tile-worker");
+        thread.setDaemon(true);
+        return thread;
+    });
+    /**
+     * logger for reporting failed connections
+     */
+    private final Logger logger = Logger.getLogger("TileWorker");
+
+    /**
+     * Constructs a worker. The worker accepts connections only once it is started.
+     *
+     * @param address   The address to listen on - the loopback address for local workers only.
+     * @param port      The port, or 0 for any free port.
+     * @param cacheSize The maximal amount of compiled scenes kept in the cache.
+     * @throws IOException              if the port cannot be bound
+     * @throws IllegalArgumentException if the cache size is not positive
+     */
+    public TileWorker(InetAddress address, int port, int cacheSize) throws IOException {
+        cache = new SceneLruCache(cacheSize);
+        serverSocket = new ServerSocket(port, 50, address);
+    }
+
+    /**
+     * Starts accepting connections, in a new thread.
+     *
+     * @return The worker itself.
+     */
+    public TileWorker start() {
+        new Thread(this::accept, "tile-worker-server").start();
+        return this;
+    }
+
+    /**
+     * Returns the port of the worker.
+     *
+     * @return The port.
+     */
+    public int getPort() {
+        return serverSocket.getLocalPort();
+    }
+
+    /**
+     * Returns the amount of connections whose scene was loaded (not found in the cache).
+     *
+     * @return The loaded scenes.
+     */
+    public long getLoadedScenes() {
+        return cache.getMisses();
+    }
+
+    /**
+     * Accepts connections until the worker is closed.
+     */
+    private void accept() {
+        while (!serverSocket.isClosed()) {
+            try {
+                Socket socket = serverSocket.accept();
+                connections.execute(() -> serve(socket));
+            } catch (IOException e) {
+                if (!serverSocket.isClosed())
+                    logger.log(Level.WARNING, "Failed to accept a connection", e);
+            }
+        }
+    }
+
+    /**
+     * Serves the tiles of a connection until the coordinator closes it.
+     *
+     * @param socket The socket of the connection.
+     */
+    private void serve(Socket socket) {
+        try (socket;
+             DataInputStream in = new DataInputStream(new BufferedInputStream(socket.getInputStream()));
+             DataOutputStream out = new DataOutputStream(new BufferedOutputStream(socket.getOutputStream()))) {
+            if (in.readInt() != MAGIC) {
+                logger.warning("Rejected a connection of another protocol");
+                return;
+            }
+            int size = in.readInt();
+            if (size < 0 || size > MAX_SCENE_SIZE) {
+                logger.warning("Rejected a scene of " + size + " bytes");
+                out.writeByte(RenderServer.FAILED);
+                out.writeUTF("The scene size " + size + " is out of range");
+                return;
+            }
+            byte[] content = new byte[size];
+            in.readFully(content);
+            RenderJob job = RenderJob.read(in);
+
+            // the camera renders into a buffer of a single tile, grown to the largest tile of the connection
+            ImageWriter tile = new ImageWriter("tile", 1, 1);
+            Camera.Builder builder;
+            Camera camera;
+            try {
+                builder = Camera.getBuilder()
+                        .setRayTracer(new SimpleRayTracer(compiledScene(content)))
+                        .setImageWriter(tile)
+                        .setLocation(job.location())
+                        .setDirection(job.to(), job.up())
+                        .setVpSize(job.width(), job.height())
+                        .setVpDistance(job.distance())
+                        .setNumberOfRays(job.numberOfRays())
+                        .setSeed(job.seed());
+                camera = builder.build();
+            } catch (RuntimeException e) {
+                logger.log(Level.WARNING, "Failed to load a scene", e);
+                out.writeByte(RenderServer.FAILED);
+                out.writeUTF(String.valueOf(e.getMessage()));
+                return;
+            }
+            out.writeByte(RenderServer.OK);
+            out.flush();
+
+            while (true) {
+                int x;
+                try {
+                    x = in.readInt();
+                } catch (EOFException e) {
+                    return; // the coordinator closed the connection
+                }
+                int y = in.readInt(), width = in.readInt(), height = in.readInt();
+                if (width > tile.getNx() || height > tile.getNy()) {
+                    tile = new ImageWriter("tile", Math.max(width, tile.getNx()), Math.max(height, tile.getNy()));
+                    camera = builder.setImageWriter(tile).build();
+                }
+                camera.renderTile(job.nX(), job.nY(), x, y, width, height);
+                for (int i = 0; i < height; ++i)
+                    for (int j = 0; j < width; ++j)
+                        out.writeInt(tile.getRgb(j, i));
+                out.flush();
+            }
+        } catch (IOException | RuntimeException e) {
+            logger.log(Level.WARNING, "Connection failed", e);
+        }
+    }
+
+    /**
+     * Returns the compiled scene of a serialized scene, from the cache or loaded and compiled (and cached).
+     * The connections load their scenes one at a time, so the connections of a rendering load its scene once.
+     *
+     * @param content The serialized scene.
+     * @return The compiled scene.
+     * @throws IllegalArgumentException if the content is not a serialized scene
+     */
+    private synchronized CompiledScene compiledScene(byte[] content) {
+        String key = SceneLruCache.key(content);
+        CompiledScene scene = cache.get(key);
+        if (scene == null) {
+            scene = SceneCache.read(content).scene().compile();
+            cache.put(key, scene);
+        }
+        return scene;
+    }
+
+    /**
+     * Stops accepting connections. The open connections are served until their coordinators close them.
+     *
+     * @throws IOException if the server socket cannot be closed
+     */
+    @Override
+    public void close() throws IOException {
+        serverSocket.close();
+        connections.shutdown();
+    }
+
+    /**
+     * Runs a worker until the process is stopped.
+     *
+     * @param args The port (5785 by default), the address to listen on (all the addresses by default) and
+     *             the cache size (4 scenes by default).
+     * @throws IOException if the port cannot be bound
+     */
+    public static void main(String[] args) throws IOException {
+        int port = args.length > 0 ? Integer.parseInt(args[0]) : 5785;
+        InetAddress address = args.length > 1 ? InetAddress.getByName(args[1]) : null;
+        int cacheSize = args.length > 2 ? Integer.parseInt(args[2]) : 4;
+        TileWorker worker = new TileWorker(address, port, cacheSize).start();
+        System.out.println("Tile worker listening on port " + worker.getPort());
+    }
+}
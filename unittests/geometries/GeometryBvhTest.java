@@ -0,0 +1,88 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.GeometryBvh class
+ */
+class GeometryBvhTest {
+
+    /**
+     * Builds a grid of spheres and triangles in front of a plane.
+     *
+     * @return the geometries
+     */
+    private List<Geometry> grid() {
+        List<Geometry> geometries = new ArrayList<>();
+        for (int x = -5; x <= 5; ++x)
+            for (int y = -5; y <= 5; ++y)
+                geometries.add((x + y) % 2 == 0
+                        ? new Sphere(new Point(3 * x, 3 * y, -10 - x), 1)
+                        : new Triangle(new Point(3 * x - 1, 3 * y - 1, -12), new Point(3 * x + 1, 3 * y - 1, -12),
+                        new Point(3 * x, 3 * y + 1, -12)));
+        geometries.add(new Plane(new Point(0, 0, -30), new Vector(0, 0, 1)));
+        return geometries;
+    }
+
+    /**
+     * Test method for {@link geometries.GeometryBvh#findGeoIntersections(Ray)}.
+     */
+    @Test
+    void testFindGeoIntersections() {
+        List<Geometry> list = grid();
+        Geometries plain = new Geometries(list.toArray(new Intersectable[0]));
+        GeometryBvh bvh = new GeometryBvh(list);
+        assertEquals(list.size(), bvh.size(), "Lost geometries");
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Same intersections as the plain composite for rays in many directions
+        for (int x = -16; x <= 16; x += 2)
+            for (int y = -16; y <= 16; y += 3) {
+                Ray ray = new Ray(new Point(0.5, 0.25, 20), new Vector(x, y, -30));
+                var expected = plain.findIntersections(ray);
+                var actual = bvh.findIntersections(ray);
+                assertNotNull(actual, "The plane is crossed by every ray");
+                assertEquals(expected.size(), actual.size(), "Wrong intersection count");
+                assertTrue(actual.containsAll(expected), "Wrong intersections");
+            }
+
+        // =============== Boundary Values Tests ==================
+        //TC10: A ray which misses everything
+        assertNull(bvh.findIntersections(new Ray(new Point(0, 0, 20), new Vector(0, 0, 1))), "Ray goes away");
+
+        //TC11: No geometries
+        assertNull(new GeometryBvh(List.of()).findIntersections(new Ray(new Point(0, 0, 0), new Vector(1, 1, 1))),
+                "Empty structure must have no intersections");
+    }
+
+    /**
+     * Test method for {@link geometries.GeometryBvh#findClosestGeoPoint(Ray)}.
+     */
+    @Test
+    void testFindClosestGeoPoint() {
+        List<Geometry> list = grid();
+        Geometries plain = new Geometries(list.toArray(new Intersectable[0]));
+        GeometryBvh bvh = new GeometryBvh(list);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Same closest intersection as the plain composite
+        for (int x = -16; x <= 16; x += 2)
+            for (int y = -16; y <= 16; y += 3) {
+                Ray ray = new Ray(new Point(0.5, 0.25, 20), new Vector(x, y, -30));
+                assertEquals(ray.findClosestGeoPoint(plain.findGeoIntersections(ray)), bvh.findClosestGeoPoint(ray),
+                        "Wrong closest intersection for " + ray);
+            }
+
+        // =============== Boundary Values Tests ==================
+        //TC10: A ray which misses everything
+        assertNull(bvh.findClosestGeoPoint(new Ray(new Point(0, 0, 20), new Vector(0, 0, 1))), "Ray goes away");
+    }
+}
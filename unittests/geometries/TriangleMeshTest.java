@@ -0,0 +1,177 @@
+package geometries;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for geometries.TriangleMesh class
+ */
+class TriangleMeshTest {
+
+    /**
+     * Delta value for accuracy when comparing the numbers of type 'double' in
+     * assertEquals
+     */
+    private final double DELTA = 0.000001;
+
+    /**
+     * A unit square in the plane z=0 made of two triangles
+     */
+    private final double[] squareVertices = {
+            0, 0, 0,
+            1, 0, 0,
+            1, 1, 0,
+            0, 1, 0
+    };
+    private final int[] squareIndices = {0, 1, 2, 0, 2, 3};
+    private final TriangleMesh square = new TriangleMesh(squareVertices, squareIndices);
+
+    /**
+     * Builds a flat grid of n x n quads (2 triangles each) in the plane z=0, from (0,0) to (n,n).
+     *
+     * @param n the amount of quads per side
+     * @return the grid mesh
+     */
+    private TriangleMesh grid(int n) {
+        double[] vertices = new double[3 * (n + 1) * (n + 1)];
+        for (int y = 0; y <= n; ++y)
+            for (int x = 0; x <= n; ++x) {
+                int v = 3 * (y * (n + 1) + x);
+                vertices[v] = x;
+                vertices[v + 1] = y;
+            }
+        int[] indices = new int[6 * n * n];
+        int i = 0;
+        for (int y = 0; y < n; ++y)
+            for (int x = 0; x < n; ++x) {
+                int v = y * (n + 1) + x;
+                indices[i++] = v;
+                indices[i++] = v + 1;
+                indices[i++] = v + n + 2;
+                indices[i++] = v;
+                indices[i++] = v + n + 2;
+                indices[i++] = v + n + 1;
+            }
+        return new TriangleMesh(vertices, indices);
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#TriangleMesh(double[], int[], double[])}.
+     */
+    @Test
+    void testConstructor() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: A correct mesh
+        assertDoesNotThrow(() -> new TriangleMesh(squareVertices, squareIndices), "Failed constructing a correct mesh");
+        assertEquals(4, square.getVertexCount(), "Wrong vertex count");
+        assertEquals(2, square.getTriangleCount(), "Wrong triangle count");
+
+        //TC02: Vertex buffer which is not made of triples
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(new double[]{0, 0, 0, 1}, new int[]{0, 0, 0}),
+                "Constructed a mesh with a broken vertex buffer");
+
+        //TC03: Index out of the vertex buffer
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(squareVertices, new int[]{0, 1, 4}),
+                "Constructed a mesh with an index out of range");
+
+        //TC04: Normals that do not match the vertices
+        assertThrows(IllegalArgumentException.class,
+                () -> new TriangleMesh(squareVertices, squareIndices, new double[]{0, 0, 1}),
+                "Constructed a mesh with missing normals");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: An empty mesh
+        assertNull(new TriangleMesh(new double[0], new int[0]).findIntersections(new Ray(Point.ZERO, new Vector(0, 0, 1))),
+                "An empty mesh must have no intersections");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#getNormal(Point)}.
+     */
+    @Test
+    void testGetNormal() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Flat mesh - the normal of the triangle
+        assertEquals(new Vector(0, 0, 1), square.getNormal(new Point(0.7, 0.2, 0)), "ERROR: getNormal() wrong result");
+
+        //TC02: Smooth mesh - the vertex normals interpolated at the intersection
+        double[] normals = {
+                -1, 0, 1,
+                1, 0, 1,
+                1, 0, 1,
+                -1, 0, 1
+        };
+        TriangleMesh smooth = new TriangleMesh(squareVertices, squareIndices, normals);
+        var intersections = smooth.findGeoIntersections(new Ray(new Point(0.5, 0.3, 1), new Vector(0, 0, -1)));
+        assertNotNull(intersections, "Ray crosses the mesh but result is null");
+        var gp = intersections.getFirst();
+        assertEquals(new Vector(0, 0, 1), gp.geometry.getNormal(gp.point), "ERROR: smooth normal wrong in the middle");
+        gp = smooth.findGeoIntersections(new Ray(new Point(0.25, 0.5, 1), new Vector(0, 0, -1))).getFirst();
+        assertEquals(new Vector(-1, 0, 2).normalize(), gp.geometry.getNormal(gp.point), "ERROR: smooth normal not interpolated");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: A point out of the mesh
+        assertThrows(IllegalArgumentException.class, () -> square.getNormal(new Point(2, 2, 0)),
+                "getNormal() of a point out of the mesh must throw");
+    }
+
+    /**
+     * Test method for {@link geometries.TriangleMesh#findGeoIntersections(Ray, double)}.
+     */
+    @Test
+    void testFindIntersections() {
+        final Vector down = new Vector(0, 0, -1);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Ray crosses one of the triangles
+        List<Point> result = square.findIntersections(new Ray(new Point(0.7, 0.2, 1), down));
+        assertNotNull(result, "Ray crosses the mesh but result is null");
+        assertEquals(List.of(new Point(0.7, 0.2, 0)), result, "Wrong intersection point");
+
+        //TC02: Ray misses the mesh
+        assertNull(square.findIntersections(new Ray(new Point(1.5, 0.5, 1), down)), "Ray misses the mesh");
+
+        //TC03: Ray goes away from the mesh
+        assertNull(square.findIntersections(new Ray(new Point(0.5, 0.5, 1), new Vector(0, 0, 1))), "Ray starts after the mesh");
+
+        //TC04: The mesh is beyond the maximum distance
+        assertNull(square.findGeoIntersections(new Ray(new Point(0.5, 0.2, 1), down), 0.5), "Mesh is beyond max distance");
+
+        //TC05: The intersection geometry is the triangle with the material and emission of the mesh
+        var gp = square.findGeoIntersections(new Ray(new Point(0.7, 0.2, 1), down)).getFirst();
+        assertSame(square.getMaterial(), gp.geometry.getMaterial(), "The triangle must share the mesh material");
+        assertEquals(gp.geometry, square.findGeoIntersections(new Ray(new Point(0.6, 0.1, 1), down)).getFirst().geometry,
+                "Intersections with the same triangle must have equal geometries");
+
+        //TC06: Many triangles - every ray hits exactly one triangle through the BVH
+        TriangleMesh grid = grid(50);
+        for (double x = 0.25; x < 48; x += 3.1)
+            for (double y = 0.6; y < 50; y += 2.7) {
+                result = grid.findIntersections(new Ray(new Point(x, y, 10), new Vector(0.1, -0.05, -1)));
+                assertNotNull(result, "Ray crosses the grid but result is null");
+                assertEquals(1, result.size(), "Wrong number of points");
+                assertEquals(0, result.getFirst().getZ(), DELTA, "The point is not on the grid");
+            }
+
+        // =============== Boundary Values Tests ==================
+        //TC10: Ray through the shared edge of two triangles - no gap between them
+        result = square.findIntersections(new Ray(new Point(0.5, 0.5, 1), down));
+        assertNotNull(result, "Ray through a shared edge must not fall between the triangles");
+        assertEquals(1, result.size(), "Ray through a shared edge must cross the surface once");
+
+        //TC11: Ray parallel to the mesh
+        assertNull(square.findIntersections(new Ray(new Point(-1, 0.5, 0.5), new Vector(1, 0, 0))), "Ray is parallel to the mesh");
+
+        //TC12: Intersection at exactly the maximum distance is kept, like the other geometries
+        assertNotNull(square.findGeoIntersections(new Ray(new Point(0.6, 0.1, 1), down), 1),
+                "Intersection at the maximum distance was dropped");
+    }
+}
@@ -0,0 +1,95 @@
+package lighting;
+
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for lighting.RectangleLight and lighting.DiskLight classes
+ */
+class AreaLightTest {
+
+    /**
+     * Test method for {@link lighting.RectangleLight#getProbePoints()} and
+     * {@link lighting.RectangleLight#getSamplePoints()}.
+     */
+    @Test
+    void testRectangleLight() {
+        RectangleLight light = new RectangleLight(new Color(100, 100, 100), new Point(0, 0, 10),
+                new Vector(4, 0, 0), new Vector(0, 2, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: The center and the corners are probed
+        Point[] probes = light.getProbePoints();
+        assertEquals(5, probes.length, "Wrong probe count");
+        assertEquals(new Point(0, 0, 10), probes[0], "The center is not probed first");
+        assertEquals(new Point(-2, -1, 10), probes[1], "Wrong corner");
+        assertEquals(new Point(2, 1, 10), probes[3], "Wrong corner");
+
+        //TC02: The samples are inside the rectangle and centered on it
+        Point[] samples = light.setSamples(16).getSamplePoints();
+        assertEquals(16, samples.length, "Wrong sample count");
+        double x = 0, y = 0;
+        for (Point sample : samples) {
+            assertTrue(Math.abs(sample.getX()) < 2 && Math.abs(sample.getY()) < 1 && sample.getZ() == 10,
+                    "Sample outside the rectangle");
+            x += sample.getX();
+            y += sample.getY();
+        }
+        assertEquals(0, x, 1e-10, "Samples are not centered");
+        assertEquals(0, y, 1e-10, "Samples are not centered");
+
+        //TC03: Moving the light moves its points
+        light.setPosition(new Point(0, 0, 20));
+        assertEquals(20, light.getProbePoints()[2].getZ(), "Probes were not moved");
+        assertEquals(20, light.getSamplePoints()[0].getZ(), "Samples were not moved");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: The amount of samples is rounded up to a square grid
+        assertEquals(9, light.setSamples(5).getSamplePoints().length, "Wrong rounded sample count");
+
+        //TC11: A single sample is the center
+        assertArrayEquals(new Point[]{new Point(0, 0, 20)}, light.setSamples(1).getSamplePoints(),
+                "Wrong single sample");
+
+        //TC12: Non-positive sample count and parallel edges
+        assertThrows(IllegalArgumentException.class, () -> light.setSamples(0), "Accepted zero samples");
+        assertThrows(IllegalArgumentException.class, () -> new RectangleLight(new Color(1, 1, 1), Point.ZERO,
+                new Vector(1, 0, 0), new Vector(2, 0, 0)), "Accepted parallel edges");
+    }
+
+    /**
+     * Test method for {@link lighting.DiskLight#getProbePoints()} and {@link lighting.DiskLight#getSamplePoints()}.
+     */
+    @Test
+    void testDiskLight() {
+        Point center = new Point(1, 2, 3);
+        DiskLight light = new DiskLight(new Color(100, 100, 100), center, new Vector(0, 0, -1), 3).setSamples(50);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: The center and points on the rim are probed
+        Point[] probes = light.getProbePoints();
+        assertEquals(center, probes[0], "The center is not probed first");
+        for (int i = 1; i < probes.length; ++i) {
+            assertEquals(3, probes[i].distance(center), 1e-10, "Probe is not on the rim");
+            assertEquals(3, probes[i].getZ(), 1e-10, "Probe is not on the disk");
+        }
+
+        //TC02: The samples are inside the disk and spread over it
+        Point[] samples = light.getSamplePoints();
+        assertEquals(50, samples.length, "Wrong sample count");
+        int inner = 0;
+        for (Point sample : samples) {
+            assertTrue(sample.distance(center) < 3, "Sample outside the disk");
+            assertEquals(3, sample.getZ(), 1e-10, "Sample is not on the disk");
+            if (sample.distance(center) < 3 / Math.sqrt(2)) ++inner;
+        }
+        assertEquals(25, inner, "Samples are not spread evenly");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: Non-positive radius
+        assertThrows(IllegalArgumentException.class,
+                () -> new DiskLight(new Color(1, 1, 1), center, new Vector(0, 0, 1), 0), "Accepted zero radius");
+    }
+}
@@ -0,0 +1,52 @@
+package primitives;
+
+import org.junit.jupiter.api.Test;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for primitives.CompiledMaterial class
+ */
+class CompiledMaterialTest {
+
+    /**
+     * Test method for {@link primitives.CompiledMaterial#CompiledMaterial(Material)}.
+     */
+    @Test
+    void testClassification() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: A plain opaque matte material
+        CompiledMaterial matte = new CompiledMaterial(new Material().setKD(0.5).setShininess(10));
+        assertTrue(matte.isOpaque(), "Matte material must be opaque");
+        assertFalse(matte.isReflective(), "Matte material must not be reflective");
+        assertTrue(matte.hasDiffuse(), "Matte material must be diffuse");
+        assertFalse(matte.hasSpecular(), "Matte material must not be specular");
+        assertTrue(matte.isLit(), "Matte material must be lit");
+        assertFalse(matte.isEmissiveOnly(), "Matte material is not emissive only");
+        assertEquals(10, matte.nShininess, "Wrong shininess");
+
+        //TC02: A transparent shiny mirror
+        CompiledMaterial glass = new CompiledMaterial(new Material().setKS(0.3).setKT(new Double3(0, 0.5, 0)).setKR(0.2));
+        assertFalse(glass.isOpaque(), "Partly transparent material is not opaque");
+        assertTrue(glass.isReflective(), "Mirror must be reflective");
+        assertFalse(glass.hasDiffuse(), "Glass must not be diffuse");
+        assertTrue(glass.hasSpecular(), "Glass must be specular");
+        assertFalse(glass.isEmissiveOnly(), "Glass is not emissive only");
+
+        //TC03: A pure mirror is not lit
+        CompiledMaterial mirror = new CompiledMaterial(new Material().setKR(1));
+        assertFalse(mirror.isLit(), "Pure mirror must not be lit");
+        assertFalse(mirror.isEmissiveOnly(), "Pure mirror is not emissive only");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: The default material shows only the emission
+        assertTrue(new CompiledMaterial(new Material()).isEmissiveOnly(), "Default material must be emissive only");
+
+        //TC11: Changing the material after compiling does not change the compiled one
+        Material material = new Material();
+        CompiledMaterial compiled = new CompiledMaterial(material);
+        material.setKD(1);
+        assertEquals(Double3.ZERO, compiled.kD, "Compiled material was changed");
+        assertFalse(compiled.hasDiffuse(), "Compiled material was changed");
+    }
+}
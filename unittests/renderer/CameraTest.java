@@ -1,12 +1,19 @@
 package renderer;
 
+import geometries.Geometry;
+import geometries.Intersectable.GeoPoint;
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.PointLight;
 import org.junit.jupiter.api.Test;
-import primitives.Point;
-import primitives.Ray;
-import primitives.Vector;
+import primitives.*;
 import scene.Scene;
 
-import static org.junit.jupiter.api.Assertions.assertEquals;
+import java.time.Duration;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static org.junit.jupiter.api.Assertions.*;
 
 /**
  * Testing Camera Class
@@ -85,4 +92,205 @@ class CameraTest {
                 badRay
         );
     }
+
+    /**
+     * Test method for
+     * {@link renderer.Camera#constructRays(int, int, int, int)}.
+     */
+    @Test
+    void testConstructRays() {
+        final String badRay = "Bad ray";
+        Camera camera = cameraBuilder.setVpSize(6, 6).setNumberOfRays(3).build();
+        List<Ray> rays = camera.constructRays(3, 3, 1, 1);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: 3X3 grid in the center pixel - a corner sub-pixel
+        assertEquals(9, rays.size(), "Wrong amount of rays");
+        assertEquals(new Ray(Point.ZERO, new Vector(2, 2, -30)), rays.getFirst(), badRay);
+
+        // =============== Boundary Values Tests ==================
+        //TC10: The center sub-pixel of an odd grid has no offset - the central ray of the pixel
+        assertEquals(camera.constructRay(3, 3, 1, 1), rays.get(4), badRay);
+        //TC11: A sub-pixel with no offset along one axis only
+        assertEquals(new Ray(Point.ZERO, new Vector(0, 2, -30)), rays.get(1), badRay);
+    }
+
+    /**
+     * Image writer which keeps the colors of the pixels for the tests
+     */
+    private static class RecordingImageWriter extends ImageWriter {
+        /**
+         * The colors of the pixels, row by row
+         */
+        private final Color[][] pixels;
+
+        /**
+         * Constructs a recording image writer.
+         *
+         * @param nX amount of pixels by width
+         * @param nY amount of pixels by height
+         */
+        RecordingImageWriter(int nX, int nY) {
+            super("Test", nX, nY);
+            pixels = new Color[nY][nX];
+        }
+
+        @Override
+        public void writePixel(int xIndex, int yIndex, Color color) {
+            pixels[yIndex][xIndex] = color;
+        }
+    }
+
+    /**
+     * Test method for {@link renderer.Camera#captureGBuffer()} and {@link renderer.Camera#relight(GBuffer)}.
+     */
+    @Test
+    void testRelight() {
+        // A shiny sphere on a floor, lit by a point light which is changed after the capture
+        Scene scene = new Scene("relight");
+        Geometry sphere = new Sphere(new Point(0, 0, -50), 10).setEmission(new Color(20, 20, 60))
+                .setMaterial(new Material().setKD(0.5).setKS(0.3).setShininess(20).setKR(0.2));
+        scene.geometries.add(sphere,
+                new Plane(new Point(0, -10, 0), new Vector(0, 1, 0))
+                        .setMaterial(new Material().setKD(0.6)));
+        PointLight light = new PointLight(new Color(300, 300, 300), new Point(20, 30, 0)).setKL(0.001);
+        scene.lights.add(light);
+        Camera.Builder builder = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setLocation(new Point(0, 0, 50))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpSize(40, 40).setVpDistance(50);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: The captured hits, with a miss above the horizon
+        RecordingImageWriter relit = new RecordingImageWriter(12, 12);
+        Camera camera = builder.setImageWriter(relit).setThreadsCount(3).build();
+        GBuffer gBuffer = camera.captureGBuffer();
+        assertEquals(1, gBuffer.getSamples(), "Wrong amount of rays in a pixel");
+        assertNull(gBuffer.getHit(6, 0, 0), "The top row misses all the geometries");
+        GeoPoint hit = gBuffer.getHit(6, 6, 0);
+        assertSame(sphere, hit.geometry, "The center of the image hits the sphere");
+        assertEquals(sphere.getNormal(hit.point), gBuffer.getNormal(6, 6, 0), "Wrong normal at the hit");
+
+        //TC02: Relighting after a change of the light gives the image of a full rendering
+        light.setKL(0.002).setIntensity(new Color(500, 200, 100));
+        camera.relight(gBuffer);
+        RecordingImageWriter rendered = new RecordingImageWriter(12, 12);
+        builder.setImageWriter(rendered).setThreadsCount(0).build().renderImage();
+        for (int i = 0; i < 12; ++i)
+            for (int j = 0; j < 12; ++j)
+                assertEquals(rendered.pixels[i][j].getRgb(), relit.pixels[i][j].getRgb(),
+                        "Wrong relit color of pixel (" + j + ", " + i + ")");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: All the rays of a pixel with anti-aliasing
+        Camera antiAliased = builder.setImageWriter(new RecordingImageWriter(12, 12)).setNumberOfRays(3).build();
+        assertEquals(9, antiAliased.captureGBuffer().getSamples(), "Wrong amount of rays in a pixel");
+
+        //TC11: A G-buffer of another size
+        Camera other = builder.setImageWriter(new RecordingImageWriter(6, 6)).setNumberOfRays(1).build();
+        assertThrows(IllegalArgumentException.class, () -> other.relight(gBuffer), "Relit a G-buffer of another size");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#setSeed(long)}.
+     */
+    @Test
+    void testSeed() {
+        // Stochastic shading everywhere: light sampling among several lights and Russian roulette
+        Scene scene = new Scene("seed");
+        scene.geometries.add(
+                new Sphere(new Point(0, 0, -50), 10)
+                        .setMaterial(new Material().setKD(0.5).setKS(0.3).setShininess(20).setKR(0.05)),
+                new Plane(new Point(0, -10, 0), new Vector(0, 1, 0))
+                        .setMaterial(new Material().setKD(0.6).setKR(0.05)));
+        for (int i = 0; i < 4; ++i)
+            scene.lights.add(new PointLight(new Color(100, 80 * i, 60), new Point(20 * i - 30, 30, 0)));
+        SimpleRayTracer rayTracer = new SimpleRayTracer(scene).setLightSamples(1).setRussianRoulette(true);
+        Camera.Builder builder = Camera.getBuilder()
+                .setRayTracer(rayTracer)
+                .setLocation(new Point(0, 0, 50))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpSize(40, 40).setVpDistance(50)
+                .setNumberOfRays(2);
+
+        RecordingImageWriter single = new RecordingImageWriter(16, 16);
+        builder.setImageWriter(single).setSeed(5).setThreadsCount(0).build().renderImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: The same seed with several threads gives the same image
+        RecordingImageWriter threads = new RecordingImageWriter(16, 16);
+        builder.setImageWriter(threads).setThreadsCount(3).build().renderImage();
+        for (int i = 0; i < 16; ++i)
+            for (int j = 0; j < 16; ++j)
+                assertEquals(single.pixels[i][j].getRgb(), threads.pixels[i][j].getRgb(),
+                        "Wrong color of pixel (" + j + ", " + i + ") with several threads");
+
+        //TC02: Another seed gives another image
+        RecordingImageWriter other = new RecordingImageWriter(16, 16);
+        builder.setImageWriter(other).setSeed(6).setThreadsCount(0).build().renderImage();
+        int differences = 0;
+        for (int i = 0; i < 16; ++i)
+            for (int j = 0; j < 16; ++j)
+                if (!single.pixels[i][j].getRgb().equals(other.pixels[i][j].getRgb())) ++differences;
+        assertTrue(differences > 0, "Another seed gave the same image");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#setProgressListener(ProgressListener)}.
+     */
+    @Test
+    void testProgress() {
+        Scene scene = new Scene("progress");
+        scene.geometries.add(new Sphere(new Point(0, 0, -50), 10));
+        ConcurrentLinkedQueue<ProgressListener.Progress> reports = new ConcurrentLinkedQueue<>();
+        Camera.Builder builder = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setImageWriter(new RecordingImageWriter(40, 40))
+                .setLocation(new Point(0, 0, 50))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpSize(40, 40).setVpDistance(50)
+                .setNumberOfRays(2)
+                .setThreadsCount(3)
+                .setProgressListener(reports::add);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Reports of the tiles (9 tiles), ending with the whole image
+        builder.setProgressInterval(0).build().renderImage();
+        assertTrue(reports.size() >= 1 && reports.size() <= 9, "Wrong amount of reports");
+        ProgressListener.Progress last = reports.stream()
+                .max((a, b) -> Long.compare(a.pixels(), b.pixels())).orElseThrow();
+        assertTrue(last.isDone(), "The end of the rendering was not reported");
+        assertEquals(1600, last.totalPixels(), "Wrong pixel count");
+        assertEquals(6400, last.rays(), "Wrong ray count");
+        assertEquals(100, last.percent(), "Wrong percentage at the end");
+        long previous = -1;
+        for (ProgressListener.Progress report : reports) {
+            assertTrue(report.pixels() > previous, "The progress went backwards");
+            previous = report.pixels();
+        }
+        assertEquals(1600, previous, "Reported after the end of the rendering");
+
+        //TC02: The rates and the estimate of a progress
+        ProgressListener.Progress progress = new ProgressListener.Progress(50, 200, 400, Duration.ofSeconds(2));
+        assertEquals(25, progress.percent(), "Wrong percentage");
+        assertEquals(200, progress.raysPerSecond(), 1e-9, "Wrong rays per second");
+        assertEquals(Duration.ofSeconds(6), progress.eta(), "Wrong ETA");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: A long interval reports only the end
+        reports.clear();
+        builder.setProgressInterval(1000).build().renderImage();
+        assertEquals(List.of(true), reports.stream().map(ProgressListener.Progress::isDone).toList(),
+                "Reported more than the end");
+
+        //TC11: No pixel rendered yet
+        progress = new ProgressListener.Progress(0, 200, 0, Duration.ZERO);
+        assertNull(progress.eta(), "An ETA before any pixel");
+        assertEquals(0, progress.raysPerSecond(), "Rays per second without time");
+
+        //TC12: A negative interval
+        assertThrows(IllegalArgumentException.class, () -> builder.setProgressInterval(-1),
+                "Accepted a negative interval");
+    }
 }
@@ -0,0 +1,192 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for renderer.Checkpoint class
+ */
+class CheckpointTest {
+
+    /**
+     * The failure of a rendering which dies in the middle
+     */
+    private static final class Crash extends RuntimeException {
+        private static final long serialVersionUID = 1L;
+    }
+
+    /**
+     * Builds a camera over a lit scene with a sphere above a plane, rendering into a 40x40 image (9 tiles).
+     *
+     * @param scene the scene
+     * @return the camera builder
+     */
+    private Camera.Builder builder(Scene scene) {
+        return Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setImageWriter(new ImageWriter("checkpoint", 40, 40))
+                .setLocation(new Point(0, 0, 50))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpSize(40, 40).setVpDistance(50)
+                .setNumberOfRays(2)
+                .setSeed(9);
+    }
+
+    /**
+     * Builds the scene of the tests.
+     *
+     * @return the scene
+     */
+    private Scene scene() {
+        Scene scene = new Scene("checkpoint");
+        scene.geometries.add(
+                new Sphere(new Point(0, 0, -50), 10).setMaterial(new Material().setKD(0.5).setKR(0.2)),
+                new Plane(new Point(0, -10, 0), new Vector(0, 1, 0)).setMaterial(new Material().setKD(0.5)));
+        scene.lights.add(new PointLight(new Color(300, 300, 300), new Point(20, 30, 0)));
+        return scene;
+    }
+
+    /**
+     * Asserts that two image writers hold the same pixels.
+     *
+     * @param expected the expected image
+     * @param actual   the actual image
+     * @param message  the message of a failure
+     */
+    private void assertSameImage(ImageWriter expected, ImageWriter actual, String message) {
+        for (int i = 0; i < 40; ++i)
+            for (int j = 0; j < 40; ++j)
+                assertEquals(expected.getRgb(j, i), actual.getRgb(j, i), message + " at (" + j + ", " + i + ")");
+    }
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#setCheckpoint(Path, double)} and
+     * {@link renderer.Camera.Builder#setResume(boolean)}.
+     */
+    @Test
+    void testResume() throws IOException {
+        Path directory = Files.createTempDirectory("checkpoint");
+        directory.toFile().deleteOnExit();
+        Path file = directory.resolve("render.rtck");
+        file.toFile().deleteOnExit();
+
+        ImageWriter expected = new ImageWriter("expected", 40, 40);
+        builder(scene()).setImageWriter(expected).build().renderImage();
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: A rendering which dies after 4 tiles keeps them in its checkpoint
+        int[] tiles = {0};
+        Camera crashing = builder(scene()).setCheckpoint(file, 0)
+                .setProgressInterval(0)
+                .setProgressListener(progress -> {
+                    if (++tiles[0] == 4) throw new Crash();
+                })
+                .build();
+        assertThrows(Crash.class, crashing::renderImage, "The rendering did not die");
+        assertTrue(Files.exists(file), "No checkpoint file");
+
+        //TC02: The resumed rendering renders only the missing tiles, into the same image
+        RenderStatistics statistics = new RenderStatistics();
+        ImageWriter resumed = new ImageWriter("resumed", 40, 40);
+        builder(scene()).setImageWriter(resumed).setCheckpoint(file, 0).setResume(true).setStatistics(statistics)
+                .build().renderImage();
+        assertTrue(statistics.getPixels() > 0 && statistics.getPixels() < 1600,
+                "The completed tiles were rendered again");
+        assertSameImage(expected, resumed, "Wrong resumed pixel");
+
+        //TC03: A complete checkpoint restores the whole image, without rendering anything
+        ImageWriter restored = new ImageWriter("restored", 40, 40);
+        builder(new Scene("empty")).setImageWriter(restored).setCheckpoint(file, 0).setResume(true).build()
+                .renderImage();
+        assertSameImage(expected, restored, "Wrong restored pixel");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: Resuming without a checkpoint file starts anew
+        Files.delete(file);
+        ImageWriter fresh = new ImageWriter("fresh", 40, 40);
+        builder(scene()).setImageWriter(fresh).setCheckpoint(file, 1000).setResume(true).build().renderImage();
+        assertSameImage(expected, fresh, "Wrong pixel of a fresh rendering");
+
+        //TC11: A checkpoint of other settings is not resumed
+        assertThrows(IllegalArgumentException.class,
+                () -> builder(scene()).setSeed(10).setCheckpoint(file, 0).setResume(true).build().renderImage(),
+                "Resumed a checkpoint of another seed");
+
+        //TC12: A checkpoint of another ray tracer is not resumed
+        assertThrows(IllegalArgumentException.class,
+                () -> builder(scene()).setRayTracer(new AlbedoRayTracer(scene())).setCheckpoint(file, 0)
+                        .setResume(true).build().renderImage(),
+                "Resumed a checkpoint of another ray tracer");
+
+        //TC13: A checkpoint of a preview rendering is not resumed by the rendering with the camera's tracer
+        Files.delete(file);
+        Camera previewed = builder(scene()).setCheckpoint(file, 0).setResume(true).build();
+        previewed.renderImage(new NormalsRayTracer(scene()));
+        assertThrows(IllegalArgumentException.class, previewed::renderImage,
+                "Resumed a checkpoint of a preview rendering");
+
+        //TC14: A checkpoint of other quality settings of the same ray tracer is not resumed
+        Files.delete(file);
+        builder(scene()).setRayTracer(new AmbientOcclusionRayTracer(scene(), 4, 10)).setCheckpoint(file, 0).build()
+                .renderImage();
+        assertThrows(IllegalArgumentException.class,
+                () -> builder(scene()).setRayTracer(new AmbientOcclusionRayTracer(scene(), 8, 10))
+                        .setCheckpoint(file, 0).setResume(true).build().renderImage(),
+                "Resumed a checkpoint of another amount of occlusion samples");
+        Files.delete(file);
+        builder(scene()).setCheckpoint(file, 0).build().renderImage();
+        assertThrows(IllegalArgumentException.class,
+                () -> builder(scene()).setRayTracer(new SimpleRayTracer(scene()).setLightSamples(1))
+                        .setCheckpoint(file, 0).setResume(true).build().renderImage(),
+                "Resumed a checkpoint of another amount of light samples");
+        assertThrows(IllegalArgumentException.class, () -> builder(scene()).setCheckpoint(file, -1),
+                "Accepted a negative interval");
+    }
+
+    /**
+     * Test method for {@link renderer.Checkpoint#Checkpoint(Path, int, int, long, boolean, double, int)}.
+     */
+    @Test
+    void testBands() throws IOException {
+        Path file = Files.createTempFile("bands", ".rtck");
+        ImageWriter image = new ImageWriter("bands", 40, 40);
+        for (int i = 0; i < 40; ++i)
+            for (int j = 0; j < 40; ++j)
+                image.writePixel(j, i, new Color(j * 6, i * 6, 100));
+        int size = PixelManager.TILE_SIZE;
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Tiles across bands of 5 rows are saved and restored
+        try (Checkpoint checkpoint = new Checkpoint(file, 40, 40, 1, false, 0, 4 * 40 * 5)) {
+            for (int y = 0; y < 40; y += size)
+                for (int x = 0; x < 40; x += size)
+                    checkpoint.tileDone(new PixelManager.Tile(x, y, Math.min(size, 40 - x), Math.min(size, 40 - y)),
+                            image);
+        }
+        ImageWriter restored = new ImageWriter("restored", 40, 40);
+        try (Checkpoint checkpoint = new Checkpoint(file, 40, 40, 1, true, 0, 4 * 40 * 5)) {
+            assertEquals(9, checkpoint.getSavedTiles(), "Wrong amount of saved tiles");
+            checkpoint.restore(restored);
+        }
+        assertSameImage(image, restored, "Wrong pixel restored from the bands");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: A band smaller than a row holds a single row
+        restored = new ImageWriter("restored", 40, 40);
+        try (Checkpoint checkpoint = new Checkpoint(file, 40, 40, 1, true, 0, 1)) {
+            checkpoint.restore(restored);
+        }
+        assertSameImage(image, restored, "Wrong pixel restored from bands of a row");
+        Files.delete(file);
+    }
+}
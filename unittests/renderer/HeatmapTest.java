@@ -0,0 +1,88 @@
+package renderer;
+
+import geometries.Sphere;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.io.File;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for renderer.Heatmap class
+ */
+class HeatmapTest {
+
+    /**
+     * Builds a camera over a glass sphere in front of a light, rendering into a small image.
+     *
+     * @param measure    the cost recorded for each pixel
+     * @param statistics the statistics of the camera, or null
+     * @return the camera
+     */
+    private Camera camera(Heatmap.Measure measure, RenderStatistics statistics) {
+        Scene scene = new Scene("heatmap");
+        scene.geometries.add(new Sphere(new Point(0, 0, -50), 10)
+                .setMaterial(new Material().setKD(0.3).setKS(0.3).setKR(0.3).setKT(0.5)));
+        scene.lights.add(new PointLight(new Color(300, 300, 300), new Point(20, 30, 0)));
+        return Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setImageWriter(new ImageWriter("heatmapTest", 10, 10))
+                .setLocation(new Point(0, 0, 50))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpSize(40, 40).setVpDistance(50)
+                .setHeatmap(measure)
+                .setStatistics(statistics)
+                .build();
+    }
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#setHeatmap(Heatmap.Measure)}.
+     */
+    @Test
+    void testHeatmap() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: The work of a pixel on the glass sphere is larger than the work of a pixel of the background
+        Camera camera = camera(Heatmap.Measure.WORK, null).renderImage();
+        Heatmap heatmap = camera.getHeatmap();
+        assertEquals(Heatmap.Measure.WORK, heatmap.getMeasure(), "Wrong measure");
+        assertEquals(10, heatmap.getNx(), "Wrong heatmap width");
+        assertEquals(10, heatmap.getNy(), "Wrong heatmap height");
+        assertTrue(heatmap.getCost(5, 5) > heatmap.getCost(0, 0), "The sphere is not hotter than the background");
+        for (int i = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j)
+                assertTrue(heatmap.getCost(j, i) > 0, "A pixel without work");
+
+        //TC02: The work adds up to the statistics of the camera
+        RenderStatistics statistics = new RenderStatistics();
+        heatmap = camera(Heatmap.Measure.WORK, statistics).renderImage().getHeatmap();
+        long work = 0;
+        for (int i = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j)
+                work += heatmap.getCost(j, i);
+        assertEquals(statistics.getPrimaryRays() + statistics.getShadowRays() + statistics.getSecondaryRays()
+                + statistics.getIntersectionTests(), work, "The work does not add up to the statistics");
+
+        //TC03: Time of each pixel, and the heatmap image written next to the image
+        camera = camera(Heatmap.Measure.TIME, null).renderImage();
+        for (int i = 0; i < 10; ++i)
+            for (int j = 0; j < 10; ++j)
+                assertTrue(camera.getHeatmap().getCost(j, i) > 0, "A pixel without time");
+        File file = new File(System.getProperty("user.dir") + "/images/heatmapTest_heatmap.png");
+        file.delete();
+        camera.writeToImage();
+        assertTrue(file.exists(), "The heatmap image was not written");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: The ends of the false colours, clamped outside
+        assertEquals(new Color(0, 0, 255).getColor(), Heatmap.falseColor(0).getColor(), "Wrong coldest colour");
+        assertEquals(new Color(255, 0, 0).getColor(), Heatmap.falseColor(1).getColor(), "Wrong hottest colour");
+        assertEquals(Heatmap.falseColor(0).getColor(), Heatmap.falseColor(-1).getColor(), "Not clamped below");
+        assertEquals(Heatmap.falseColor(1).getColor(), Heatmap.falseColor(5).getColor(), "Not clamped above");
+
+        //TC11: A camera without a measure records no heatmap
+        assertNull(camera(null, null).renderImage().getHeatmap(), "A heatmap without a measure");
+    }
+}
@@ -3,6 +3,16 @@ package renderer;
 import org.junit.jupiter.api.Test;
 import primitives.Color;
 
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
 
 public class ImageWriterTest {
 
@@ -53,4 +63,57 @@ public class ImageWriterTest {
 
         imageWriter.writeToImage();
     }
+
+    /**
+     * Test method for {@link renderer.ImageWriter#ImageWriter(String, int, int, Path)}.
+     */
+    @Test
+    public void testOutOfCore() throws IOException {
+        Path directory = Files.createTempDirectory("framebuffer");
+        directory.toFile().deleteOnExit();
+        Path file = directory.resolve("image.rgb");
+        file.toFile().deleteOnExit();
+        int width = 300;
+        int height = 70;
+
+        ImageWriter heap = new ImageWriter("heap", width, height);
+        ImageWriter mapped = new ImageWriter("mapped", width, height, file);
+        for (int i = 0; i < height; i++)
+            for (int j = 0; j < width; j++) {
+                Color color = new Color(j % 256, i * 3, (i * j) % 256);
+                heap.writePixel(j, i, color);
+                mapped.writePixel(j, i, color);
+            }
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: The mapped framebuffer holds the pixels, in a file of 4 bytes per pixel
+        assertEquals(4L * width * height, Files.size(file), "Wrong size of the framebuffer file");
+        for (int i = 0; i < height; i++)
+            for (int j = 0; j < width; j++)
+                assertEquals(heap.getRgb(j, i), mapped.getRgb(j, i), "Wrong pixel (" + j + ", " + i + ")");
+
+        //TC02: The streamed png decodes to the pixels
+        ByteArrayOutputStream out = new ByteArrayOutputStream();
+        mapped.writeTo(out);
+        BufferedImage decoded = ImageIO.read(new ByteArrayInputStream(out.toByteArray()));
+        assertEquals(width, decoded.getWidth(), "Wrong width of the png");
+        assertEquals(height, decoded.getHeight(), "Wrong height of the png");
+        for (int i = 0; i < height; i++)
+            for (int j = 0; j < width; j++)
+                assertEquals(heap.getRgb(j, i), decoded.getRGB(j, i), "Wrong encoded pixel (" + j + ", " + i + ")");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: A single pixel image
+        ImageWriter single = new ImageWriter("single", 1, 1, file);
+        single.writePixel(0, 0, new Color(java.awt.Color.RED));
+        out.reset();
+        single.writeTo(out);
+        assertEquals(java.awt.Color.RED.getRGB(),
+                ImageIO.read(new ByteArrayInputStream(out.toByteArray())).getRGB(0, 0), "Wrong single pixel");
+
+        //TC11: A framebuffer in a missing directory
+        assertThrows(IllegalStateException.class,
+                () -> new ImageWriter("missing", 1, 1, directory.resolve("missing").resolve("image.rgb")),
+                "Mapped a framebuffer in a missing directory");
+    }
 }
@@ -0,0 +1,119 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.AmbientLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.CompiledScene;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Testing the preview ray tracers, which share one compiled scene and one camera
+ */
+public class PreviewTests {
+    /**
+     * Scene of the tests - a shiny sphere resting on a floor
+     */
+    private final Scene scene = new Scene("Preview scene")
+            .setAmbientLight(new AmbientLight(new Color(255, 255, 255), 0.1));
+
+    /**
+     * Builds the scene of the tests.
+     */
+    public PreviewTests() {
+        scene.geometries.add(
+                new Sphere(new Point(0, 0, -100), 50).setEmission(new Color(20, 20, 100))
+                        .setMaterial(new Material().setKD(0.4).setKS(0.3).setShininess(50).setKR(0.3)),
+                new Plane(new Point(0, -50, 0), new Vector(0, 1, 0)).setEmission(new Color(40, 40, 40))
+                        .setMaterial(new Material().setKD(0.6)));
+        scene.lights.add(new SpotLight(new Color(700, 400, 400), new Point(60, 100, 0), new Vector(-1, -2, -2))
+                .setKL(4E-5).setKQ(2E-7));
+    }
+
+    /**
+     * Produce pictures of the scene with every preview ray tracer and the full one
+     */
+    @Test
+    public void previews() {
+        CompiledScene compiled = scene.compile();
+        Camera camera = Camera.getBuilder()
+                .setDirection(new Vector(0, -0.2, -1), new Vector(0, 1, -0.2))
+                .setLocation(new Point(0, 60, 400)).setVpDistance(500)
+                .setVpSize(200, 200)
+                .setImageWriter(new ImageWriter("previewFull", 300, 300))
+                .setRayTracer(new SimpleRayTracer(compiled))
+                .build();
+        camera.renderImage().writeToImage();
+
+        RayTracerBase[] previews = {
+                new NormalsRayTracer(compiled),
+                new AlbedoRayTracer(compiled),
+                new AmbientOcclusionRayTracer(compiled, 16, 100),
+                new DirectLightingRayTracer(compiled)
+        };
+        String[] names = {"previewNormals", "previewAlbedo", "previewAmbientOcclusion", "previewDirect"};
+        for (int i = 0; i < previews.length; ++i) {
+            Camera preview = Camera.getBuilder()
+                    .setDirection(new Vector(0, -0.2, -1), new Vector(0, 1, -0.2))
+                    .setLocation(new Point(0, 60, 400)).setVpDistance(500)
+                    .setVpSize(200, 200)
+                    .setImageWriter(new ImageWriter(names[i], 300, 300))
+                    .setRayTracer(new SimpleRayTracer(compiled))
+                    .build();
+            preview.renderImage(previews[i]).writeToImage();
+        }
+    }
+
+    /**
+     * Test the colors of the preview ray tracers
+     */
+    @Test
+    public void previewColors() {
+        CompiledScene compiled = scene.compile();
+        Ray top = new Ray(new Point(0, 200, -100), new Vector(0, -1, 0));
+        Ray floor = new Ray(new Point(300, 200, -100), new Vector(0, -1, 0));
+        Ray miss = new Ray(new Point(0, 200, -100), new Vector(0, 1, 0));
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: The normal at the top of the sphere is up
+        assertEquals(new Double3(127.5, 255, 127.5), new NormalsRayTracer(compiled).traceRay(top).getRgb(),
+                "Wrong normal color");
+
+        //TC02: The albedo is the emission plus the diffuse white
+        assertEquals(new Double3(122, 122, 202), new AlbedoRayTracer(compiled).traceRay(top).getRgb(),
+                "Wrong albedo color");
+
+        //TC03: Open floor is not occluded, while the floor right next to the sphere is
+        AmbientOcclusionRayTracer occlusion = new AmbientOcclusionRayTracer(compiled, 64, 100);
+        assertEquals(new Double3(255), occlusion.traceRay(floor).getRgb(), "Open floor must not be occluded");
+        // the floor under the sphere, 10 from its contact point: the sphere covers all but about 5.7% of the
+        // cosine-weighted hemisphere, so 64 samples stay within a few standard deviations of it - far below 200
+        Ray contact = new Ray(new Point(0, -45, 0), new Vector(0, -5, -90));
+        double unoccluded = occlusion.traceRay(contact).getRgb().getD1() / 255;
+        assertEquals(0.057, unoccluded, 5 * Math.sqrt(0.057 * 0.943 / 64), "Wrong occlusion next to the sphere");
+        assertTrue(unoccluded < 200.0 / 255, "Floor next to the sphere must be occluded");
+
+        //TC04: Direct lighting ignores the reflection of the floor in the lower part of the sphere
+        Ray lower = new Ray(new Point(0, -30, 100), new Vector(0, 0, -1));
+        Color direct = new DirectLightingRayTracer(compiled).traceRay(lower);
+        Color full = new SimpleRayTracer(compiled).traceRay(lower);
+        assertTrue(direct.getRgb().lowerThan(full.getRgb()), "Direct lighting must not include reflections");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: A ray which misses everything gets the background
+        assertEquals(scene.background.getRgb(), new NormalsRayTracer(compiled).traceRay(miss).getRgb(),
+                "Missing ray must get the background");
+        assertEquals(scene.background.getRgb(), new AmbientOcclusionRayTracer(compiled, 4, 10).traceRay(miss).getRgb(),
+                "Missing ray must get the background");
+
+        //TC11: Illegal ambient occlusion parameters
+        assertThrows(IllegalArgumentException.class, () -> new AmbientOcclusionRayTracer(compiled, 0, 10),
+                "Zero samples");
+        assertThrows(IllegalArgumentException.class, () -> new AmbientOcclusionRayTracer(compiled, 4, 0),
+                "Zero distance");
+    }
+}
@@ -0,0 +1,121 @@
+package renderer;
+
+import geometries.Sphere;
+import geometries.TriangleMesh;
+import jdk.jfr.Recording;
+import jdk.jfr.consumer.RecordedEvent;
+import jdk.jfr.consumer.RecordingFile;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for the flight recorder events of the rendering
+ */
+class RenderEventsTest {
+
+    /**
+     * The names of the events of the ray tracer
+     */
+    private static final List<String> EVENTS = List.of("scene.Compile", "geometries.BvhBuild", "renderer.Tile",
+            "renderer.ImageEncode", "renderer.WriteImage");
+
+    /**
+     * Test method for the events of {@link renderer.Camera#renderImage()} and {@link renderer.Camera#writeToImage()}.
+     *
+     * @throws IOException if the recording cannot be written or read
+     */
+    @Test
+    void testEvents() throws IOException {
+        Scene scene = new Scene("events");
+        scene.geometries.add(new Sphere(new Point(0, 0, -50), 10));
+        Camera camera = Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setImageWriter(new ImageWriter("eventsTest", 40, 20))
+                .setLocation(new Point(0, 0, 50))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpSize(40, 20).setVpDistance(50)
+                .setNumberOfRays(2)
+                .setThreadsCount(2)
+                .build();
+
+        Path file = Files.createTempFile("render", ".jfr");
+        try (Recording recording = new Recording()) {
+            for (String name : EVENTS)
+                recording.enable(name).withThreshold(Duration.ZERO);
+            recording.start();
+            camera.renderImage().writeToImage();
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: One event of each phase
+        for (String name : List.of("scene.Compile", "renderer.ImageEncode", "renderer.WriteImage"))
+            assertEquals(1, count(events, name), "Wrong count of " + name + " events");
+        assertTrue(count(events, "geometries.BvhBuild") >= 1, "No accelerator build event");
+        RecordedEvent compile = events.stream()
+                .filter(event -> event.getEventType().getName().equals("scene.Compile")).findFirst().orElseThrow();
+        assertEquals("events", compile.getString("sceneName"), "Wrong scene name");
+        assertEquals(1, compile.getInt("geometries"), "Wrong geometry count");
+
+        //TC02: The tiles cover the image once, with 4 rays per pixel
+        assertEquals(6, count(events, "renderer.Tile"), "Wrong tile count");
+        long pixels = 0, rays = 0;
+        for (RecordedEvent event : events)
+            if (event.getEventType().getName().equals("renderer.Tile")) {
+                pixels += (long) event.getInt("width") * event.getInt("height");
+                rays += event.getLong("primaryRays");
+            }
+        assertEquals(800, pixels, "The tiles do not cover the image");
+        assertEquals(3200, rays, "Wrong ray count of the tiles");
+    }
+
+    /**
+     * Test method for the accelerator build event of {@link geometries.TriangleMesh}.
+     *
+     * @throws IOException if the recording cannot be written or read
+     */
+    @Test
+    void testMeshBvhEvent() throws IOException {
+        Path file = Files.createTempFile("mesh", ".jfr");
+        try (Recording recording = new Recording()) {
+            recording.enable("geometries.BvhBuild").withThreshold(Duration.ZERO);
+            recording.start();
+            new TriangleMesh(new double[]{0, 0, 0, 1, 0, 0, 0, 1, 0, 1, 1, 0}, new int[]{0, 1, 2, 1, 3, 2});
+            recording.stop();
+            recording.dump(file);
+        }
+        List<RecordedEvent> events = RecordingFile.readAllEvents(file);
+        Files.delete(file);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: One build event over the triangles of the mesh
+        assertEquals(1, count(events, "geometries.BvhBuild"), "Wrong count of accelerator build events");
+        RecordedEvent build = events.getFirst();
+        assertEquals(2, build.getInt("bounded"), "Wrong triangle count");
+        assertEquals(0, build.getInt("unbounded"), "A mesh has no unbounded primitives");
+        assertTrue(build.getInt("nodes") >= 1, "No nodes in the mesh BVH");
+    }
+
+    /**
+     * Counts the events of a type.
+     *
+     * @param events the events
+     * @param name   the name of the type
+     * @return the count
+     */
+    private static long count(List<RecordedEvent> events, String name) {
+        return events.stream().filter(event -> event.getEventType().getName().equals(name)).count();
+    }
+}
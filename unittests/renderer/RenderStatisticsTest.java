@@ -0,0 +1,132 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Sphere;
+import geometries.TriangleMesh;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for renderer.RenderStatistics class
+ */
+class RenderStatisticsTest {
+
+    /**
+     * Builds a camera over a scene, rendering into a small image with 2x2 rays per pixel.
+     *
+     * @param scene      the scene
+     * @param statistics the statistics of the camera, or null
+     * @return the camera
+     */
+    private Camera camera(Scene scene, RenderStatistics statistics) {
+        return Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(scene))
+                .setImageWriter(new ImageWriter("statistics", 10, 10))
+                .setLocation(new Point(0, 0, 50))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpSize(40, 40).setVpDistance(50)
+                .setNumberOfRays(2)
+                .setStatistics(statistics)
+                .build();
+    }
+
+    /**
+     * Builds a square grid mesh facing the camera, of n x n cells of two triangles each.
+     *
+     * @param n    the amount of cells along each side
+     * @param half half the side of the grid
+     * @param z    the depth of the grid
+     * @return the mesh
+     */
+    private TriangleMesh grid(int n, double half, double z) {
+        double[] vertices = new double[3 * (n + 1) * (n + 1)];
+        for (int i = 0, v = 0; i <= n; ++i)
+            for (int j = 0; j <= n; ++j) {
+                vertices[v++] = -half + 2 * half * j / n;
+                vertices[v++] = -half + 2 * half * i / n;
+                vertices[v++] = z;
+            }
+        int[] indices = new int[6 * n * n];
+        for (int i = 0, t = 0; i < n; ++i)
+            for (int j = 0; j < n; ++j) {
+                int corner = i * (n + 1) + j;
+                indices[t++] = corner;
+                indices[t++] = corner + 1;
+                indices[t++] = corner + n + 1;
+                indices[t++] = corner + 1;
+                indices[t++] = corner + n + 2;
+                indices[t++] = corner + n + 1;
+            }
+        return new TriangleMesh(vertices, indices);
+    }
+
+    /**
+     * Test method for {@link renderer.Camera.Builder#setStatistics(RenderStatistics)}.
+     */
+    @Test
+    void testStatistics() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: A lone sphere without lights - one node and at most one test for each primary ray
+        Scene lone = new Scene("lone");
+        lone.geometries.add(new Sphere(new Point(0, 0, -50), 10));
+        RenderStatistics statistics = new RenderStatistics();
+        camera(lone, statistics).renderImage();
+        assertEquals(100, statistics.getPixels(), "Wrong pixel count");
+        assertEquals(400, statistics.getPrimaryRays(), "Wrong primary ray count");
+        assertEquals(4, statistics.getSamplesPerPixel(), "Wrong samples per pixel");
+        assertEquals(400, statistics.getNodeVisits(), "Wrong node visit count");
+        long tests = statistics.getIntersectionTests(Sphere.class);
+        long hits = statistics.getIntersectionHits(Sphere.class);
+        assertTrue(hits > 0 && hits < tests && tests <= 400, "Wrong sphere test and hit counts");
+        assertEquals(0, statistics.getShadowRays() + statistics.getSecondaryRays(), "Counted rays which were not cast");
+
+        //TC02: Shadow, reflected and refracted rays, and the tests of each class
+        Scene scene = new Scene("rays");
+        scene.geometries.add(
+                new Sphere(new Point(0, 0, -50), 10).setMaterial(new Material().setKD(0.5).setKR(0.3).setKT(0.3)),
+                new Plane(new Point(0, -10, 0), new Vector(0, 1, 0)).setMaterial(new Material().setKD(0.5)));
+        scene.lights.add(new PointLight(new Color(300, 300, 300), new Point(20, 30, 0)));
+        statistics.reset();
+        camera(scene, statistics).renderImage();
+        assertTrue(statistics.getShadowRays() > 0, "No shadow rays were counted");
+        assertTrue(statistics.getReflectionRays() > 0, "No reflection rays were counted");
+        assertTrue(statistics.getRefractionRays() > 0, "No refraction rays were counted");
+        assertEquals(statistics.getReflectionRays() + statistics.getRefractionRays(), statistics.getSecondaryRays(),
+                "Wrong secondary ray count");
+        assertTrue(statistics.getGeometryClasses().containsAll(List.of(Plane.class, Sphere.class)),
+                "Missing geometry classes");
+        assertEquals(statistics.getIntersectionTests(Plane.class) + statistics.getIntersectionTests(Sphere.class),
+                statistics.getIntersectionTests(), "Wrong total test count");
+        assertTrue(statistics.summary().contains("Sphere"), "The summary misses the sphere tests");
+
+        //TC03: A mesh counts a test of each tested triangle, and the nodes of its own BVH
+        Scene meshScene = new Scene("mesh");
+        meshScene.geometries.add(grid(8, 40, -50));
+        statistics.reset();
+        camera(meshScene, statistics).renderImage();
+        long triangleTests = statistics.getIntersectionTests(TriangleMesh.class);
+        long triangleHits = statistics.getIntersectionHits(TriangleMesh.class);
+        assertTrue(triangleHits >= 400, "A primary ray missed the triangles of the mesh");
+        assertTrue(triangleTests > triangleHits, "The missed triangles of the mesh were not counted");
+        assertTrue(statistics.getNodeVisits() > 400, "The nodes of the mesh BVH were not counted");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: Reset counters
+        statistics.reset();
+        assertEquals(0, statistics.getPrimaryRays() + statistics.getIntersectionTests() + statistics.getNodeVisits(),
+                "The counters were not reset");
+        assertEquals(0, statistics.getSamplesPerPixel(), "Samples per pixel without pixels");
+
+        //TC11: A camera without statistics counts nothing
+        Camera uncounted = camera(scene, null);
+        uncounted.renderImage();
+        assertNull(uncounted.getStatistics(), "A camera without statistics has statistics");
+        assertEquals(0, statistics.getPrimaryRays(), "Counted a rendering without statistics");
+    }
+}
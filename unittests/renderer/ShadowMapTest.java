@@ -0,0 +1,134 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Sphere;
+import lighting.DirectionalLight;
+import lighting.SpotLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.CompiledScene;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for renderer.ShadowMap class
+ */
+class ShadowMapTest {
+
+    /**
+     * The normal of the floor in the tests
+     */
+    private static final Vector UP = new Vector(0, 0, 1);
+
+    /**
+     * Builds a scene of a floor under a sphere.
+     *
+     * @param sphereMaterial the material of the sphere
+     * @return the scene
+     */
+    private Scene floorScene(Material sphereMaterial) {
+        Scene scene = new Scene("shadow map");
+        scene.geometries.add(
+                new Plane(Point.ZERO, UP).setMaterial(new Material().setKD(0.5)),
+                new Sphere(new Point(0, 0, 20), 5).setMaterial(sphereMaterial));
+        return scene;
+    }
+
+    /**
+     * Test method for {@link renderer.ShadowMap#visibility(Point, Vector, Vector)} of a spotlight.
+     */
+    @Test
+    void testSpotLight() {
+        SpotLight light = new SpotLight(new Color(100, 100, 100), new Point(0, 0, 50), new Vector(0, 0, -1))
+                .setShadowMap(256);
+        CompiledScene compiled = floorScene(new Material()).compile();
+        ShadowMap map = ShadowMap.build(compiled, light, 0.1);
+        Point umbra = new Point(0, 0, 0);
+        Point lit = new Point(30, 0, 0);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: A point under the sphere is shadowed
+        assertEquals(Double3.ZERO, map.visibility(umbra, UP, light.getL(umbra)), "Umbra is lit");
+
+        //TC02: A point away from the sphere is lit
+        assertEquals(Double3.ONE, map.visibility(lit, UP, light.getL(lit)), "Lit point is shadowed");
+
+        //TC03: A point at the edge of the shadow is partly lit
+        Point edge = new Point(0, 0, 0);
+        for (double x = 0; x < 20; x += 0.05) {
+            edge = new Point(x, 0, 0);
+            if (!map.visibility(edge, UP, light.getL(edge)).equals(Double3.ZERO)) break;
+        }
+        Double3 partial = map.visibility(edge, UP, light.getL(edge));
+        assertTrue(partial.getD1() > 0 && partial.getD1() < 1, "The shadow edge is not filtered");
+
+        //TC04: A point outside the view of the map has no answer
+        Point outside = new Point(200, 0, 0);
+        assertNull(map.visibility(outside, UP, light.getL(outside)), "Answered outside the map");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: A spotlight without a shadow map, and wrong settings
+        assertNull(ShadowMap.build(compiled, new SpotLight(new Color(1, 1, 1), Point.ZERO, UP), 0.1),
+                "Built a map for a light without one");
+        assertThrows(IllegalArgumentException.class, () -> light.setShadowMap(-1), "Accepted negative resolution");
+        assertThrows(IllegalArgumentException.class, () -> light.setShadowMapAngle(90), "Accepted a 90 degrees angle");
+    }
+
+    /**
+     * Test method for {@link renderer.ShadowMap#visibility(Point, Vector, Vector)} of a directional light.
+     */
+    @Test
+    void testDirectionalLight() {
+        DirectionalLight light = new DirectionalLight(new Color(100, 100, 100), new Vector(0, 0, -1))
+                .setShadowMap(128);
+        CompiledScene compiled = floorScene(new Material()).compile();
+        ShadowMap map = ShadowMap.build(compiled, light, 0.1);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: A point under the sphere is shadowed
+        assertEquals(Double3.ZERO, map.visibility(new Point(2, 1, 0), UP, light.getDirection()), "Umbra is lit");
+
+        //TC02: The top of the sphere itself is lit
+        assertEquals(Double3.ONE, map.visibility(new Point(0, 0, 25), UP, light.getDirection()), "Self-shadowed");
+
+        //TC03: A point outside the window of the map (beyond the bounded geometries) has no answer
+        assertNull(map.visibility(new Point(30, 0, 0), UP, light.getDirection()), "Answered outside the map");
+
+        //TC04: A sphere which is not opaque gives no answer under it
+        CompiledScene glass = floorScene(new Material().setKT(0.5)).compile();
+        assertNull(ShadowMap.build(glass, light, 0.1).visibility(Point.ZERO, UP, light.getDirection()),
+                "Answered under a transparent geometry");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: No bounded geometries - no map
+        Scene planes = new Scene("planes");
+        planes.geometries.add(new Plane(Point.ZERO, UP));
+        assertNull(ShadowMap.build(planes.compile(), light, 0.1), "Built a map of unbounded geometries");
+    }
+
+    /**
+     * Test method for shadow maps in {@link renderer.SimpleRayTracer}.
+     */
+    @Test
+    void testRayTracer() {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Shadow maps give the colors of shadow rays, away from the shadow edges
+        Scene rays = floorScene(new Material());
+        rays.lights.add(new SpotLight(new Color(100, 100, 100), new Point(0, 0, 50), new Vector(0, 0, -1)));
+        rays.lights.add(new DirectionalLight(new Color(50, 50, 50), new Vector(1, 0, -1)));
+        Scene maps = floorScene(new Material());
+        maps.lights.add(new SpotLight(new Color(100, 100, 100), new Point(0, 0, 50), new Vector(0, 0, -1))
+                .setShadowMap(256));
+        maps.lights.add(new DirectionalLight(new Color(50, 50, 50), new Vector(1, 0, -1)).setShadowMap(256));
+        SimpleRayTracer rayTracer = new SimpleRayTracer(rays);
+        SimpleRayTracer mapTracer = new SimpleRayTracer(maps);
+        mapTracer.compile();
+        for (double x : new double[]{0, 15, 30})
+            for (double y : new double[]{-1, 1}) {
+                Ray ray = new Ray(new Point(x, y, 10), new Vector(0.01, 0.01, -1));
+                assertEquals(rayTracer.traceRay(ray).getRgb(), mapTracer.traceRay(ray).getRgb(),
+                        "Different color at " + x + "," + y);
+            }
+    }
+}
@@ -9,11 +9,14 @@ import org.junit.jupiter.api.Test;
 import primitives.Color;
 import primitives.Material;
 import primitives.Point;
+import primitives.Ray;
 import primitives.Vector;
 import scene.Scene;
 
 import static java.awt.Color.BLUE;
 import static java.awt.Color.WHITE;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
 
 /**
  * Testing basic shadows
@@ -25,6 +28,10 @@ public class ShadowTests {
      * Scene of the tests
      */
     private final Scene scene = new Scene("Test scene");
+    /**
+     * Ray tracer of the tests
+     */
+    private final SimpleRayTracer rayTracer = new SimpleRayTracer(scene);
     /**
      * Camera builder of the tests
      */
@@ -32,7 +39,7 @@ public class ShadowTests {
             .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
             .setLocation(new Point(0, 0, 1000)).setVpDistance(1000)
             .setVpSize(200, 200)
-            .setRayTracer(new SimpleRayTracer(scene));
+            .setRayTracer(rayTracer);
 
     /**
      * The sphere in the tests
@@ -53,6 +60,21 @@ public class ShadowTests {
      * @param spotLocation the spotlight location in the test
      */
     private void sphereTriangleHelper(String pictName, Triangle triangle, Point spotLocation) {
+        sphereTriangleScene(scene, triangle, spotLocation);
+        camera.setImageWriter(new ImageWriter(pictName, 400, 400))
+                .build()
+                .renderImage() //
+                .writeToImage();
+    }
+
+    /**
+     * Fills a scene with the sphere and a triangle lighted by a spot light
+     *
+     * @param scene        the scene to fill
+     * @param triangle     the triangle in the test
+     * @param spotLocation the spotlight location in the test
+     */
+    private void sphereTriangleScene(Scene scene, Triangle triangle, Point spotLocation) {
         scene.geometries.add(sphere, triangle.setEmission(new Color(BLUE)).setMaterial(trMaterial));
         scene.lights.add( //
                 new SpotLight(
@@ -60,10 +82,6 @@ public class ShadowTests {
                         spotLocation,
                         new Vector(1, 1, -3)
                 ).setKL(1E-5).setKQ(1.5E-7));
-        camera.setImageWriter(new ImageWriter(pictName, 400, 400))
-                .build()
-                .renderImage() //
-                .writeToImage();
     }
 
     /**
@@ -143,6 +161,88 @@ public class ShadowTests {
      */
     @Test
     public void trianglesSphere() {
+        trianglesSphereScene();
+        camera.setImageWriter(new ImageWriter("shadowTrianglesSphere", 600, 600))
+                .build()
+                .renderImage()
+                .writeToImage();
+    }
+
+    /**
+     * Produce the picture of two triangles and a sphere with the shadow of a shadow-mapped spotlight
+     */
+    @Test
+    public void trianglesSphereShadowMap() {
+        trianglesSphereScene();
+        ((SpotLight) scene.lights.getFirst()).setShadowMap(1024);
+        camera.setImageWriter(new ImageWriter("shadowTrianglesSphereShadowMap", 600, 600))
+                .build()
+                .renderImage()
+                .writeToImage();
+    }
+
+    /**
+     * Checks the rate of the shadow rays blocked by the cached occluder over the scenes of the shadow tests,
+     * and that the cache does not change the colors
+     */
+    @Test
+    public void shadowCacheHitRate() {
+        Triangle[] triangles = {
+                new Triangle(new Point(-70, -40, 0), new Point(-40, -70, 0), new Point(-68, -68, -4)),
+                new Triangle(new Point(-62, -32, 0), new Point(-32, -62, 0), new Point(-60, -60, -4)),
+                new Triangle(new Point(-50, -20, 0), new Point(-20, -50, 0), new Point(-48, -48, -4)),
+                new Triangle(new Point(-70, -40, 0), new Point(-40, -70, 0), new Point(-68, -68, -4)),
+                new Triangle(new Point(-70, -40, 0), new Point(-40, -70, 0), new Point(-68, -68, -4))};
+        Point[] spots = {new Point(-100, -100, 200), new Point(-100, -100, 200), new Point(-100, -100, 200),
+                new Point(-90, -90, 130), new Point(-80, -80, 100)};
+        long hits = 0;
+        long lookups = 0;
+        for (int t = 0; t < triangles.length; ++t) {
+            Scene sphereTriangle = new Scene("Shadow cache scene " + t);
+            sphereTriangleScene(sphereTriangle, triangles[t], spots[t]);
+            SimpleRayTracer tracer = new SimpleRayTracer(sphereTriangle);
+            assertHitRate(tracer, 0.1, "sphere and triangle " + t);
+            hits += tracer.getShadowCacheHits();
+            lookups += tracer.getShadowCacheLookups();
+        }
+
+        trianglesSphereScene();
+        assertHitRate(rayTracer, 0.3, "triangles and sphere");
+        hits += rayTracer.getShadowCacheHits();
+        lookups += rayTracer.getShadowCacheLookups();
+        assertTrue(hits >= 0.2 * lookups, "Low shadow cache hit rate over the shadow scenes");
+
+        SimpleRayTracer uncached = new SimpleRayTracer(scene).setShadowCache(false);
+        for (int x = -150; x <= 150; x += 5)
+            for (int y = -150; y <= 150; y += 5) {
+                Ray ray = new Ray(new Point(0, 0, 1000), new Vector(x, y, -1000));
+                assertEquals(uncached.traceRay(ray).getRgb(), rayTracer.traceRay(ray).getRgb(),
+                        "The shadow cache changed the color");
+            }
+    }
+
+    /**
+     * Renders a scene and asserts the rate of the shadow cache hits
+     *
+     * @param tracer  the ray tracer of the scene
+     * @param minRate the minimal rate of hits among the lookups
+     * @param name    the name of the scene
+     */
+    private void assertHitRate(SimpleRayTracer tracer, double minRate, String name) {
+        camera.setRayTracer(tracer)
+                .setImageWriter(new ImageWriter("shadowCacheHitRate", 200, 200))
+                .build()
+                .renderImage();
+        long hits = tracer.getShadowCacheHits();
+        long lookups = tracer.getShadowCacheLookups();
+        assertTrue(hits <= lookups, "Wrong shadow cache counters of " + name);
+        assertTrue(hits >= minRate * lookups && lookups > 0, "Low shadow cache hit rate of " + name);
+    }
+
+    /**
+     * Fills the scene with two triangles lighted by a spot light with a Sphere between them
+     */
+    private void trianglesSphereScene() {
         scene.geometries.add(
                 new Triangle(
                         new Point(-150, -150, -115),
@@ -162,11 +262,6 @@ public class ShadowTests {
         scene.lights.add(
                 new SpotLight(new Color(700, 400, 400), new Point(40, 40, 115), new Vector(-1, -1, -4)) //
                         .setKL(4E-4).setKQ(2E-5));
-
-        camera.setImageWriter(new ImageWriter("shadowTrianglesSphere", 600, 600))
-                .build()
-                .renderImage()
-                .writeToImage();
     }
 
 }
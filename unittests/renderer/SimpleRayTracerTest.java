@@ -0,0 +1,182 @@
+package renderer;
+
+import geometries.Plane;
+import geometries.Polygon;
+import geometries.Sphere;
+import lighting.PointLight;
+import lighting.RectangleLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import scene.Scene;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for renderer.SimpleRayTracer class
+ */
+class SimpleRayTracerTest {
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#setRussianRoulette(boolean)}.
+     */
+    @Test
+    void testRussianRoulette() {
+        // Two emitting mirrors facing each other - the ray bounces between them until the last level
+        Scene scene = new Scene("mirrors");
+        Material mirror = new Material().setKR(0.6);
+        scene.geometries.add(
+                new Plane(new Point(0, 0, 0), new Vector(0, 0, 1)).setEmission(new Color(100, 0, 0)).setMaterial(mirror),
+                new Plane(new Point(0, 0, 10), new Vector(0, 0, -1)).setEmission(new Color(0, 100, 0)).setMaterial(mirror));
+        Ray ray = new Ray(new Point(0, 0, 5), new Vector(0.1, 0, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Without Russian roulette the color is the sum of the attenuated emissions
+        Double3 exact = new SimpleRayTracer(scene).traceRay(ray).getRgb();
+        double red = 0, green = 0;
+        for (int level = 0; level < 10; ++level)
+            if (level % 2 == 0) red += 100 * Math.pow(0.6, level);
+            else green += 100 * Math.pow(0.6, level);
+        assertEquals(new Double3(red, green, 0), exact, "Wrong color of the inter-reflections");
+
+        //TC02: With Russian roulette the average color is the same
+        SimpleRayTracer roulette = new SimpleRayTracer(scene).setRussianRoulette(true);
+        final int samples = 20000;
+        Color sum = Color.BLACK;
+        for (int i = 0; i < samples; ++i)
+            sum = sum.add(roulette.traceRay(ray));
+        Double3 average = sum.reduce(samples).getRgb();
+        assertEquals(exact.getD1(), average.getD1(), 0.01 * exact.getD1(), "Russian roulette biased the red color");
+        assertEquals(exact.getD2(), average.getD2(), 0.01 * exact.getD2(), "Russian roulette biased the green color");
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#setAdaptiveShadows(boolean)}.
+     */
+    @Test
+    void testAdaptiveShadows() {
+        // A floor under a square occluder, lit by a rectangular light above the occluder
+        Material floor = new Material().setKD(1);
+        Polygon occluder = new Polygon(new Point(-5, -5, 5), new Point(5, -5, 5), new Point(5, 5, 5), new Point(-5, 5, 5));
+        Scene area = new Scene("area");
+        area.geometries.add(new Plane(Point.ZERO, new Vector(0, 0, 1)).setMaterial(floor), occluder);
+        area.lights.add(new RectangleLight(new Color(100, 100, 100), new Point(0, 0, 10),
+                new Vector(4, 0, 0), new Vector(0, 4, 0)).setSamples(64));
+        Scene point = new Scene("point");
+        point.geometries.add(new Plane(Point.ZERO, new Vector(0, 0, 1)).setMaterial(floor));
+        point.lights.add(new PointLight(new Color(100, 100, 100), new Point(0, 0, 10)));
+
+        SimpleRayTracer adaptive = new SimpleRayTracer(area);
+        SimpleRayTracer full = new SimpleRayTracer(area).setAdaptiveShadows(false);
+        // Rays grazing the floor under the occluder, hitting it at (x, 0, 0)
+        double[] xs = {0, 8.5, 50};
+        Ray[] rays = new Ray[xs.length];
+        for (int i = 0; i < xs.length; ++i)
+            rays[i] = new Ray(new Point(xs[i], -100, 1), new Vector(0, 100, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Under the occluder the floor is fully shadowed
+        assertEquals(Double3.ZERO, adaptive.traceRay(rays[0]).getRgb(), "Umbra is lit");
+        assertEquals(Double3.ZERO, full.traceRay(rays[0]).getRgb(), "Umbra is lit");
+
+        //TC02: Far from the occluder the floor is fully lit, as by a point light
+        Double3 lit = new SimpleRayTracer(point).traceRay(rays[2]).getRgb();
+        assertEquals(lit, adaptive.traceRay(rays[2]).getRgb(), "Wrong fully lit color");
+        assertEquals(lit, full.traceRay(rays[2]).getRgb(), "Wrong fully lit color");
+
+        //TC03: Near the edge of the occluder the floor is partly lit, as with the full sample count
+        Double3 penumbra = adaptive.traceRay(rays[1]).getRgb();
+        Double3 unshadowed = new SimpleRayTracer(point).traceRay(rays[1]).getRgb();
+        assertEquals(full.traceRay(rays[1]).getRgb(), penumbra, "Penumbra was not fully sampled");
+        assertTrue(penumbra.getD1() > 0 && penumbra.getD1() < unshadowed.getD1(), "Penumbra is not partly lit");
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#setLightCulling(double)}.
+     */
+    @Test
+    void testLightCulling() {
+        // A floor lit by a near light and by a far, strongly attenuated light
+        Scene scene = new Scene("culling");
+        scene.geometries.add(new Plane(Point.ZERO, new Vector(0, 0, 1)).setMaterial(new Material().setKD(1)));
+        scene.lights.add(new PointLight(new Color(100, 100, 100), new Point(0, 0, 10)));
+        scene.lights.add(new PointLight(new Color(100, 100, 100), new Point(0, 0, 1000)).setKQ(1));
+        Ray ray = new Ray(new Point(0, -100, 1), new Vector(0, 100, -1));
+        Double3 near = new Double3(100);
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: The far light is below half an 8-bit step and is skipped
+        assertEquals(near, new SimpleRayTracer(scene).setLightCulling(0.5).traceRay(ray).getRgb(),
+                "Negligible light was not skipped");
+
+        //TC02: The culling is off by default - the far light is added
+        Double3 all = new SimpleRayTracer(scene).traceRay(ray).getRgb();
+        assertEquals(near.getD1() + 1e-4, all.getD1(), 1e-9, "Light was skipped without culling");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: Negative threshold
+        assertThrows(IllegalArgumentException.class, () -> new SimpleRayTracer(scene).setLightCulling(-1),
+                "Accepted a negative threshold");
+    }
+
+    /**
+     * Test method for {@link renderer.SimpleRayTracer#setLightSamples(int)}.
+     */
+    @Test
+    void testLightSamples() {
+        // A floor lit by a row of lights of different intensities
+        Scene scene = new Scene("many lights");
+        scene.geometries.add(new Plane(Point.ZERO, new Vector(0, 0, 1)).setMaterial(new Material().setKD(0.5)));
+        for (int i = 0; i < 50; ++i)
+            scene.lights.add(new PointLight(new Color(10 + i, 20, 5 * i), new Point(i - 25, 0, 10)));
+        Ray ray = new Ray(new Point(0, -100, 1), new Vector(0, 100, -1));
+        Double3 exact = new SimpleRayTracer(scene).traceRay(ray).getRgb();
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: The average color of a few sampled lights is the color of all the lights
+        SimpleRayTracer sampled = new SimpleRayTracer(scene).setLightSamples(4);
+        final int samples = 5000;
+        Color sum = Color.BLACK;
+        for (int i = 0; i < samples; ++i)
+            sum = sum.add(sampled.traceRay(ray));
+        Double3 average = sum.reduce(samples).getRgb();
+        assertEquals(exact.getD1(), average.getD1(), 0.02 * exact.getD1(), "Light sampling biased the red color");
+        assertEquals(exact.getD2(), average.getD2(), 0.02 * exact.getD2(), "Light sampling biased the green color");
+        assertEquals(exact.getD3(), average.getD3(), 0.02 * exact.getD3(), "Light sampling biased the blue color");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: No more lights than samples - all the lights are used
+        assertEquals(exact, new SimpleRayTracer(scene).setLightSamples(50).traceRay(ray).getRgb(),
+                "Lights were sampled although all of them fit");
+
+        //TC11: Negative amount
+        assertThrows(IllegalArgumentException.class, () -> new SimpleRayTracer(scene).setLightSamples(-1),
+                "Accepted a negative amount");
+    }
+
+    /**
+     * Test method for light linking and shadow casting in {@link renderer.SimpleRayTracer#traceRay(Ray)}.
+     */
+    @Test
+    void testLightLinks() {
+        // A floor lit by two lights, under a sphere which may cast a shadow
+        PointLight key = new PointLight(new Color(100, 100, 100), new Point(0, 0, 10));
+        PointLight fill = new PointLight(new Color(0, 50, 0), new Point(0, 0, 10));
+        Ray ray = new Ray(new Point(0, -100, 1), new Vector(0, 100, -1));
+
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: The floor is lit only by the linked light
+        Scene scene = new Scene("links");
+        scene.geometries.add(new Plane(Point.ZERO, new Vector(0, 0, 1)).setMaterial(new Material().setKD(1))
+                .includeLights(key));
+        scene.lights.add(key);
+        scene.lights.add(fill);
+        assertEquals(new Double3(100), new SimpleRayTracer(scene).traceRay(ray).getRgb(), "Unlinked light lit the floor");
+
+        //TC02: A sphere which casts no shadows does not shadow the floor
+        scene = new Scene("casters");
+        scene.geometries.add(new Plane(Point.ZERO, new Vector(0, 0, 1)).setMaterial(new Material().setKD(1)),
+                new Sphere(new Point(0, 0, 5), 1).setCastsShadows(false));
+        scene.lights.add(key);
+        assertEquals(new Double3(100), new SimpleRayTracer(scene).traceRay(ray).getRgb(), "The sphere cast a shadow");
+    }
+}
@@ -0,0 +1,143 @@
+package scene;
+
+import geometries.*;
+import lighting.PointLight;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.CompiledScene class
+ */
+class CompiledSceneTest {
+
+    /**
+     * Test method for {@link scene.Scene#compile()}.
+     */
+    @Test
+    void testCompile() {
+        Sphere sphere = (Sphere) new Sphere(new Point(0, 0, -5), 1)
+                .setMaterial(new Material().setKD(0.5).setShininess(20));
+        Triangle triangle = (Triangle) new Triangle(new Point(-2, -2, -10), new Point(2, -2, -10), new Point(0, 2, -10))
+                .setMaterial(new Material().setKD(0.5).setShininess(20));
+        Plane plane = (Plane) new Plane(new Point(0, 0, -20), new Vector(0, 0, 1))
+                .setMaterial(new Material().setKT(0.3));
+        Scene scene = new Scene("compiled").setBackground(new Color(1, 2, 3));
+        scene.geometries.add(sphere, new Geometries(triangle, new Geometries(plane)));
+        scene.lights.add(new PointLight(new Color(100, 100, 100), new Point(0, 10, 0)));
+
+        // ============ Equivalence Partitions Tests ==============
+        CompiledScene compiled = scene.compile();
+
+        //TC01: Scene attributes and lights are kept
+        assertEquals("compiled", compiled.name, "Wrong name");
+        assertSame(scene.background, compiled.background, "Wrong background");
+        assertEquals(scene.lights, compiled.lights, "Wrong lights");
+        assertThrows(UnsupportedOperationException.class, () -> compiled.lights.clear(), "Lights must be immutable");
+
+        //TC02: The nested composites are flattened
+        assertEquals(3, compiled.geometries.size(), "Wrong geometry count");
+        assertEquals(4, compiled.geometries.findIntersections(new Ray(new Point(0, 0, 0), new Vector(0, 0, -1))).size(),
+                "Wrong intersections");
+
+        //TC03: Equal materials are interned
+        assertEquals(2, compiled.materials.size(), "Equal materials were not interned");
+        assertSame(compiled.getMaterial(sphere), compiled.getMaterial(triangle), "Equal materials were not interned");
+        assertNotSame(sphere.getMaterial(), triangle.getMaterial(), "The materials of the geometries were changed");
+
+        //TC04: The geometries may still be changed, the snapshot keeps their material and emission
+        Material kept = sphere.getMaterial();
+        sphere.setMaterial(new Material().setKD(0.9));
+        Color glow = new Color(5, 6, 7);
+        plane.setEmission(glow);
+        assertEquals(kept.kD, compiled.getMaterial(sphere).kD, "Snapshot material was changed");
+        assertSame(Color.BLACK, compiled.getEmission(plane), "Snapshot emission was changed");
+        CompiledScene changed = scene.compile();
+        assertEquals(new Double3(0.9), changed.getMaterial(sphere).kD, "Changed material was not compiled");
+        assertSame(glow, changed.getEmission(plane), "Changed emission was not compiled");
+
+        //TC05: The scene may still be extended and compiled again, the snapshot is not changed
+        scene.geometries.add(new Sphere(new Point(0, 0, -15), 1));
+        scene.lights.add(new PointLight(new Color(100, 100, 100), new Point(0, -10, 0)));
+        CompiledScene recompiled = scene.compile();
+        assertEquals(4, recompiled.geometries.size(), "New geometry was not compiled");
+        assertEquals(2, recompiled.lights.size(), "New light was not compiled");
+        assertEquals(3, compiled.geometries.size(), "Snapshot was changed");
+        assertEquals(1, compiled.lights.size(), "Snapshot was changed");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: An empty scene
+        CompiledScene empty = new Scene("empty").compile();
+        assertEquals(0, empty.geometries.size(), "Empty scene must have no geometries");
+        assertNull(empty.geometries.findClosestGeoPoint(new Ray(new Point(0, 0, 0), new Vector(1, 0, 0))),
+                "Empty scene must have no intersections");
+    }
+
+    /**
+     * Test method for {@link scene.CompiledScene#getLightMask(Geometry)} and the shadow casters.
+     */
+    @Test
+    void testLightLinks() {
+        PointLight key = new PointLight(new Color(100, 100, 100), new Point(0, 10, 0));
+        PointLight fill = new PointLight(new Color(50, 50, 50), new Point(10, 0, 0));
+        Sphere included = (Sphere) new Sphere(new Point(0, 0, -5), 1).includeLights(key);
+        Sphere excluded = (Sphere) new Sphere(new Point(3, 0, -5), 1).excludeLights(key);
+        Sphere plain = new Sphere(new Point(6, 0, -5), 1);
+        Plane background = (Plane) new Plane(new Point(0, 0, -50), new Vector(0, 0, 1)).setCastsShadows(false);
+        TriangleMesh mesh = new TriangleMesh(new double[]{-1, -1, -10, 1, -1, -10, 0, 1, -10}, new int[]{0, 1, 2});
+        mesh.excludeLights(fill);
+        Scene scene = new Scene("links");
+        scene.geometries.add(included, excluded, plain, background, mesh);
+        scene.lights.add(key);
+        scene.lights.add(fill);
+
+        // ============ Equivalence Partitions Tests ==============
+        CompiledScene compiled = scene.compile();
+
+        //TC01: Included and excluded lights
+        long[] mask = compiled.getLightMask(included);
+        assertTrue(CompiledScene.includes(mask, 0) && !CompiledScene.includes(mask, 1), "Wrong included lights");
+        mask = compiled.getLightMask(excluded);
+        assertTrue(!CompiledScene.includes(mask, 0) && CompiledScene.includes(mask, 1), "Wrong excluded lights");
+
+        //TC02: A geometry without links is illuminated by all the lights
+        assertNull(compiled.getLightMask(plain), "Unlinked geometry has a mask");
+
+        //TC03: A face of a mesh has the links of the mesh
+        Intersectable.GeoPoint face = compiled.geometries.findClosestGeoPoint(
+                new Ray(new Point(0, 0, 0), new Vector(0, 0, -1)));
+        assertNotSame(mesh, face.geometry, "Expected a face of the mesh");
+        mask = compiled.getLightMask(face.geometry);
+        assertTrue(CompiledScene.includes(mask, 0) && !CompiledScene.includes(mask, 1), "Wrong mesh face lights");
+
+        //TC04: A geometry which casts no shadows is left out of the shadow casters
+        assertEquals(4, compiled.shadowCasters.size(), "Wrong shadow caster count");
+        assertNull(compiled.shadowCasters.findGeoIntersections(new Ray(new Point(20, 20, 0), new Vector(0, 0, -1))),
+                "The background casts shadows");
+
+        //TC05: Links changed after compiling take effect in the next compilation only
+        plain.includeLights(key).setCastsShadows(false);
+        assertNull(compiled.getLightMask(plain), "Snapshot links were changed");
+        assertEquals(4, compiled.shadowCasters.size(), "Snapshot shadow casters were changed");
+        CompiledScene relinked = scene.compile();
+        assertNotNull(relinked.getLightMask(plain), "Changed links were not compiled");
+        assertEquals(3, relinked.shadowCasters.size(), "Changed shadow flag was not compiled");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: All the geometries cast shadows - one acceleration structure
+        Scene casting = new Scene("casting");
+        casting.geometries.add(new Sphere(Point.ZERO, 1));
+        CompiledScene all = casting.compile();
+        assertSame(all.geometries, all.shadowCasters, "Built a second acceleration structure");
+
+        //TC11: More than 64 lights
+        Scene many = new Scene("many");
+        for (int i = 0; i < 70; ++i)
+            many.lights.add(new PointLight(new Color(1, 1, 1), new Point(i, 0, 0)));
+        Sphere last = (Sphere) new Sphere(Point.ZERO, 1).includeLights(many.lights.get(69));
+        many.geometries.add(last);
+        mask = many.compile().getLightMask(last);
+        assertTrue(CompiledScene.includes(mask, 69) && !CompiledScene.includes(mask, 5), "Wrong mask of 70 lights");
+    }
+}
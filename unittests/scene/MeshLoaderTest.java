@@ -0,0 +1,149 @@
+package scene;
+
+import geometries.TriangleMesh;
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Ray;
+import primitives.Vector;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.MeshLoader class
+ */
+class MeshLoaderTest {
+
+    /**
+     * A ray down the z axis through the middle of the unit square
+     */
+    private final Ray down = new Ray(new Point(0.3, 0.6, 5), new Vector(0, 0, -1));
+
+    /**
+     * Writes a temporary file.
+     *
+     * @param suffix the file extension
+     * @param bytes  the content
+     * @return the path of the file
+     * @throws IOException if the file cannot be written
+     */
+    private Path write(String suffix, byte[] bytes) throws IOException {
+        Path path = Files.createTempFile("mesh", suffix);
+        path.toFile().deleteOnExit();
+        return Files.write(path, bytes);
+    }
+
+    /**
+     * Builds a binary little endian PLY file of the unit square in the plane z=0.
+     *
+     * @param quad true for a single quad face, false for two triangles
+     * @return the file content
+     */
+    private byte[] squarePly(boolean quad) {
+        String header = "ply\nformat binary_little_endian 1.0\ncomment test\n"
+                + "element vertex 4\nproperty float x\nproperty float y\nproperty float z\n"
+                + "property float nx\nproperty float ny\nproperty float nz\n"
+                + "element face " + (quad ? 1 : 2) + "\nproperty list uchar int vertex_indices\nend_header\n";
+        ByteBuffer buffer = ByteBuffer.allocate(header.length() + 4 * 24 + 2 * 13).order(ByteOrder.LITTLE_ENDIAN);
+        buffer.put(header.getBytes(StandardCharsets.US_ASCII));
+        float[][] vertices = {{0, 0, 0}, {1, 0, 0}, {1, 1, 0}, {0, 1, 0}};
+        for (float[] v : vertices)
+            buffer.putFloat(v[0]).putFloat(v[1]).putFloat(v[2]).putFloat(0).putFloat(0).putFloat(1);
+        if (quad)
+            buffer.put((byte) 4).putInt(0).putInt(1).putInt(2).putInt(3);
+        else {
+            buffer.put((byte) 3).putInt(0).putInt(1).putInt(2);
+            buffer.put((byte) 3).putInt(0).putInt(2).putInt(3);
+        }
+        buffer.flip();
+        byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        return bytes;
+    }
+
+    /**
+     * Test method for {@link scene.MeshLoader#loadObj(Path)}.
+     */
+    @Test
+    void testLoadObj() throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Triangles, a quad, comments, texture/normal references and relative indices
+        String obj = """
+                # unit square and a triangle above it
+                o square
+                v 0 0 0
+                v 1.0 0 0
+                v 1 1e0 0
+                v 0.0 1 -0.0
+                vt 0 0
+                vn 0 0 1
+                f 1/1/1 2/1/1 3/1/1 4/1/1
+                v -1 -1 1
+                v 2 -1 1
+                v 0.5 3 1\r
+                f -3//1 -2//1 -1//1\r
+                """;
+        TriangleMesh mesh = MeshLoader.loadObj(write(".obj", obj.getBytes(StandardCharsets.US_ASCII)));
+        assertEquals(7, mesh.getVertexCount(), "Wrong vertex count");
+        assertEquals(3, mesh.getTriangleCount(), "Wrong triangle count (quad must be split into 2)");
+        List<Point> result = mesh.findIntersections(down);
+        assertNotNull(result, "Ray crosses the mesh but result is null");
+        assertEquals(2, result.size(), "Ray must cross the square and the triangle");
+
+        //TC02: Parsing in several chunks gives the same mesh as parsing in one
+        StringBuilder big = new StringBuilder();
+        for (int i = 0; i < 300; ++i)
+            big.append("v ").append(i).append(" 0 0\nv ").append(i).append(" 1 0\nv ").append(i + 0.5).append(" 0.5 1\n")
+                    .append("f -3 -2 -1\n");
+        Path path = write(".obj", big.toString().getBytes(StandardCharsets.US_ASCII));
+        TriangleMesh whole = MeshLoader.loadObj(path);
+        TriangleMesh chunked = MeshLoader.loadObj(path, 100);
+        assertEquals(whole.getVertexCount(), chunked.getVertexCount(), "Chunks lost vertices");
+        assertEquals(whole.getTriangleCount(), chunked.getTriangleCount(), "Chunks lost triangles");
+        for (int i = 0; i < 300; i += 7) {
+            Ray ray = new Ray(new Point(i + 0.25, 0.5, 5), new Vector(0, 0, -1));
+            assertEquals(whole.findIntersections(ray), chunked.findIntersections(ray), "Chunks parsed differently");
+        }
+
+        // =============== Boundary Values Tests ==================
+        //TC10: A face referring to a missing vertex
+        assertThrows(IllegalArgumentException.class,
+                () -> MeshLoader.loadObj(write(".obj", "v 0 0 0\nv 1 0 0\nf 1 2 3\n".getBytes(StandardCharsets.US_ASCII))),
+                "Loaded a face with a missing vertex");
+
+        //TC11: An empty file
+        assertEquals(0, MeshLoader.loadObj(write(".obj", new byte[0])).getTriangleCount(), "Empty file must give an empty mesh");
+    }
+
+    /**
+     * Test method for {@link scene.MeshLoader#loadPly(Path)}.
+     */
+    @Test
+    void testLoadPly() throws IOException {
+        // ============ Equivalence Partitions Tests ==============
+        //TC01: Triangles with vertex normals
+        TriangleMesh mesh = MeshLoader.load(write(".ply", squarePly(false)));
+        assertEquals(4, mesh.getVertexCount(), "Wrong vertex count");
+        assertEquals(2, mesh.getTriangleCount(), "Wrong triangle count");
+        assertTrue(mesh.isSmooth(), "Vertex normals were not loaded");
+        assertEquals(List.of(new Point(0.3, 0.6, 0)), mesh.findIntersections(down), "Wrong intersection point");
+
+        //TC02: A polygon face is triangulated
+        mesh = MeshLoader.load(write(".ply", squarePly(true)));
+        assertEquals(2, mesh.getTriangleCount(), "Quad must be split into 2 triangles");
+        assertEquals(List.of(new Point(0.3, 0.6, 0)), mesh.findIntersections(down), "Wrong intersection point");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: An ASCII PLY file
+        assertThrows(IllegalArgumentException.class,
+                () -> MeshLoader.loadPly(write(".ply", "ply\nformat ascii 1.0\nend_header\n".getBytes(StandardCharsets.US_ASCII))),
+                "ASCII PLY is not supported");
+    }
+}
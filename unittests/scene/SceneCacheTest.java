@@ -0,0 +1,190 @@
+package scene;
+
+import geometries.*;
+import lighting.*;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import renderer.Camera;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.SceneCache class
+ */
+class SceneCacheTest {
+
+    /**
+     * Writes a scene to a temporary cache file and reads it back.
+     *
+     * @param scene  the scene
+     * @param camera the camera or null
+     * @return the read scene and camera settings
+     * @throws IOException if the cache cannot be written or read
+     */
+    private SceneSetup roundTrip(Scene scene, Camera camera) throws IOException {
+        Path path = Files.createTempFile("scene", ".cache");
+        path.toFile().deleteOnExit();
+        SceneCache.write(path, scene, camera);
+        return SceneCache.read(path);
+    }
+
+    /**
+     * Test method for {@link scene.SceneCache#write(Path, Scene, Camera)}, {@link scene.SceneCache#read(Path)}
+     * and {@link scene.SceneCache#read(byte[])}.
+     */
+    @Test
+    void testRoundTrip() throws IOException {
+        Material shared = new Material().setKD(new Double3(0.2, 0.3, 0.4)).setKS(0.5).setKR(0.1).setShininess(30);
+        Material other = new Material().setKT(0.6);
+        TriangleMesh mesh = new TriangleMesh(
+                new double[]{-1, -1, -10, 1, -1, -10, 1, 1, -10, -1, 1, -10},
+                new int[]{0, 1, 2, 0, 2, 3});
+        mesh.setMaterial(other);
+
+        Scene scene = new Scene("cached")
+                .setBackground(new Color(10, 20, 30))
+                .setAmbientLight(new AmbientLight(new Color(50, 50, 50), 0.2));
+        scene.geometries.add(
+                new Sphere(new Point(0, 0, 5), 2).setMaterial(shared).setEmission(new Color(100, 0, 0)),
+                new Plane(new Point(0, 0, -20), new Vector(0, 0, 1)).setMaterial(shared),
+                new Geometries(
+                        new Triangle(new Point(-3, -3, -15), new Point(3, -3, -15), new Point(0, 3, -15)),
+                        new Polygon(new Point(-4, -4, -18), new Point(4, -4, -18), new Point(4, 4, -18), new Point(-4, 4, -18))
+                                .setMaterial(other)),
+                new Cylinder(new Ray(new Point(10, 0, 0), new Vector(0, 0, 1)), 1, 3),
+                new Tube(new Ray(new Point(-10, 0, 0), new Vector(0, 1, 0)), 1),
+                mesh);
+        DirectionalLight sun = new DirectionalLight(new Color(100, 100, 100), new Vector(1, -1, -1));
+        scene.lights.add(sun);
+        scene.lights.add(new PointLight(new Color(200, 100, 0), new Point(5, 5, 5)).setKL(0.01).setKQ(0.002));
+        scene.lights.add(new SpotLight(new Color(0, 100, 200), new Point(-5, 5, 5), new Vector(1, -1, -2)).setKC(2)
+                .setShadowMap(512).setShadowMapBias(2).setShadowMapAngle(45));
+        scene.lights.add(new RectangleLight(new Color(50, 50, 50), new Point(0, 10, 0),
+                new Vector(2, 0, 0), new Vector(0, 0, 3)).setSamples(16).setKL(0.1));
+        scene.lights.add(new DiskLight(new Color(60, 60, 60), new Point(0, -10, 0), new Vector(0, 1, 0), 2)
+                .setSamples(20));
+        ((Geometry) scene.geometries.getGeometries().get(1)).setCastsShadows(false).excludeLights(sun);
+        mesh.includeLights(sun);
+        Camera camera = Camera.getBuilder()
+                .setLocation(new Point(0, 0, 100))
+                .setDirection(new Vector(0, 0, -1), new Vector(0, 1, 0))
+                .setVpSize(150, 100)
+                .setVpDistance(120)
+                .setNumberOfRays(9)
+                .setThreadsCount(3)
+                .setSeed(-7)
+                .setImageWriter(new renderer.ImageWriter("cache", 30, 20))
+                .setRayTracer(new renderer.SimpleRayTracer(scene))
+                .build();
+
+        // ============ Equivalence Partitions Tests ==============
+        SceneSetup setup = roundTrip(scene, camera);
+        Scene read = setup.scene();
+
+        //TC01: Scene attributes
+        assertEquals("cached", read.name, "Wrong scene name");
+        assertEquals(scene.background.getRgb(), read.background.getRgb(), "Wrong background");
+        assertEquals(scene.ambientLight.getIntensity().getRgb(), read.ambientLight.getIntensity().getRgb(),
+                "Wrong ambient light");
+
+        //TC02: Geometries give the same intersections
+        for (int x = -12; x <= 12; x += 2)
+            for (int y = -6; y <= 6; y += 3) {
+                Ray ray = new Ray(new Point(x, y, 100), new Vector(0.01 * x, 0.02, -1));
+                assertEquals(scene.geometries.findIntersections(ray), read.geometries.findIntersections(ray),
+                        "Different intersections for " + ray);
+            }
+
+        //TC03: Materials, sharing and emission are restored
+        List<Intersectable> geometries = read.geometries.getGeometries();
+        Geometry sphere = (Geometry) geometries.get(0);
+        Geometry plane = (Geometry) geometries.get(1);
+        assertSame(sphere.getMaterial(), plane.getMaterial(), "Shared material was not kept shared");
+        assertEquals(shared.kD, sphere.getMaterial().kD, "Wrong kD");
+        assertEquals(shared.kS, sphere.getMaterial().kS, "Wrong kS");
+        assertEquals(shared.kR, sphere.getMaterial().kR, "Wrong kR");
+        assertEquals(30, sphere.getMaterial().nShininess, "Wrong shininess");
+        assertEquals(new Double3(100, 0, 0), sphere.getEmission().getRgb(), "Wrong emission");
+        Geometry polygon = (Geometry) ((Geometries) geometries.get(2)).getGeometries().get(1);
+        assertSame(((Geometry) geometries.get(5)).getMaterial(), polygon.getMaterial(),
+                "Shared material was not kept shared");
+        assertEquals(other.kT, polygon.getMaterial().kT, "Wrong kT");
+
+        //TC04: Lights
+        assertEquals(5, read.lights.size(), "Wrong light count");
+        Point target = new Point(1, 2, 3);
+        for (int i = 0; i < 5; ++i) {
+            LightSource expected = scene.lights.get(i);
+            LightSource actual = read.lights.get(i);
+            assertEquals(expected.getClass(), actual.getClass(), "Wrong light type");
+            assertEquals(expected.getIntensity(target).getRgb(), actual.getIntensity(target).getRgb(),
+                    "Wrong light intensity");
+            assertEquals(expected.getL(target), actual.getL(target), "Wrong light direction");
+        }
+        SpotLight spot = (SpotLight) read.lights.get(2);
+        assertEquals(512, spot.getShadowMapResolution(), "Wrong shadow map resolution");
+        assertEquals(2, spot.getShadowMapBias(), "Wrong shadow map bias");
+        assertEquals(45, spot.getShadowMapAngle(), "Wrong shadow map angle");
+        for (int i = 3; i < 5; ++i)
+            assertArrayEquals(((AreaLight) scene.lights.get(i)).getSamplePoints(),
+                    ((AreaLight) read.lights.get(i)).getSamplePoints(), "Wrong area light samples");
+
+        //TC05: Light links and shadow casters
+        assertFalse(plane.castsShadows(), "Lost the shadow caster flag");
+        assertEquals(Set.of(read.lights.getFirst()), plane.getExcludedLights(), "Lost the excluded lights");
+        assertEquals(Set.of(read.lights.getFirst()), ((Geometry) geometries.get(5)).getIncludedLights(),
+                "Lost the included lights");
+        assertTrue(sphere.castsShadows() && !sphere.isLightLinked(), "Wrong links of an unlinked geometry");
+
+        //TC06: Camera settings
+        Camera restored = setup.camera()
+                .setImageWriter(new renderer.ImageWriter("cache", 30, 20))
+                .setRayTracer(new renderer.SimpleRayTracer(read))
+                .build();
+        assertEquals(camera.getP0(), restored.getP0(), "Wrong camera location");
+        assertEquals(camera.getvTo(), restored.getvTo(), "Wrong camera direction");
+        assertEquals(camera.getvUp(), restored.getvUp(), "Wrong camera up");
+        assertEquals(150, restored.getWidth(), "Wrong view plane width");
+        assertEquals(100, restored.getHeight(), "Wrong view plane height");
+        assertEquals(120, restored.getDistance(), "Wrong view plane distance");
+        assertEquals(9, restored.getNumberOfRays(), "Wrong number of rays");
+        assertEquals(3, restored.getThreadsCount(), "Wrong threads count");
+        assertEquals(-7, restored.getSeed(), "Wrong seed");
+
+        //TC07: Compiling reuses the restored acceleration structures, until the geometries are changed
+        CompiledScene compiled = read.compile();
+        assertEquals(2, read.accelerators.size(), "Wrong amount of restored acceleration structures");
+        assertSame(read.accelerators.get(0), compiled.geometries, "Rebuilt the BVH of the geometries");
+        assertSame(read.accelerators.get(1), compiled.shadowCasters, "Rebuilt the BVH of the shadow casters");
+        Ray ray = new Ray(new Point(1, 1, 100), new Vector(0, 0, -1));
+        assertEquals(scene.compile().geometries.findClosestGeoPoint(ray, null).point,
+                compiled.geometries.findClosestGeoPoint(ray, null).point, "Wrong closest hit of the restored BVH");
+        read.geometries.add(new Sphere(new Point(0, 0, 50), 1));
+        assertNotSame(read.accelerators.get(0), read.compile().geometries, "Reused a BVH of other geometries");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: No camera and no lights
+        setup = roundTrip(new Scene("empty"), null);
+        assertNull(setup.camera(), "No camera was cached");
+        assertTrue(setup.scene().lights.isEmpty(), "No lights were cached");
+        assertTrue(setup.scene().geometries.getGeometries().isEmpty(), "No geometries were cached");
+
+        //TC11: Not a cache file
+        Path path = Files.createTempFile("scene", ".cache");
+        path.toFile().deleteOnExit();
+        Files.writeString(path, "not a scene cache");
+        assertThrows(IllegalArgumentException.class, () -> SceneCache.read(path), "Read a file which is not a cache");
+
+        //TC12: The content of a cache file, read from memory
+        SceneCache.write(path, new Scene("memory"), null);
+        assertEquals("memory", SceneCache.read(Files.readAllBytes(path)).scene().name, "Wrong scene from memory");
+        assertThrows(IllegalArgumentException.class, () -> SceneCache.read(new byte[4]),
+                "Read content which is not a cache");
+    }
+}
@@ -0,0 +1,179 @@
+package scene;
+
+import geometries.*;
+import lighting.*;
+import org.junit.jupiter.api.Test;
+import primitives.*;
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.SimpleRayTracer;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.Set;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for scene.SceneParser class
+ */
+class SceneParserTest {
+
+    /**
+     * Parses a description given as a string.
+     *
+     * @param xml       the description
+     * @param directory the directory of mesh files
+     * @return the parsed scene and camera settings
+     * @throws IOException if a mesh file cannot be read
+     */
+    private SceneSetup parse(String xml, Path directory) throws IOException {
+        return SceneParser.parse(new ByteArrayInputStream(xml.getBytes(StandardCharsets.UTF_8)), directory);
+    }
+
+    /**
+     * Test method for {@link scene.SceneParser#parse(Path)}.
+     */
+    @Test
+    void testParse() throws IOException {
+        Path directory = Files.createTempDirectory("scene");
+        directory.toFile().deleteOnExit();
+        Path obj = Files.writeString(directory.resolve("square.obj"), "v -1 -1 -10\nv 1 -1 -10\nv 1 1 -10\nv -1 1 -10\nf 1 2 3 4\n");
+        obj.toFile().deleteOnExit();
+        Path file = Files.writeString(directory.resolve("scene.xml"), """
+                <?xml version="1.0"?>
+                <!-- every kind of element -->
+                <scene name="parsed" background="10 20 30">
+                  <ambient color="50 50 50" ka="0.2"/>
+                  <material id="shiny" kD="0.2 0.3 0.4" kS="0.5" kR="0.1" shininess="30"/>
+                  <material id="glass" kT="0.6"/>
+                  <lights>
+                    <directional id="sun" intensity="100 100 100" direction="1 -1 -1" shadowMap="256"/>
+                  </lights>
+                  <geometries>
+                    <sphere center="0 0 5" radius="2" emission="100 0 0" material="shiny" lights="sun"/>
+                    <plane point="0 0 -20" normal="0 0 1" material="shiny" castsShadows="false" excludeLights="sun"/>
+                    <geometries>
+                      <triangle vertices="-3 -3 -15, 3 -3 -15, 0 3 -15"/>
+                      <polygon vertices="-4,-4,-18  4,-4,-18  4,4,-18  -4,4,-18" material="glass"/>
+                    </geometries>
+                    <cylinder head="10 0 0" direction="0 0 1" radius="1" height="3"/>
+                    <tube head="-10 0 0" direction="0 1 0" radius="1"/>
+                    <mesh file="square.obj" material="glass"/>
+                  </geometries>
+                  <lights>
+                    <point intensity="200 100 0" position="5 5 5" kL="0.01" kQ="0.002"/>
+                    <spot intensity="0 100 200" position="-5 5 5" direction="1 -1 -2" kC="2"/>
+                    <rectangle intensity="50 50 50" position="0 10 0" edge1="2 0 0" edge2="0 0 3" samples="16"/>
+                    <disk intensity="60 60 60" position="0 -10 0" normal="0 1 0" radius="2" kQ="0.01"/>
+                  </lights>
+                  <camera location="0 0 100" to="0 0 -1" up="0 1 0" width="150" height="100" distance="120"
+                          rays="9" threads="3" seed="42"/>
+                </scene>
+                """);
+        file.toFile().deleteOnExit();
+
+        // ============ Equivalence Partitions Tests ==============
+        SceneSetup setup = SceneParser.parse(file);
+        Scene scene = setup.scene();
+
+        //TC01: Scene attributes
+        assertEquals("parsed", scene.name, "Wrong scene name");
+        assertEquals(new Double3(10, 20, 30), scene.background.getRgb(), "Wrong background");
+        assertEquals(new Double3(10, 10, 10), scene.ambientLight.getIntensity().getRgb(), "Wrong ambient light");
+
+        //TC02: Geometries in order, with the nested composite
+        List<Intersectable> geometries = scene.geometries.getGeometries();
+        assertEquals(6, geometries.size(), "Wrong geometry count");
+        assertInstanceOf(Sphere.class, geometries.get(0), "Wrong geometry type");
+        assertInstanceOf(Plane.class, geometries.get(1), "Wrong geometry type");
+        List<Intersectable> nested = ((Geometries) geometries.get(2)).getGeometries();
+        assertInstanceOf(Triangle.class, nested.get(0), "Wrong geometry type");
+        assertInstanceOf(Polygon.class, nested.get(1), "Wrong geometry type");
+        assertInstanceOf(Cylinder.class, geometries.get(3), "Wrong geometry type");
+        assertInstanceOf(Tube.class, geometries.get(4), "Wrong geometry type");
+        assertEquals(2, ((TriangleMesh) geometries.get(5)).getTriangleCount(), "Mesh file was not loaded");
+        assertEquals(List.of(new Point(0, 0, 7), new Point(0, 0, 3)),
+                geometries.get(0).findIntersections(new Ray(new Point(0, 0, 100), new Vector(0, 0, -1))),
+                "Wrong sphere");
+
+        //TC03: Materials and emission, with shared instances
+        Geometry sphere = (Geometry) geometries.get(0);
+        assertSame(sphere.getMaterial(), ((Geometry) geometries.get(1)).getMaterial(), "Material id was not shared");
+        assertSame(((Geometry) nested.get(1)).getMaterial(), ((Geometry) geometries.get(5)).getMaterial(),
+                "Material id was not shared");
+        assertEquals(new Double3(0.2, 0.3, 0.4), sphere.getMaterial().kD, "Wrong kD triad");
+        assertEquals(new Double3(0.5), sphere.getMaterial().kS, "Wrong kS number");
+        assertEquals(30, sphere.getMaterial().nShininess, "Wrong shininess");
+        assertEquals(new Double3(100, 0, 0), sphere.getEmission().getRgb(), "Wrong emission");
+
+        //TC04: Lights
+        assertEquals(5, scene.lights.size(), "Wrong light count");
+        Point target = new Point(1, 2, 3);
+        DirectionalLight directional = assertInstanceOf(DirectionalLight.class, scene.lights.get(0), "Wrong light type");
+        assertEquals(256, directional.getShadowMapResolution(), "Wrong shadow map resolution");
+        PointLight point = assertInstanceOf(PointLight.class, scene.lights.get(1), "Wrong light type");
+        assertEquals(0.01, point.getKL(), "Wrong kL");
+        assertEquals(0.002, point.getKQ(), "Wrong kQ");
+        SpotLight spot = assertInstanceOf(SpotLight.class, scene.lights.get(2), "Wrong light type");
+        assertEquals(2, spot.getKC(), "Wrong kC");
+        assertEquals(new Vector(1, -1, -2).normalize(), spot.getDirection(), "Wrong spotlight direction");
+        assertEquals(new Vector(1, -1, -1).normalize(), scene.lights.get(0).getL(target), "Wrong light direction");
+        RectangleLight rectangle = assertInstanceOf(RectangleLight.class, scene.lights.get(3), "Wrong light type");
+        assertEquals(new Vector(0, 0, 3), rectangle.getEdge2(), "Wrong rectangle edge");
+        assertEquals(16, rectangle.getSamples(), "Wrong sample count");
+        DiskLight disk = assertInstanceOf(DiskLight.class, scene.lights.get(4), "Wrong light type");
+        assertEquals(2, disk.getRadius(), "Wrong disk radius");
+        assertEquals(0.01, disk.getKQ(), "Wrong kQ");
+
+        //TC05: Light links and shadow casters
+        assertEquals(Set.of(directional), sphere.getIncludedLights(), "Wrong included lights");
+        Geometry plane = (Geometry) geometries.get(1);
+        assertEquals(Set.of(directional), plane.getExcludedLights(), "Wrong excluded lights");
+        assertFalse(plane.castsShadows(), "Wrong shadow caster flag");
+
+        //TC06: Camera settings
+        Camera camera = setup.camera()
+                .setImageWriter(new ImageWriter("parsed", 30, 20))
+                .setRayTracer(new SimpleRayTracer(scene))
+                .build();
+        assertEquals(new Point(0, 0, 100), camera.getP0(), "Wrong camera location");
+        assertEquals(new Vector(0, 0, -1), camera.getvTo(), "Wrong camera direction");
+        assertEquals(150, camera.getWidth(), "Wrong view plane width");
+        assertEquals(120, camera.getDistance(), "Wrong view plane distance");
+        assertEquals(9, camera.getNumberOfRays(), "Wrong number of rays");
+        assertEquals(3, camera.getThreadsCount(), "Wrong threads count");
+        assertEquals(42, camera.getSeed(), "Wrong seed");
+
+        // =============== Boundary Values Tests ==================
+        //TC10: An empty scene
+        setup = parse("<scene/>", directory);
+        assertNull(setup.camera(), "No camera was described");
+        assertTrue(setup.scene().geometries.getGeometries().isEmpty(), "No geometries were described");
+
+        //TC11: A material referred to before its definition
+        assertThrows(IllegalArgumentException.class,
+                () -> parse("<scene><sphere center='0 0 0' radius='1' material='m'/><material id='m'/></scene>", directory),
+                "Referred to an undefined material");
+
+        //TC12: A missing attribute, a malformed triad, an unknown element and malformed XML
+        assertThrows(IllegalArgumentException.class, () -> parse("<scene><sphere radius='1'/></scene>", directory),
+                "Parsed a sphere without a center");
+        assertThrows(IllegalArgumentException.class,
+                () -> parse("<scene><sphere center='0 0' radius='1'/></scene>", directory), "Parsed a short triad");
+        assertThrows(IllegalArgumentException.class,
+                () -> parse("<scene><sphere center='0 0 0' radius='1' lights='sun'/></scene>", directory),
+                "Referred to an undefined light");
+        assertThrows(IllegalArgumentException.class,
+                () -> parse("<scene><sphere center='0 0 0' radius='1' castsShadows='no'/></scene>", directory),
+                "Parsed a malformed flag");
+        assertThrows(IllegalArgumentException.class, () -> parse("<scene><cube/></scene>", directory),
+                "Parsed an unknown element");
+        assertThrows(IllegalArgumentException.class, () -> parse("<scene><sphere></scene>", directory),
+                "Parsed malformed XML");
+    }
+}
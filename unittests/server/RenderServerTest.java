@@ -0,0 +1,113 @@
+package server;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Vector;
+
+import javax.imageio.ImageIO;
+import java.awt.image.BufferedImage;
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for server.RenderServer class
+ */
+class RenderServerTest {
+
+    /**
+     * Writes a scene description of a lit sphere.
+     *
+     * @param directory the directory of the file
+     * @param name      the name of the file and of the scene
+     * @return the path of the file
+     * @throws IOException if the file cannot be written
+     */
+    private Path writeScene(Path directory, String name) throws IOException {
+        Path file = Files.writeString(directory.resolve(name + ".xml"), """
+                <scene name="%s" background="10 20 30">
+                  <geometries>
+                    <sphere center="0 0 -50" radius="10" emission="100 0 0"/>
+                  </geometries>
+                  <lights>
+                    <point intensity="200 200 200" position="20 30 0"/>
+                  </lights>
+                </scene>
+                """.formatted(name));
+        file.toFile().deleteOnExit();
+        return file;
+    }
+
+    /**
+     * Builds a job over a scene file, viewing the sphere from a location on the z axis.
+     *
+     * @param file the scene file
+     * @param z    the distance of the camera from the origin
+     * @return the job
+     */
+    private RenderJob job(Path file, double z) {
+        return new RenderJob(file.toString(), new Point(0, 0, z), new Vector(0, 0, -1), new Vector(0, 1, 0),
+                40, 30, 50, 32, 24, 1, 2, 0);
+    }
+
+    /**
+     * Decodes an image sent by the server.
+     *
+     * @param png the png encoded image
+     * @return the image
+     * @throws IOException if the image cannot be decoded
+     */
+    private BufferedImage decode(byte[] png) throws IOException {
+        return ImageIO.read(new ByteArrayInputStream(png));
+    }
+
+    /**
+     * Test method for {@link server.RenderClient#render(RenderJob)}.
+     */
+    @Test
+    void testRender() throws IOException {
+        Path directory = Files.createTempDirectory("server");
+        directory.toFile().deleteOnExit();
+        Path first = writeScene(directory, "first");
+        Path second = writeScene(directory, "second");
+
+        try (RenderServer server = new RenderServer(0, 1).start();
+             RenderClient client = new RenderClient(server.getPort())) {
+            // ============ Equivalence Partitions Tests ==============
+            //TC01: The image of a job, from a compiled scene
+            BufferedImage image = decode(client.render(job(first, 50)));
+            assertEquals(32, image.getWidth(), "Wrong image width");
+            assertEquals(24, image.getHeight(), "Wrong image height");
+            assertEquals(new java.awt.Color(10, 20, 30).getRGB(), image.getRGB(0, 0), "Wrong background");
+            assertNotEquals(image.getRGB(0, 0), image.getRGB(16, 12), "The sphere is missing");
+            assertEquals(1, server.getCacheMisses(), "The scene was not compiled");
+
+            //TC02: Another viewpoint of the same scene skips the compilation
+            BufferedImage farther = decode(client.render(job(first, 150)));
+            assertEquals(1, server.getCacheHits(), "The cached scene was not used");
+            assertNotEquals(image.getRGB(13, 12), farther.getRGB(13, 12), "The viewpoint was ignored");
+
+            //TC03: A failed job is reported, and the connection goes on
+            IOException failure = assertThrows(IOException.class,
+                    () -> client.render(job(directory.resolve("missing.xml"), 50)), "Rendered a missing file");
+            assertTrue(failure.getMessage().contains("missing.xml"), "The failure does not name the file");
+            assertNotNull(decode(client.render(job(first, 50))), "The connection did not survive a failure");
+
+            // =============== Boundary Values Tests ==================
+            //TC10: A full cache evicts the least recently used scene
+            client.render(job(second, 50));
+            assertEquals(1, server.getCachedScenes(), "The cache exceeded its capacity");
+            long misses = server.getCacheMisses();
+            client.render(job(first, 50));
+            assertEquals(misses + 1, server.getCacheMisses(), "The evicted scene was not compiled again");
+        }
+
+        //TC11: Invalid jobs and caches
+        assertThrows(IllegalArgumentException.class, () -> new RenderJob(first.toString(), Point.ZERO,
+                new Vector(0, 0, -1), new Vector(0, 1, 0), 40, 30, 50, 0, 24, 1, 0, 0), "Accepted an empty image");
+        assertThrows(IllegalArgumentException.class, () -> new RenderServer(0, 0), "Accepted an empty cache");
+    }
+}
@@ -0,0 +1,175 @@
+package server;
+
+import org.junit.jupiter.api.Test;
+import primitives.Point;
+import primitives.Vector;
+import renderer.Camera;
+import renderer.ImageWriter;
+import renderer.SimpleRayTracer;
+import scene.SceneParser;
+
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicBoolean;
+
+import static org.junit.jupiter.api.Assertions.*;
+
+/**
+ * Unit tests for server.TileCoordinator class
+ */
+class TileCoordinatorTest {
+
+    /**
+     * A worker which loads any scene and then never answers a tile - a straggler.
+     */
+    private static final class HungWorker implements AutoCloseable {
+        private final ServerSocket serverSocket = new ServerSocket(0, 50, InetAddress.getLoopbackAddress());
+        /**
+         * Whether a tile was handed out to the worker
+         */
+        private final AtomicBoolean gotTile = new AtomicBoolean();
+
+        /**
+         * Starts the worker.
+         *
+         * @throws IOException if the port cannot be bound
+         */
+        HungWorker() throws IOException {
+            new Thread(() -> {
+                try (Socket socket = serverSocket.accept()) {
+                    DataInputStream in = new DataInputStream(socket.getInputStream());
+                    DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                    in.readInt();
+                    in.readFully(new byte[in.readInt()]);
+                    RenderJob.read(in);
+                    out.writeByte(RenderServer.OK);
+                    out.flush();
+                    in.readInt();
+                    gotTile.set(true);
+                    while (in.read() >= 0) ; // hang until the coordinator drops the connection
+                } catch (IOException ignore) {
+                }
+            }).start();
+        }
+
+        InetSocketAddress address() {
+            return new InetSocketAddress(InetAddress.getLoopbackAddress(), serverSocket.getLocalPort());
+        }
+
+        @Override
+        public void close() throws IOException {
+            serverSocket.close();
+        }
+    }
+
+    /**
+     * Test method for {@link server.TileCoordinator#render(RenderJob, ImageWriter)}.
+     */
+    @Test
+    void testRender() throws IOException {
+        Path directory = Files.createTempDirectory("tiles");
+        directory.toFile().deleteOnExit();
+        Path file = Files.writeString(directory.resolve("tiles.xml"), """
+                <scene name="tiles" background="10 20 30">
+                  <material id="glossy" kD="0.5" kS="0.3" shininess="20" kR="0.2"/>
+                  <geometries>
+                    <sphere center="0 0 -50" radius="10" material="glossy"/>
+                    <plane point="0 -10 0" normal="0 1 0"/>
+                  </geometries>
+                  <lights>
+                    <point intensity="200 200 200" position="20 30 0"/>
+                  </lights>
+                </scene>
+                """);
+        file.toFile().deleteOnExit();
+        RenderJob job = new RenderJob(file.toString(), new Point(0, 0, 50), new Vector(0, 0, -1),
+                new Vector(0, 1, 0), 40, 30, 50, 32, 24, 2, 0, 3);
+
+        // The same image rendered locally
+        ImageWriter local = new ImageWriter("local", 32, 24);
+        Camera.getBuilder()
+                .setRayTracer(new SimpleRayTracer(SceneParser.parse(file).scene()))
+                .setImageWriter(local)
+                .setLocation(job.location()).setDirection(job.to(), job.up())
+                .setVpSize(40, 30).setVpDistance(50)
+                .setNumberOfRays(2).setSeed(3)
+                .build().renderImage();
+
+        InetSocketAddress dead;
+        try (ServerSocket closed = new ServerSocket(0, 50, InetAddress.getLoopbackAddress())) {
+            dead = new InetSocketAddress(InetAddress.getLoopbackAddress(), closed.getLocalPort());
+        }
+
+        try (TileWorker first = new TileWorker(InetAddress.getLoopbackAddress(), 0, 2).start();
+             TileWorker second = new TileWorker(InetAddress.getLoopbackAddress(), 0, 2).start();
+             HungWorker hung = new HungWorker()) {
+            TileCoordinator coordinator = new TileCoordinator(List.of(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), first.getPort()),
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), second.getPort()),
+                    hung.address(), dead), 2).setTileSize(4);
+
+            // ============ Equivalence Partitions Tests ==============
+            //TC01: The assembled image is the local image, despite a hung worker and an unreachable worker
+            ImageWriter distributed = new ImageWriter("distributed", 32, 24);
+            coordinator.render(job, distributed);
+            for (int i = 0; i < 24; ++i)
+                for (int j = 0; j < 32; ++j)
+                    assertEquals(local.getRgb(j, i), distributed.getRgb(j, i), "Wrong pixel (" + j + ", " + i + ")");
+            if (hung.gotTile.get())
+                assertTrue(coordinator.getReissuedTiles() > 0, "The tile of the hung worker was not re-issued");
+
+            //TC02: Each worker loads the scene once, for all its connections and renderings
+            coordinator.render(job, new ImageWriter("again", 32, 24));
+            assertEquals(1, first.getLoadedScenes(), "The first worker loaded the scene again");
+            assertEquals(1, second.getLoadedScenes(), "The second worker loaded the scene again");
+
+            //TC03: Without a straggler no tile is rendered twice
+            TileCoordinator healthy = new TileCoordinator(List.of(
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), first.getPort()),
+                    new InetSocketAddress(InetAddress.getLoopbackAddress(), second.getPort())), 2).setTileSize(4);
+            healthy.render(job, new ImageWriter("healthy", 32, 24));
+            assertEquals(0, healthy.getReissuedTiles(), "Re-issued the tail of a rendering without stragglers");
+
+            //TC04: A hung worker is dropped after the read timeout
+            TileCoordinator timed = new TileCoordinator(List.of(hung.address()), 1).setReadTimeout(200);
+            assertThrows(IOException.class, () -> timed.render(job, new ImageWriter("timed", 32, 24)),
+                    "Waited for a hung worker beyond the read timeout");
+        }
+
+        // =============== Boundary Values Tests ==================
+        //TC10: No reachable worker
+        TileCoordinator unreachable = new TileCoordinator(List.of(dead), 1);
+        assertThrows(IOException.class, () -> unreachable.render(job, new ImageWriter("none", 32, 24)),
+                "Rendered without workers");
+
+        //TC11: An image writer of another size, and no workers
+        assertThrows(IllegalArgumentException.class, () -> unreachable.render(job, new ImageWriter("small", 8, 8)),
+                "Rendered into an image writer of another size");
+        assertThrows(IllegalArgumentException.class, () -> new TileCoordinator(List.of(), 1),
+                "Accepted a coordinator without workers");
+        assertThrows(IllegalArgumentException.class, () -> unreachable.setReadTimeout(-1),
+                "Accepted a negative read timeout");
+
+        //TC12: A worker rejects a scene size out of range, without allocating it
+        try (TileWorker worker = new TileWorker(InetAddress.getLoopbackAddress(), 0, 1).start()) {
+            for (int size : new int[]{-1, TileWorker.MAX_SCENE_SIZE + 1})
+                try (Socket socket = new Socket(InetAddress.getLoopbackAddress(), worker.getPort());
+                     DataOutputStream out = new DataOutputStream(socket.getOutputStream());
+                     DataInputStream in = new DataInputStream(socket.getInputStream())) {
+                    out.writeInt(TileWorker.MAGIC);
+                    out.writeInt(size);
+                    out.flush();
+                    assertEquals(RenderServer.FAILED, in.readByte(), "Accepted a scene of " + size + " bytes");
+                }
+            assertEquals(0, worker.getLoadedScenes(), "Loaded a scene of a size out of range");
+        }
+    }
+}